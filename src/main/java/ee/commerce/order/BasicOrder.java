@@ -19,6 +19,7 @@ public class BasicOrder implements Order {
     
     private final String productName;
     private final BigDecimal basePrice;
+    private final long basePriceCents;
     
     /**
      * Creates a new basic order.
@@ -37,6 +38,7 @@ public class BasicOrder implements Order {
         
         this.productName = productName;
         this.basePrice = basePrice;
+        this.basePriceCents = Money.toCents(basePrice);
         
         logger.debug("Created BasicOrder: {} with price {}", productName, basePrice);
     }
@@ -46,11 +48,21 @@ public class BasicOrder implements Order {
         return basePrice;
     }
     
+    @Override
+    public long calculateTotalCents() {
+        return basePriceCents;
+    }
+    
     @Override
     public String getDescription() {
         return productName;
     }
     
+    @Override
+    public StringBuilder appendDescription(StringBuilder target) {
+        return target.append(productName);
+    }
+    
     /**
      * Gets the product name.
      * 
@@ -69,6 +81,15 @@ public class BasicOrder implements Order {
         return basePrice;
     }
     
+    /**
+     * Gets the base price in cents.
+     * 
+     * @return base price in cents
+     */
+    public long getBasePriceCents() {
+        return basePriceCents;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -3,11 +3,17 @@ package ee.commerce.order;
 import ee.commerce.order.decorator.ExpressShippingDecorator;
 import ee.commerce.order.decorator.GiftWrappingDecorator;
 import ee.commerce.order.decorator.GreetingCardDecorator;
+import ee.commerce.order.model.CatalogLoader;
+import ee.commerce.order.model.InventoryManager;
+import ee.commerce.order.model.ProductAutocomplete;
 import ee.commerce.order.ui.OrderUI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Main application demonstrating the E-commerce Order System.
@@ -30,12 +36,48 @@ public class Main {
         if (args.length > 0 && args[0].equals("--demo")) {
             runDemo();
         } else {
-            // Start interactive UI
+            // Keep stock across restarts, then start interactive UI
+            attachInventoryJournal();
+            loadCatalogFile();
             OrderUI ui = new OrderUI();
             ui.start();
         }
     }
     
+    /**
+     * Loads extra products from the catalog file named by the system property {@code catalog.file}, if set.
+     */
+    private static void loadCatalogFile() {
+        String file = System.getProperty("catalog.file");
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        try {
+            new CatalogLoader().load(Paths.get(file));
+            // Build name completions now rather than on the first search
+            ProductAutocomplete.ofCatalog();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Catalog file {} could not be loaded, using the built-in catalog", file, e);
+        }
+    }
+    
+    /**
+     * Attaches the durable inventory journal, unless the stock is shared with other processes.
+     * The directory can be changed with the system property {@code inventory.journal.dir}.
+     */
+    private static void attachInventoryJournal() {
+        if (InventoryManager.getInstance().isSharedStock()) {
+            logger.info("Using shared stock, inventory journal not attached");
+            return;
+        }
+        Path directory = Paths.get(System.getProperty("inventory.journal.dir", "data"));
+        try {
+            InventoryManager.getInstance().attachJournal(directory);
+        } catch (IOException e) {
+            logger.warn("Inventory journal unavailable in {}, stock is kept in memory only", directory, e);
+        }
+    }
+    
     /**
      * Runs the automated demonstration of all acceptance criteria.
      */
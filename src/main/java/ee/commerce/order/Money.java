@@ -0,0 +1,164 @@
+package ee.commerce.order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point monetary amount stored as whole euro cents.
+ * Immutable value object.
+ * 
+ * Adding and comparing cents is plain long arithmetic, so pricing code can use
+ * the static helpers on raw {@code long} values without allocating at all, and
+ * convert to {@link BigDecimal} only when showing or persisting an amount.
+ * Conversions from BigDecimal are rounded to the nearest cent (HALF_UP).
+ */
+public final class Money implements Comparable<Money> {
+    
+    /**
+     * Number of decimal places stored (euro cents).
+     */
+    public static final int SCALE = 2;
+    
+    public static final Money ZERO = new Money(0);
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    /**
+     * Creates an amount from a number of cents.
+     * 
+     * @param cents amount in euro cents
+     * @return money value
+     */
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    /**
+     * Creates an amount from a BigDecimal euro value.
+     * 
+     * @param amount amount in euros
+     * @return money value rounded to the nearest cent
+     * @throws IllegalArgumentException if amount is null
+     * @throws ArithmeticException if amount does not fit into a long number of cents
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(toCents(amount));
+    }
+    
+    /**
+     * Converts a BigDecimal euro value to cents.
+     * 
+     * @param amount amount in euros
+     * @return amount in cents, rounded to the nearest cent
+     * @throws IllegalArgumentException if amount is null
+     * @throws ArithmeticException if amount does not fit into a long number of cents
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount cannot be null");
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    /**
+     * Converts cents to a BigDecimal euro value with scale 2.
+     * 
+     * @param cents amount in cents
+     * @return amount in euros
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    /**
+     * Formats cents for display, e.g. {@code 1234} as {@code "12.34€"}.
+     * 
+     * @param cents amount in cents
+     * @return formatted amount
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        return String.format("%s%d.%02d€", cents < 0 ? "-" : "", abs / 100, abs % 100);
+    }
+    
+    public long getCents() {
+        return cents;
+    }
+    
+    /**
+     * Adds another amount.
+     * 
+     * @param other amount to add
+     * @return sum
+     * @throws ArithmeticException on overflow
+     */
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    /**
+     * Subtracts another amount.
+     * 
+     * @param other amount to subtract
+     * @return difference
+     * @throws ArithmeticException on overflow
+     */
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+    
+    /**
+     * Multiplies the amount by a quantity.
+     * 
+     * @param quantity multiplier
+     * @return product
+     * @throws ArithmeticException on overflow
+     */
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+    
+    public boolean isPositive() {
+        return cents > 0;
+    }
+    
+    public boolean isNegative() {
+        return cents < 0;
+    }
+    
+    /**
+     * Converts this amount to BigDecimal for display or persistence.
+     * 
+     * @return amount in euros with scale 2
+     */
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(cents);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return cents == money.cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    @Override
+    public String toString() {
+        return format(cents);
+    }
+}
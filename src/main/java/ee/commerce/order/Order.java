@@ -19,10 +19,33 @@ public interface Order {
      */
     BigDecimal calculateTotal();
     
+    /**
+     * Calculates the total price in euro cents.
+     * Implementations on the pricing hot path override this with plain long arithmetic;
+     * the default converts {@link #calculateTotal()}.
+     * 
+     * @return the total price in cents, rounded to the nearest cent
+     */
+    default long calculateTotalCents() {
+        return Money.toCents(calculateTotal());
+    }
+    
     /**
      * Returns a detailed description of the order including all added services.
      * 
      * @return human-readable description of the order
      */
     String getDescription();
+    
+    /**
+     * Appends the description of the order to the given builder.
+     * Lets receipts, logs and history stream a description into an existing buffer
+     * instead of concatenating intermediate strings for every decorator layer.
+     * 
+     * @param target builder to append to
+     * @return the same builder, for chaining
+     */
+    default StringBuilder appendDescription(StringBuilder target) {
+        return target.append(getDescription());
+    }
 }
@@ -1,5 +1,6 @@
 package ee.commerce.order.decorator;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ public class ExpressShippingDecorator extends OrderDecorator {
     
     private static final Logger logger = LoggerFactory.getLogger(ExpressShippingDecorator.class);
     private static final BigDecimal EXPRESS_SHIPPING_COST = new BigDecimal("10.00");
+    private static final long EXPRESS_SHIPPING_COST_CENTS = Money.toCents(EXPRESS_SHIPPING_COST);
     private static final String SERVICE_DESCRIPTION = "Kiirtoimetamine";
     
     /**
@@ -44,13 +46,29 @@ public class ExpressShippingDecorator extends OrderDecorator {
     }
     
     /**
-     * Returns description including express shipping service.
+     * Calculates total in cents including express shipping cost.
+     * Plain long arithmetic, no allocation or logging per layer.
      * 
-     * @return full description with express shipping
+     * @return total price in cents with express shipping added
      */
     @Override
-    public String getDescription() {
-        return wrappedOrder.getDescription() + " + " + SERVICE_DESCRIPTION;
+    public long calculateTotalCents() {
+        return wrappedOrder.calculateTotalCents() + EXPRESS_SHIPPING_COST_CENTS;
+    }
+    
+    @Override
+    public BigDecimal getLineItemCost() {
+        return EXPRESS_SHIPPING_COST;
+    }
+    
+    @Override
+    public long getLineItemCostCents() {
+        return EXPRESS_SHIPPING_COST_CENTS;
+    }
+    
+    @Override
+    public String getLineItemDescription() {
+        return SERVICE_DESCRIPTION;
     }
     
     /**
@@ -62,6 +80,24 @@ public class ExpressShippingDecorator extends OrderDecorator {
         return EXPRESS_SHIPPING_COST;
     }
     
+    /**
+     * Gets the cost of express shipping service in cents.
+     * 
+     * @return express shipping cost in cents
+     */
+    public static long getServiceCostCents() {
+        return EXPRESS_SHIPPING_COST_CENTS;
+    }
+    
+    /**
+     * Gets the description of express shipping service.
+     * 
+     * @return service description
+     */
+    public static String getServiceDescription() {
+        return SERVICE_DESCRIPTION;
+    }
+    
     @Override
     public String toString() {
         return String.format("ExpressShippingDecorator{wrapping=%s, cost=%.2f€}", 
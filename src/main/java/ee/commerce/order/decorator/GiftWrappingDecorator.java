@@ -1,5 +1,6 @@
 package ee.commerce.order.decorator;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ public class GiftWrappingDecorator extends OrderDecorator {
     
     private static final Logger logger = LoggerFactory.getLogger(GiftWrappingDecorator.class);
     private static final BigDecimal GIFT_WRAPPING_COST = new BigDecimal("5.00");
+    private static final long GIFT_WRAPPING_COST_CENTS = Money.toCents(GIFT_WRAPPING_COST);
     private static final String SERVICE_DESCRIPTION = "Kingituspakend";
     
     /**
@@ -44,13 +46,29 @@ public class GiftWrappingDecorator extends OrderDecorator {
     }
     
     /**
-     * Returns description including gift wrapping service.
+     * Calculates total in cents including gift wrapping cost.
+     * Plain long arithmetic, no allocation or logging per layer.
      * 
-     * @return full description with gift wrapping
+     * @return total price in cents with gift wrapping added
      */
     @Override
-    public String getDescription() {
-        return wrappedOrder.getDescription() + " + " + SERVICE_DESCRIPTION;
+    public long calculateTotalCents() {
+        return wrappedOrder.calculateTotalCents() + GIFT_WRAPPING_COST_CENTS;
+    }
+    
+    @Override
+    public BigDecimal getLineItemCost() {
+        return GIFT_WRAPPING_COST;
+    }
+    
+    @Override
+    public long getLineItemCostCents() {
+        return GIFT_WRAPPING_COST_CENTS;
+    }
+    
+    @Override
+    public String getLineItemDescription() {
+        return SERVICE_DESCRIPTION;
     }
     
     /**
@@ -62,6 +80,24 @@ public class GiftWrappingDecorator extends OrderDecorator {
         return GIFT_WRAPPING_COST;
     }
     
+    /**
+     * Gets the cost of gift wrapping service in cents.
+     * 
+     * @return gift wrapping cost in cents
+     */
+    public static long getServiceCostCents() {
+        return GIFT_WRAPPING_COST_CENTS;
+    }
+    
+    /**
+     * Gets the description of gift wrapping service.
+     * 
+     * @return service description
+     */
+    public static String getServiceDescription() {
+        return SERVICE_DESCRIPTION;
+    }
+    
     @Override
     public String toString() {
         return String.format("GiftWrappingDecorator{wrapping=%s, cost=%.2f€}", 
@@ -1,5 +1,6 @@
 package ee.commerce.order.decorator;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ public class GreetingCardDecorator extends OrderDecorator {
     
     private static final Logger logger = LoggerFactory.getLogger(GreetingCardDecorator.class);
     private static final BigDecimal GREETING_CARD_COST = new BigDecimal("2.00");
+    private static final long GREETING_CARD_COST_CENTS = Money.toCents(GREETING_CARD_COST);
     private static final String SERVICE_DESCRIPTION = "Tervituskaart";
     
     private final String message;
@@ -60,13 +62,29 @@ public class GreetingCardDecorator extends OrderDecorator {
     }
     
     /**
-     * Returns description including greeting card service.
+     * Calculates total in cents including greeting card cost.
+     * Plain long arithmetic, no allocation or logging per layer.
      * 
-     * @return full description with greeting card
+     * @return total price in cents with greeting card added
      */
     @Override
-    public String getDescription() {
-        return wrappedOrder.getDescription() + " + " + SERVICE_DESCRIPTION;
+    public long calculateTotalCents() {
+        return wrappedOrder.calculateTotalCents() + GREETING_CARD_COST_CENTS;
+    }
+    
+    @Override
+    public BigDecimal getLineItemCost() {
+        return GREETING_CARD_COST;
+    }
+    
+    @Override
+    public long getLineItemCostCents() {
+        return GREETING_CARD_COST_CENTS;
+    }
+    
+    @Override
+    public String getLineItemDescription() {
+        return SERVICE_DESCRIPTION;
     }
     
     /**
@@ -87,6 +105,24 @@ public class GreetingCardDecorator extends OrderDecorator {
         return GREETING_CARD_COST;
     }
     
+    /**
+     * Gets the cost of greeting card service in cents.
+     * 
+     * @return greeting card cost in cents
+     */
+    public static long getServiceCostCents() {
+        return GREETING_CARD_COST_CENTS;
+    }
+    
+    /**
+     * Gets the description of greeting card service.
+     * 
+     * @return service description
+     */
+    public static String getServiceDescription() {
+        return SERVICE_DESCRIPTION;
+    }
+    
     @Override
     public String toString() {
         return String.format("GreetingCardDecorator{wrapping=%s, message='%s', cost=%.2f€}", 
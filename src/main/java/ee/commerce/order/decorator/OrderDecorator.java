@@ -1,5 +1,6 @@
 package ee.commerce.order.decorator;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,12 @@ import java.util.Objects;
  * 
  * This follows the Decorator pattern from Gang of Four design patterns,
  * allowing behavior to be added to individual objects dynamically.
+ * 
+ * Descriptions are streamed through {@link #appendDescription(StringBuilder)}:
+ * every layer appends its {@link #getLineItemDescription()} to one shared builder.
+ * Concrete decorators describe themselves by overriding getLineItemDescription();
+ * getDescription() is final, because an outer layer never calls it on the layers
+ * it wraps.
  */
 public abstract class OrderDecorator implements Order {
     
@@ -28,6 +35,12 @@ public abstract class OrderDecorator implements Order {
      */
     protected final Order wrappedOrder;
     
+    /**
+     * Description of the whole chain, built on first use.
+     * The chain is immutable, so a racing duplicate computation is harmless.
+     */
+    private String cachedDescription;
+    
     /**
      * Creates a new order decorator.
      * 
@@ -54,14 +67,82 @@ public abstract class OrderDecorator implements Order {
     }
     
     /**
-     * Gets description by delegating to wrapped order.
-     * Concrete decorators should override this to add their service description.
+     * Calculates total in cents.
+     * The default converts {@link #calculateTotal()} so that subclasses which only
+     * override the BigDecimal method stay correct; concrete decorators override this
+     * with long arithmetic.
+     * 
+     * @return total price in cents
+     */
+    @Override
+    public long calculateTotalCents() {
+        return Money.toCents(calculateTotal());
+    }
+    
+    /**
+     * Gets the description of the whole chain.
+     * Built once through {@link #appendDescription(StringBuilder)} and cached.
+     * Override {@link #getLineItemDescription()} to change what this layer adds.
      * 
      * @return description including wrapped order's description
      */
     @Override
-    public String getDescription() {
-        return wrappedOrder.getDescription();
+    public final String getDescription() {
+        String description = cachedDescription;
+        if (description == null) {
+            description = appendDescription(new StringBuilder()).toString();
+            cachedDescription = description;
+        }
+        return description;
+    }
+    
+    /**
+     * Appends the wrapped order's description followed by this decorator's service.
+     * 
+     * @param target builder to append to
+     * @return the same builder, for chaining
+     */
+    @Override
+    public StringBuilder appendDescription(StringBuilder target) {
+        String cached = cachedDescription;
+        if (cached != null) {
+            return target.append(cached);
+        }
+        wrappedOrder.appendDescription(target);
+        String serviceDescription = getLineItemDescription();
+        if (serviceDescription != null) {
+            target.append(" + ").append(serviceDescription);
+        }
+        return target;
+    }
+    
+    /**
+     * Gets the cost this decorator adds on top of the wrapped order.
+     * Used by {@link ee.commerce.order.pricing.OrderPricingPlan} to flatten the chain,
+     * so a decorator that overrides {@link #calculateTotal()} must override this too.
+     * 
+     * @return cost of this decorator's service, zero for pure delegation
+     */
+    public BigDecimal getLineItemCost() {
+        return BigDecimal.ZERO;
+    }
+    
+    /**
+     * Gets the cost this decorator adds, in cents.
+     * 
+     * @return cost of this decorator's service in cents
+     */
+    public long getLineItemCostCents() {
+        return Money.toCents(getLineItemCost());
+    }
+    
+    /**
+     * Gets the description this decorator appends to the wrapped order's description.
+     * 
+     * @return service description, or null if this decorator adds none
+     */
+    public String getLineItemDescription() {
+        return null;
     }
     
     /**
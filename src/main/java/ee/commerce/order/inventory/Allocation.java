@@ -0,0 +1,81 @@
+package ee.commerce.order.inventory;
+
+import java.util.Arrays;
+
+/**
+ * Units of one product reserved in one or more warehouses by {@link WarehouseStock}.
+ * Immutable value object.
+ */
+public final class Allocation {
+    
+    private final int productId;
+    private final int[] warehouses;
+    private final int[] quantities;
+    
+    Allocation(int productId, int[] warehouses, int[] quantities) {
+        this.productId = productId;
+        this.warehouses = warehouses;
+        this.quantities = quantities;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    /**
+     * Gets the total number of units allocated.
+     * 
+     * @return allocated units
+     */
+    public int getQuantity() {
+        int total = 0;
+        for (int quantity : quantities) {
+            total += quantity;
+        }
+        return total;
+    }
+    
+    /**
+     * Checks whether the units come from more than one warehouse.
+     * 
+     * @return true if the allocation is split
+     */
+    public boolean isSplit() {
+        return warehouses.length > 1;
+    }
+    
+    /**
+     * Gets the number of warehouses the units come from.
+     * 
+     * @return warehouse count
+     */
+    public int size() {
+        return warehouses.length;
+    }
+    
+    /**
+     * Gets a warehouse the units come from, in the order they were taken.
+     * 
+     * @param i position, 0 to {@link #size()} - 1
+     * @return warehouse index
+     */
+    public int getWarehouse(int i) {
+        return warehouses[i];
+    }
+    
+    /**
+     * Gets the units taken from the warehouse at a position.
+     * 
+     * @param i position, 0 to {@link #size()} - 1
+     * @return units
+     */
+    public int getQuantity(int i) {
+        return quantities[i];
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Allocation{product=%d, warehouses=%s, quantities=%s}",
+                           productId, Arrays.toString(warehouses), Arrays.toString(quantities));
+    }
+}
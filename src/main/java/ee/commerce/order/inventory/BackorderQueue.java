@@ -0,0 +1,212 @@
+package ee.commerce.order.inventory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Per-product FIFO queues of requests waiting for stock.
+ * 
+ * Each product with waiting requests has its own lane. A lane is only touched
+ * inside {@link ConcurrentHashMap#compute}, so admitting a request and draining
+ * the lane are atomic with the stock check passed in by the caller: a request
+ * cannot be queued just after the units it waits for were returned. Lanes are
+ * removed when they become empty, and each lane holds at most a fixed number of
+ * requests, so memory stays bounded however many customers wait.
+ * 
+ * Lanes are strictly first in, first out: a request at the head that does not
+ * fit the stock blocks the smaller requests behind it.
+ * 
+ * @param <T> type of the waiting requests
+ */
+public final class BackorderQueue<T> {
+    
+    /**
+     * Outcome of {@link #offer}.
+     */
+    public enum Admission {
+        /** Stock was available and nobody was waiting: the units were reserved at once. */
+        RESERVED,
+        /** The request was put at the end of the product's lane. */
+        QUEUED,
+        /** The product's lane is full. */
+        REJECTED
+    }
+    
+    private final int maxPerProduct;
+    private final ConcurrentHashMap<Integer, Lane<T>> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    
+    /**
+     * Creates a backorder queue.
+     * 
+     * @param maxPerProduct maximum number of waiting requests per product
+     * @throws IllegalArgumentException if maxPerProduct is not positive
+     */
+    public BackorderQueue(int maxPerProduct) {
+        if (maxPerProduct <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.maxPerProduct = maxPerProduct;
+    }
+    
+    /**
+     * Reserves the units at once if nobody is waiting for the product, otherwise
+     * queues the request behind the waiting ones.
+     * 
+     * @param productId the product ID
+     * @param request the waiting request
+     * @param quantity units the request needs
+     * @param reserve tries to take the given number of units from the stock
+     * @return whether the request was reserved, queued or rejected
+     */
+    public Admission offer(int productId, T request, int quantity, IntPredicate reserve) {
+        Admission[] admission = new Admission[1];
+        lanes.compute(productId, (id, lane) -> {
+            if (lane == null && reserve.test(quantity)) {
+                admission[0] = Admission.RESERVED;
+                return null;
+            }
+            Lane<T> current = lane != null ? lane : new Lane<>();
+            if (current.size() >= maxPerProduct) {
+                admission[0] = Admission.REJECTED;
+            } else {
+                current.add(new Waiter<>(request, quantity));
+                size.incrementAndGet();
+                admission[0] = Admission.QUEUED;
+            }
+            return current.isEmpty() ? null : current;
+        });
+        return admission[0];
+    }
+    
+    /**
+     * Hands stock to the requests at the head of a product's lane, in arrival
+     * order, until the stock runs short or the lane is empty.
+     * 
+     * @param productId the product ID
+     * @param reserve tries to take the given number of units from the stock
+     * @return the requests whose units were reserved, in arrival order
+     */
+    public List<T> drain(int productId, IntPredicate reserve) {
+        // No shortcut on the total size: only the lane's compute orders this with offer()
+        List<T> fulfilled = new ArrayList<>();
+        lanes.computeIfPresent(productId, (id, lane) -> {
+            Waiter<T> head;
+            while ((head = lane.peek()) != null && reserve.test(head.quantity)) {
+                lane.poll();
+                size.decrementAndGet();
+                fulfilled.add(head.request);
+            }
+            return lane.isEmpty() ? null : lane;
+        });
+        return fulfilled;
+    }
+    
+    /**
+     * Removes a waiting request, e.g. when the customer gives up.
+     * 
+     * @param productId the product ID
+     * @param request the request to remove
+     * @return true if the request was still waiting
+     */
+    public boolean remove(int productId, T request) {
+        boolean[] removed = new boolean[1];
+        lanes.computeIfPresent(productId, (id, lane) -> {
+            removed[0] = lane.removeIf(waiter -> waiter.request == request);
+            if (removed[0]) {
+                size.decrementAndGet();
+            }
+            return lane.isEmpty() ? null : lane;
+        });
+        return removed[0];
+    }
+    
+    /**
+     * Gets the products that have requests waiting.
+     * 
+     * @return product IDs, in no particular order
+     */
+    public int[] waitingProducts() {
+        return lanes.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Checks whether requests are waiting for a product. A request that checks
+     * before reserving on its own is ordered before any request queued after the
+     * check, so released units still reach the lane's requests first.
+     * 
+     * @param productId the product ID
+     * @return true if the product's lane is not empty
+     */
+    public boolean isWaiting(int productId) {
+        // Lanes are removed as soon as they are empty
+        return lanes.containsKey(productId);
+    }
+    
+    /**
+     * Gets the number of requests waiting for a product.
+     * 
+     * @param productId the product ID
+     * @return waiting request count
+     */
+    public int size(int productId) {
+        Lane<T> lane = lanes.get(productId);
+        return lane == null ? 0 : lane.size();
+    }
+    
+    /**
+     * Gets the number of waiting requests over all products.
+     * 
+     * @return waiting request count
+     */
+    public int size() {
+        return size.get();
+    }
+    
+    private static final class Waiter<T> {
+        final T request;
+        final int quantity;
+        
+        Waiter(T request, int quantity) {
+            this.request = request;
+            this.quantity = quantity;
+        }
+    }
+    
+    /**
+     * Lane of one product. Changed only inside the map's compute methods; the
+     * lock on the lane makes {@link #size(int)} safe to read from outside.
+     */
+    private static final class Lane<T> {
+        private final ArrayDeque<Waiter<T>> waiters = new ArrayDeque<>();
+        
+        synchronized int size() {
+            return waiters.size();
+        }
+        
+        synchronized boolean isEmpty() {
+            return waiters.isEmpty();
+        }
+        
+        synchronized void add(Waiter<T> waiter) {
+            waiters.addLast(waiter);
+        }
+        
+        synchronized Waiter<T> peek() {
+            return waiters.peekFirst();
+        }
+        
+        synchronized void poll() {
+            waiters.pollFirst();
+        }
+        
+        synchronized boolean removeIf(Predicate<Waiter<T>> filter) {
+            return waiters.removeIf(filter);
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock store that keeps stock levels in plain int arrays indexed by product ID.
+ * 
+ * Product IDs are split into pages of {@value #PAGE_SIZE} slots. A page is
+ * allocated the first time a product in its range is stored, so a catalog with
+ * dense IDs costs four bytes per product and no objects per product. Slots are
+ * read and updated with {@link VarHandle} volatile and compare-and-set operations;
+ * nothing is boxed on the reservation path.
+ * 
+ * A product whose slot sees heavy CAS contention is escalated to its own
+ * {@link StockCounter}, which can split into stripes during a flash sale. Its slot
+ * then holds a negative marker pointing into the table of escalated counters, and
+ * every operation on the product goes through the counter. Contention is counted
+ * in a small table of cells tagged with the product that last failed in them, so
+ * failures on other products sharing a cell never add up to an escalation.
+ * {@link #compact()} folds counters that have cooled down back into their slots
+ * and reuses their table entries.
+ * 
+ * Every page carries a dirty flag after its last slot that each update sets.
+ * {@link #snapshot(long)} copies only the dirty pages and shares the others with
+ * the previous snapshot.
+ */
+public final class DenseStockStore implements StockStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DenseStockStore.class);
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle PAGE = MethodHandles.arrayElementVarHandle(int[][].class);
+    
+    static final int PAGE_BITS = 12;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int DIRTY = PAGE_SIZE;
+    
+    static final int DEFAULT_ESCALATE_CONTENTION = 16;
+    private static final long CONTENTION_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int CONTENTION_CELLS = 256;
+    
+    /**
+     * Slots at or below this value hold {@code COUNTER_BASE - index} of an escalated counter.
+     */
+    private static final int COUNTER_BASE = -2;
+    
+    private final int escalateContention;
+    private volatile int[][] pages = new int[0][];
+    private volatile StockCounter[] counters = new StockCounter[0];
+    private final ArrayDeque<Integer> freeCounters = new ArrayDeque<>();
+    private int size;
+    private StockSnapshot lastSnapshot;
+    
+    // Per hashed cell in the current window: product ID in the high half, its failed CAS attempts in the low half
+    private final AtomicLongArray contention = new AtomicLongArray(CONTENTION_CELLS);
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    
+    /**
+     * Creates an empty store with the default escalation threshold.
+     */
+    public DenseStockStore() {
+        this(DEFAULT_ESCALATE_CONTENTION);
+    }
+    
+    /**
+     * Creates an empty store.
+     * 
+     * @param escalateContention failed CAS attempts on one product per window that
+     *        escalate it to its own counter
+     * @throws IllegalArgumentException if escalateContention is not positive
+     */
+    DenseStockStore(int escalateContention) {
+        if (escalateContention <= 0) {
+            throw new IllegalArgumentException("Escalation threshold must be positive");
+        }
+        this.escalateContention = escalateContention;
+    }
+    
+    @Override
+    public int get(int productId) {
+        int[] page = page(productId);
+        if (page == null) {
+            return ABSENT;
+        }
+        int value = (int) SLOT.getVolatile(page, productId & PAGE_MASK);
+        return value <= COUNTER_BASE ? counter(value).get() : value;
+    }
+    
+    @Override
+    public int[] getStocks(int[] productIds) {
+        int[][] current = pages;
+        int[] stocks = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            int productId = productIds[i];
+            int pageIndex = productId >>> PAGE_BITS;
+            int[] page = productId >= 0 && pageIndex < current.length
+                ? (int[]) PAGE.getAcquire(current, pageIndex) : null;
+            int value = page != null ? (int) SLOT.getVolatile(page, productId & PAGE_MASK) : ABSENT;
+            // Look the counter up after reading the marker: it may have been escalated since the call began
+            stocks[i] = value <= COUNTER_BASE ? counter(value).get() : value;
+        }
+        return stocks;
+    }
+    
+    @Override
+    public void set(int productId, int quantity) {
+        int[] page = settablePage(productId, quantity);
+        int index = productId & PAGE_MASK;
+        while (true) {
+            int value = (int) SLOT.getVolatile(page, index);
+            if (value <= COUNTER_BASE) {
+                counter(value).set(quantity);
+                markDirty(page);
+                return;
+            }
+            if (SLOT.compareAndSet(page, index, value, quantity)) {
+                markDirty(page);
+                if (value == ABSENT) {
+                    synchronized (this) {
+                        size++;
+                    }
+                }
+                return;
+            }
+        }
+    }
+    
+    @Override
+    public boolean setIfAbsent(int productId, int quantity) {
+        int[] page = settablePage(productId, quantity);
+        if (!SLOT.compareAndSet(page, productId & PAGE_MASK, ABSENT, quantity)) {
+            return false;
+        }
+        markDirty(page);
+        synchronized (this) {
+            size++;
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean tryReserve(int productId, int quantity) {
+        int[] page = page(productId);
+        if (page == null) {
+            return false;
+        }
+        int index = productId & PAGE_MASK;
+        while (true) {
+            int value = (int) SLOT.getVolatile(page, index);
+            if (value <= COUNTER_BASE) {
+                return counter(value).tryReserve(quantity) && markDirty(page);
+            }
+            if (value < quantity) {
+                return false; // also covers ABSENT
+            }
+            if (SLOT.compareAndSet(page, index, value, value - quantity)) {
+                return markDirty(page);
+            }
+            onContention(productId);
+        }
+    }
+    
+    @Override
+    public boolean release(int productId, int quantity) {
+        int[] page = page(productId);
+        if (page == null) {
+            return false;
+        }
+        int index = productId & PAGE_MASK;
+        while (true) {
+            int value = (int) SLOT.getVolatile(page, index);
+            if (value <= COUNTER_BASE) {
+                return counter(value).release(quantity) && markDirty(page);
+            }
+            if (value == ABSENT || value > Integer.MAX_VALUE - quantity) {
+                return false;
+            }
+            if (SLOT.compareAndSet(page, index, value, value + quantity)) {
+                return markDirty(page);
+            }
+            onContention(productId);
+        }
+    }
+    
+    @Override
+    public boolean isHot(int productId) {
+        int[] page = page(productId);
+        if (page == null) {
+            return false;
+        }
+        int value = (int) SLOT.getVolatile(page, productId & PAGE_MASK);
+        return value <= COUNTER_BASE && counter(value).isStriped();
+    }
+    
+    /**
+     * Checks whether a product has been escalated to its own counter.
+     * 
+     * @param productId product ID
+     * @return true if the product uses an escalated counter
+     */
+    boolean isEscalated(int productId) {
+        int[] page = page(productId);
+        return page != null && (int) SLOT.getVolatile(page, productId & PAGE_MASK) <= COUNTER_BASE;
+    }
+    
+    /**
+     * Splits a product's stock into stripes, e.g. ahead of a known flash sale.
+     * 
+     * @param productId product ID
+     * @return false if the product is unknown
+     */
+    public boolean stripe(int productId) {
+        if (!escalate(productId)) {
+            return false;
+        }
+        counter((int) SLOT.getVolatile(page(productId), productId & PAGE_MASK)).stripe();
+        return true;
+    }
+    
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Escalated counters are dropped with the pages, so like {@link #compact()}
+     * this must not run while stock changes.
+     */
+    @Override
+    public synchronized void clear() {
+        pages = new int[0][];
+        counters = new StockCounter[0];
+        freeCounters.clear();
+        size = 0;
+        lastSnapshot = null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Escalated products whose counters are unstriped and have seen no contention
+     * for a while get their stock back in their slots; the freed table entries are
+     * reused by later escalations.
+     */
+    @Override
+    public synchronized void compact() {
+        StockCounter[] escalated = counters;
+        int[][] current = pages;
+        int folded = 0;
+        for (int pageIndex = 0; pageIndex < current.length; pageIndex++) {
+            int[] page = current[pageIndex];
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int value = (int) SLOT.getVolatile(page, i);
+                if (value <= COUNTER_BASE && escalated[COUNTER_BASE - value].isCold()) {
+                    SLOT.setVolatile(page, i, escalated[COUNTER_BASE - value].get());
+                    escalated[COUNTER_BASE - value] = null;
+                    freeCounters.push(COUNTER_BASE - value);
+                    markDirty(page);
+                    folded++;
+                }
+            }
+        }
+        if (folded > 0) {
+            logger.info("Folded {} cooled stock counters back into the store", folded);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Pages that were not updated since the previous snapshot are shared with it.
+     */
+    @Override
+    public synchronized StockSnapshot snapshot(long version) {
+        int[][] current = pages;
+        StockSnapshot previous = lastSnapshot;
+        StockCounter[] escalated = counters;
+        int[][] copies = new int[current.length][];
+        for (int pageIndex = 0; pageIndex < current.length; pageIndex++) {
+            int[] page = current[pageIndex];
+            if (page == null) {
+                continue;
+            }
+            int[] shared = previous != null ? previous.page(pageIndex) : null;
+            if (page[DIRTY] == 0 && shared != null) {
+                copies[pageIndex] = shared;
+                continue;
+            }
+            // Clear the flag before copying: an update racing with the copy marks the page again
+            page[DIRTY] = 0;
+            int[] copy = Arrays.copyOf(page, PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (copy[i] <= COUNTER_BASE) {
+                    copy[i] = escalated[COUNTER_BASE - copy[i]].get();
+                }
+            }
+            copies[pageIndex] = copy;
+        }
+        lastSnapshot = new StockSnapshot(version, copies, size);
+        return lastSnapshot;
+    }
+    
+    @Override
+    public void forEach(StockVisitor visitor) {
+        int[][] current = pages;
+        for (int pageIndex = 0; pageIndex < current.length; pageIndex++) {
+            int[] page = (int[]) PAGE.getAcquire(current, pageIndex);
+            if (page == null) {
+                continue;
+            }
+            int base = pageIndex << PAGE_BITS;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int value = (int) SLOT.getVolatile(page, i);
+                if (value != ABSENT) {
+                    visitor.accept(base + i, value <= COUNTER_BASE ? counter(value).get() : value);
+                }
+            }
+        }
+    }
+    
+    private int[] page(int productId) {
+        if (productId < 0) {
+            return null;
+        }
+        int[][] current = pages;
+        int pageIndex = productId >>> PAGE_BITS;
+        return pageIndex < current.length ? (int[]) PAGE.getAcquire(current, pageIndex) : null;
+    }
+    
+    private int[] settablePage(int productId, int quantity) {
+        if (productId < 0) {
+            throw new IllegalArgumentException("Product ID cannot be negative: " + productId);
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        int[] page = page(productId);
+        return page != null ? page : allocatePage(productId);
+    }
+    
+    private synchronized int[] allocatePage(int productId) {
+        int pageIndex = productId >>> PAGE_BITS;
+        int[][] current = pages;
+        if (pageIndex >= current.length) {
+            // Grow the directory; pages only change under this lock, so the copy is complete
+            current = Arrays.copyOf(current, Math.max(pageIndex + 1, current.length * 2));
+            pages = current;
+        }
+        int[] page = current[pageIndex];
+        if (page == null) {
+            page = new int[PAGE_SIZE + 1];
+            Arrays.fill(page, 0, PAGE_SIZE, ABSENT);
+            page[DIRTY] = 1;
+            PAGE.setRelease(current, pageIndex, page);
+        }
+        return page;
+    }
+    
+    /**
+     * Marks a page as changed since the last snapshot. Only writes when the flag is
+     * clear, so updates to a page that is already dirty do not share a written word.
+     * 
+     * @return always true, for use in return statements
+     */
+    private static boolean markDirty(int[] page) {
+        if (page[DIRTY] == 0) {
+            page[DIRTY] = 1;
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the counter of an escalated product. Reads the counter array after the
+     * marker, since escalation publishes the array before the marker.
+     */
+    private StockCounter counter(int marker) {
+        return counters[COUNTER_BASE - marker];
+    }
+    
+    /**
+     * Counts a failed CAS on a product. A product that fails in a cell last used
+     * by another product takes the cell over and starts counting from one.
+     */
+    void onContention(int productId) {
+        long start = windowStart.get();
+        if (System.nanoTime() - start >= CONTENTION_WINDOW_NANOS && windowStart.compareAndSet(start, System.nanoTime())) {
+            for (int i = 0; i < CONTENTION_CELLS; i++) {
+                contention.set(i, 0);
+            }
+        }
+        int cell = (productId * 0x9E3779B9) >>> 24;
+        long tag = (long) productId << 32;
+        long value;
+        long next;
+        do {
+            value = contention.get(cell);
+            next = (value & 0xFFFF_FFFF_0000_0000L) == tag && (int) value > 0 ? value + 1 : tag | 1;
+        } while (!contention.compareAndSet(cell, value, next));
+        if ((int) next >= escalateContention) {
+            contention.compareAndSet(cell, next, 0);
+            escalate(productId);
+        }
+    }
+    
+    /**
+     * Moves a product's stock into its own counter, reusing a table entry freed
+     * by {@link #compact()} if there is one.
+     * 
+     * @return false if the product is unknown
+     */
+    synchronized boolean escalate(int productId) {
+        int[] page = page(productId);
+        if (page == null) {
+            return false;
+        }
+        int index = productId & PAGE_MASK;
+        int value = (int) SLOT.getVolatile(page, index);
+        if (value <= COUNTER_BASE) {
+            return true;
+        }
+        if (value == ABSENT) {
+            return false;
+        }
+        // Publish the counter before the marker, so any thread that sees the marker finds it
+        StockCounter counter = new StockCounter(value);
+        StockCounter[] escalated = counters;
+        int entry;
+        if (!freeCounters.isEmpty()) {
+            entry = freeCounters.pop();
+        } else {
+            // Grow the table by doubling; entries past the used ones are only handed out through the free list
+            entry = escalated.length;
+            escalated = Arrays.copyOf(escalated, Math.max(4, escalated.length * 2));
+            for (int i = escalated.length - 1; i > entry; i--) {
+                freeCounters.push(i);
+            }
+        }
+        escalated[entry] = counter;
+        counters = escalated;
+        int marker = COUNTER_BASE - entry;
+        while (!SLOT.compareAndSet(page, index, value, marker)) {
+            value = (int) SLOT.getVolatile(page, index);
+            counter.set(value);
+        }
+        logger.info("Escalated contended product {} to its own stock counter", productId);
+        return true;
+    }
+}
@@ -0,0 +1,603 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable log of inventory changes: a memory-mapped write-ahead log plus compact snapshots.
+ * 
+ * Every stock change is appended to the WAL as a fixed 16 byte record
+ * (type, product ID, value, checksum). Appends take no lock: each one claims its
+ * place in the mapped file with a compare-and-set and copies the record there, so
+ * concurrent reservations never wait for each other. A background thread forces
+ * the written pages to disk every few milliseconds. That commit is asynchronous:
+ * a crash loses the changes of the last commit interval
+ * ({@value #DEFAULT_COMMIT_INTERVAL_MILLIS} ms by default), even though the calls
+ * that logged them have returned. Callers that need a change on disk before they
+ * continue call {@link #sync()}.
+ * 
+ * The WAL is split over two files. When the active file is full, or half full at
+ * a commit, appends move on to the other file, and the background thread folds
+ * the sealed file into the state of the previous snapshot and writes the result
+ * as the next snapshot; only then may the sealed file be reused. Recovery reads
+ * the snapshot and replays the WAL files written after it.
+ * 
+ * Each snapshot and WAL file has a generation number; WAL records include the
+ * generation in their checksum, so records left over from an older generation or
+ * torn by a crash are skipped on replay.
+ */
+public final class InventoryJournal implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryJournal.class);
+    
+    public static final String WAL_FILE = "inventory.wal";
+    public static final String SECOND_WAL_FILE = "inventory.wal.1";
+    public static final String SNAPSHOT_FILE = "inventory.snapshot";
+    
+    static final int DEFAULT_WAL_CAPACITY = 64 * 1024 * 1024;
+    static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 5;
+    
+    private static final int WAL_MAGIC = 0x4957414C; // "IWAL"
+    private static final int SNAPSHOT_MAGIC = 0x49534E50; // "ISNP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int TYPE_SET = 1;
+    private static final int TYPE_DELTA = 2;
+    private static final int TYPE_CLEAR = 3;
+    
+    private final Path directory;
+    private final int walCapacity;
+    private final FileChannel[] walChannels = new FileChannel[2];
+    private final ScheduledExecutorService flusher;
+    private final Map<Integer, Integer> recoveredState;
+    private final long recoveryMillis;
+    
+    // State as of the latest snapshot; after opening only the flusher thread touches it
+    private final Map<Integer, Integer> state;
+    
+    // Guards rotation: the spare segment, the snapshot generation and failures
+    private final Object rotation = new Object();
+    private volatile Segment active;
+    private volatile Segment sealed;
+    private Segment spare;
+    private long snapshotGeneration;
+    private Exception failure;
+    private volatile boolean closed;
+    
+    private InventoryJournal(Path directory, int walCapacity, long commitIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.walCapacity = walCapacity;
+        Files.createDirectories(directory);
+        
+        long start = System.nanoTime();
+        this.state = new HashMap<>();
+        long generation = readSnapshot(directory.resolve(SNAPSHOT_FILE), state);
+        MappedByteBuffer[] files = new MappedByteBuffer[2];
+        for (int i = 0; i < files.length; i++) {
+            walChannels[i] = FileChannel.open(directory.resolve(i == 0 ? WAL_FILE : SECOND_WAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            files[i] = walChannels[i].map(FileChannel.MapMode.READ_WRITE, 0, walCapacity);
+        }
+        int current = isSegment(files[1], generation) ? 1 : 0;
+        if (replay(files[1 - current], generation + 1, walCapacity, null) > HEADER_SIZE) {
+            // The last sealed file never made it into a snapshot: finish that first
+            replay(files[current], generation, walCapacity, state);
+            generation++;
+            writeSnapshot(state, generation);
+            current = 1 - current;
+        }
+        this.recoveredState = new HashMap<>(state);
+        int end = replay(files[current], generation, walCapacity, recoveredState);
+        this.active = end < 0 ? Segment.start(files[current], generation)
+                              : new Segment(files[current], generation, end);
+        this.spare = Segment.start(files[1 - current], generation + 1);
+        this.snapshotGeneration = generation;
+        this.recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Inventory journal recovered {} products (generation {}, {} WAL bytes) in {} ms",
+                   recoveredState.size(), generation, Math.max(0, end - HEADER_SIZE), recoveryMillis);
+        
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "inventory-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::commit, commitIntervalMillis,
+                                       commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Opens (or creates) the journal in a directory and recovers its state.
+     * 
+     * @param directory directory for the WAL and snapshot files
+     * @return open journal
+     * @throws IOException if the files cannot be read or created
+     */
+    public static InventoryJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_WAL_CAPACITY, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Opens a journal with explicit settings.
+     * 
+     * @param directory directory for the WAL and snapshot files
+     * @param walCapacity size of each mapped WAL file in bytes
+     * @param commitIntervalMillis how often written WAL pages are forced to disk
+     * @return open journal
+     * @throws IOException if the files cannot be read or created
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    static InventoryJournal open(Path directory, int walCapacity, long commitIntervalMillis) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (walCapacity < HEADER_SIZE + RECORD_SIZE || commitIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid journal configuration");
+        }
+        return new InventoryJournal(directory, walCapacity, commitIntervalMillis);
+    }
+    
+    /**
+     * Gets the stock state recovered when the journal was opened.
+     * 
+     * @return product ID to stock map, empty for a new journal
+     */
+    public Map<Integer, Integer> getRecoveredState() {
+        return new HashMap<>(recoveredState);
+    }
+    
+    /**
+     * Gets how long recovery took when the journal was opened.
+     * 
+     * @return recovery time in milliseconds
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+    
+    /**
+     * Logs an absolute stock level. Replay applies records in log order, so a
+     * SET must be logged while no change to the same product is in flight.
+     * 
+     * @param productId the product ID
+     * @param quantity the new stock level
+     */
+    public void logSet(int productId, int quantity) {
+        append(TYPE_SET, productId, quantity);
+    }
+    
+    /**
+     * Logs a stock change: negative for reservations, positive for releases.
+     * 
+     * @param productId the product ID
+     * @param delta the change in stock
+     */
+    public void logDelta(int productId, int delta) {
+        append(TYPE_DELTA, productId, delta);
+    }
+    
+    /**
+     * Logs the changes of a basket as one batch of consecutive records.
+     * 
+     * @param productIds product IDs
+     * @param deltas change in stock per product, same length as productIds
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public void logDeltas(int[] productIds, int[] deltas) {
+        if (productIds.length != deltas.length) {
+            throw new IllegalArgumentException("Product IDs and deltas must have the same length");
+        }
+        checkOpen();
+        int batch = (walCapacity - HEADER_SIZE) / RECORD_SIZE;
+        for (int from = 0; from < productIds.length; from += batch) {
+            int count = Math.min(batch, productIds.length - from);
+            while (true) {
+                Segment segment = active;
+                int at = segment.claim(count * RECORD_SIZE);
+                if (at >= 0) {
+                    for (int i = 0; i < count; i++) {
+                        segment.put(at + i * RECORD_SIZE, TYPE_DELTA, productIds[from + i], deltas[from + i]);
+                    }
+                    segment.written(count * RECORD_SIZE);
+                    break;
+                }
+                rotate(segment, true);
+            }
+        }
+    }
+    
+    /**
+     * Logs that all stock was removed.
+     */
+    public void logClear() {
+        append(TYPE_CLEAR, 0, 0);
+    }
+    
+    /**
+     * Forces every change logged before the call to disk now.
+     */
+    public void sync() {
+        if (closed) {
+            return;
+        }
+        // Read the active segment first: if it is sealed in between, it is still forced here
+        Segment current = active;
+        Segment previous = sealed;
+        if (previous != null && previous != current) {
+            previous.buffer.force();
+        }
+        current.buffer.force();
+    }
+    
+    /**
+     * Moves appends on to a new WAL file and waits until a snapshot covering
+     * everything logged before the call has been written.
+     * 
+     * @throws IllegalStateException if the journal is closed or the snapshot cannot be written
+     */
+    public void snapshot() {
+        checkOpen();
+        Segment current = active;
+        rotate(current, true);
+        synchronized (rotation) {
+            while (snapshotGeneration <= current.generation) {
+                checkUsable();
+                awaitRotation();
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of bytes used in the active WAL file.
+     * 
+     * @return WAL size in bytes including the header
+     */
+    public int getWalSize() {
+        return active.size();
+    }
+    
+    /**
+     * Gets the generation of the active WAL file; the latest snapshot has the same
+     * generation, or one less while it is being written.
+     * 
+     * @return WAL generation
+     */
+    public long getGeneration() {
+        return active.generation;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (rotation) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            rotation.notifyAll();
+        }
+        // A snapshot in progress is finished, periodic commits stop
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Segment previous = sealed;
+        if (previous != null) {
+            previous.buffer.force();
+        }
+        active.buffer.force();
+        for (FileChannel channel : walChannels) {
+            channel.close();
+        }
+        logger.info("Inventory journal closed");
+    }
+    
+    private void append(int type, int productId, int value) {
+        checkOpen();
+        while (true) {
+            Segment segment = active;
+            int at = segment.claim(RECORD_SIZE);
+            if (at >= 0) {
+                segment.put(at, type, productId, value);
+                segment.written(RECORD_SIZE);
+                return;
+            }
+            rotate(segment, true);
+        }
+    }
+    
+    /**
+     * Seals a segment and makes the spare one active. Appenders that find the
+     * segment full wait for the spare; the flusher only rotates if it is ready.
+     * 
+     * @return false if the spare was not ready and waiting was not allowed
+     */
+    private boolean rotate(Segment full, boolean wait) {
+        synchronized (rotation) {
+            while (active == full && spare == null) {
+                if (!wait) {
+                    return false;
+                }
+                checkUsable();
+                awaitRotation();
+            }
+            if (active != full) {
+                return true;
+            }
+            checkUsable();
+            int end = full.seal();
+            sealed = full;
+            active = spare;
+            spare = null;
+            flusher.execute(() -> compact(full, end));
+            return true;
+        }
+    }
+    
+    /**
+     * Folds a sealed segment into the state and writes it as the next snapshot,
+     * which frees the segment's file for the generation after the active one.
+     * Runs on the flusher thread.
+     */
+    private void compact(Segment segment, int end) {
+        try {
+            segment.awaitWrites(end);
+            segment.buffer.force();
+            replay(segment.buffer, segment.generation, end, state);
+            long next = segment.generation + 1;
+            writeSnapshot(state, next);
+            Segment prepared = Segment.start(segment.buffer, next + 1);
+            synchronized (rotation) {
+                snapshotGeneration = next;
+                sealed = null;
+                spare = prepared;
+                rotation.notifyAll();
+            }
+            logger.info("Inventory snapshot written: {} products, generation {}", state.size(), next);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write inventory snapshot", e);
+            synchronized (rotation) {
+                failure = e;
+                rotation.notifyAll();
+            }
+        }
+    }
+    
+    private void commit() {
+        try {
+            Segment current = active;
+            int written = current.written.get();
+            if (written != current.forced) {
+                current.buffer.force();
+                current.forced = written;
+            }
+            if (current.size() > walCapacity / 2) {
+                rotate(current, false);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Inventory journal commit failed", e);
+        }
+    }
+    
+    private void awaitRotation() {
+        try {
+            rotation.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the inventory journal", e);
+        }
+    }
+    
+    private static boolean isSegment(MappedByteBuffer file, long generation) {
+        return file.getInt(0) == WAL_MAGIC && file.getInt(4) == FORMAT_VERSION && file.getLong(8) == generation;
+    }
+    
+    /**
+     * Applies the valid records of a WAL file below limit to the state, skipping
+     * torn records and the gaps left by appends a crash interrupted.
+     * 
+     * @param state state to apply the records to, or null to only find the end
+     * @return position after the last valid record, or -1 if the file does not
+     *         belong to the generation
+     */
+    private static int replay(MappedByteBuffer file, long generation, int limit, Map<Integer, Integer> state) {
+        if (!isSegment(file, generation)) {
+            return -1;
+        }
+        int end = HEADER_SIZE;
+        for (int position = HEADER_SIZE; position + RECORD_SIZE <= limit; position += RECORD_SIZE) {
+            int type = file.getInt(position);
+            int productId = file.getInt(position + 4);
+            int value = file.getInt(position + 8);
+            if ((type == TYPE_SET || type == TYPE_DELTA || type == TYPE_CLEAR)
+                && file.getInt(position + 12) == checksum(type, productId, value, generation)) {
+                if (state != null) {
+                    apply(state, type, productId, value);
+                }
+                end = position + RECORD_SIZE;
+            }
+        }
+        return end;
+    }
+    
+    private void writeSnapshot(Map<Integer, Integer> snapshotState, long snapshotGeneration) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 + snapshotState.size() * 8);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(snapshotGeneration).putInt(snapshotState.size());
+        for (Map.Entry<Integer, Integer> entry : snapshotState.entrySet()) {
+            buffer.putInt(entry.getKey()).putInt(entry.getValue());
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Reads a snapshot into the state map.
+     * 
+     * @return generation of the snapshot, or 0 if there is none
+     */
+    private static long readSnapshot(Path file, Map<Integer, Integer> state) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt() != SNAPSHOT_MAGIC
+                || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not an inventory snapshot: " + file);
+            }
+            long snapshotGeneration = buffer.getLong();
+            int count = buffer.getInt();
+            if (buffer.remaining() < (long) count * 8) {
+                throw new IOException("Truncated inventory snapshot: " + file);
+            }
+            for (int i = 0; i < count; i++) {
+                state.put(buffer.getInt(), buffer.getInt());
+            }
+            return snapshotGeneration;
+        }
+    }
+    
+    private static void apply(Map<Integer, Integer> state, int type, int productId, int value) {
+        if (type == TYPE_SET) {
+            state.put(productId, value);
+        } else if (type == TYPE_CLEAR) {
+            state.clear();
+        } else {
+            state.merge(productId, value, Integer::sum);
+        }
+    }
+    
+    private static int checksum(int type, int productId, int value, long generation) {
+        int hash = type * 0x9E3779B9;
+        hash = (hash ^ productId) * 0x85EBCA6B;
+        hash = (hash ^ value) * 0xC2B2AE35;
+        hash ^= (int) generation ^ (int) (generation >>> 32);
+        return (hash ^ (hash >>> 16)) | 1; // never 0, so zeroed space is never a valid record
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Inventory journal is closed");
+        }
+    }
+    
+    private void checkUsable() {
+        checkOpen();
+        if (failure != null) {
+            throw new IllegalStateException("Inventory journal cannot write snapshots", failure);
+        }
+    }
+    
+    /**
+     * One generation of the WAL in one of the two mapped files. Appenders claim
+     * space by advancing {@code claimed}, write their records and then add them to
+     * {@code written}, so whoever seals the segment can wait for the last writes.
+     */
+    private static final class Segment {
+        private static final int SEALED = Integer.MAX_VALUE;
+        
+        final MappedByteBuffer buffer;
+        final long generation;
+        final AtomicInteger claimed;
+        final AtomicInteger written;
+        
+        // Bytes written at the last commit; only the flusher thread uses it
+        int forced;
+        
+        Segment(MappedByteBuffer buffer, long generation, int position) {
+            this.buffer = buffer;
+            this.generation = generation;
+            this.claimed = new AtomicInteger(position);
+            this.written = new AtomicInteger(position);
+            this.forced = position;
+        }
+        
+        /**
+         * Writes the header of a new generation into a file. Records of older
+         * generations after it fail their checksum, so the file needs no wiping.
+         */
+        static Segment start(MappedByteBuffer buffer, long generation) {
+            buffer.putInt(0, WAL_MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(8, generation);
+            return new Segment(buffer, generation, HEADER_SIZE);
+        }
+        
+        /**
+         * Claims bytes for records.
+         * 
+         * @return position of the claimed bytes, or -1 if the segment is full or sealed
+         */
+        int claim(int bytes) {
+            while (true) {
+                int at = claimed.get();
+                if (at > buffer.capacity() - bytes) {
+                    return -1;
+                }
+                if (claimed.compareAndSet(at, at + bytes)) {
+                    return at;
+                }
+            }
+        }
+        
+        void put(int at, int type, int productId, int value) {
+            buffer.putInt(at, type);
+            buffer.putInt(at + 4, productId);
+            buffer.putInt(at + 8, value);
+            buffer.putInt(at + 12, checksum(type, productId, value, generation));
+        }
+        
+        void written(int bytes) {
+            written.addAndGet(bytes);
+        }
+        
+        /**
+         * Stops further claims.
+         * 
+         * @return end of the claimed records
+         */
+        int seal() {
+            return claimed.getAndSet(SEALED);
+        }
+        
+        /**
+         * Waits until every record claimed below end is written. Appenders hold no
+         * lock between claiming and writing, so this takes a few spins at most.
+         */
+        void awaitWrites(int end) {
+            while (written.get() < end) {
+                Thread.onSpinWait();
+            }
+        }
+        
+        int size() {
+            return Math.min(claimed.get(), buffer.capacity());
+        }
+    }
+}
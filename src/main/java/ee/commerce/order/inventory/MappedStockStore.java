@@ -0,0 +1,246 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stock store in a memory-mapped file that several processes can share.
+ * 
+ * The file holds a small header followed by one int slot per product ID. Every
+ * process that opens the file maps the same pages, and all updates are atomic
+ * {@link VarHandle} operations on the mapping, so reservations from different
+ * JVMs on one host are serialized by the CPU exactly like reservations from
+ * different threads. No process can oversell and no external database or lock
+ * service is needed.
+ * 
+ * The number of product IDs is fixed when the file is created. The file is only
+ * forced to disk on {@link #force()} and {@link #close()}; a process crash loses
+ * nothing because the pages belong to the operating system, but a host crash can.
+ * Products are never striped: stripes would live in one process's heap. The
+ * store cannot be cleared, because that would wipe the stock of every process.
+ */
+public final class MappedStockStore implements StockStore, Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MappedStockStore.class);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    
+    private static final int MAGIC = 0x53544F4B; // "STOK"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    static final int HEADER_SIZE = 16;
+    
+    /**
+     * Largest number of product IDs a single mapping can hold.
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / Integer.BYTES;
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    
+    private MappedStockStore(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Opens a shared stock file, creating it if it does not exist.
+     * 
+     * Creation happens under an exclusive file lock, so processes that start at
+     * the same time agree on one layout. An existing file keeps the capacity it
+     * was created with.
+     * 
+     * @param file stock file
+     * @param capacity number of product IDs (0 to capacity - 1) for a new file
+     * @return open store
+     * @throws IOException if the file cannot be opened or is not a stock file
+     * @throws IllegalArgumentException if capacity is out of range
+     */
+    @SuppressWarnings("try") // the lock is only held, never referenced
+    public static MappedStockStore open(Path file, int capacity) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (FileLock lock = channel.lock()) {
+            boolean created = channel.size() == 0;
+            long length = created ? HEADER_SIZE + (long) capacity * Integer.BYTES : channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (created) {
+                for (int slot = 0; slot < capacity; slot++) {
+                    buffer.putInt(offset(slot), ABSENT);
+                }
+                INT.setVolatile(buffer, CAPACITY_OFFSET, capacity);
+                INT.setVolatile(buffer, VERSION_OFFSET, FORMAT_VERSION);
+                INT.setVolatile(buffer, MAGIC_OFFSET, MAGIC);
+                buffer.force();
+                logger.info("Created shared stock file {} for {} product IDs", file, capacity);
+            }
+            
+            int storedCapacity = (int) INT.getVolatile(buffer, CAPACITY_OFFSET);
+            if ((int) INT.getVolatile(buffer, MAGIC_OFFSET) != MAGIC
+                || (int) INT.getVolatile(buffer, VERSION_OFFSET) != FORMAT_VERSION
+                || storedCapacity <= 0 || length < HEADER_SIZE + (long) storedCapacity * Integer.BYTES) {
+                throw new IOException("Not a shared stock file: " + file);
+            }
+            if (!created) {
+                logger.info("Opened shared stock file {} with {} products", file, INT.getVolatile(buffer, SIZE_OFFSET));
+            }
+            return new MappedStockStore(file, channel, buffer, storedCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Gets the number of product IDs the file can hold.
+     * 
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    @Override
+    public int get(int productId) {
+        return productId >= 0 && productId < capacity ? (int) INT.getVolatile(buffer, offset(productId)) : ABSENT;
+    }
+    
+    @Override
+    public void set(int productId, int quantity) {
+        checkSettable(productId, quantity);
+        int previous = (int) INT.getAndSet(buffer, offset(productId), quantity);
+        if (previous == ABSENT) {
+            INT.getAndAdd(buffer, SIZE_OFFSET, 1);
+        }
+    }
+    
+    @Override
+    public boolean setIfAbsent(int productId, int quantity) {
+        checkSettable(productId, quantity);
+        if (!INT.compareAndSet(buffer, offset(productId), ABSENT, quantity)) {
+            return false;
+        }
+        INT.getAndAdd(buffer, SIZE_OFFSET, 1);
+        return true;
+    }
+    
+    @Override
+    public boolean tryReserve(int productId, int quantity) {
+        if (productId < 0 || productId >= capacity) {
+            return false;
+        }
+        int offset = offset(productId);
+        int value;
+        do {
+            value = (int) INT.getVolatile(buffer, offset);
+            if (value < quantity) {
+                return false; // also covers ABSENT
+            }
+        } while (!INT.compareAndSet(buffer, offset, value, value - quantity));
+        return true;
+    }
+    
+    @Override
+    public boolean release(int productId, int quantity) {
+        if (productId < 0 || productId >= capacity) {
+            return false;
+        }
+        int offset = offset(productId);
+        int value;
+        do {
+            value = (int) INT.getVolatile(buffer, offset);
+            if (value == ABSENT || value > Integer.MAX_VALUE - quantity) {
+                return false;
+            }
+        } while (!INT.compareAndSet(buffer, offset, value, value + quantity));
+        return true;
+    }
+    
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+    
+    @Override
+    public int size() {
+        return (int) INT.getVolatile(buffer, SIZE_OFFSET);
+    }
+    
+    /**
+     * Not supported: other processes may be reserving against the stock, and
+     * clearing would wipe it for all of them.
+     * 
+     * @throws IllegalStateException always
+     */
+    @Override
+    public void clear() {
+        throw new IllegalStateException("Shared stock cannot be cleared");
+    }
+    
+    @Override
+    public void forEach(StockVisitor visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            int value = (int) INT.getVolatile(buffer, offset(slot));
+            if (value != ABSENT) {
+                visitor.accept(slot, value);
+            }
+        }
+    }
+    
+    /**
+     * Writes the mapped pages to disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+    
+    /**
+     * Forces the pages to disk and closes the file. The mapping itself stays valid
+     * until it is garbage collected, but the store must not be used afterwards.
+     * 
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+        logger.info("Closed shared stock file {}", file);
+    }
+    
+    private void checkSettable(int productId, int quantity) {
+        if (productId < 0 || productId >= capacity) {
+            throw new IllegalArgumentException("Product ID " + productId
+                + " outside shared stock capacity " + capacity);
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+    }
+    
+    private static int offset(int productId) {
+        return HEADER_SIZE + productId * Integer.BYTES;
+    }
+}
@@ -0,0 +1,95 @@
+package ee.commerce.order.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lets many writers run concurrently while a reader occasionally needs them all
+ * to stand still, e.g. to take a consistent snapshot.
+ * 
+ * Writers register in a per-thread stripe of padded counters, so entering the gate
+ * touches no shared cache line unless the gate is closing. {@link #close()} blocks
+ * new writers and waits until the writers inside have left. Writers must not
+ * enter the gate again while they are inside it.
+ */
+public final class MutationGate {
+    
+    private static final int PADDING = 16;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    
+    private final int stripeCount;
+    private final AtomicLongArray inside;
+    private volatile boolean closed;
+    
+    /**
+     * Creates an open gate with one stripe per core.
+     */
+    public MutationGate() {
+        this.stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.inside = new AtomicLongArray(stripeCount * PADDING);
+    }
+    
+    /**
+     * Enters the gate, waiting while it is closed.
+     * Every call must be followed by exactly one {@link #exit()} on the same thread.
+     */
+    public void enter() {
+        int index = home();
+        while (true) {
+            inside.incrementAndGet(index);
+            if (!closed) {
+                return;
+            }
+            // Closing: step back out and wait, so the closer does not wait for us
+            inside.decrementAndGet(index);
+            await(false);
+        }
+    }
+    
+    /**
+     * Leaves the gate.
+     */
+    public void exit() {
+        inside.decrementAndGet(home());
+    }
+    
+    /**
+     * Closes the gate and waits until no writer is inside.
+     * Must be followed by {@link #open()}.
+     */
+    public synchronized void close() {
+        closed = true;
+        await(true);
+    }
+    
+    /**
+     * Opens the gate again.
+     */
+    public void open() {
+        closed = false;
+    }
+    
+    private void await(boolean forEmpty) {
+        int spins = 0;
+        while (forEmpty ? writersInside() != 0 : closed) {
+            if (++spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+    
+    private long writersInside() {
+        long total = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            total += inside.get(i * PADDING);
+        }
+        return total;
+    }
+    
+    private int home() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (stripeCount - 1)) * PADDING;
+    }
+}
@@ -0,0 +1,402 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock counter for one product that adapts to contention.
+ * 
+ * Normally the stock is a single atomic counter updated with compare-and-set. When
+ * many threads fight over the same product (a flash sale), failed CAS attempts are
+ * counted and, above a threshold, the stock is split into per-thread stripes. Each
+ * reservation then takes units from its own stripe and only touches shared state
+ * when the stripe runs dry: it refills from the central counter or borrows budget
+ * from the other stripes. When traffic cools down the stripes are collapsed back
+ * into the central counter.
+ * 
+ * Units are only ever moved between counters with compare-and-set and no counter
+ * goes below zero, so the product is never oversold. A reservation that finds
+ * too little stock is refused at once; one that fails although the total would
+ * cover it (the units are stranded in other stripes) collapses the stripes and
+ * checks the central counter again, so a reservation only fails when the stock
+ * is really insufficient or its units are in flight between counters.
+ * 
+ * {@link #get()} sums all counters and is exact when no reservation is in flight.
+ */
+public final class StockCounter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StockCounter.class);
+    
+    static final int DEFAULT_HOT_CONTENTION = 64;
+    static final long DEFAULT_COOL_OPERATIONS = 256;
+    static final long DEFAULT_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    /**
+     * Marks a stripe that has been collapsed; no reservation can take from it.
+     */
+    private static final int SEALED = Integer.MIN_VALUE;
+    
+    /**
+     * Distance between stripes in the backing array, so that neighbouring stripes
+     * sit on different cache lines.
+     */
+    private static final int PADDING = 16;
+    
+    private final AtomicInteger central;
+    private final int stripeCount;
+    private final int hotContention;
+    private final long coolOperations;
+    private final long windowNanos;
+    
+    private volatile Stripes stripes;
+    private final AtomicInteger contention = new AtomicInteger();
+    private final LongAdder stripedOperations = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    
+    /**
+     * Creates a counter with default thresholds and one stripe per core.
+     * 
+     * @param initialStock initial stock
+     * @throws IllegalArgumentException if initialStock is negative
+     */
+    public StockCounter(int initialStock) {
+        this(initialStock, defaultStripeCount(), DEFAULT_HOT_CONTENTION,
+             DEFAULT_COOL_OPERATIONS, DEFAULT_WINDOW_NANOS);
+    }
+    
+    /**
+     * Creates a counter with explicit thresholds.
+     * 
+     * @param initialStock initial stock
+     * @param stripeCount number of stripes in hot mode, a power of two
+     * @param hotContention failed CAS attempts per window that switch to stripes
+     * @param coolOperations reservations per window below which stripes are collapsed
+     * @param windowNanos length of the measurement window
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    StockCounter(int initialStock, int stripeCount, int hotContention,
+                 long coolOperations, long windowNanos) {
+        if (initialStock < 0) {
+            throw new IllegalArgumentException("Initial stock cannot be negative");
+        }
+        if (stripeCount < 2 || Integer.bitCount(stripeCount) != 1 || hotContention <= 0 || coolOperations < 0 || windowNanos <= 0) {
+            throw new IllegalArgumentException("Invalid striping configuration");
+        }
+        this.central = new AtomicInteger(initialStock);
+        this.stripeCount = stripeCount;
+        this.hotContention = hotContention;
+        this.coolOperations = coolOperations;
+        this.windowNanos = windowNanos;
+    }
+    
+    private static int defaultStripeCount() {
+        return Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    }
+    
+    /**
+     * Reserves units if enough stock is available.
+     * 
+     * @param quantity units to reserve, must be positive
+     * @return true if the units were reserved
+     */
+    public boolean tryReserve(int quantity) {
+        Stripes current = stripes;
+        if (current == null) {
+            if (reserveCentral(quantity, true)) {
+                return true;
+            }
+            if (stripes == null) {
+                return false;
+            }
+        } else {
+            stripedOperations.increment();
+            boolean reserved = reserveStriped(current, quantity);
+            maybeCool();
+            if (reserved) {
+                return true;
+            }
+        }
+        
+        // Sold out: refuse without collapsing, or every failed attempt of a flash sale would take the lock
+        if (get() < quantity) {
+            return false;
+        }
+        // Budget is stranded in the stripes; collapse and check once more against the whole stock
+        collapse();
+        return reserveCentral(quantity, false);
+    }
+    
+    /**
+     * Returns units to the stock.
+     * In striped mode the units go to the caller's own stripe, so a reserve/release
+     * pair does not touch the central counter.
+     * 
+     * @param quantity units to release, must be positive
+     * @return false if the stock would overflow
+     */
+    public boolean release(int quantity) {
+        Stripes current = stripes;
+        if (current != null) {
+            if (get() > Integer.MAX_VALUE - quantity) {
+                return false;
+            }
+            current.deposit(current.home(), quantity, central);
+            return true;
+        }
+        
+        int value;
+        do {
+            value = central.get();
+            if (value > Integer.MAX_VALUE - quantity) {
+                return false;
+            }
+        } while (!central.compareAndSet(value, value + quantity));
+        return true;
+    }
+    
+    /**
+     * Replaces the stock level, collapsing any stripes first.
+     * 
+     * @param quantity new stock level
+     */
+    public synchronized void set(int quantity) {
+        collapse();
+        central.set(quantity);
+    }
+    
+    /**
+     * Gets the current stock over the central counter and all stripes.
+     * 
+     * @return stock level
+     */
+    public int get() {
+        long total = central.get();
+        Stripes current = stripes;
+        if (current != null) {
+            total += current.sum();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+    
+    /**
+     * Checks whether the counter currently runs in striped (hot) mode.
+     * 
+     * @return true if the stock is split into stripes
+     */
+    public boolean isStriped() {
+        return stripes != null;
+    }
+    
+    /**
+     * Checks whether the counter runs unstriped and has not seen a failed CAS for
+     * at least a whole window. A window only restarts on contention, so two window
+     * lengths without a restart leave one full window without any.
+     * 
+     * @return true if the counter has cooled down
+     */
+    boolean isCold() {
+        return stripes == null && System.nanoTime() - windowStart.get() >= 2 * windowNanos;
+    }
+    
+    /**
+     * Splits the stock into stripes, e.g. ahead of a known flash sale.
+     * Does nothing if the counter is already striped.
+     */
+    public synchronized void stripe() {
+        if (stripes != null) {
+            return;
+        }
+        // Publish the empty stripes first: until they are filled, reservations fall back to the central counter
+        Stripes created = new Stripes(stripeCount);
+        stripedOperations.reset();
+        windowStart.set(System.nanoTime());
+        stripes = created;
+        
+        int budget = central.getAndSet(0);
+        int share = budget / stripeCount;
+        for (int i = 0; i < stripeCount; i++) {
+            created.slots.addAndGet(i * PADDING, share);
+        }
+        central.addAndGet(budget - share * stripeCount);
+        logger.info("Stock counter switched to {} stripes ({} units)", stripeCount, budget);
+    }
+    
+    /**
+     * Collapses the stripes back into the central counter.
+     * Does nothing if the counter is not striped.
+     */
+    public synchronized void collapse() {
+        Stripes current = stripes;
+        if (current == null) {
+            return;
+        }
+        // Move the units before unpublishing the stripes, so a reader that no longer sees them finds the units centrally
+        int moved = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            int value = current.slots.getAndSet(i * PADDING, SEALED);
+            if (value > 0) {
+                central.addAndGet(value);
+                moved += value;
+            }
+        }
+        stripes = null;
+        contention.set(0);
+        windowStart.set(System.nanoTime());
+        logger.info("Stock counter collapsed to a single counter ({} units from stripes)", moved);
+    }
+    
+    private boolean reserveCentral(int quantity, boolean trackContention) {
+        while (true) {
+            int value = central.get();
+            if (value < quantity) {
+                return false;
+            }
+            if (central.compareAndSet(value, value - quantity)) {
+                return true;
+            }
+            if (trackContention) {
+                onContention();
+            }
+        }
+    }
+    
+    private boolean reserveStriped(Stripes current, int quantity) {
+        int home = current.home();
+        if (current.take(home, quantity)) {
+            return true;
+        }
+        
+        // Home stripe is dry: take from the central counter, refilling the home stripe on the way
+        int refill = Math.min(Math.max(quantity, central.get() / (stripeCount * 2)), Integer.MAX_VALUE - quantity);
+        if (takeCentral(quantity + refill)) {
+            current.deposit(home, refill, central);
+            return true;
+        }
+        if (takeCentral(quantity)) {
+            return true;
+        }
+        
+        // Borrow what the other stripes have left
+        int gathered = 0;
+        for (int i = 1; i < stripeCount && gathered < quantity; i++) {
+            gathered += current.takeUpTo((home + i) & (stripeCount - 1), quantity - gathered);
+        }
+        if (gathered == quantity) {
+            return true;
+        }
+        if (gathered > 0) {
+            central.addAndGet(gathered);
+        }
+        return false;
+    }
+    
+    private boolean takeCentral(int quantity) {
+        int value;
+        do {
+            value = central.get();
+            if (value < quantity) {
+                return false;
+            }
+        } while (!central.compareAndSet(value, value - quantity));
+        return true;
+    }
+    
+    private void onContention() {
+        if (startNewWindow()) {
+            contention.set(0);
+        }
+        if (contention.incrementAndGet() >= hotContention && stripes == null) {
+            stripe();
+        }
+    }
+    
+    private void maybeCool() {
+        long start = windowStart.get();
+        if (System.nanoTime() - start < windowNanos || !windowStart.compareAndSet(start, System.nanoTime())) {
+            return;
+        }
+        if (stripedOperations.sumThenReset() < coolOperations) {
+            collapse();
+        }
+    }
+    
+    private boolean startNewWindow() {
+        long start = windowStart.get();
+        return System.nanoTime() - start >= windowNanos && windowStart.compareAndSet(start, System.nanoTime());
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StockCounter{stock=%d, striped=%s}", get(), isStriped());
+    }
+    
+    /**
+     * Padded stripe counters for one hot period.
+     */
+    private final class Stripes {
+        final AtomicIntegerArray slots;
+        
+        Stripes(int count) {
+            this.slots = new AtomicIntegerArray(count * PADDING);
+        }
+        
+        int home() {
+            long id = Thread.currentThread().getId();
+            int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+            return (hash >>> 16) & (stripeCount - 1);
+        }
+        
+        boolean take(int stripe, int quantity) {
+            int index = stripe * PADDING;
+            int value;
+            do {
+                value = slots.get(index);
+                if (value < quantity) {
+                    return false; // also covers SEALED
+                }
+            } while (!slots.compareAndSet(index, value, value - quantity));
+            return true;
+        }
+        
+        int takeUpTo(int stripe, int quantity) {
+            int index = stripe * PADDING;
+            int value;
+            int taken;
+            do {
+                value = slots.get(index);
+                if (value <= 0) {
+                    return 0;
+                }
+                taken = Math.min(value, quantity);
+            } while (!slots.compareAndSet(index, value, value - taken));
+            return taken;
+        }
+        
+        void deposit(int stripe, int quantity, AtomicInteger overflow) {
+            int index = stripe * PADDING;
+            int value;
+            do {
+                value = slots.get(index);
+                if (value == SEALED) {
+                    // Collapsed meanwhile: the units belong to the central counter
+                    overflow.addAndGet(quantity);
+                    return;
+                }
+            } while (!slots.compareAndSet(index, value, value + quantity));
+        }
+        
+        long sum() {
+            long total = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                total += Math.max(0, slots.get(i * PADDING));
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ee.commerce.order.inventory;
+
+import java.time.Instant;
+
+/**
+ * A change of one product's stock.
+ * Immutable value object.
+ */
+public final class StockEvent {
+    
+    /**
+     * Kind of stock change.
+     */
+    public enum Type {
+        /** Units were reserved. */
+        RESERVED,
+        /** Units were returned to the stock. */
+        RELEASED,
+        /** The stock level was replaced, e.g. on reset or recovery. */
+        SET,
+        /** A reservation left the stock below the low-stock threshold. */
+        LOW_STOCK
+    }
+    
+    private static final Type[] TYPES = Type.values();
+    
+    private final long sequence;
+    private final Type type;
+    private final int productId;
+    private final int quantity;
+    private final int stockLevel;
+    private final long timestampMillis;
+    
+    public StockEvent(long sequence, Type type, int productId, int quantity, int stockLevel, long timestampMillis) {
+        this.sequence = sequence;
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.stockLevel = stockLevel;
+        this.timestampMillis = timestampMillis;
+    }
+    
+    static Type typeOf(int ordinal) {
+        return TYPES[ordinal];
+    }
+    
+    /**
+     * Gets the position of the event in the stream; later events have higher sequences.
+     * 
+     * @return event sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    /**
+     * Gets the number of units reserved or released; 0 for other events.
+     * 
+     * @return units changed
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    /**
+     * Gets the stock level right after the change.
+     * 
+     * @return stock level
+     */
+    public int getStockLevel() {
+        return stockLevel;
+    }
+    
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StockEvent{#%d %s product=%d, quantity=%d, stock=%d}",
+                           sequence, type, productId, quantity, stockLevel);
+    }
+}
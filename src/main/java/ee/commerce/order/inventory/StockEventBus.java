@@ -0,0 +1,542 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous stream of stock events with batched delivery.
+ * 
+ * Events are written into bounded, lock-free ring buffers, one per stripe; a
+ * product always uses the same stripe, so publishers of different products
+ * rarely share a tail. A slot is claimed with one compare-and-set on the
+ * stripe's tail, its fields are written into primitive arrays, and the slot's
+ * sequence number is then set to mark it readable. Publishing never blocks and
+ * does not allocate; when a stripe is full the event is dropped and counted, so
+ * a stalled listener cannot slow down reservations. {@code LOW_STOCK} events
+ * are never dropped: when their stripe is full they are kept aside, one per
+ * product with the latest stock level, and delivered with the next batch.
+ * 
+ * A single dispatcher thread drains the stripes and hands the events to every
+ * listener in batches of up to {@code maxBatch} events. Events of one product
+ * are delivered in publication order, except that a low-stock event kept aside
+ * may overtake the product's events still in the full stripe; events of
+ * different products may be delivered in any order. After
+ * a batch the dispatcher parks for up to {@value #IDLE_PARK_MILLIS} ms; publishers
+ * only wake it early once a quarter of the buffer is filled, so a busy publisher
+ * does not pay for a thread wake-up on every event. If nothing arrived during
+ * that pause the dispatcher sleeps until the next event is published, so an idle
+ * bus costs no wake-ups at all. Event timestamps come from a clock the dispatcher
+ * refreshes on every pass, so they are accurate to about a millisecond and cost
+ * publishers no system call.
+ * 
+ * A bus created with an {@link Executor}, e.g. the worker an inventory partition
+ * is pinned to, starts no thread of its own. The first event published while the
+ * bus is idle submits a delivery task; the task hands over one batch, submits
+ * itself again while events are pending, and goes idle otherwise, so the
+ * executor's other work is never held up for more than a batch.
+ */
+public final class StockEventBus implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StockEventBus.class);
+    
+    static final int DEFAULT_CAPACITY = 1 << 14;
+    static final int DEFAULT_MAX_BATCH = 256;
+    private static final int MAX_STRIPES = 16;
+    private static final long IDLE_PARK_MILLIS = 1;
+    // Longs between two stripes' counters, so they do not share a cache line
+    private static final int PADDING = 16;
+    
+    private final int stripeCount;
+    private final int capacity;
+    private final int mask;
+    private final int maxBatch;
+    private final int wakeThreshold;
+    
+    // Stripe s owns slots [s * capacity, (s + 1) * capacity); the slot of position p in
+    // a stripe is readable when its sequence is p + 1, writable when it equals p
+    private final AtomicLongArray sequences;
+    private final byte[] types;
+    private final int[] productIds;
+    private final int[] quantities;
+    private final int[] stockLevels;
+    private final long[] timestamps;
+    
+    // Per stripe at index s * PADDING: next position to claim, and positions delivered
+    private final AtomicLongArray tails;
+    private final AtomicLongArray delivered;
+    // Low-stock events that found their stripe full, latest per product
+    private final ConcurrentHashMap<Integer, StockEvent> alerts = new ConcurrentHashMap<>();
+    private final AtomicLong alertsQueued = new AtomicLong();
+    private volatile long alertsDelivered;
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<StockEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread dispatcher; // null when delivering on an executor
+    private final Executor executor;
+    
+    // Dispatcher thread or the single delivery task only
+    private final long[] heads;
+    private long sequence;
+    private int firstStripe;
+    private int alertsPolled;
+    
+    private volatile long clockMillis = System.currentTimeMillis(); // refreshed by the dispatcher
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private volatile boolean running = true;
+    
+    /**
+     * Creates a bus with the default capacity, shared by its stripes, and starts
+     * its dispatcher thread.
+     */
+    public StockEventBus() {
+        this(defaultStripeCount(), DEFAULT_CAPACITY / defaultStripeCount(), DEFAULT_MAX_BATCH);
+    }
+    
+    /**
+     * Creates a bus with the default capacity and starts its dispatcher thread,
+     * named after the bus so thread dumps tell the stores apart.
+     * 
+     * @param name name of the bus, e.g. the store ID
+     */
+    public StockEventBus(String name) {
+        this("stock-event-dispatcher-" + name, null,
+             defaultStripeCount(), DEFAULT_CAPACITY / defaultStripeCount(), DEFAULT_MAX_BATCH);
+    }
+    
+    /**
+     * Creates a bus with the default capacity that delivers on an executor
+     * instead of its own thread.
+     * 
+     * @param executor runs the delivery tasks; listeners run there
+     * @throws IllegalArgumentException if executor is null
+     */
+    public StockEventBus(Executor executor) {
+        this(null, requireExecutor(executor),
+             defaultStripeCount(), DEFAULT_CAPACITY / defaultStripeCount(), DEFAULT_MAX_BATCH);
+    }
+    
+    /**
+     * Creates a bus with one stripe per processor and starts its dispatcher thread.
+     * 
+     * @param capacity ring buffer size of each stripe, a power of two
+     * @param maxBatch largest number of events handed to a listener at once
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public StockEventBus(int capacity, int maxBatch) {
+        this(defaultStripeCount(), capacity, maxBatch);
+    }
+    
+    /**
+     * Creates a bus and starts its dispatcher thread.
+     * 
+     * @param stripeCount number of ring buffers, a power of two
+     * @param capacity ring buffer size of each stripe, a power of two
+     * @param maxBatch largest number of events handed to a listener at once
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public StockEventBus(int stripeCount, int capacity, int maxBatch) {
+        this("stock-event-dispatcher", null, stripeCount, capacity, maxBatch);
+    }
+    
+    /**
+     * Creates a bus that delivers on an executor.
+     * 
+     * @param executor runs the delivery tasks
+     * @param stripeCount number of ring buffers, a power of two
+     * @param capacity ring buffer size of each stripe, a power of two
+     * @param maxBatch largest number of events handed to a listener at once
+     * @throws IllegalArgumentException if executor is null or a value is out of range
+     */
+    StockEventBus(Executor executor, int stripeCount, int capacity, int maxBatch) {
+        this(null, requireExecutor(executor), stripeCount, capacity, maxBatch);
+    }
+    
+    private StockEventBus(String threadName, Executor executor, int stripeCount, int capacity, int maxBatch) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.stripeCount = stripeCount;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.wakeThreshold = Math.max(1, capacity / 4);
+        int slots = stripeCount * capacity;
+        this.sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i & mask);
+        }
+        this.types = new byte[slots];
+        this.productIds = new int[slots];
+        this.quantities = new int[slots];
+        this.stockLevels = new int[slots];
+        this.timestamps = new long[slots];
+        this.tails = new AtomicLongArray(stripeCount * PADDING);
+        this.delivered = new AtomicLongArray(stripeCount * PADDING);
+        this.heads = new long[stripeCount];
+        
+        this.executor = executor;
+        if (executor != null) {
+            // Idle until the first event submits a delivery task
+            this.dispatcher = null;
+            sleeping.set(true);
+        } else {
+            this.dispatcher = new Thread(this::dispatch, threadName);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+    
+    private static Executor requireExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        return executor;
+    }
+    
+    private static int defaultStripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, processors * 2 - 1)));
+    }
+    
+    /**
+     * Registers a listener for all events published from now on.
+     * 
+     * @param listener the listener
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void subscribe(StockEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener.
+     * 
+     * @param listener the listener
+     * @return true if the listener was registered
+     */
+    public boolean unsubscribe(StockEventListener listener) {
+        return listeners.remove(listener);
+    }
+    
+    /**
+     * Publishes an event without blocking.
+     * 
+     * @param type kind of change
+     * @param productId product ID
+     * @param quantity units reserved or released, 0 for other events
+     * @param stockLevel stock level after the change
+     * @return false if the product's stripe was full and the event was dropped;
+     *         always true for {@code LOW_STOCK} events
+     */
+    public boolean publish(StockEvent.Type type, int productId, int quantity, int stockLevel) {
+        if (sleeping.get()) {
+            // The dispatcher has not refreshed the clock while asleep
+            clockMillis = System.currentTimeMillis();
+        }
+        int stripe = stripeOf(productId);
+        int tailIndex = stripe * PADDING;
+        long position;
+        int index;
+        while (true) {
+            position = tails.get(tailIndex);
+            index = stripe * capacity + ((int) position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tails.compareAndSet(tailIndex, position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                return overflow(type, productId, stockLevel);
+            }
+            // Otherwise another publisher claimed the slot first; retry with the new tail
+        }
+        
+        types[index] = (byte) type.ordinal();
+        productIds[index] = productId;
+        quantities[index] = quantity;
+        stockLevels[index] = stockLevel;
+        timestamps[index] = clockMillis;
+        sequences.set(index, position + 1);
+        
+        // Wake a sleeping dispatcher for any event, a pausing one only when a batch has built up
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            wake();
+        } else if (position + 1 - delivered.get(tailIndex) >= wakeThreshold
+                   && parked.get() && parked.compareAndSet(true, false)) {
+            LockSupport.unpark(dispatcher);
+        }
+        return true;
+    }
+    
+    /**
+     * Handles an event whose stripe is full: drops it, unless it is a low-stock
+     * event, which replaces any low-stock event of the product kept aside before.
+     */
+    private boolean overflow(StockEvent.Type type, int productId, int stockLevel) {
+        if (type != StockEvent.Type.LOW_STOCK) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (alerts.put(productId, new StockEvent(0, type, productId, 0, stockLevel, clockMillis)) == null) {
+            alertsQueued.incrementAndGet();
+        }
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            wake();
+        }
+        return true;
+    }
+    
+    /**
+     * Wakes the dispatcher thread, or submits a delivery task. Only called by
+     * whoever cleared the sleeping flag, so at most one task is queued or running.
+     */
+    private void wake() {
+        if (executor == null) {
+            LockSupport.unpark(dispatcher);
+            return;
+        }
+        try {
+            executor.execute(this::deliverNext);
+        } catch (RejectedExecutionException e) {
+            // The executor was shut down: nothing can deliver the events any more
+            running = false;
+            logger.warn("Stock event executor rejected delivery, {} events not delivered", getPendingCount());
+        }
+    }
+    
+    private int stripeOf(int productId) {
+        int hash = productId * 0x9E3779B9;
+        return (hash >>> 16) & (stripeCount - 1);
+    }
+    
+    /**
+     * Waits until every event published before this call has been delivered.
+     * 
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true if the events were delivered in time
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit) {
+        long alertTarget = alertsQueued.get();
+        long[] targets = new long[stripeCount];
+        for (int s = 0; s < stripeCount; s++) {
+            targets[s] = tails.get(s * PADDING);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isDelivered(targets) || alertsDelivered < alertTarget) {
+            if (System.nanoTime() >= deadline || (dispatcher != null ? !dispatcher.isAlive() : !running)) {
+                return false;
+            }
+            if (dispatcher != null) {
+                LockSupport.unpark(dispatcher);
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+    
+    private boolean isDelivered(long[] targets) {
+        for (int s = 0; s < stripeCount; s++) {
+            if (delivered.get(s * PADDING) < targets[s]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the number of events dropped because their stripe was full.
+     * 
+     * @return dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Gets the number of events waiting for delivery.
+     * 
+     * @return pending event count
+     */
+    public int getPendingCount() {
+        long pending = alertsQueued.get() - alertsDelivered;
+        for (int s = 0; s < stripeCount; s++) {
+            pending += Math.max(0, tails.get(s * PADDING) - delivered.get(s * PADDING));
+        }
+        return (int) pending;
+    }
+    
+    /**
+     * Checks whether the dispatcher is asleep waiting for the next event.
+     * 
+     * @return true if the dispatcher parked without a timeout
+     */
+    boolean isSleeping() {
+        return sleeping.get();
+    }
+    
+    /**
+     * Delivers the pending events and stops the dispatcher thread. A bus on an
+     * executor waits up to five seconds for its delivery task instead.
+     */
+    @Override
+    public void close() {
+        if (dispatcher == null) {
+            awaitDelivery(5, TimeUnit.SECONDS);
+            running = false;
+            return;
+        }
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Delivery task on the executor: hands over one batch, then submits itself
+     * again or goes idle.
+     */
+    private void deliverNext() {
+        if (!running) {
+            return;
+        }
+        clockMillis = System.currentTimeMillis();
+        List<StockEvent> batch = poll();
+        if (!batch.isEmpty()) {
+            deliver(batch);
+            markDelivered();
+        }
+        if (hasPending()) {
+            wake();
+            return;
+        }
+        sleeping.set(true);
+        // A publisher that found the flag still clear did not submit a task; check once more
+        if (hasPending() && sleeping.compareAndSet(true, false)) {
+            wake();
+        }
+    }
+    
+    private void markDelivered() {
+        for (int s = 0; s < stripeCount; s++) {
+            delivered.set(s * PADDING, heads[s]);
+        }
+        alertsDelivered += alertsPolled;
+        alertsPolled = 0;
+    }
+    
+    private void dispatch() {
+        boolean idle = false;
+        while (true) {
+            clockMillis = System.currentTimeMillis();
+            List<StockEvent> batch = poll();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                markDelivered();
+                idle = false;
+            } else if (!running) {
+                return;
+            } else if (idle) {
+                // Nothing arrived during the last pause: sleep until a publisher or close() wakes us
+                sleeping.set(true);
+                if (!hasPending() && running) {
+                    LockSupport.park(this);
+                }
+                sleeping.set(false);
+            } else {
+                parked.set(true);
+                if (!hasPending()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(IDLE_PARK_MILLIS));
+                }
+                parked.set(false);
+                idle = true;
+            }
+        }
+    }
+    
+    /**
+     * Takes the next batch, starting at a different stripe each time so a busy
+     * stripe cannot starve the others. Events are numbered in delivery order.
+     */
+    private List<StockEvent> poll() {
+        if (!hasPending()) {
+            return Collections.emptyList();
+        }
+        List<StockEvent> batch = new ArrayList<>(Math.min(maxBatch, 16));
+        for (int i = 0; i < stripeCount && batch.size() < maxBatch; i++) {
+            int stripe = (firstStripe + i) & (stripeCount - 1);
+            while (batch.size() < maxBatch && isReadable(stripe)) {
+                long head = heads[stripe];
+                int index = stripe * capacity + ((int) head & mask);
+                batch.add(new StockEvent(sequence++, StockEvent.typeOf(types[index]), productIds[index],
+                                         quantities[index], stockLevels[index], timestamps[index]));
+                // Hand the slot back to publishers for the next lap
+                sequences.set(index, head + capacity);
+                heads[stripe] = head + 1;
+            }
+        }
+        firstStripe = (firstStripe + 1) & (stripeCount - 1);
+        for (Integer productId : alerts.keySet()) {
+            if (batch.size() >= maxBatch) {
+                break;
+            }
+            StockEvent alert = alerts.remove(productId);
+            if (alert != null) {
+                alertsPolled++;
+                batch.add(new StockEvent(sequence++, alert.getType(), productId, 0,
+                                         alert.getStockLevel(), alert.getTimestamp().toEpochMilli()));
+            }
+        }
+        return Collections.unmodifiableList(batch);
+    }
+    
+    private boolean hasPending() {
+        for (int s = 0; s < stripeCount; s++) {
+            if (isReadable(s)) {
+                return true;
+            }
+        }
+        return !alerts.isEmpty();
+    }
+    
+    private boolean isReadable(int stripe) {
+        long head = heads[stripe];
+        return sequences.get(stripe * capacity + ((int) head & mask)) == head + 1;
+    }
+    
+    private void deliver(List<StockEvent> batch) {
+        for (StockEventListener listener : listeners) {
+            try {
+                listener.onEvents(batch);
+            } catch (RuntimeException e) {
+                logger.error("Stock event listener failed on {} events", batch.size(), e);
+            }
+        }
+    }
+}
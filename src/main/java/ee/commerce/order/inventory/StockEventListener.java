@@ -0,0 +1,20 @@
+package ee.commerce.order.inventory;
+
+import java.util.List;
+
+/**
+ * Receives stock events from a {@link StockEventBus}.
+ * 
+ * Listeners run on the bus's dispatcher thread, never on the thread that changed
+ * the stock. A slow listener delays the other listeners but not reservations.
+ */
+@FunctionalInterface
+public interface StockEventListener {
+    
+    /**
+     * Handles a batch of events; the events of each product are in publication order.
+     * 
+     * @param events events since the previous batch, never empty
+     */
+    void onEvents(List<StockEvent> events);
+}
@@ -0,0 +1,187 @@
+package ee.commerce.order.inventory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, versioned view of all stock levels at one point in time.
+ * 
+ * Stock levels are kept in pages of {@link DenseStockStore#PAGE_SIZE} product IDs,
+ * like the store they were copied from. Consecutive snapshots share every page
+ * that did not change in between, so taking a snapshot costs a copy of the changed
+ * pages only, and {@link #changesSince(StockSnapshot)} skips shared pages without
+ * looking at them.
+ */
+public final class StockSnapshot {
+    
+    private static final int PAGE_BITS = DenseStockStore.PAGE_BITS;
+    private static final int PAGE_SIZE = DenseStockStore.PAGE_SIZE;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    
+    private final long version;
+    private final int[][] pages;
+    private final int size;
+    
+    StockSnapshot(long version, int[][] pages, int size) {
+        this.version = version;
+        this.pages = pages;
+        this.size = size;
+    }
+    
+    /**
+     * Copies a store product by product. Used for stores that do not track changed pages.
+     * 
+     * @param store store to copy
+     * @param version version of the snapshot
+     * @return snapshot of the store
+     */
+    static StockSnapshot copyOf(StockStore store, long version) {
+        Builder builder = new Builder();
+        store.forEach(builder::put);
+        return new StockSnapshot(version, builder.pages, builder.size);
+    }
+    
+    static int[] emptyPage() {
+        int[] page = new int[PAGE_SIZE];
+        Arrays.fill(page, StockStore.ABSENT);
+        return page;
+    }
+    
+    int[] page(int pageIndex) {
+        return pageIndex < pages.length ? pages[pageIndex] : null;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gets the number of products in the snapshot.
+     * 
+     * @return product count
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets a product's stock level at this version.
+     * 
+     * @param productId product ID
+     * @return stock level, or {@link StockStore#ABSENT} if the product was unknown
+     */
+    public int get(int productId) {
+        if (productId < 0) {
+            return StockStore.ABSENT;
+        }
+        int[] page = page(productId >>> PAGE_BITS);
+        return page != null ? page[productId & PAGE_MASK] : StockStore.ABSENT;
+    }
+    
+    /**
+     * Gets the stock levels of many products at this version.
+     * 
+     * @param productIds product IDs
+     * @return stock level per product ID, {@link StockStore#ABSENT} for unknown products
+     */
+    public int[] getStocks(int[] productIds) {
+        int[] stocks = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            stocks[i] = get(productIds[i]);
+        }
+        return stocks;
+    }
+    
+    /**
+     * Visits every product in ascending ID order.
+     * 
+     * @param visitor receives product ID and stock level
+     */
+    public void forEach(StockStore.StockVisitor visitor) {
+        for (int pageIndex = 0; pageIndex < pages.length; pageIndex++) {
+            int[] page = pages[pageIndex];
+            if (page != null) {
+                visitPage(pageIndex, page, visitor);
+            }
+        }
+    }
+    
+    /**
+     * Gets all stock levels as a map.
+     * 
+     * @return unmodifiable product ID to stock map, sorted by product ID
+     */
+    public Map<Integer, Integer> toMap() {
+        Map<Integer, Integer> map = new TreeMap<>();
+        forEach(map::put);
+        return Collections.unmodifiableMap(map);
+    }
+    
+    /**
+     * Gets the products whose stock differs from an earlier snapshot of the same store.
+     * 
+     * @param earlier earlier snapshot
+     * @return unmodifiable product ID to new stock map, sorted by product ID;
+     *         products that no longer exist map to {@link StockStore#ABSENT}
+     * @throws IllegalArgumentException if earlier is null
+     */
+    public Map<Integer, Integer> changesSince(StockSnapshot earlier) {
+        if (earlier == null) {
+            throw new IllegalArgumentException("Earlier snapshot cannot be null");
+        }
+        Map<Integer, Integer> changes = new TreeMap<>();
+        int pageCount = Math.max(pages.length, earlier.pages.length);
+        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+            int[] now = page(pageIndex);
+            int[] before = earlier.page(pageIndex);
+            if (now == before) {
+                continue; // shared page, nothing changed
+            }
+            int base = pageIndex << PAGE_BITS;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int current = now != null ? now[i] : StockStore.ABSENT;
+                int previous = before != null ? before[i] : StockStore.ABSENT;
+                if (current != previous) {
+                    changes.put(base + i, current);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(changes);
+    }
+    
+    private static void visitPage(int pageIndex, int[] page, StockStore.StockVisitor visitor) {
+        int base = pageIndex << PAGE_BITS;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            if (page[i] != StockStore.ABSENT) {
+                visitor.accept(base + i, page[i]);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StockSnapshot{version=%d, products=%d}", version, size);
+    }
+    
+    /**
+     * Collects stock levels into pages.
+     */
+    private static final class Builder {
+        int[][] pages = new int[0][];
+        int size;
+        
+        void put(int productId, int quantity) {
+            int pageIndex = productId >>> PAGE_BITS;
+            if (pageIndex >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+            }
+            if (pages[pageIndex] == null) {
+                pages[pageIndex] = emptyPage();
+            }
+            pages[pageIndex][productId & PAGE_MASK] = quantity;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ee.commerce.order.inventory;
+
+/**
+ * Primitive storage of stock levels keyed by product ID.
+ * 
+ * Stock levels are plain ints and never negative; {@link #ABSENT} marks products
+ * the store does not know. Implementations are thread-safe and reserve with
+ * compare-and-set, so a product is never oversold.
+ */
+public interface StockStore {
+    
+    /**
+     * Returned for products that are not in the store.
+     */
+    int ABSENT = -1;
+    
+    /**
+     * Gets the stock level of a product.
+     * 
+     * @param productId product ID
+     * @return stock level, or {@link #ABSENT} if the product is unknown
+     */
+    int get(int productId);
+    
+    /**
+     * Gets the stock levels of many products at once, e.g. for a catalog page.
+     * 
+     * @param productIds product IDs
+     * @return stock level per product ID, {@link #ABSENT} for unknown products
+     */
+    default int[] getStocks(int[] productIds) {
+        int[] stocks = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            stocks[i] = get(productIds[i]);
+        }
+        return stocks;
+    }
+    
+    /**
+     * Checks whether the store knows a product.
+     * 
+     * @param productId product ID
+     * @return true if the product has a stock level
+     */
+    default boolean contains(int productId) {
+        return get(productId) != ABSENT;
+    }
+    
+    /**
+     * Sets the stock level of a product, adding the product if needed.
+     * 
+     * @param productId product ID
+     * @param quantity new stock level
+     * @throws IllegalArgumentException if the product ID or quantity is negative
+     */
+    void set(int productId, int quantity);
+    
+    /**
+     * Sets the stock level of a product only if the store does not know it yet.
+     * 
+     * @param productId product ID
+     * @param quantity initial stock level
+     * @return true if the product was added
+     * @throws IllegalArgumentException if the product ID or quantity is negative
+     */
+    boolean setIfAbsent(int productId, int quantity);
+    
+    /**
+     * Reserves units if enough stock is available.
+     * 
+     * @param productId product ID
+     * @param quantity units to reserve, must be positive
+     * @return true if the units were reserved; false if the product is unknown or short
+     */
+    boolean tryReserve(int productId, int quantity);
+    
+    /**
+     * Returns units to the stock.
+     * 
+     * @param productId product ID
+     * @param quantity units to release, must be positive
+     * @return true if released; false if the product is unknown or the stock would overflow
+     */
+    boolean release(int productId, int quantity);
+    
+    /**
+     * Checks whether a product's stock is currently split into stripes because of heavy traffic.
+     * 
+     * @param productId product ID
+     * @return true if the product is in hot (striped) mode
+     */
+    default boolean isHot(int productId) {
+        return false;
+    }
+    
+    /**
+     * Checks whether other processes or nodes change the same stock.
+     * 
+     * @return true if the stock is shared beyond this process
+     */
+    default boolean isShared() {
+        return false;
+    }
+    
+    /**
+     * Gets the number of products in the store.
+     * 
+     * @return product count
+     */
+    int size();
+    
+    /**
+     * Removes all products.
+     * 
+     * @throws IllegalStateException if the store cannot be cleared
+     */
+    void clear();
+    
+    /**
+     * Frees per-product resources that heavy traffic made the store allocate and
+     * that the products no longer need. Must only be called while no stock
+     * changes, e.g. while writers are blocked for a snapshot.
+     */
+    default void compact() {
+    }
+    
+    /**
+     * Takes an immutable snapshot of all stock levels.
+     * The snapshot is only a consistent point-in-time view if no stock changes
+     * while it is taken; callers that need one block writers first.
+     * 
+     * @param version version to stamp on the snapshot
+     * @return snapshot of the store
+     */
+    default StockSnapshot snapshot(long version) {
+        return StockSnapshot.copyOf(this, version);
+    }
+    
+    /**
+     * Visits every product in ascending ID order.
+     * 
+     * @param visitor receives product ID and stock level
+     */
+    void forEach(StockVisitor visitor);
+    
+    /**
+     * Receives one product's stock level without boxing.
+     */
+    @FunctionalInterface
+    interface StockVisitor {
+        void accept(int productId, int quantity);
+    }
+}
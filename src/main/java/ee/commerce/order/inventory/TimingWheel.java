@@ -0,0 +1,256 @@
+package ee.commerce.order.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of timeouts.
+ * 
+ * Time is divided into ticks. The wheel has {@value #LEVELS} levels of
+ * {@value #SLOTS} slots; a slot on level {@code n} covers {@code SLOTS^n} ticks.
+ * A timeout is put into the lowest level whose range covers its deadline and is
+ * moved down a level ("cascaded") when the clock reaches its slot. Scheduling and
+ * cancelling are O(1) list operations; expiring costs O(1) amortized per timeout.
+ * 
+ * Timeouts never fire early: deadlines are rounded up to whole ticks. The wheel
+ * does not own a thread; the caller advances it with {@link #advance(long, Consumer)}.
+ * Thread-safe: all operations synchronize on the wheel, and expiry callbacks run
+ * after the lock has been released.
+ * 
+ * @param <T> payload type of the timeouts
+ */
+public final class TimingWheel<T> {
+    
+    static final int BITS = 8;
+    static final int SLOTS = 1 << BITS;
+    static final int LEVELS = 4;
+    private static final long MASK = SLOTS - 1;
+    private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+    
+    private final long tickMillis;
+    private final long originMillis;
+    private final Bucket<T>[][] levels;
+    private long currentTick;
+    private int size;
+    
+    /**
+     * Creates a timing wheel.
+     * 
+     * @param tickMillis length of one tick in milliseconds
+     * @param nowMillis current time in milliseconds, the wheel's origin
+     * @throws IllegalArgumentException if tickMillis is not positive
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.originMillis = nowMillis;
+        this.levels = newLevels();
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+    }
+    
+    /**
+     * Creates the bucket arrays; Java cannot create arrays of a generic type directly.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Bucket<T>[][] newLevels() {
+        return new Bucket[LEVELS][SLOTS];
+    }
+    
+    /**
+     * Schedules a timeout.
+     * 
+     * @param payload object handed to the expiry callback
+     * @param deadlineMillis time in milliseconds at which the timeout expires
+     * @return handle that can cancel the timeout
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long elapsed = Math.max(0, deadlineMillis - originMillis);
+        long deadlineTick = (elapsed + tickMillis - 1) / tickMillis;
+        Timeout<T> timeout = new Timeout<>(this, payload, Math.max(deadlineTick, currentTick + 1));
+        place(timeout, null);
+        size++;
+        return timeout;
+    }
+    
+    /**
+     * Advances the clock and expires every timeout whose deadline has passed.
+     * 
+     * @param nowMillis current time in milliseconds
+     * @param onExpire called once for each expired payload, outside the lock
+     * @return number of expired timeouts
+     */
+    public int advance(long nowMillis, Consumer<T> onExpire) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = Math.max(0, nowMillis - originMillis) / tickMillis;
+            while (currentTick < targetTick) {
+                // Skip ahead when nothing is scheduled, e.g. after a long idle period
+                if (size == 0) {
+                    currentTick = targetTick;
+                    break;
+                }
+                tick(expired);
+            }
+        }
+        for (T payload : expired) {
+            onExpire.accept(payload);
+        }
+        return expired.size();
+    }
+    
+    /**
+     * Gets the number of scheduled timeouts.
+     * 
+     * @return pending timeout count
+     */
+    public synchronized int size() {
+        return size;
+    }
+    
+    private void tick(List<T> expired) {
+        currentTick++;
+        int index = (int) (currentTick & MASK);
+        if (index == 0) {
+            cascade(1, expired);
+        }
+        Bucket<T> bucket = levels[0][index];
+        Timeout<T> timeout = bucket.detachAll();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            place(timeout, expired);
+            timeout = next;
+        }
+    }
+    
+    private void cascade(int level, List<T> expired) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int index = (int) ((currentTick >>> (BITS * level)) & MASK);
+        if (index == 0) {
+            cascade(level + 1, expired);
+        }
+        Timeout<T> timeout = levels[level][index].detachAll();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            place(timeout, expired);
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Puts a timeout into the slot matching its deadline, or expires it if the deadline has passed.
+     */
+    private void place(Timeout<T> timeout, List<T> expired) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0 && expired != null) {
+            timeout.bucket = null;
+            size--;
+            expired.add(timeout.payload);
+            return;
+        }
+        long placementTick = delta > MAX_DELTA ? currentTick + MAX_DELTA : timeout.deadlineTick;
+        long span = Math.min(delta, MAX_DELTA);
+        int level = 0;
+        while (level < LEVELS - 1 && span >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((placementTick >>> (BITS * level)) & MASK);
+        levels[level][index].add(timeout);
+    }
+    
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+    
+    /**
+     * Handle of a scheduled timeout.
+     * 
+     * @param <T> payload type
+     */
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        
+        private Timeout(TimingWheel<T> wheel, T payload, long deadlineTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+        
+        public T getPayload() {
+            return payload;
+        }
+        
+        /**
+         * Cancels the timeout.
+         * 
+         * @return true if the timeout was pending, false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+    
+    /**
+     * Intrusive doubly linked list of timeouts in one slot.
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+        
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+        
+        /**
+         * Empties the slot and returns its timeouts as a singly linked chain.
+         */
+        Timeout<T> detachAll() {
+            Timeout<T> first = head;
+            head = null;
+            for (Timeout<T> t = first; t != null; t = t.next) {
+                t.bucket = null;
+                t.prev = null;
+            }
+            return first;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package ee.commerce.order.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Stock kept per warehouse, with an engine that decides which warehouses ship
+ * a reservation.
+ * 
+ * Every warehouse has its own {@link DenseStockStore}. Customers are grouped
+ * into delivery zones; the constructor ranks the warehouses by shipping cost
+ * once per zone, so an allocation only walks a precomputed route. A second
+ * index keeps, per product, a bit mask of the warehouses that have stock, and
+ * the route walk skips the others without touching their stores.
+ * 
+ * An allocation prefers the cheapest warehouse that can ship the whole quantity.
+ * Only if no single warehouse can, the quantity is split over the route in
+ * cost order. Splits and multi-product baskets are all or nothing: if the
+ * stock runs short part way, the units taken so far are put back. No locks
+ * are taken, so concurrent allocations cannot deadlock.
+ * 
+ * At most {@value #MAX_WAREHOUSES} warehouses are supported. Warehouse and zone
+ * indexes outside the configured range are rejected with an
+ * IllegalArgumentException. {@link WarehouseStockStore} serves one zone's
+ * reservations through the {@link StockStore} interface, so an
+ * {@code InventoryManager} can run on warehouse stock.
+ */
+public final class WarehouseStock {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseStock.class);
+    private static final VarHandle MASK = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle PAGE = MethodHandles.arrayElementVarHandle(long[][].class);
+    
+    static final int MAX_WAREHOUSES = Long.SIZE;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    
+    private final String[] codes;
+    private final DenseStockStore[] stores;
+    
+    // Warehouse indexes per zone, cheapest first
+    private final int[][] routes;
+    
+    // Per product, bit w is set while warehouse w may have stock
+    private volatile long[][] masks = new long[0][];
+    
+    /**
+     * Creates empty warehouses.
+     * 
+     * @param codes warehouse codes, e.g. "TLN"; the index of a code is the warehouse index
+     * @param shippingCost cost of shipping from each warehouse to each zone,
+     *        indexed {@code [zone][warehouse]}
+     * @throws IllegalArgumentException if there are no or too many warehouses,
+     *         or a zone does not have a cost for every warehouse
+     */
+    public WarehouseStock(String[] codes, int[][] shippingCost) {
+        if (codes.length == 0 || codes.length > MAX_WAREHOUSES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_WAREHOUSES + " warehouses are supported");
+        }
+        if (shippingCost.length == 0) {
+            throw new IllegalArgumentException("At least one zone is required");
+        }
+        this.codes = codes.clone();
+        this.stores = new DenseStockStore[codes.length];
+        for (int w = 0; w < stores.length; w++) {
+            stores[w] = new DenseStockStore();
+        }
+        this.routes = new int[shippingCost.length][];
+        for (int zone = 0; zone < shippingCost.length; zone++) {
+            int[] costs = shippingCost[zone];
+            if (costs.length != codes.length) {
+                throw new IllegalArgumentException("Zone " + zone + " needs a cost for each of "
+                    + codes.length + " warehouses");
+            }
+            // Stable sort by cost: equal costs keep the warehouse order
+            routes[zone] = IntStream.range(0, codes.length).boxed()
+                .sorted((a, b) -> Integer.compare(costs[a], costs[b]))
+                .mapToInt(Integer::intValue).toArray();
+        }
+    }
+    
+    /**
+     * Creates empty warehouses from text configuration.
+     * 
+     * @param codes comma-separated warehouse codes, e.g. {@code TLN,TRT,PRN}
+     * @param shippingCost shipping costs per zone, zones separated by semicolons and
+     *        warehouses by commas, e.g. {@code 1,5,3;6,1,4}
+     * @return empty warehouses
+     * @throws IllegalArgumentException if the configuration is malformed
+     */
+    public static WarehouseStock parse(String codes, String shippingCost) {
+        if (codes == null || shippingCost == null) {
+            throw new IllegalArgumentException("Warehouse codes and shipping costs are required");
+        }
+        String[] parsedCodes = codes.split(",");
+        for (int w = 0; w < parsedCodes.length; w++) {
+            parsedCodes[w] = parsedCodes[w].trim();
+        }
+        String[] zones = shippingCost.split(";");
+        int[][] costs = new int[zones.length][];
+        for (int zone = 0; zone < zones.length; zone++) {
+            String[] values = zones[zone].split(",");
+            costs[zone] = new int[values.length];
+            for (int w = 0; w < values.length; w++) {
+                try {
+                    costs[zone][w] = Integer.parseInt(values[w].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid shipping cost in zone " + zone + ": " + values[w], e);
+                }
+            }
+        }
+        return new WarehouseStock(parsedCodes, costs);
+    }
+    
+    /**
+     * Sets stock levels from text configuration.
+     * 
+     * @param stock stock per warehouse, warehouses separated by semicolons, e.g.
+     *        {@code TLN:1=5,2=10;TRT:1=10} for 5 units of product 1 and 10 of
+     *        product 2 in TLN and 10 units of product 1 in TRT
+     * @throws IllegalArgumentException if the configuration is malformed or names an unknown warehouse
+     */
+    public void seed(String stock) {
+        if (stock == null) {
+            throw new IllegalArgumentException("Warehouse stock cannot be null");
+        }
+        for (String entry : stock.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            int warehouse = colon > 0 ? indexOf(entry.substring(0, colon).trim()) : -1;
+            if (warehouse < 0) {
+                throw new IllegalArgumentException("Unknown warehouse in stock entry: " + entry.trim());
+            }
+            for (String level : entry.substring(colon + 1).split(",")) {
+                int equals = level.indexOf('=');
+                try {
+                    setStock(warehouse, Integer.parseInt(level.substring(0, Math.max(0, equals)).trim()),
+                             Integer.parseInt(level.substring(equals + 1).trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid stock level for " + codes[warehouse] + ": " + level, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Finds a warehouse by code.
+     * 
+     * @param code warehouse code
+     * @return warehouse index, or -1 if no warehouse has the code
+     */
+    public int indexOf(String code) {
+        for (int w = 0; w < codes.length; w++) {
+            if (codes[w].equals(code)) {
+                return w;
+            }
+        }
+        return -1;
+    }
+    
+    public int getWarehouseCount() {
+        return codes.length;
+    }
+    
+    public int getZoneCount() {
+        return routes.length;
+    }
+    
+    public String getCode(int warehouse) {
+        checkWarehouse(warehouse);
+        return codes[warehouse];
+    }
+    
+    /**
+     * Gets the warehouses a zone is served from, cheapest first.
+     * 
+     * @param zone delivery zone
+     * @return warehouse indexes
+     * @throws IllegalArgumentException if the zone does not exist
+     */
+    public int[] getRoute(int zone) {
+        checkZone(zone);
+        return routes[zone].clone();
+    }
+    
+    /**
+     * Sets a product's stock in one warehouse.
+     * 
+     * @param warehouse warehouse index
+     * @param productId product ID
+     * @param quantity new stock level
+     * @throws IllegalArgumentException if the warehouse does not exist, or the
+     *         product ID or quantity is negative
+     */
+    public void setStock(int warehouse, int productId, int quantity) {
+        checkWarehouse(warehouse);
+        stores[warehouse].set(productId, quantity);
+        updateMask(warehouse, productId);
+    }
+    
+    /**
+     * Gets a product's stock in one warehouse.
+     * 
+     * @param warehouse warehouse index
+     * @param productId product ID
+     * @return stock level, 0 if the warehouse does not carry the product
+     * @throws IllegalArgumentException if the warehouse does not exist
+     */
+    public int getStock(int warehouse, int productId) {
+        checkWarehouse(warehouse);
+        return Math.max(0, stores[warehouse].get(productId));
+    }
+    
+    /**
+     * Gets a product's stock over all warehouses.
+     * 
+     * @param productId product ID
+     * @return total stock level
+     */
+    public int getTotalStock(int productId) {
+        long total = 0;
+        for (DenseStockStore store : stores) {
+            total += Math.max(0, store.get(productId));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+    
+    /**
+     * Checks whether any warehouse carries a product, even without stock.
+     * 
+     * @param productId product ID
+     * @return true if some warehouse has a stock level for the product
+     */
+    public boolean carries(int productId) {
+        for (DenseStockStore store : stores) {
+            if (store.contains(productId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Visits every carried product in ascending ID order with its total stock.
+     * 
+     * @param visitor receives product ID and total stock level
+     */
+    public void forEachTotal(StockStore.StockVisitor visitor) {
+        Map<Integer, Long> totals = new TreeMap<>();
+        for (DenseStockStore store : stores) {
+            store.forEach((productId, quantity) -> totals.merge(productId, (long) quantity, Long::sum));
+        }
+        totals.forEach((productId, total) -> visitor.accept(productId, (int) Math.min(Integer.MAX_VALUE, total)));
+    }
+    
+    /**
+     * Removes every product from every warehouse.
+     */
+    public synchronized void clear() {
+        for (DenseStockStore store : stores) {
+            store.clear();
+        }
+        masks = new long[0][];
+    }
+    
+    /**
+     * Gets the warehouses that currently have stock of a product.
+     * 
+     * @param productId product ID
+     * @return bit mask, bit {@code w} set for warehouse {@code w}
+     */
+    public long getAvailability(int productId) {
+        long[] page = maskPage(productId);
+        return page != null ? (long) MASK.getVolatile(page, productId & PAGE_MASK) : 0L;
+    }
+    
+    /**
+     * Reserves units of a product for delivery to a zone.
+     * 
+     * @param productId product ID
+     * @param quantity units to reserve
+     * @param zone delivery zone
+     * @return the warehouses and units reserved, or null if all warehouses
+     *         together do not have enough stock
+     * @throws IllegalArgumentException if quantity is not positive or the zone does not exist
+     */
+    public Allocation allocate(int productId, int quantity, int zone) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        checkZone(zone);
+        int[] route = routes[zone];
+        long available = getAvailability(productId);
+        
+        // Fast path: the cheapest warehouse that ships everything
+        for (int warehouse : route) {
+            if ((available & (1L << warehouse)) != 0 && stores[warehouse].tryReserve(productId, quantity)) {
+                updateMask(warehouse, productId);
+                return new Allocation(productId, new int[] {warehouse}, new int[] {quantity});
+            }
+        }
+        return split(productId, quantity, route);
+    }
+    
+    /**
+     * Takes units from the warehouses in route order until the quantity is covered.
+     */
+    private Allocation split(int productId, int quantity, int[] route) {
+        int[] warehouses = new int[route.length];
+        int[] quantities = new int[route.length];
+        int parts = 0;
+        int remaining = quantity;
+        for (int warehouse : route) {
+            if (remaining == 0) {
+                break;
+            }
+            int taken = take(warehouse, productId, remaining);
+            if (taken > 0) {
+                warehouses[parts] = warehouse;
+                quantities[parts] = taken;
+                parts++;
+                remaining -= taken;
+            }
+        }
+        Allocation allocation = new Allocation(productId, Arrays.copyOf(warehouses, parts),
+                                               Arrays.copyOf(quantities, parts));
+        if (remaining > 0) {
+            release(allocation);
+            return null;
+        }
+        logger.debug("Split {} units of product {} over {} warehouses", quantity, productId, parts);
+        return allocation;
+    }
+    
+    /**
+     * Reserves as many units as one warehouse has, up to the given limit.
+     * 
+     * @return units reserved
+     */
+    private int take(int warehouse, int productId, int limit) {
+        DenseStockStore store = stores[warehouse];
+        while (true) {
+            int available = store.get(productId);
+            if (available <= 0) {
+                return 0;
+            }
+            int taken = Math.min(available, limit);
+            if (store.tryReserve(productId, taken)) {
+                updateMask(warehouse, productId);
+                return taken;
+            }
+        }
+    }
+    
+    /**
+     * Reserves a whole basket for delivery to a zone: either every product is
+     * allocated or none is.
+     * 
+     * @param quantities product ID to quantity map
+     * @param zone delivery zone
+     * @return allocation per product ID in ascending order, or null if any product is short
+     * @throws IllegalArgumentException if quantities is empty, a quantity is not
+     *         positive or the zone does not exist
+     */
+    public Map<Integer, Allocation> allocateAll(Map<Integer, Integer> quantities, int zone) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("Quantities cannot be null or empty");
+        }
+        checkZone(zone);
+        int[] productIds = quantities.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        Map<Integer, Allocation> allocations = new LinkedHashMap<>();
+        for (int productId : productIds) {
+            Integer quantity = quantities.get(productId);
+            if (quantity == null || quantity <= 0) {
+                allocations.values().forEach(this::release);
+                throw new IllegalArgumentException("Invalid quantity " + quantity + " for product " + productId);
+            }
+            Allocation allocation = allocate(productId, quantity, zone);
+            if (allocation == null) {
+                allocations.values().forEach(this::release);
+                logger.warn("Basket allocation to zone {} failed, product {} is short", zone, productId);
+                return null;
+            }
+            allocations.put(productId, allocation);
+        }
+        return Collections.unmodifiableMap(allocations);
+    }
+    
+    /**
+     * Returns allocated units to the warehouses they were taken from.
+     * 
+     * @param allocation allocation to release
+     */
+    public void release(Allocation allocation) {
+        for (int i = 0; i < allocation.size(); i++) {
+            int warehouse = allocation.getWarehouse(i);
+            if (!stores[warehouse].release(allocation.getProductId(), allocation.getQuantity(i))) {
+                logger.error("Cannot return {} units of product {} to warehouse {}",
+                            allocation.getQuantity(i), allocation.getProductId(), codes[warehouse]);
+            }
+            updateMask(warehouse, allocation.getProductId());
+        }
+    }
+    
+    /**
+     * Returns units of a product to one warehouse, e.g. on a restock.
+     * 
+     * @param warehouse warehouse index
+     * @param productId product ID
+     * @param quantity units to return
+     * @return false if the warehouse does not carry the product or the stock would overflow
+     * @throws IllegalArgumentException if the warehouse does not exist
+     */
+    public boolean release(int warehouse, int productId, int quantity) {
+        checkWarehouse(warehouse);
+        boolean released = stores[warehouse].release(productId, quantity);
+        updateMask(warehouse, productId);
+        return released;
+    }
+    
+    private void checkWarehouse(int warehouse) {
+        if (warehouse < 0 || warehouse >= codes.length) {
+            throw new IllegalArgumentException("Unknown warehouse: " + warehouse);
+        }
+    }
+    
+    private void checkZone(int zone) {
+        if (zone < 0 || zone >= routes.length) {
+            throw new IllegalArgumentException("Unknown zone: " + zone);
+        }
+    }
+    
+    /**
+     * Brings a warehouse's availability bit in line with its stock.
+     * After clearing a bit the stock is read again, so a release racing with the
+     * clear can never leave a warehouse with stock marked as empty.
+     */
+    private void updateMask(int warehouse, int productId) {
+        DenseStockStore store = stores[warehouse];
+        long[] page = maskPage(productId);
+        if (page == null) {
+            if (store.get(productId) <= 0) {
+                return;
+            }
+            page = allocateMaskPage(productId);
+        }
+        long bit = 1L << warehouse;
+        int index = productId & PAGE_MASK;
+        while (true) {
+            boolean hasStock = store.get(productId) > 0;
+            long mask = (long) MASK.getVolatile(page, index);
+            long updated = hasStock ? mask | bit : mask & ~bit;
+            if (updated == mask) {
+                return;
+            }
+            if (MASK.compareAndSet(page, index, mask, updated) && hasStock == store.get(productId) > 0) {
+                return;
+            }
+        }
+    }
+    
+    private long[] maskPage(int productId) {
+        if (productId < 0) {
+            return null;
+        }
+        long[][] current = masks;
+        int pageIndex = productId >>> PAGE_BITS;
+        return pageIndex < current.length ? (long[]) PAGE.getAcquire(current, pageIndex) : null;
+    }
+    
+    private synchronized long[] allocateMaskPage(int productId) {
+        int pageIndex = productId >>> PAGE_BITS;
+        long[][] current = masks;
+        if (pageIndex >= current.length) {
+            current = Arrays.copyOf(current, Math.max(pageIndex + 1, current.length * 2));
+            masks = current;
+        }
+        long[] page = current[pageIndex];
+        if (page == null) {
+            page = new long[PAGE_SIZE];
+            PAGE.setRelease(current, pageIndex, page);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,180 @@
+package ee.commerce.order.inventory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock store backed by a {@link WarehouseStock}, so an {@code InventoryManager}
+ * can reserve against several warehouses for one delivery zone.
+ * 
+ * Stock levels are the totals over all warehouses. A reservation is allocated
+ * with {@link WarehouseStock#allocate(int, int, int)}: the cheapest warehouse
+ * that has every unit, or a split in route order. The store remembers, per
+ * product, how many reserved units each warehouse has shipped, and released
+ * units go back to those warehouses, so releases never move stock between
+ * warehouses. Only units beyond the outstanding reservations, e.g. a restock,
+ * go to the cheapest warehouse on the zone's route that carries the product.
+ * 
+ * A store only knows totals, so a stock level set through it (initial stock,
+ * recovery) is spread evenly over the warehouses, the remainder going to the
+ * cheapest ones on the route. Per-warehouse levels are set on the
+ * {@link WarehouseStock} itself, e.g. with {@link WarehouseStock#seed(String)}.
+ */
+public final class WarehouseStockStore implements StockStore {
+    
+    private final WarehouseStock warehouses;
+    private final int zone;
+    private final int[] route;
+    
+    // Per product, reserved units each warehouse has shipped and not yet got back
+    private final ConcurrentHashMap<Integer, AtomicIntegerArray> outstanding = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a store that serves one zone.
+     * 
+     * @param warehouses warehouse stock
+     * @param zone delivery zone reservations are allocated for
+     * @throws IllegalArgumentException if warehouses is null or the zone does not exist
+     */
+    public WarehouseStockStore(WarehouseStock warehouses, int zone) {
+        if (warehouses == null) {
+            throw new IllegalArgumentException("Warehouses cannot be null");
+        }
+        this.route = warehouses.getRoute(zone);
+        this.warehouses = warehouses;
+        this.zone = zone;
+    }
+    
+    public WarehouseStock getWarehouses() {
+        return warehouses;
+    }
+    
+    public int getZone() {
+        return zone;
+    }
+    
+    @Override
+    public int get(int productId) {
+        return warehouses.carries(productId) ? warehouses.getTotalStock(productId) : ABSENT;
+    }
+    
+    @Override
+    public synchronized void set(int productId, int quantity) {
+        checkSettable(productId, quantity);
+        spread(productId, quantity);
+        outstanding.remove(productId);
+    }
+    
+    @Override
+    public synchronized boolean setIfAbsent(int productId, int quantity) {
+        checkSettable(productId, quantity);
+        if (warehouses.carries(productId)) {
+            return false;
+        }
+        spread(productId, quantity);
+        return true;
+    }
+    
+    @Override
+    public boolean tryReserve(int productId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        Allocation allocation = warehouses.allocate(productId, quantity, zone);
+        if (allocation == null) {
+            return false;
+        }
+        AtomicIntegerArray shipped = outstanding.computeIfAbsent(productId,
+            id -> new AtomicIntegerArray(warehouses.getWarehouseCount()));
+        for (int i = 0; i < allocation.size(); i++) {
+            shipped.addAndGet(allocation.getWarehouse(i), allocation.getQuantity(i));
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean release(int productId, int quantity) {
+        if (!warehouses.carries(productId) || warehouses.getTotalStock(productId) > Integer.MAX_VALUE - quantity) {
+            return false;
+        }
+        // Return the units to the warehouses that shipped them, cheapest first
+        int remaining = quantity;
+        AtomicIntegerArray shipped = outstanding.get(productId);
+        if (shipped != null) {
+            for (int i = 0; i < route.length && remaining > 0; i++) {
+                int warehouse = route[i];
+                int returned = takeUpTo(shipped, warehouse, remaining);
+                if (returned > 0) {
+                    warehouses.release(warehouse, productId, returned);
+                    remaining -= returned;
+                }
+            }
+        }
+        for (int i = 0; i < route.length && remaining > 0; i++) {
+            if (warehouses.release(route[i], productId, remaining)) {
+                remaining = 0;
+            }
+        }
+        return remaining == 0;
+    }
+    
+    /**
+     * Gets the reserved units a warehouse has shipped for a product and not yet got back.
+     * 
+     * @param warehouse warehouse index
+     * @param productId product ID
+     * @return outstanding units
+     */
+    public int getOutstanding(int warehouse, int productId) {
+        AtomicIntegerArray shipped = outstanding.get(productId);
+        return shipped != null ? shipped.get(warehouse) : 0;
+    }
+    
+    @Override
+    public int size() {
+        int[] count = new int[1];
+        warehouses.forEachTotal((productId, quantity) -> count[0]++);
+        return count[0];
+    }
+    
+    @Override
+    public synchronized void clear() {
+        warehouses.clear();
+        outstanding.clear();
+    }
+    
+    @Override
+    public void forEach(StockVisitor visitor) {
+        warehouses.forEachTotal(visitor);
+    }
+    
+    /**
+     * Sets a product's total stock, spread evenly over the warehouses.
+     */
+    private void spread(int productId, int quantity) {
+        int share = quantity / route.length;
+        int remainder = quantity % route.length;
+        for (int i = 0; i < route.length; i++) {
+            warehouses.setStock(route[i], productId, share + (i < remainder ? 1 : 0));
+        }
+    }
+    
+    private static int takeUpTo(AtomicIntegerArray shipped, int warehouse, int limit) {
+        int value;
+        int taken;
+        do {
+            value = shipped.get(warehouse);
+            if (value <= 0) {
+                return 0;
+            }
+            taken = Math.min(value, limit);
+        } while (!shipped.compareAndSet(warehouse, value, value - taken));
+        return taken;
+    }
+    
+    private static void checkSettable(int productId, int quantity) {
+        if (productId < 0 || quantity < 0) {
+            throw new IllegalArgumentException("Product ID and stock cannot be negative");
+        }
+    }
+}
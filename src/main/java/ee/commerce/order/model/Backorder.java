@@ -0,0 +1,106 @@
+package ee.commerce.order.model;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Request for stock that waits in line until the stock is there, created by
+ * {@link InventoryManager#reserveOrBackorder(int, int)}.
+ * 
+ * Backorders for a product are fulfilled in the order they were placed, as soon
+ * as released stock covers the one at the head of the line. Fulfilling a
+ * backorder reserves its units, exactly like {@link InventoryManager#reserveStock}.
+ * Callers wait on {@link #getFulfillment()} instead of retrying.
+ */
+public final class Backorder {
+    
+    /**
+     * Lifecycle state of a backorder.
+     */
+    public enum State {
+        WAITING,
+        FULFILLED,
+        CANCELLED
+    }
+    
+    private final long backorderId;
+    private final int productId;
+    private final int quantity;
+    private final Instant placedAt;
+    private final InventoryManager inventory;
+    private final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+    private final CompletableFuture<Backorder> fulfillment = new CompletableFuture<>();
+    
+    Backorder(long backorderId, int productId, int quantity, Instant placedAt, InventoryManager inventory) {
+        this.backorderId = backorderId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.placedAt = placedAt;
+        this.inventory = inventory;
+    }
+    
+    /**
+     * Marks the backorder fulfilled once its units have been reserved, and wakes up its waiters.
+     */
+    void fulfill() {
+        if (state.compareAndSet(State.WAITING, State.FULFILLED)) {
+            fulfillment.complete(this);
+        }
+    }
+    
+    /**
+     * Cancels the backorder and gives up its place in line.
+     * 
+     * @return true if the backorder was still waiting, false if it was already
+     *         fulfilled (the units are then reserved) or cancelled
+     */
+    public boolean cancel() {
+        if (!inventory.withdrawBackorder(this)) {
+            return false;
+        }
+        state.set(State.CANCELLED);
+        fulfillment.cancel(false);
+        return true;
+    }
+    
+    /**
+     * Gets a future that completes with this backorder when it is fulfilled,
+     * and is cancelled when the backorder is cancelled.
+     * 
+     * @return fulfillment future
+     */
+    public CompletableFuture<Backorder> getFulfillment() {
+        return fulfillment;
+    }
+    
+    public long getBackorderId() {
+        return backorderId;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public Instant getPlacedAt() {
+        return placedAt;
+    }
+    
+    public State getState() {
+        return state.get();
+    }
+    
+    public boolean isFulfilled() {
+        return state.get() == State.FULFILLED;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Backorder{id=%d, product=%d, quantity=%d, state=%s, placedAt=%s}",
+                           backorderId, productId, quantity, state.get(), placedAt);
+    }
+}
@@ -0,0 +1,257 @@
+package ee.commerce.order.model;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Money;
+import ee.commerce.order.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shopping cart: a multi-line order with a quantity and its own services per line.
+ * 
+ * The cart total, the item count and the quantity per product are maintained
+ * incrementally. Adding, removing or changing the quantity of a line adjusts them
+ * by the difference of that one line, so {@link #calculateTotalCents()} is a field
+ * read no matter how many lines the cart has.
+ * 
+ * The cart implements {@link Order}, so a whole basket can be wrapped in a
+ * {@link CompleteOrder} and paid with a single payment.
+ * 
+ * Not thread-safe: a cart belongs to one customer session.
+ */
+public class Cart implements Order {
+    
+    private static final Logger logger = LoggerFactory.getLogger(Cart.class);
+    private static final String LINE_SEPARATOR = ", ";
+    
+    private final Map<Integer, CartLine> lines = new LinkedHashMap<>();
+    private final Map<Integer, Integer> quantityByProduct = new HashMap<>();
+    private long totalCents;
+    private int itemCount;
+    private int nextLineId = 1;
+    private String cachedDescription;
+    
+    /**
+     * Adds a product without services.
+     * 
+     * @param product the product to add
+     * @param quantity number of units
+     * @return ID of the new line
+     * @throws IllegalArgumentException if product is null or quantity is not positive
+     */
+    public int addLine(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        return addLine(product.getId(), new BasicOrder(product.getName(), product.getPrice()), quantity);
+    }
+    
+    /**
+     * Adds a line for a product. The order describes one unit including its services.
+     * 
+     * @param productId the base product ID
+     * @param unitOrder order for a single unit, e.g. a decorated or service order
+     * @param quantity number of units
+     * @return ID of the new line
+     * @throws IllegalArgumentException if unitOrder is null or quantity is not positive
+     */
+    public int addLine(int productId, Order unitOrder, int quantity) {
+        CartLine line = new CartLine(nextLineId, productId, unitOrder, quantity);
+        nextLineId++;
+        lines.put(line.getLineId(), line);
+        applyDelta(productId, quantity, line.getTotalCents());
+        
+        logger.debug("Added line {} to cart: {} x product {}", line.getLineId(), quantity, productId);
+        return line.getLineId();
+    }
+    
+    /**
+     * Changes the quantity of a line. A quantity of zero removes the line.
+     * 
+     * @param lineId line ID
+     * @param quantity new quantity
+     * @throws IllegalArgumentException if the line does not exist or quantity is negative
+     */
+    public void setQuantity(int lineId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        CartLine line = requireLine(lineId);
+        if (quantity == 0) {
+            removeLine(lineId);
+            return;
+        }
+        
+        CartLine updated = line.withQuantity(quantity);
+        lines.put(lineId, updated);
+        applyDelta(line.getProductId(), quantity - line.getQuantity(),
+                   updated.getTotalCents() - line.getTotalCents());
+    }
+    
+    /**
+     * Removes a line from the cart.
+     * 
+     * @param lineId line ID
+     * @return true if the line was removed, false if it did not exist
+     */
+    public boolean removeLine(int lineId) {
+        CartLine line = lines.remove(lineId);
+        if (line == null) {
+            return false;
+        }
+        applyDelta(line.getProductId(), -line.getQuantity(), -line.getTotalCents());
+        
+        logger.debug("Removed line {} from cart", lineId);
+        return true;
+    }
+    
+    /**
+     * Removes all lines.
+     */
+    public void clear() {
+        lines.clear();
+        quantityByProduct.clear();
+        totalCents = 0;
+        itemCount = 0;
+        cachedDescription = null;
+    }
+    
+    /**
+     * Creates an independent copy of the cart, e.g. to freeze it at checkout.
+     * 
+     * @return copy with the same lines and line IDs
+     */
+    public Cart copy() {
+        Cart copy = new Cart();
+        copy.lines.putAll(lines);
+        copy.quantityByProduct.putAll(quantityByProduct);
+        copy.totalCents = totalCents;
+        copy.itemCount = itemCount;
+        copy.nextLineId = nextLineId;
+        copy.cachedDescription = cachedDescription;
+        return copy;
+    }
+    
+    /**
+     * Gets a line by ID.
+     * 
+     * @param lineId line ID
+     * @return the line, or null if it does not exist
+     */
+    public CartLine getLine(int lineId) {
+        return lines.get(lineId);
+    }
+    
+    /**
+     * Gets all lines in the order they were added.
+     * 
+     * @return unmodifiable list of lines
+     */
+    public List<CartLine> getLines() {
+        return Collections.unmodifiableList(new ArrayList<>(lines.values()));
+    }
+    
+    public int getLineCount() {
+        return lines.size();
+    }
+    
+    /**
+     * Gets the total number of units over all lines.
+     * 
+     * @return item count
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+    
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+    
+    /**
+     * Gets the number of units of a product over all lines.
+     * 
+     * @param productId the product ID
+     * @return quantity in the cart, or 0 if the product is not in the cart
+     */
+    public int getQuantity(int productId) {
+        return quantityByProduct.getOrDefault(productId, 0);
+    }
+    
+    /**
+     * Gets the number of units per product, e.g. for reserving stock.
+     * 
+     * @return copy of the product ID to quantity map
+     */
+    public Map<Integer, Integer> getProductQuantities() {
+        return new HashMap<>(quantityByProduct);
+    }
+    
+    @Override
+    public BigDecimal calculateTotal() {
+        return Money.toBigDecimal(totalCents);
+    }
+    
+    @Override
+    public long calculateTotalCents() {
+        return totalCents;
+    }
+    
+    @Override
+    public String getDescription() {
+        String description = cachedDescription;
+        if (description == null) {
+            description = appendDescription(new StringBuilder()).toString();
+            cachedDescription = description;
+        }
+        return description;
+    }
+    
+    @Override
+    public StringBuilder appendDescription(StringBuilder target) {
+        if (cachedDescription != null) {
+            return target.append(cachedDescription);
+        }
+        boolean first = true;
+        for (CartLine line : lines.values()) {
+            if (!first) {
+                target.append(LINE_SEPARATOR);
+            }
+            line.appendDescription(target);
+            first = false;
+        }
+        return target;
+    }
+    
+    private CartLine requireLine(int lineId) {
+        CartLine line = lines.get(lineId);
+        if (line == null) {
+            throw new IllegalArgumentException("Cart line " + lineId + " not found");
+        }
+        return line;
+    }
+    
+    /**
+     * Applies the change of one line to the running totals.
+     */
+    private void applyDelta(int productId, int quantityDelta, long centsDelta) {
+        totalCents = Math.addExact(totalCents, centsDelta);
+        itemCount += quantityDelta;
+        quantityByProduct.merge(productId, quantityDelta, (a, b) -> a + b == 0 ? null : a + b);
+        cachedDescription = null;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Cart{lines=%d, items=%d, total=%s}",
+                           lines.size(), itemCount, Money.format(totalCents));
+    }
+}
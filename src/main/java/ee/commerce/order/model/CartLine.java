@@ -0,0 +1,120 @@
+package ee.commerce.order.model;
+
+import ee.commerce.order.Money;
+import ee.commerce.order.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a {@link Cart}: a product with its own services and a quantity.
+ * 
+ * Immutable value object. The unit price and description are read from the line's
+ * order once when the line is created; changing the quantity creates a new line.
+ */
+public final class CartLine {
+    
+    private final int lineId;
+    private final int productId;
+    private final Order order;
+    private final int quantity;
+    private final long unitPriceCents;
+    private final long totalCents;
+    private final String unitDescription;
+    
+    CartLine(int lineId, int productId, Order order, int quantity) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        
+        this.lineId = lineId;
+        this.productId = productId;
+        this.order = order;
+        this.quantity = quantity;
+        this.unitPriceCents = order.calculateTotalCents();
+        this.totalCents = Math.multiplyExact(unitPriceCents, (long) quantity);
+        this.unitDescription = order.getDescription();
+    }
+    
+    private CartLine(CartLine line, int quantity) {
+        this.lineId = line.lineId;
+        this.productId = line.productId;
+        this.order = line.order;
+        this.quantity = quantity;
+        this.unitPriceCents = line.unitPriceCents;
+        this.totalCents = Math.multiplyExact(unitPriceCents, (long) quantity);
+        this.unitDescription = line.unitDescription;
+    }
+    
+    /**
+     * Returns a copy of this line with a different quantity.
+     * 
+     * @param newQuantity new quantity
+     * @return line with the new quantity
+     * @throws IllegalArgumentException if newQuantity is not positive
+     */
+    CartLine withQuantity(int newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return new CartLine(this, newQuantity);
+    }
+    
+    public int getLineId() {
+        return lineId;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    /**
+     * Gets the order for a single unit of this line, including its services.
+     * 
+     * @return unit order
+     */
+    public Order getOrder() {
+        return order;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+    
+    public long getTotalCents() {
+        return totalCents;
+    }
+    
+    public BigDecimal getTotal() {
+        return Money.toBigDecimal(totalCents);
+    }
+    
+    /**
+     * Appends the line description, prefixed with the quantity when it is more than one.
+     * 
+     * @param target builder to append to
+     * @return the same builder
+     */
+    public StringBuilder appendDescription(StringBuilder target) {
+        if (quantity > 1) {
+            target.append(quantity).append(" x ");
+        }
+        return target.append(unitDescription);
+    }
+    
+    public String getDescription() {
+        return appendDescription(new StringBuilder()).toString();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CartLine{id=%d, productId=%d, quantity=%d, total=%s}",
+                           lineId, productId, quantity, Money.format(totalCents));
+    }
+}
@@ -0,0 +1,727 @@
+package ee.commerce.order.model;
+
+import ee.commerce.order.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads products into the {@link ProductCatalog} from large CSV or JSON-lines files.
+ * 
+ * The file is split into chunks of about {@value #DEFAULT_CHUNK_BYTES} bytes that
+ * end on a line break. Each chunk is memory-mapped and parsed on its own worker
+ * thread, straight from the mapped bytes: only the text of a name or description
+ * is copied, into a per-worker scratch buffer, to build its String. At most two
+ * chunks per worker are parsed ahead of the consumer, so however large the file,
+ * memory holds the catalog itself plus a bounded number of parsed chunks.
+ * Chunks are handed on in file order, so the catalog keeps the file's order.
+ * 
+ * Formats, one product per line (quoted CSV fields cannot span lines):
+ * <pre>
+ * id,name,price,description
+ * 1,"💻 Sülearvuti Lenovo ThinkPad",899.99,"Professionaalne 14"" sülearvuti"
+ * 
+ * {"id": 1, "name": "💻 Sülearvuti Lenovo ThinkPad", "price": 899.99, "description": "..."}
+ * </pre>
+ * The CSV header line is optional and the description may be left out. Prices may
+ * be JSON numbers or strings. Rows that cannot be parsed are skipped, counted and
+ * the first few logged with their file offset.
+ */
+public final class CatalogLoader {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogLoader.class);
+    
+    static final int DEFAULT_CHUNK_BYTES = 16 << 20;
+    private static final int CHUNKS_AHEAD_PER_WORKER = 2;
+    private static final int BOUNDARY_PROBE_BYTES = 8192;
+    private static final int MAX_LOGGED_ERRORS = 10;
+    private static final int MAX_PRICE_LENGTH = 32;
+    private static final int MAX_PRICE_SCALE = 16;
+    // Whole-euro digits whose cents still fit in a long
+    private static final int MAX_PRICE_DIGITS = 16;
+    
+    /**
+     * File format of a catalog file.
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES;
+        
+        /**
+         * Picks the format from a file name: {@code .csv}, or {@code .jsonl}, {@code .ndjson} and {@code .json}.
+         * 
+         * @param file catalog file
+         * @return the file's format
+         * @throws IllegalArgumentException if the extension is not recognized
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Unknown catalog file format: " + file);
+        }
+    }
+    
+    private final int parallelism;
+    private final int chunkBytes;
+    
+    /**
+     * Creates a loader with one worker per processor.
+     */
+    public CatalogLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Creates a loader.
+     * 
+     * @param parallelism number of worker threads
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public CatalogLoader(int parallelism) {
+        this(parallelism, DEFAULT_CHUNK_BYTES);
+    }
+    
+    CatalogLoader(int parallelism, int chunkBytes) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+    
+    /**
+     * Loads a catalog file into the {@link ProductCatalog}, replacing products with the same IDs.
+     * The format is picked from the file name.
+     * 
+     * @param file catalog file
+     * @return load statistics
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file format is not recognized
+     */
+    public LoadReport load(Path file) throws IOException {
+        List<Product> products = new ArrayList<>();
+        LoadReport report = read(file, Format.of(file), products::addAll);
+        ProductCatalog.addProducts(products);
+        logger.info("Loaded catalog file {}: {}", file, report);
+        return report;
+    }
+    
+    /**
+     * Parses a catalog file without changing the catalog.
+     * 
+     * @param file catalog file
+     * @param format file format
+     * @param sink receives the products of each chunk, in file order, on the calling thread
+     * @return load statistics
+     * @throws IOException if the file cannot be read
+     */
+    public LoadReport read(Path file, Format format, Consumer<List<Product>> sink) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = chunkBounds(channel, size);
+            int chunks = bounds.length - 1;
+            int workers = Math.max(1, Math.min(parallelism, chunks));
+            AtomicInteger loggedErrors = new AtomicInteger();
+            
+            ExecutorService executor = Executors.newFixedThreadPool(workers, new WorkerFactory());
+            long rows = 0;
+            long skipped = 0;
+            long loaded = 0;
+            try {
+                ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+                int next = 0;
+                while (next < chunks || !pending.isEmpty()) {
+                    // Keep a bounded number of chunks parsed ahead of the sink
+                    while (next < chunks && pending.size() < workers * CHUNKS_AHEAD_PER_WORKER) {
+                        long from = bounds[next];
+                        long to = bounds[next + 1];
+                        boolean first = next == 0;
+                        pending.add(executor.submit(
+                            () -> new ChunkParser(file, format, loggedErrors).parse(channel, from, to, first)));
+                        next++;
+                    }
+                    Chunk chunk = await(pending.poll());
+                    rows += chunk.rows;
+                    skipped += chunk.skipped;
+                    loaded += chunk.products.size();
+                    sink.accept(chunk.products);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            return new LoadReport(rows, loaded, skipped, size, chunks, System.nanoTime() - start);
+        }
+    }
+    
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading catalog", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to parse catalog chunk", e.getCause());
+        }
+    }
+    
+    /**
+     * Splits the file into chunks of about {@code chunkBytes} that start at line beginnings.
+     * 
+     * @return chunk start offsets followed by the file size
+     */
+    private long[] chunkBounds(FileChannel channel, long size) throws IOException {
+        long[] bounds = new long[16];
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        long position = chunkBytes;
+        while (position < size) {
+            long lineStart = nextLineStart(channel, position, size, probe);
+            if (lineStart >= size) {
+                break;
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count * 2);
+            }
+            bounds[count++] = lineStart;
+            position = lineStart + chunkBytes;
+        }
+        bounds = Arrays.copyOf(bounds, count + 1);
+        bounds[count] = size;
+        return bounds;
+    }
+    
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Products parsed from one chunk.
+     */
+    private static final class Chunk {
+        final List<Product> products;
+        final long rows;
+        final long skipped;
+        
+        Chunk(List<Product> products, long rows, long skipped) {
+            this.products = products;
+            this.rows = rows;
+            this.skipped = skipped;
+        }
+    }
+    
+    /**
+     * Parses the lines of one mapped chunk. Not thread-safe; one per chunk.
+     */
+    private static final class ChunkParser {
+        
+        private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] NAME = "name".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] PRICE = "price".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] DESCRIPTION = "description".getBytes(StandardCharsets.US_ASCII);
+        
+        private final Path file;
+        private final Format format;
+        private final AtomicInteger loggedErrors;
+        private ByteBuffer buffer;
+        
+        // Bytes of the current field or string, decoded
+        private byte[] scratch = new byte[256];
+        private int length;
+        
+        ChunkParser(Path file, Format format, AtomicInteger loggedErrors) {
+            this.file = file;
+            this.format = format;
+            this.loggedErrors = loggedErrors;
+        }
+        
+        Chunk parse(FileChannel channel, long from, long to, boolean firstChunk) throws IOException {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            buffer = mapped;
+            int end = mapped.limit();
+            List<Product> products = new ArrayList<>();
+            long rows = 0;
+            long skipped = 0;
+            int pos = 0;
+            if (firstChunk && end >= 3 && (mapped.get(0) & 0xFF) == 0xEF
+                    && (mapped.get(1) & 0xFF) == 0xBB && (mapped.get(2) & 0xFF) == 0xBF) {
+                pos = 3; // UTF-8 byte order mark
+            }
+            boolean firstLine = firstChunk;
+            while (pos < end) {
+                int lineEnd = pos;
+                while (lineEnd < end && mapped.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > pos && mapped.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (!isBlank(pos, contentEnd)) {
+                    boolean header = firstLine && format == Format.CSV && !startsWithNumber(pos, contentEnd);
+                    firstLine = false;
+                    if (!header) {
+                        rows++;
+                        try {
+                            products.add(format == Format.CSV ? parseCsv(pos, contentEnd) : parseJson(pos, contentEnd));
+                        } catch (IllegalArgumentException | IndexOutOfBoundsException | ArithmeticException e) {
+                            skipped++;
+                            if (loggedErrors.getAndIncrement() < MAX_LOGGED_ERRORS) {
+                                logger.warn("Skipping malformed catalog row at byte {} of {}: {}",
+                                           from + pos, file, e.getMessage());
+                            }
+                        }
+                    }
+                }
+                pos = lineEnd + 1;
+            }
+            return new Chunk(products, rows, skipped);
+        }
+        
+        private Product parseCsv(int pos, int end) {
+            pos = csvField(pos, end);
+            int id = parseInt();
+            requireField(pos, end, "name");
+            pos = csvField(pos, end);
+            String name = string();
+            requireField(pos, end, "price");
+            pos = csvField(pos, end);
+            BigDecimal price = parsePrice();
+            String description = null;
+            if (pos <= end) {
+                csvField(pos, end);
+                description = string();
+            }
+            return new Product(id, name, price, description);
+        }
+        
+        private static void requireField(int pos, int end, String field) {
+            if (pos > end) {
+                throw new IllegalArgumentException("Missing " + field);
+            }
+        }
+        
+        /**
+         * Decodes one CSV field into the scratch buffer.
+         * 
+         * @return position after the field's delimiter; beyond end after the last field
+         */
+        private int csvField(int pos, int end) {
+            length = 0;
+            while (pos < end && buffer.get(pos) == ' ') {
+                pos++;
+            }
+            if (pos < end && buffer.get(pos) == '"') {
+                pos++;
+                while (pos < end) {
+                    byte b = buffer.get(pos++);
+                    if (b == '"') {
+                        if (pos < end && buffer.get(pos) == '"') {
+                            append(b);
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        append(b);
+                    }
+                }
+                while (pos < end && buffer.get(pos) != ',') {
+                    pos++;
+                }
+            } else {
+                while (pos < end && buffer.get(pos) != ',') {
+                    append(buffer.get(pos++));
+                }
+                while (length > 0 && scratch[length - 1] == ' ') {
+                    length--;
+                }
+            }
+            return pos + 1;
+        }
+        
+        private Product parseJson(int pos, int end) {
+            pos = skipWhitespace(pos, end);
+            expect(pos++, '{');
+            Integer id = null;
+            String name = null;
+            BigDecimal price = null;
+            String description = null;
+            pos = skipWhitespace(pos, end);
+            if (buffer.get(pos) == '}') {
+                throw new IllegalArgumentException("Empty object");
+            }
+            while (true) {
+                pos = skipWhitespace(pos, end);
+                expect(pos++, '"');
+                pos = jsonString(pos, end);
+                byte[] key = Arrays.copyOf(scratch, length);
+                pos = skipWhitespace(pos, end);
+                expect(pos++, ':');
+                pos = skipWhitespace(pos, end);
+                boolean quoted = buffer.get(pos) == '"';
+                pos = quoted ? jsonString(pos + 1, end) : jsonToken(pos, end);
+                boolean isNull = !quoted && isToken("null");
+                if (Arrays.equals(key, ID)) {
+                    id = parseInt();
+                } else if (Arrays.equals(key, NAME)) {
+                    name = isNull ? null : string();
+                } else if (Arrays.equals(key, PRICE)) {
+                    price = parsePrice();
+                } else if (Arrays.equals(key, DESCRIPTION)) {
+                    description = isNull ? null : string();
+                }
+                pos = skipWhitespace(pos, end);
+                byte b = buffer.get(pos++);
+                if (b == '}') {
+                    break;
+                }
+                if (b != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}'");
+                }
+            }
+            if (id == null || price == null) {
+                throw new IllegalArgumentException("Missing " + (id == null ? "id" : "price"));
+            }
+            return new Product(id, name, price, description);
+        }
+        
+        /**
+         * Decodes a JSON string, positioned after its opening quote, into the scratch buffer.
+         * 
+         * @return position after the closing quote
+         */
+        private int jsonString(int pos, int end) {
+            length = 0;
+            while (pos < end) {
+                byte b = buffer.get(pos++);
+                if (b == '"') {
+                    return pos;
+                }
+                if (b != '\\') {
+                    append(b);
+                    continue;
+                }
+                byte escaped = buffer.get(pos++);
+                switch (escaped) {
+                    case 'n': append((byte) '\n'); break;
+                    case 't': append((byte) '\t'); break;
+                    case 'r': append((byte) '\r'); break;
+                    case 'b': append((byte) '\b'); break;
+                    case 'f': append((byte) '\f'); break;
+                    case 'u':
+                        int codePoint = hex(pos, end);
+                        pos += 4;
+                        if (Character.isHighSurrogate((char) codePoint) && pos + 1 < end
+                                && buffer.get(pos) == '\\' && buffer.get(pos + 1) == 'u') {
+                            int low = hex(pos + 2, end);
+                            if (Character.isLowSurrogate((char) low)) {
+                                codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                                pos += 6;
+                            }
+                        }
+                        appendUtf8(codePoint);
+                        break;
+                    default:
+                        append(escaped); // \" \\ \/
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+        
+        /**
+         * Copies an unquoted JSON value (number, true, false, null) into the scratch buffer.
+         */
+        private int jsonToken(int pos, int end) {
+            length = 0;
+            while (pos < end) {
+                byte b = buffer.get(pos);
+                if (b == ',' || b == '}' || b == ' ' || b == '\t') {
+                    break;
+                }
+                append(b);
+                pos++;
+            }
+            if (length == 0) {
+                throw new IllegalArgumentException("Missing value");
+            }
+            return pos;
+        }
+        
+        private int hex(int pos, int end) {
+            if (pos + 4 > end) {
+                throw new IllegalArgumentException("Truncated \\u escape");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(buffer.get(pos + i), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid \\u escape");
+                }
+                value = value << 4 | digit;
+            }
+            return value;
+        }
+        
+        private int parseInt() {
+            if (length == 0) {
+                throw new IllegalArgumentException("Missing id");
+            }
+            boolean negative = scratch[0] == '-';
+            long value = 0;
+            for (int i = negative ? 1 : 0; i < length; i++) {
+                int digit = scratch[i] - '0';
+                if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+                    throw new IllegalArgumentException("Invalid id: " + string());
+                }
+                value = value * 10 + digit;
+            }
+            value = negative ? -value : value;
+            if (length == (negative ? 1 : 0) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid id: " + string());
+            }
+            return (int) value;
+        }
+        
+        /**
+         * Parses a price with up to two decimals straight into cents; anything else
+         * goes through BigDecimal. Prices longer than {@value #MAX_PRICE_LENGTH}
+         * characters, with more than {@value #MAX_PRICE_SCALE} decimals or too
+         * large for cents are rejected before any rescaling, so an exponent like
+         * {@code 1e999999999} cannot make BigDecimal expand it.
+         */
+        private BigDecimal parsePrice() {
+            if (length > MAX_PRICE_LENGTH) {
+                throw new IllegalArgumentException("Price too long");
+            }
+            long cents = 0;
+            int decimals = -1;
+            for (int i = 0; i < length; i++) {
+                byte b = scratch[i];
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (b >= '0' && b <= '9' && decimals < Money.SCALE && cents < Long.MAX_VALUE / 1000) {
+                    cents = cents * 10 + (b - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else {
+                    // Exponent, sign or more decimals: let BigDecimal handle it (NumberFormatException is an IAE)
+                    return parseDecimal();
+                }
+            }
+            if (length == 0 || length == 1 && decimals == 0) {
+                throw new IllegalArgumentException("Missing price");
+            }
+            for (int i = Math.max(decimals, 0); i < Money.SCALE; i++) {
+                cents *= 10;
+            }
+            return Money.toBigDecimal(cents);
+        }
+        
+        private BigDecimal parseDecimal() {
+            BigDecimal price = new BigDecimal(string());
+            if (price.scale() > MAX_PRICE_SCALE || price.precision() - price.scale() > MAX_PRICE_DIGITS) {
+                throw new IllegalArgumentException("Price out of range: " + string());
+            }
+            return price;
+        }
+        
+        private boolean startsWithNumber(int pos, int end) {
+            pos = skipWhitespace(pos, end);
+            if (pos < end && buffer.get(pos) == '"') {
+                pos++;
+            }
+            if (pos < end && buffer.get(pos) == '-') {
+                pos++;
+            }
+            return pos < end && buffer.get(pos) >= '0' && buffer.get(pos) <= '9';
+        }
+        
+        private boolean isBlank(int pos, int end) {
+            return skipWhitespace(pos, end) >= end;
+        }
+        
+        private int skipWhitespace(int pos, int end) {
+            while (pos < end && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t')) {
+                pos++;
+            }
+            return pos;
+        }
+        
+        private void expect(int pos, char expected) {
+            if (buffer.get(pos) != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "'");
+            }
+        }
+        
+        private boolean isToken(String token) {
+            if (length != token.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (scratch[i] != token.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private String string() {
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        
+        private void append(byte b) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length++] = b;
+        }
+        
+        private void appendUtf8(int codePoint) {
+            if (codePoint < 0x80) {
+                append((byte) codePoint);
+            } else if (codePoint < 0x800) {
+                append((byte) (0xC0 | codePoint >> 6));
+                append((byte) (0x80 | codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                append((byte) (0xE0 | codePoint >> 12));
+                append((byte) (0x80 | codePoint >> 6 & 0x3F));
+                append((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                append((byte) (0xF0 | codePoint >> 18));
+                append((byte) (0x80 | codePoint >> 12 & 0x3F));
+                append((byte) (0x80 | codePoint >> 6 & 0x3F));
+                append((byte) (0x80 | codePoint & 0x3F));
+            }
+        }
+    }
+    
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "catalog-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+    
+    /**
+     * Statistics of one catalog load.
+     * Immutable value object.
+     */
+    public static class LoadReport {
+        private final long rows;
+        private final long loaded;
+        private final long skipped;
+        private final long bytes;
+        private final int chunks;
+        private final long elapsedNanos;
+        
+        public LoadReport(long rows, long loaded, long skipped, long bytes, int chunks, long elapsedNanos) {
+            this.rows = rows;
+            this.loaded = loaded;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.chunks = chunks;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        /**
+         * Gets the number of data rows read, not counting blank lines and the CSV header.
+         * 
+         * @return row count
+         */
+        public long getRows() {
+            return rows;
+        }
+        
+        public long getLoaded() {
+            return loaded;
+        }
+        
+        public long getSkipped() {
+            return skipped;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+        
+        public int getChunks() {
+            return chunks;
+        }
+        
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+        
+        /**
+         * Gets the load throughput.
+         * 
+         * @return rows per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+        
+        /**
+         * Gets the load throughput.
+         * 
+         * @return megabytes (2^20 bytes) per second
+         */
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "LoadReport{rows=%d, loaded=%d, skipped=%d, chunks=%d, %d ms, %.0f rows/s, %.1f MB/s}",
+                rows, loaded, skipped, chunks, getElapsedMillis(), getRowsPerSecond(), getMegabytesPerSecond());
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package ee.commerce.order.model;
 
 import ee.commerce.order.Order;
+import ee.commerce.order.pricing.OrderPricingPlan;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -11,12 +16,17 @@ import java.util.UUID;
  * 
  * This class wraps the decorator-based Order and adds lifecycle management,
  * demonstrating composition over inheritance.
+ * 
+ * An order is either a single product (one line, quantity one) or a whole
+ * {@link Cart}, which is frozen when the order is created and paid at once.
  */
 public class CompleteOrder {
     
     private final String orderId;
     private final Order order; // The decorated order
+    private final OrderPricingPlan pricingPlan; // Flattened view of the decorated order
     private final int productId;
+    private final List<CartLine> lines;
     private OrderStatus status;
     private String transactionId;
     private String paymentMethod;
@@ -36,7 +46,31 @@ public class CompleteOrder {
         
         this.orderId = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         this.order = order;
+        this.pricingPlan = OrderPricingPlan.compile(order);
         this.productId = productId;
+        this.lines = Collections.singletonList(new CartLine(1, productId, order, 1));
+        this.status = OrderStatus.NEW;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Creates a new complete order for all lines of a cart.
+     * The cart is copied, so later changes to it do not affect this order.
+     * 
+     * @param cart the cart to check out
+     * @throws IllegalArgumentException if cart is null or empty
+     */
+    public CompleteOrder(Cart cart) {
+        if (cart == null || cart.isEmpty()) {
+            throw new IllegalArgumentException("Cart cannot be null or empty");
+        }
+        
+        Cart snapshot = cart.copy();
+        this.orderId = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        this.order = snapshot;
+        this.pricingPlan = OrderPricingPlan.compile(snapshot);
+        this.lines = snapshot.getLines();
+        this.productId = lines.get(0).getProductId();
         this.status = OrderStatus.NEW;
         this.createdAt = LocalDateTime.now();
     }
@@ -76,10 +110,46 @@ public class CompleteOrder {
         return order;
     }
     
+    /**
+     * Gets the pricing plan compiled from the decorated order.
+     * 
+     * @return compiled pricing plan
+     */
+    public OrderPricingPlan getPricingPlan() {
+        return pricingPlan;
+    }
+    
+    /**
+     * Gets the base product ID. For a cart order this is the product of the first line.
+     * 
+     * @return product ID
+     */
     public int getProductId() {
         return productId;
     }
     
+    /**
+     * Gets the order lines.
+     * 
+     * @return unmodifiable list of lines
+     */
+    public List<CartLine> getLines() {
+        return lines;
+    }
+    
+    /**
+     * Gets the number of units per product over all lines, e.g. for reserving stock.
+     * 
+     * @return product ID to quantity map
+     */
+    public Map<Integer, Integer> getProductQuantities() {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        for (CartLine line : lines) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
     public OrderStatus getStatus() {
         return status;
     }
@@ -106,20 +176,31 @@ public class CompleteOrder {
     
     /**
      * Gets the total amount of the order.
+     * Served from the compiled pricing plan, so repeated calls do not walk the decorator chain.
      * 
      * @return order total
      */
     public BigDecimal getTotal() {
-        return order.calculateTotal();
+        return pricingPlan.calculateTotal();
+    }
+    
+    /**
+     * Gets the total amount of the order in cents.
+     * 
+     * @return order total in cents
+     */
+    public long getTotalCents() {
+        return pricingPlan.calculateTotalCents();
     }
     
     /**
      * Gets the description of the order.
+     * Served from the compiled pricing plan, so repeated calls do not walk the decorator chain.
      * 
      * @return order description
      */
     public String getDescription() {
-        return order.getDescription();
+        return pricingPlan.getDescription();
     }
     
     @Override
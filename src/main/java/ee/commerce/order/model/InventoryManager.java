@@ -1,34 +1,249 @@
 package ee.commerce.order.model;
 
+import ee.commerce.order.inventory.BackorderQueue;
+import ee.commerce.order.inventory.DenseStockStore;
+import ee.commerce.order.inventory.InventoryJournal;
+import ee.commerce.order.inventory.MappedStockStore;
+import ee.commerce.order.inventory.MutationGate;
+import ee.commerce.order.inventory.StockEvent;
+import ee.commerce.order.inventory.StockEventBus;
+import ee.commerce.order.inventory.StockSnapshot;
+import ee.commerce.order.inventory.StockCounter;
+import ee.commerce.order.inventory.StockStore;
+import ee.commerce.order.inventory.TimingWheel;
+import ee.commerce.order.inventory.WarehouseStock;
+import ee.commerce.order.inventory.WarehouseStockStore;
+import ee.commerce.order.replication.ReplicaNode;
+import ee.commerce.order.replication.ReplicatedStockStore;
+import ee.commerce.order.replication.SocketTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manages product inventory and stock levels.
  * 
- * Thread-safe implementation using ConcurrentHashMap to handle
- * concurrent inventory operations safely.
+ * Thread-safe implementation: stock levels live in a primitive {@link StockStore}
+ * indexed by product ID, and reservations update them with compare-and-set. There
+ * is no global lock, so reservations for different products never wait for each
+ * other, and nothing is boxed on the reservation path. Logging and low-stock alerts
+ * happen after the stock has been updated.
+ * 
+ * Stock adapts to flash sales: a heavily contended product gets its own counter,
+ * which is split into per-thread stripes and collapsed again when traffic cools
+ * down (see {@link DenseStockStore} and {@link StockCounter}).
+ * 
+ * Stock can also be held for a limited time before payment ({@link #hold}). Holds
+ * that are neither confirmed nor released expire through a timing wheel that is
+ * advanced on the partition's registry worker, or on a daemon thread named after
+ * the store for an inventory outside the registry.
+ * 
+ * When stock runs out, {@link #reserveOrBackorder} puts the request in a
+ * per-product waiting line ({@link BackorderQueue}). Every path that adds units
+ * (a release, a {@link #restock}, a rolled-back basket, a reset or recovery)
+ * hands them to the waiting backorders first, in the order they were placed.
+ * 
+ * Started with the system property {@value #SHARED_STOCK_FILE_PROPERTY}, the stock
+ * lives in a memory-mapped file ({@link MappedStockStore}) that every order system
+ * process on the host shares, so they all reserve against the same stock. A
+ * process that cannot map the file fails to start.
+ * 
+ * Started with the system properties {@value #REPLICA_PEERS_PROPERTY} and
+ * {@value #REPLICA_ID_PROPERTY}, the process is one node of a replicated inventory
+ * ({@link ReplicatedStockStore}): every node reserves against its own share of the
+ * stock without waiting for the others, and the shares are rebalanced in the
+ * background. Replicated stock cannot be reset. A node that cannot join the
+ * replicated inventory fails to start rather than selling from local stock.
+ * 
+ * Started with the system properties {@value #WAREHOUSES_PROPERTY} and
+ * {@value #WAREHOUSE_COSTS_PROPERTY}, the stock is kept per warehouse
+ * ({@link WarehouseStockStore}): stock levels are totals over the warehouses,
+ * and every reservation is allocated to the cheapest warehouses for the zone in
+ * {@value #WAREHOUSE_ZONE_PROPERTY}. Released units go back to the warehouses
+ * that shipped them. Initial stock per warehouse comes from
+ * {@value #WAREHOUSE_STOCK_PROPERTY}; products it does not list start with the
+ * default stock spread over all warehouses.
+ * 
+ * Every reservation, release and low-stock condition is published to a
+ * {@link StockEventBus} ({@link #getEventBus()}). Listeners such as the low-stock
+ * alert run off the reservation path: on the partition's registry worker, or on
+ * the bus's own dispatcher thread, named after the store, for the singleton.
+ * 
+ * {@link #snapshot()} returns a consistent, versioned view of all stock levels:
+ * stock changes pass through a {@link MutationGate} that the snapshot briefly
+ * closes, and only pages changed since the previous snapshot are copied.
+ * {@link #getChangesSince(long)} returns just the products changed since an
+ * earlier version.
+ * 
+ * With a journal attached ({@link #attachJournal(Path)}) every stock change is
+ * written to a durable write-ahead log, and the stock survives restarts.
+ * 
+ * {@link #getInstance()} is the inventory of the {@value #DEFAULT_STORE} store.
+ * Other stores or tenants get partitions of their own through
+ * {@link InventoryRegistry}: each partition has its own stock store, event bus,
+ * holds and backorders, and shares nothing with the others.
  * 
  * Following best practices:
- * - Singleton pattern for centralized inventory management
+ * - Singleton pattern for the default store's inventory
  * - Thread-safety for concurrent access
  * - Logging for all inventory changes
  */
 public class InventoryManager {
     
     private static final Logger logger = LoggerFactory.getLogger(InventoryManager.class);
+    
+    /**
+     * ID of the store served by {@link #getInstance()}.
+     */
+    public static final String DEFAULT_STORE = "default";
+    
     private static final InventoryManager INSTANCE = new InventoryManager();
+    private static final int LOW_STOCK_THRESHOLD = 5;
+    private static final long HOLD_TICK_MILLIS = 100;
+    private static final int MAX_BACKORDERS_PER_PRODUCT = 10_000;
+    
+    /**
+     * System property naming the stock file shared between processes.
+     */
+    public static final String SHARED_STOCK_FILE_PROPERTY = "inventory.shared.file";
+    
+    /**
+     * System property with the number of product IDs a new shared stock file holds.
+     */
+    public static final String SHARED_STOCK_CAPACITY_PROPERTY = "inventory.shared.capacity";
+    private static final int DEFAULT_SHARED_STOCK_CAPACITY = 1 << 20;
+    
+    /**
+     * System property listing the {@code host:port} address of every replica node.
+     */
+    public static final String REPLICA_PEERS_PROPERTY = "inventory.replica.peers";
+    
+    /**
+     * System property with this process's index in {@value #REPLICA_PEERS_PROPERTY}.
+     */
+    public static final String REPLICA_ID_PROPERTY = "inventory.replica.id";
+    private static final long REPLICA_SYNC_MILLIS = 50;
+    
+    /**
+     * System property listing the warehouse codes, e.g. {@code TLN,TRT,PRN}.
+     */
+    public static final String WAREHOUSES_PROPERTY = "inventory.warehouses";
+    
+    /**
+     * System property with the shipping cost from each warehouse to each zone, e.g. {@code 1,5,3;6,1,4}.
+     */
+    public static final String WAREHOUSE_COSTS_PROPERTY = "inventory.warehouse.costs";
+    
+    /**
+     * System property with the delivery zone this process allocates for; zone 0 by default.
+     */
+    public static final String WAREHOUSE_ZONE_PROPERTY = "inventory.warehouse.zone";
+    
+    /**
+     * System property with the initial stock per warehouse, e.g. {@code TLN:1=5,2=10;TRT:1=10}.
+     */
+    public static final String WAREHOUSE_STOCK_PROPERTY = "inventory.warehouse.stock";
+    private static final int RETAINED_SNAPSHOTS = 16;
+    private static final long UNREGISTERED_VERSION = 0;
+    
+    private final String storeId;
+    
+    // Initial stock per product ID, null for the default stock levels
+    private final Map<Integer, Integer> initialStock;
+    
+    // Stock level per product ID; every change passes through the gate
+    private final StockStore stock;
+    private final MutationGate gate = new MutationGate();
+    
+    // Recent snapshots by version, guarded by this
+    private final Map<Long, StockSnapshot> snapshots = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, StockSnapshot> eldest) {
+            return size() > RETAINED_SNAPSHOTS;
+        }
+    };
+    private long snapshotVersion;
+    
+    // Registry worker the partition is pinned to, null for an inventory with its own threads
+    private final ScheduledExecutorService worker;
+    
+    // Stock change events, delivered asynchronously
+    private final StockEventBus events;
     
-    // Thread-safe map for inventory tracking
-    private final Map<Integer, Integer> stock = new ConcurrentHashMap<>();
+    // Time-limited holds
+    private final TimingWheel<StockHold> holdWheel = new TimingWheel<>(HOLD_TICK_MILLIS, System.currentTimeMillis());
+    private final AtomicLong holdIds = new AtomicLong();
+    private final AtomicInteger activeHolds = new AtomicInteger();
+    private volatile ScheduledFuture<?> holdExpiry;
+    private ScheduledExecutorService holdExpirer; // own expirer thread when there is no worker
+    
+    // Requests waiting for stock, per product in arrival order
+    private final BackorderQueue<Backorder> backorders = new BackorderQueue<>(MAX_BACKORDERS_PER_PRODUCT);
+    private final AtomicLong backorderIds = new AtomicLong();
+    
+    // Durable log of stock changes, null when running in memory only
+    private volatile InventoryJournal journal;
     
     /**
      * Private constructor for singleton pattern.
      */
     private InventoryManager() {
+        this.storeId = DEFAULT_STORE;
+        this.initialStock = null;
+        this.stock = createStore();
+        this.worker = null;
+        this.events = new StockEventBus(storeId);
+        events.subscribe(this::alertLowStock);
+        initializeInventory();
+    }
+    
+    /**
+     * Creates a process-local inventory with its own event and expiry threads.
+     * 
+     * @param storeId store or tenant ID
+     * @param initialStock product ID to initial stock map, or null for the default stock levels
+     */
+    InventoryManager(String storeId, Map<Integer, Integer> initialStock) {
+        this(storeId, initialStock, null);
+    }
+    
+    /**
+     * Creates the process-local inventory partition of a store.
+     * Partitions are created by {@link InventoryRegistry}.
+     * 
+     * @param storeId store or tenant ID
+     * @param initialStock product ID to initial stock map, or null for the default stock levels
+     * @param worker registry worker that delivers stock events and expires holds,
+     *        or null to start threads of its own
+     */
+    InventoryManager(String storeId, Map<Integer, Integer> initialStock, ScheduledExecutorService worker) {
+        this.storeId = storeId;
+        this.initialStock = initialStock == null ? null : Collections.unmodifiableMap(new TreeMap<>(initialStock));
+        this.stock = new DenseStockStore();
+        this.worker = worker;
+        this.events = worker != null ? new StockEventBus(worker) : new StockEventBus(storeId);
+        events.subscribe(this::alertLowStock);
         initializeInventory();
     }
     
@@ -41,18 +256,229 @@ public class InventoryManager {
         return INSTANCE;
     }
     
+    /**
+     * Gets the ID of the store this inventory belongs to.
+     * 
+     * @return store ID, {@value #DEFAULT_STORE} for the singleton
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    /**
+     * Gets the stream of stock events, e.g. to subscribe a restock or cache-invalidation listener.
+     * 
+     * @return stock event bus
+     */
+    public StockEventBus getEventBus() {
+        return events;
+    }
+    
+    /**
+     * Creates the replicated, shared or per-warehouse stock store if one is
+     * configured, otherwise a process-local one.
+     * 
+     * @throws IllegalStateException if a replicated inventory or shared stock
+     *         file is configured but cannot be used; running on local stock would
+     *         sell units the other nodes or processes are selling too
+     */
+    static StockStore createStore() {
+        String peers = System.getProperty(REPLICA_PEERS_PROPERTY);
+        if (peers != null) {
+            try {
+                List<InetSocketAddress> addresses = SocketTransport.parseAddresses(peers);
+                ReplicaNode node = new ReplicaNode(Integer.getInteger(REPLICA_ID_PROPERTY, 0),
+                                                   addresses.size(), new SocketTransport(addresses));
+                node.start(REPLICA_SYNC_MILLIS);
+                return new ReplicatedStockStore(node);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Cannot join replicated inventory " + peers, e);
+            }
+        }
+        String file = System.getProperty(SHARED_STOCK_FILE_PROPERTY);
+        if (file != null) {
+            int capacity = Integer.getInteger(SHARED_STOCK_CAPACITY_PROPERTY, DEFAULT_SHARED_STOCK_CAPACITY);
+            try {
+                return MappedStockStore.open(Paths.get(file), capacity);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Cannot open shared stock file " + file, e);
+            }
+        }
+        String warehouses = System.getProperty(WAREHOUSES_PROPERTY);
+        if (warehouses != null) {
+            try {
+                WarehouseStock stock = WarehouseStock.parse(warehouses, System.getProperty(WAREHOUSE_COSTS_PROPERTY));
+                String levels = System.getProperty(WAREHOUSE_STOCK_PROPERTY);
+                if (levels != null) {
+                    stock.seed(levels);
+                }
+                return new WarehouseStockStore(stock, Integer.getInteger(WAREHOUSE_ZONE_PROPERTY, 0));
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid warehouse configuration {}, using process-local stock", warehouses, e);
+            }
+        }
+        return new DenseStockStore();
+    }
+    
     /**
      * Initializes inventory with default stock levels.
+     * Products that already have stock, e.g. in a shared stock file, keep it.
      */
     private void initializeInventory() {
-        // Initialize stock for all products in catalog
-        stock.put(1, 15); // Sülearvuti
-        stock.put(2, 25); // Nutitelefon
-        stock.put(3, 50); // Kõrvaklapid
-        stock.put(4, 100); // Raamat
-        stock.put(5, 10); // Kohvimasin
+        if (initialStock != null) {
+            initialStock.forEach(this::initializeStock);
+        } else {
+            // Initialize stock for all products in catalog
+            initializeStock(1, 15); // Sülearvuti
+            initializeStock(2, 25); // Nutitelefon
+            initializeStock(3, 50); // Kõrvaklapid
+            initializeStock(4, 100); // Raamat
+            initializeStock(5, 10); // Kohvimasin
+        }
         
-        logger.info("Inventory initialized with {} products", stock.size());
+        logger.info("Inventory of store {} initialized with {} products", storeId, stock.size());
+    }
+    
+    /**
+     * Adds a product's stock unless it is already present. Journaled changes must
+     * run with the gate closed, see {@link #exclusively(BooleanSupplier)}.
+     */
+    private boolean initializeStock(int productId, int quantity) {
+        if (!stock.setIfAbsent(productId, quantity)) {
+            return false;
+        }
+        events.publish(StockEvent.Type.SET, productId, 0, quantity);
+        InventoryJournal current = journal;
+        if (current != null) {
+            current.logSet(productId, quantity);
+        }
+        return true;
+    }
+    
+    /**
+     * Overwrites a product's stock. Journaled changes must run with the gate
+     * closed, see {@link #exclusively(BooleanSupplier)}.
+     */
+    private void setStock(int productId, int quantity) {
+        stock.set(productId, quantity);
+        events.publish(StockEvent.Type.SET, productId, 0, quantity);
+        InventoryJournal current = journal;
+        if (current != null) {
+            current.logSet(productId, quantity);
+        }
+    }
+    
+    /**
+     * Attaches a durable journal and restores the stock it recorded.
+     * 
+     * If the directory already holds a journal, the in-memory stock is replaced by
+     * the recovered state. Otherwise a new journal is created from the current stock.
+     * From then on every change is logged.
+     * 
+     * @param directory directory for the journal files
+     * @throws IOException if the journal cannot be opened
+     * @throws IllegalStateException if a journal is already attached or the stock is shared
+     */
+    public synchronized void attachJournal(Path directory) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Inventory journal already attached");
+        }
+        if (isSharedStock()) {
+            throw new IllegalStateException("Shared stock cannot be journaled");
+        }
+        InventoryJournal opened = InventoryJournal.open(directory);
+        Map<Integer, Integer> recovered = opened.getRecoveredState();
+        if (recovered.isEmpty()) {
+            exclusively(() -> {
+                journal = opened;
+                stock.forEach(opened::logSet);
+                return true;
+            });
+            opened.sync();
+            logger.info("Created inventory journal in {} with {} products", directory, stock.size());
+        } else {
+            exclusively(() -> {
+                stock.clear();
+                recovered.forEach(this::setStock);
+                journal = opened;
+                return true;
+            });
+            // Attached before draining, so backorders fulfilled from the recovered stock are logged
+            List<Backorder> fulfilled;
+            gate.enter();
+            try {
+                fulfilled = fulfillWaitingBackorders();
+            } finally {
+                gate.exit();
+            }
+            wake(fulfilled);
+            logger.info("Restored {} products from inventory journal in {} ms",
+                       recovered.size(), opened.getRecoveryMillis());
+        }
+    }
+    
+    /**
+     * Checks whether the stock is shared with other processes, through a mapped
+     * file or replication.
+     * 
+     * @return true if the stock is shared
+     */
+    public boolean isSharedStock() {
+        return stock.isShared();
+    }
+    
+    /**
+     * Flushes and detaches the journal; the inventory keeps running in memory.
+     * 
+     * @throws IOException if the journal cannot be closed
+     */
+    public synchronized void detachJournal() throws IOException {
+        InventoryJournal current = journal;
+        if (current != null) {
+            // Once the gate has closed, no change still in flight can log to the closed journal
+            exclusively(() -> {
+                journal = null;
+                return true;
+            });
+            current.close();
+        }
+    }
+    
+    /**
+     * Runs a change while no other stock change is in flight.
+     * 
+     * Reservations and releases log their deltas inside the gate, in the order
+     * they change the stock. Changes that overwrite stock levels close the gate
+     * instead, so their SET records cannot land between another change and its
+     * delta, which would replay to a different stock level.
+     * 
+     * @return the change's result
+     */
+    private synchronized boolean exclusively(BooleanSupplier change) {
+        gate.close();
+        try {
+            return change.getAsBoolean();
+        } finally {
+            gate.open();
+        }
+    }
+    
+    private void logDelta(int productId, int delta) {
+        InventoryJournal current = journal;
+        if (current != null) {
+            current.logDelta(productId, delta);
+        }
+    }
+    
+    private void logDeltas(int[] productIds, Map<Integer, Integer> quantities, int sign) {
+        InventoryJournal current = journal;
+        if (current != null) {
+            int[] deltas = new int[productIds.length];
+            for (int i = 0; i < productIds.length; i++) {
+                deltas[i] = sign * quantities.get(productIds[i]);
+            }
+            current.logDeltas(productIds, deltas);
+        }
     }
     
     /**
@@ -62,8 +488,7 @@ public class InventoryManager {
      * @return true if product has stock
      */
     public boolean isInStock(int productId) {
-        Integer quantity = stock.get(productId);
-        return quantity != null && quantity > 0;
+        return stock.get(productId) > 0;
     }
     
     /**
@@ -73,96 +498,775 @@ public class InventoryManager {
      * @return current stock quantity, or 0 if product not found
      */
     public int getStock(int productId) {
-        return stock.getOrDefault(productId, 0);
+        return Math.max(0, stock.get(productId));
+    }
+    
+    /**
+     * Gets the current stock levels of many products at once, e.g. for a catalog page.
+     * 
+     * @param productIds the product IDs
+     * @return stock quantity per product ID, 0 for products not found
+     */
+    public int[] getStocks(int[] productIds) {
+        int[] stocks = stock.getStocks(productIds);
+        for (int i = 0; i < stocks.length; i++) {
+            stocks[i] = Math.max(0, stocks[i]);
+        }
+        return stocks;
     }
     
     /**
      * Reserves stock for a product (decreases inventory).
-     * This should be called when an order is successfully paid.
+     * This should be called when an order is successfully paid. While backorders
+     * wait for the product the reservation is refused, so it cannot take units
+     * ahead of them; use {@link #reserveOrBackorder} to join the line instead.
      * 
      * @param productId the product ID
      * @param quantity the quantity to reserve
      * @return true if stock was successfully reserved
      */
-    public synchronized boolean reserveStock(int productId, int quantity) {
+    public boolean reserveStock(int productId, int quantity) {
         if (quantity <= 0) {
             logger.warn("Invalid reserve quantity: {}", quantity);
             return false;
         }
         
-        Integer currentStock = stock.get(productId);
-        if (currentStock == null) {
+        // Only capture the outcome inside the gate; logging there would hold up snapshots
+        boolean waiting;
+        boolean reserved;
+        int level;
+        gate.enter();
+        try {
+            waiting = backorders.isWaiting(productId);
+            reserved = !waiting && stock.contains(productId) && stock.tryReserve(productId, quantity);
+            level = reserved ? recordReservation(productId, quantity) : stock.get(productId);
+        } finally {
+            gate.exit();
+        }
+        
+        if (level == StockStore.ABSENT) {
             logger.error("Product {} not found in inventory", productId);
             return false;
         }
-        
-        if (currentStock < quantity) {
+        if (waiting) {
+            logger.warn("Backorders wait for product {}, request for {} units refused", productId, quantity);
+            return false;
+        }
+        if (!reserved) {
             logger.warn("Insufficient stock for product {}: requested {}, available {}", 
-                       productId, quantity, currentStock);
+                       productId, quantity, level);
             return false;
         }
-        
-        int newStock = currentStock - quantity;
-        stock.put(productId, newStock);
-        
         logger.info("Reserved {} units of product {}. New stock level: {}", 
-                   quantity, productId, newStock);
+                   quantity, productId, level);
+        return true;
+    }
+    
+    /**
+     * Logs, publishes and checks the stock level of a reservation that has been made.
+     * 
+     * @return stock level after the reservation
+     */
+    private int recordReservation(int productId, int quantity) {
+        logDelta(productId, -quantity);
+        int newStock = stock.get(productId);
+        events.publish(StockEvent.Type.RESERVED, productId, quantity, newStock);
         
         // Alert if stock is running low
-        if (newStock < 5) {
-            logger.warn("LOW STOCK ALERT: Product {} has only {} units remaining", 
-                       productId, newStock);
-        }
-        
-        return true;
+        checkLowStock(productId, newStock);
+        return newStock;
     }
     
     /**
      * Releases reserved stock (increases inventory).
      * This should be called when an order is cancelled or payment fails.
+     * Waiting backorders for the product get the released units first.
      * 
      * @param productId the product ID
      * @param quantity the quantity to release
      * @return true if stock was successfully released
      */
-    public synchronized boolean releaseStock(int productId, int quantity) {
+    public boolean releaseStock(int productId, int quantity) {
         if (quantity <= 0) {
             logger.warn("Invalid release quantity: {}", quantity);
             return false;
         }
         
-        Integer currentStock = stock.get(productId);
-        if (currentStock == null) {
+        List<Backorder> fulfilled = List.of();
+        boolean released;
+        int level;
+        gate.enter();
+        try {
+            released = stock.contains(productId) && stock.release(productId, quantity);
+            level = stock.get(productId);
+            if (released) {
+                logDelta(productId, quantity);
+                events.publish(StockEvent.Type.RELEASED, productId, quantity, level);
+                fulfilled = fulfillBackorders(productId);
+            }
+        } finally {
+            gate.exit();
+        }
+        
+        if (level == StockStore.ABSENT) {
             logger.error("Product {} not found in inventory", productId);
             return false;
         }
+        if (!released) {
+            logger.error("Cannot release {} units of product {}: stock would overflow", 
+                        quantity, productId);
+            return false;
+        }
+        logger.info("Released {} units of product {}. New stock level: {}", 
+                   quantity, productId, level);
+        wake(fulfilled);
+        return true;
+    }
+    
+    /**
+     * Adds newly delivered units to a product's stock. A product without stock
+     * yet, e.g. one just added to the catalog, starts with the delivered units.
+     * Waiting backorders for the product get the units first.
+     * 
+     * @param productId the product ID
+     * @param quantity the quantity delivered
+     * @return true if the stock was increased
+     */
+    public boolean restock(int productId, int quantity) {
+        if (quantity <= 0) {
+            logger.warn("Invalid restock quantity: {}", quantity);
+            return false;
+        }
         
-        int newStock = currentStock + quantity;
-        stock.put(productId, newStock);
+        List<Backorder> fulfilled = List.of();
+        boolean added = !stock.contains(productId) && exclusively(() -> initializeStock(productId, quantity));
+        boolean restocked;
+        int level;
+        gate.enter();
+        try {
+            restocked = added || stock.release(productId, quantity);
+            level = stock.get(productId);
+            if (restocked) {
+                if (!added) {
+                    logDelta(productId, quantity);
+                    events.publish(StockEvent.Type.RELEASED, productId, quantity, level);
+                }
+                fulfilled = fulfillBackorders(productId);
+            }
+        } finally {
+            gate.exit();
+        }
         
-        logger.info("Released {} units of product {}. New stock level: {}", 
-                   quantity, productId, newStock);
+        if (!restocked) {
+            logger.error("Cannot restock {} units of product {}: stock would overflow", 
+                        quantity, productId);
+            return false;
+        }
+        logger.info("Restocked {} units of product {}. New stock level: {}", 
+                   quantity, productId, level);
+        wake(fulfilled);
+        return true;
+    }
+    
+    /**
+     * Checks whether a product's stock is currently split into stripes because of heavy traffic.
+     * 
+     * @param productId the product ID
+     * @return true if the product is in hot (striped) mode
+     */
+    public boolean isHot(int productId) {
+        return stock.isHot(productId);
+    }
+    
+    /**
+     * Reserves stock for a whole basket in one pass: either every product is
+     * reserved or none is.
+     * 
+     * Products are processed in ascending ID order. No locks are taken, so
+     * concurrent baskets cannot deadlock; if a product is short, the products
+     * reserved so far are put back and the remaining ones are only checked, so
+     * the result lists every product that was short. A product with backorders
+     * waiting is short with nothing available, as its units go to them first.
+     * 
+     * @param quantities product ID to quantity map
+     * @return result describing the reservation and any shortages
+     * @throws IllegalArgumentException if quantities is null or empty, or a quantity is not positive
+     */
+    public ReservationResult reserveAll(Map<Integer, Integer> quantities) {
+        int[] productIds = sortedProductIds(quantities);
+        List<Backorder> fulfilled = new ArrayList<>();
+        ReservationResult result;
+        gate.enter();
+        try {
+            Map<Integer, Integer> shortages = new TreeMap<>();
+            int reservedCount = 0;
+            for (int productId : productIds) {
+                int quantity = quantities.get(productId);
+                if (!stock.contains(productId) || backorders.isWaiting(productId)) {
+                    shortages.put(productId, 0);
+                } else if (!shortages.isEmpty()) {
+                    // Already failing: only report further shortages
+                    int available = stock.get(productId);
+                    if (available < quantity) {
+                        shortages.put(productId, available);
+                    }
+                } else if (stock.tryReserve(productId, quantity)) {
+                    reservedCount++;
+                } else {
+                    shortages.put(productId, stock.get(productId));
+                }
+            }
+            
+            if (!shortages.isEmpty()) {
+                // Roll back the products reserved before the first shortage; backorders
+                // queued while the units were taken must not miss them
+                for (int i = 0; i < reservedCount; i++) {
+                    stock.release(productIds[i], quantities.get(productIds[i]));
+                    fulfilled.addAll(fulfillBackorders(productIds[i]));
+                }
+                result = new ReservationResult(false, quantities, shortages);
+            } else {
+                logDeltas(productIds, quantities, -1);
+                for (int productId : productIds) {
+                    int newStock = stock.get(productId);
+                    events.publish(StockEvent.Type.RESERVED, productId, quantities.get(productId), newStock);
+                    checkLowStock(productId, newStock);
+                }
+                result = new ReservationResult(true, quantities, shortages);
+            }
+        } finally {
+            gate.exit();
+        }
         
+        if (result.isSuccess()) {
+            logger.info("Reserved basket of {} products: {}", productIds.length, quantities);
+        } else {
+            logger.warn("Basket reservation failed, short products (available stock): {}", result.getShortages());
+        }
+        wake(fulfilled);
+        return result;
+    }
+    
+    /**
+     * Releases stock for a whole basket, e.g. when a paid order is cancelled.
+     * Nothing is released unless every product exists and none of their stock
+     * levels would overflow. Waiting backorders get the released units first.
+     * 
+     * @param quantities product ID to quantity map
+     * @return true if all stock was released
+     * @throws IllegalArgumentException if quantities is null or empty, or a quantity is not positive
+     */
+    public boolean releaseAll(Map<Integer, Integer> quantities) {
+        int[] productIds = sortedProductIds(quantities);
+        List<Backorder> fulfilled = new ArrayList<>();
+        // The product that stopped the release and whether it was missing, logged after the gate
+        int failed = -1;
+        boolean missing = false;
+        gate.enter();
+        try {
+            for (int i = 0; i < productIds.length && failed < 0; i++) {
+                int available = stock.get(productIds[i]);
+                missing = available == StockStore.ABSENT;
+                if (missing || available > Integer.MAX_VALUE - quantities.get(productIds[i])) {
+                    failed = i;
+                }
+            }
+            
+            if (failed < 0) {
+                int releasedCount = 0;
+                while (releasedCount < productIds.length
+                       && stock.release(productIds[releasedCount], quantities.get(productIds[releasedCount]))) {
+                    releasedCount++;
+                }
+                if (releasedCount < productIds.length) {
+                    // A concurrent release filled the stock after the check; take back what this basket added
+                    for (int i = 0; i < releasedCount; i++) {
+                        stock.tryReserve(productIds[i], quantities.get(productIds[i]));
+                    }
+                    failed = releasedCount;
+                } else {
+                    logDeltas(productIds, quantities, 1);
+                    for (int productId : productIds) {
+                        events.publish(StockEvent.Type.RELEASED, productId, quantities.get(productId), stock.get(productId));
+                        fulfilled.addAll(fulfillBackorders(productId));
+                    }
+                }
+            }
+        } finally {
+            gate.exit();
+        }
+        
+        if (failed >= 0) {
+            if (missing) {
+                logger.error("Product {} not found in inventory, basket not released", productIds[failed]);
+            } else {
+                logger.error("Cannot release {} units of product {}: stock would overflow, basket not released",
+                            quantities.get(productIds[failed]), productIds[failed]);
+            }
+            return false;
+        }
+        logger.info("Released basket of {} products: {}", productIds.length, quantities);
+        wake(fulfilled);
         return true;
     }
     
+    /**
+     * Reserves stock for a product, or waits in line for it when there is not enough.
+     * 
+     * If nobody is waiting for the product and the stock covers the quantity, the
+     * units are reserved at once and the backorder is returned already fulfilled.
+     * Otherwise the backorder joins the end of the product's line and is fulfilled
+     * when released stock reaches it; wait on {@link Backorder#getFulfillment()}.
+     * Plain {@link #reserveStock} calls do not wait in line; they are refused
+     * while the line is not empty.
+     * 
+     * @param productId the product ID
+     * @param quantity the quantity to reserve
+     * @return the backorder, or null if the product is unknown or its line is full
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public Backorder reserveOrBackorder(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Backorder quantity must be positive");
+        }
+        
+        Backorder backorder = new Backorder(backorderIds.incrementAndGet(), productId, quantity, Instant.now(), this);
+        BackorderQueue.Admission admission = null;
+        gate.enter();
+        try {
+            if (stock.contains(productId)) {
+                admission = backorders.offer(productId, backorder, quantity,
+                                             units -> stock.tryReserve(productId, units));
+                if (admission == BackorderQueue.Admission.RESERVED) {
+                    recordReservation(productId, quantity);
+                }
+            }
+        } finally {
+            gate.exit();
+        }
+        
+        if (admission == null) {
+            logger.error("Product {} not found in inventory", productId);
+            return null;
+        }
+        switch (admission) {
+            case RESERVED:
+                backorder.fulfill();
+                logger.info("Reserved {} units of product {} without waiting", quantity, productId);
+                return backorder;
+            case QUEUED:
+                logger.info("Backorder {} waits for {} units of product {}", 
+                           backorder.getBackorderId(), quantity, productId);
+                return backorder;
+            default:
+                logger.warn("Backorder line for product {} is full, request for {} units refused", 
+                           productId, quantity);
+                return null;
+        }
+    }
+    
+    /**
+     * Gets the number of backorders waiting for a product.
+     * 
+     * @param productId the product ID
+     * @return waiting backorder count
+     */
+    public int getBackorderCount(int productId) {
+        return backorders.size(productId);
+    }
+    
+    /**
+     * Takes a waiting backorder out of its line.
+     * 
+     * @return true if it was still waiting
+     */
+    boolean withdrawBackorder(Backorder backorder) {
+        boolean removed = backorders.remove(backorder.getProductId(), backorder);
+        if (removed) {
+            logger.info("Backorder {} cancelled", backorder.getBackorderId());
+        }
+        return removed;
+    }
+    
+    /**
+     * Reserves stock for the backorders at the head of a product's line.
+     * Must be called inside the gate; the caller wakes the returned backorders
+     * with {@link #wake(List)} after leaving it.
+     */
+    private List<Backorder> fulfillBackorders(int productId) {
+        List<Backorder> fulfilled = backorders.drain(productId, units -> stock.tryReserve(productId, units));
+        for (Backorder backorder : fulfilled) {
+            recordReservation(productId, backorder.getQuantity());
+        }
+        return fulfilled;
+    }
+    
+    /**
+     * Logs and completes backorders whose stock was reserved inside the gate.
+     */
+    private void wake(List<Backorder> fulfilled) {
+        for (Backorder backorder : fulfilled) {
+            logger.info("Fulfilled backorder {}: {} units of product {}", 
+                       backorder.getBackorderId(), backorder.getQuantity(), backorder.getProductId());
+            backorder.fulfill();
+        }
+    }
+    
+    /**
+     * Reserves stock for the head of every waiting line, after stock levels were
+     * replaced as a whole. Same contract as {@link #fulfillBackorders(int)}.
+     */
+    private List<Backorder> fulfillWaitingBackorders() {
+        List<Backorder> fulfilled = new ArrayList<>();
+        for (int productId : backorders.waitingProducts()) {
+            fulfilled.addAll(fulfillBackorders(productId));
+        }
+        return fulfilled;
+    }
+    
+    /**
+     * Holds stock for a product for a limited time, e.g. while the customer pays.
+     * 
+     * @param productId the product ID
+     * @param quantity the quantity to hold
+     * @param ttl how long the hold lasts unless confirmed or released
+     * @return the hold, or null if there is not enough stock
+     * @throws IllegalArgumentException if quantity or ttl is not positive
+     */
+    public StockHold hold(int productId, int quantity, Duration ttl) {
+        return holdAll(Map.of(productId, quantity), ttl);
+    }
+    
+    /**
+     * Holds stock for a whole basket for a limited time.
+     * The basket is reserved all or nothing, like {@link #reserveAll(Map)}.
+     * 
+     * @param quantities product ID to quantity map
+     * @param ttl how long the hold lasts unless confirmed or released
+     * @return the hold, or null if any product is short
+     * @throws IllegalArgumentException if quantities is empty, a quantity or ttl is not positive
+     */
+    public StockHold holdAll(Map<Integer, Integer> quantities, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Hold duration must be positive");
+        }
+        if (!reserveAll(quantities).isSuccess()) {
+            return null;
+        }
+        
+        long now = System.currentTimeMillis();
+        long deadline = now + ttl.toMillis();
+        StockHold hold = new StockHold(holdIds.incrementAndGet(), quantities, Instant.ofEpochMilli(deadline), this);
+        activeHolds.incrementAndGet();
+        hold.setTimeout(holdWheel.schedule(hold, deadline));
+        ensureHoldExpirer();
+        
+        logger.info("Created hold {} for {} until {}", hold.getHoldId(), hold.getQuantities(), hold.getExpiresAt());
+        return hold;
+    }
+    
+    /**
+     * Gets the number of holds that are neither confirmed, released nor expired.
+     * 
+     * @return active hold count
+     */
+    public int getActiveHoldCount() {
+        return activeHolds.get();
+    }
+    
+    /**
+     * Expires all holds whose deadline is before the given time.
+     * Normally called by the expirer thread.
+     * 
+     * @param nowMillis current time in milliseconds
+     * @return number of holds that expired
+     */
+    int expireHolds(long nowMillis) {
+        return holdWheel.advance(nowMillis, StockHold::expire);
+    }
+    
+    /**
+     * Returns the units of a released or expired hold to the stock.
+     */
+    void returnHeldStock(StockHold hold) {
+        releaseAll(hold.getQuantities());
+        onHoldEnded(hold);
+    }
+    
+    void onHoldEnded(StockHold hold) {
+        activeHolds.decrementAndGet();
+        logger.info("Hold {} ended: {}", hold.getHoldId(), hold.getState());
+    }
+    
+    private void ensureHoldExpirer() {
+        if (holdExpiry != null) {
+            return;
+        }
+        synchronized (this) {
+            if (holdExpiry == null) {
+                ScheduledExecutorService executor = worker;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(task -> {
+                        Thread thread = new Thread(task, "stock-hold-expirer-" + storeId);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    holdExpirer = executor;
+                }
+                holdExpiry = executor.scheduleAtFixedRate(() -> {
+                    try {
+                        expireHolds(System.currentTimeMillis());
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to expire stock holds of store {}", storeId, e);
+                    }
+                }, HOLD_TICK_MILLIS, HOLD_TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+    
+    private static int[] sortedProductIds(Map<Integer, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("Quantities cannot be null or empty");
+        }
+        int[] productIds = new int[quantities.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity " + entry.getValue()
+                    + " for product " + entry.getKey());
+            }
+            productIds[i++] = entry.getKey();
+        }
+        Arrays.sort(productIds);
+        return productIds;
+    }
+    
+    private void checkLowStock(int productId, int newStock) {
+        if (newStock < LOW_STOCK_THRESHOLD) {
+            events.publish(StockEvent.Type.LOW_STOCK, productId, 0, newStock);
+        }
+    }
+    
+    private void alertLowStock(List<StockEvent> batch) {
+        for (StockEvent event : batch) {
+            if (event.getType() == StockEvent.Type.LOW_STOCK) {
+                logger.warn("LOW STOCK ALERT: Product {} has only {} units remaining", 
+                           event.getProductId(), event.getStockLevel());
+            }
+        }
+    }
+    
+    /**
+     * Takes a consistent snapshot of all stock levels.
+     * 
+     * Stock changes are held back while the snapshot is taken, so it never shows
+     * half of a basket reservation. Pages unchanged since the previous snapshot are
+     * shared with it, so snapshots are cheap to take and to keep. With a shared
+     * stock file, changes made by other processes are not held back.
+     * 
+     * @return snapshot with a new version
+     */
+    public synchronized StockSnapshot snapshot() {
+        StockSnapshot snapshot = copyStock(++snapshotVersion);
+        snapshots.put(snapshot.getVersion(), snapshot);
+        return snapshot;
+    }
+    
+    /**
+     * Gets the products whose stock changed since an earlier snapshot, together
+     * with the new snapshot they were taken from. Pass its version to the next
+     * call to follow the stock as a chain of deltas.
+     * Only the last {@value #RETAINED_SNAPSHOTS} snapshot versions can be compared against.
+     * 
+     * @param version version of the earlier snapshot
+     * @return the new snapshot and the changes since the earlier one
+     * @throws IllegalArgumentException if the version is unknown or no longer retained
+     */
+    public synchronized StockChanges getChangesSince(long version) {
+        StockSnapshot earlier = snapshots.get(version);
+        if (earlier == null) {
+            throw new IllegalArgumentException("Snapshot version " + version + " is not retained");
+        }
+        StockSnapshot current = snapshot();
+        return new StockChanges(current, current.changesSince(earlier));
+    }
+    
     /**
      * Gets all inventory as a map.
-     * Returns a copy to prevent external modification.
+     * Returns a consistent copy like {@link #snapshot()}, but registers no snapshot
+     * version, so it never pushes a retained version out; prefer a snapshot, or
+     * {@link #getStocks(int[])} when only some products are needed.
      * 
      * @return copy of inventory map
      */
     public Map<Integer, Integer> getAllInventory() {
-        return new ConcurrentHashMap<>(stock);
+        Map<Integer, Integer> copy = new ConcurrentHashMap<>();
+        copyStock(UNREGISTERED_VERSION).forEach(copy::put);
+        return copy;
+    }
+    
+    /**
+     * Copies the stock while changes are held back. Stock counters of products
+     * that have cooled down are folded back first, which needs the same quiet.
+     */
+    private synchronized StockSnapshot copyStock(long version) {
+        gate.close();
+        try {
+            stock.compact();
+            return stock.snapshot(version);
+        } finally {
+            gate.open();
+        }
     }
     
     /**
      * Resets inventory to initial state.
      * Useful for testing or system reset.
+     * 
+     * @throws IllegalStateException if the stock is shared through a file or replication
      */
     public void resetInventory() {
-        stock.clear();
-        initializeInventory();
+        exclusively(() -> {
+            stock.clear();
+            InventoryJournal current = journal;
+            if (current != null) {
+                current.logClear();
+            }
+            initializeInventory();
+            return true;
+        });
         logger.info("Inventory reset to initial state");
+        
+        List<Backorder> fulfilled;
+        gate.enter();
+        try {
+            fulfilled = fulfillWaitingBackorders();
+        } finally {
+            gate.exit();
+        }
+        wake(fulfilled);
+    }
+    
+    /**
+     * Stops the partition's hold expiry and event delivery and detaches its journal.
+     * Called by {@link InventoryRegistry} when a partition is removed.
+     */
+    void shutdown() {
+        ScheduledFuture<?> expiry;
+        ScheduledExecutorService expirer;
+        synchronized (this) {
+            expiry = holdExpiry;
+            expirer = holdExpirer;
+        }
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        if (expirer != null) {
+            expirer.shutdownNow();
+        }
+        events.close();
+        try {
+            detachJournal();
+        } catch (IOException e) {
+            logger.error("Failed to close inventory journal of store {}", storeId, e);
+        }
+        logger.info("Inventory of store {} shut down", storeId);
+    }
+    
+    /**
+     * Stock changes between two snapshots, with the later snapshot.
+     * Immutable value object.
+     */
+    public static class StockChanges {
+        private final StockSnapshot snapshot;
+        private final Map<Integer, Integer> changes;
+        
+        public StockChanges(StockSnapshot snapshot, Map<Integer, Integer> changes) {
+            this.snapshot = snapshot;
+            this.changes = changes;
+        }
+        
+        /**
+         * Gets the snapshot the changes lead to.
+         * 
+         * @return snapshot, retained like those of {@link InventoryManager#snapshot()}
+         */
+        public StockSnapshot getSnapshot() {
+            return snapshot;
+        }
+        
+        /**
+         * Gets the version to ask for the next changes with.
+         * 
+         * @return version of the snapshot
+         */
+        public long getVersion() {
+            return snapshot.getVersion();
+        }
+        
+        /**
+         * Gets the products whose stock changed.
+         * 
+         * @return product ID to new stock map, sorted by product ID; removed products
+         *         map to {@link StockStore#ABSENT}
+         */
+        public Map<Integer, Integer> getChanges() {
+            return changes;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("StockChanges{version=%d, changes=%s}", getVersion(), changes);
+        }
+    }
+    
+    /**
+     * Result of a basket reservation.
+     * Immutable value object.
+     */
+    public static class ReservationResult {
+        private final boolean success;
+        private final Map<Integer, Integer> requested;
+        private final Map<Integer, Integer> shortages;
+        
+        public ReservationResult(boolean success, Map<Integer, Integer> requested,
+                                 Map<Integer, Integer> shortages) {
+            this.success = success;
+            this.requested = Collections.unmodifiableMap(new TreeMap<>(requested));
+            this.shortages = Collections.unmodifiableMap(new TreeMap<>(shortages));
+        }
+        
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        /**
+         * Gets the requested quantities.
+         * 
+         * @return product ID to quantity map, sorted by product ID
+         */
+        public Map<Integer, Integer> getRequested() {
+            return requested;
+        }
+        
+        /**
+         * Gets the products that could not be reserved with the stock that was
+         * available when they were checked (0 for unknown products).
+         * 
+         * @return product ID to available stock map, empty on success
+         */
+        public Map<Integer, Integer> getShortages() {
+            return shortages;
+        }
+        
+        public boolean isShort(int productId) {
+            return shortages.containsKey(productId);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("ReservationResult{success=%s, requested=%s, shortages=%s}",
+                               success, requested, shortages);
+        }
     }
 }
@@ -0,0 +1,282 @@
+package ee.commerce.order.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Registry of per-store inventory partitions.
+ * 
+ * Every store or tenant gets its own {@link InventoryManager} with its own stock
+ * store, so stores never contend on a shared structure and tests can use fresh
+ * partitions instead of resetting shared state. The {@value InventoryManager#DEFAULT_STORE}
+ * store is the {@link InventoryManager#getInstance()} singleton.
+ * 
+ * Each partition is pinned to one of a fixed number of worker threads, assigned
+ * round-robin when the partition is created. Work routed through
+ * {@link #submit(String, Function)} always runs on the partition's worker, so a
+ * store's data stays in one core's cache while different stores run in parallel.
+ * The partition's stock events are delivered and its holds expired on the same
+ * worker, so a partition starts no threads of its own. Partitions remain
+ * thread-safe, so they can also be called directly.
+ * 
+ * Removing a partition waits for its running operation, and operations that
+ * reach the worker afterwards fail instead of touching the shut-down partition.
+ * {@link #shutdown()} is final: the registry creates no partitions and accepts
+ * no work afterwards.
+ */
+public final class InventoryRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryRegistry.class);
+    private static final InventoryRegistry INSTANCE = new InventoryRegistry(Runtime.getRuntime().availableProcessors());
+    
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<ScheduledExecutorService> workers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private volatile boolean shutDown;
+    
+    /**
+     * Creates a registry.
+     * 
+     * @param workerCount number of worker threads partitions are pinned to
+     * @throws IllegalArgumentException if workerCount is not positive
+     */
+    public InventoryRegistry(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.workers = new AtomicReferenceArray<>(workerCount);
+        partitions.put(InventoryManager.DEFAULT_STORE, new Partition(InventoryManager.getInstance(), assignWorker()));
+    }
+    
+    /**
+     * Gets the registry shared by the application, with one worker per processor.
+     * 
+     * @return registry instance
+     */
+    public static InventoryRegistry getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Gets a store's inventory, creating it with the default stock levels on first use.
+     * 
+     * @param storeId store or tenant ID
+     * @return the store's inventory
+     * @throws IllegalArgumentException if storeId is null or blank
+     * @throws IllegalStateException if the store is new and the registry is shut down
+     */
+    public InventoryManager getPartition(String storeId) {
+        validateStoreId(storeId);
+        return partitions.computeIfAbsent(storeId, id -> newPartition(id, null)).inventory;
+    }
+    
+    /**
+     * Creates a store's inventory with its own initial stock.
+     * 
+     * @param storeId store or tenant ID
+     * @param initialStock product ID to initial stock map
+     * @return the new inventory
+     * @throws IllegalArgumentException if storeId is blank or the store already has an inventory
+     * @throws IllegalStateException if the registry is shut down
+     */
+    public InventoryManager createPartition(String storeId, Map<Integer, Integer> initialStock) {
+        validateStoreId(storeId);
+        if (initialStock == null) {
+            throw new IllegalArgumentException("Initial stock cannot be null");
+        }
+        boolean[] created = new boolean[1];
+        Partition partition = partitions.computeIfAbsent(storeId, id -> {
+            created[0] = true;
+            return newPartition(id, initialStock);
+        });
+        if (!created[0]) {
+            throw new IllegalArgumentException("Store " + storeId + " already has an inventory");
+        }
+        return partition.inventory;
+    }
+    
+    /**
+     * Runs an operation on a store's inventory on the store's worker thread.
+     * The store's partition is created on first use.
+     * 
+     * @param storeId store or tenant ID
+     * @param operation operation to run
+     * @param <T> result type
+     * @return future completed with the operation's result, or failed with an
+     *         IllegalStateException if the partition is removed before the operation runs
+     * @throws IllegalStateException if the registry is shut down
+     */
+    public <T> CompletableFuture<T> submit(String storeId, Function<InventoryManager, T> operation) {
+        validateStoreId(storeId);
+        Partition partition = partitions.computeIfAbsent(storeId, id -> newPartition(id, null));
+        return CompletableFuture.supplyAsync(() -> partition.apply(operation), worker(partition.worker));
+    }
+    
+    /**
+     * Removes a store's inventory and stops its background threads.
+     * 
+     * @param storeId store or tenant ID
+     * @return true if the store had an inventory
+     * @throws IllegalArgumentException if storeId is the default store
+     */
+    public boolean removePartition(String storeId) {
+        if (InventoryManager.DEFAULT_STORE.equals(storeId)) {
+            throw new IllegalArgumentException("The default store's inventory cannot be removed");
+        }
+        Partition removed = partitions.remove(storeId);
+        if (removed == null) {
+            return false;
+        }
+        removed.close();
+        logger.info("Removed inventory partition of store {}", storeId);
+        return true;
+    }
+    
+    /**
+     * Checks whether a store has an inventory.
+     * 
+     * @param storeId store or tenant ID
+     * @return true if the partition exists
+     */
+    public boolean hasPartition(String storeId) {
+        return storeId != null && partitions.containsKey(storeId);
+    }
+    
+    /**
+     * Gets the IDs of all stores with an inventory.
+     * 
+     * @return sorted store IDs
+     */
+    public Set<String> getStoreIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(partitions.keySet()));
+    }
+    
+    /**
+     * Gets the worker thread a store is pinned to.
+     * 
+     * @param storeId store or tenant ID
+     * @return worker index, or -1 if the store has no inventory
+     */
+    public int getWorkerIndex(String storeId) {
+        Partition partition = storeId != null ? partitions.get(storeId) : null;
+        return partition != null ? partition.worker : -1;
+    }
+    
+    public int getWorkerCount() {
+        return workers.length();
+    }
+    
+    /**
+     * Removes every partition except the default store's and stops the worker threads.
+     * The registry cannot be used for new stores or submitted work afterwards.
+     */
+    public void shutdown() {
+        shutDown = true;
+        for (String storeId : getStoreIds()) {
+            if (!InventoryManager.DEFAULT_STORE.equals(storeId)) {
+                removePartition(storeId);
+            }
+        }
+        for (int i = 0; i < workers.length(); i++) {
+            ScheduledExecutorService worker = workers.getAndSet(i, null);
+            if (worker != null) {
+                worker.shutdown();
+            }
+        }
+    }
+    
+    private Partition newPartition(String storeId, Map<Integer, Integer> initialStock) {
+        checkRunning();
+        int worker = assignWorker();
+        logger.info("Creating inventory partition of store {} on worker {}", storeId, worker);
+        return new Partition(new InventoryManager(storeId, initialStock, worker(worker)), worker);
+    }
+    
+    private int assignWorker() {
+        return Math.floorMod(nextWorker.getAndIncrement(), workers.length());
+    }
+    
+    /**
+     * Gets a worker thread, starting it on first use.
+     */
+    private ScheduledExecutorService worker(int index) {
+        checkRunning();
+        ScheduledExecutorService worker = workers.get(index);
+        if (worker != null) {
+            return worker;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "inventory-worker-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (workers.compareAndSet(index, null, started)) {
+            if (shutDown) {
+                // shutdown() ran meanwhile and may have missed this worker
+                workers.compareAndSet(index, started, null);
+                started.shutdown();
+                checkRunning();
+            }
+            return started;
+        }
+        // Another thread started the worker first; shutdown() clears it only after setting the flag
+        started.shutdown();
+        ScheduledExecutorService winner = workers.get(index);
+        checkRunning();
+        return winner;
+    }
+    
+    private void checkRunning() {
+        if (shutDown) {
+            throw new IllegalStateException("Inventory registry is shut down");
+        }
+    }
+    
+    private static void validateStoreId(String storeId) {
+        if (storeId == null || storeId.isBlank()) {
+            throw new IllegalArgumentException("Store ID cannot be null or empty");
+        }
+    }
+    
+    /**
+     * A store's inventory and its worker. Operations and removal are serialized,
+     * so an operation never runs against a partition that has been shut down.
+     */
+    private static final class Partition {
+        final InventoryManager inventory;
+        final int worker;
+        private volatile boolean closed;
+        
+        Partition(InventoryManager inventory, int worker) {
+            this.inventory = inventory;
+            this.worker = worker;
+        }
+        
+        synchronized <T> T apply(Function<InventoryManager, T> operation) {
+            if (closed) {
+                throw new IllegalStateException("Inventory of store " + inventory.getStoreId() + " was removed");
+            }
+            return operation.apply(inventory);
+        }
+        
+        void close() {
+            // Refuse queued operations at once, then wait for the running one
+            closed = true;
+            synchronized (this) {
+                inventory.shutdown();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ee.commerce.order.model;
 
+import ee.commerce.order.Money;
+
 import java.math.BigDecimal;
 import java.util.Objects;
 
@@ -12,6 +14,7 @@ public class Product {
     private final int id;
     private final String name;
     private final BigDecimal price;
+    private final long priceCents;
     private final String description;
     
     /**
@@ -33,6 +36,7 @@ public class Product {
         this.id = id;
         this.name = name;
         this.price = price;
+        this.priceCents = Money.toCents(price);
         this.description = description != null ? description : "";
     }
     
@@ -48,6 +52,15 @@ public class Product {
         return price;
     }
     
+    /**
+     * Gets the product price in cents.
+     * 
+     * @return price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+    
     public String getDescription() {
         return description;
     }
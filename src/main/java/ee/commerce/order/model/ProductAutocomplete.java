@@ -0,0 +1,344 @@
+package ee.commerce.order.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prefix completion of product names.
+ * 
+ * Names are folded like {@link ProductSearchIndex#normalize(String)}, and every
+ * word of a name starts a key, so "korv" completes to "🎧 Juhtmevabad
+ * kõrvaklapid Sony". The keys are kept sorted in flat arrays that point into the
+ * folded names; the keys with a given prefix form one contiguous range, found by
+ * two binary searches. Each key has a precomputed rank (names starting with the
+ * prefix first, then shorter names, then catalog order), and a range-minimum tree
+ * over the ranks yields the best k keys of any range in O(k log n) without
+ * scanning it, so completing a one-letter prefix over millions of products takes
+ * microseconds.
+ * 
+ * Instances are immutable. {@link #ofCatalog()} remembers the catalog version it
+ * was built from; after the catalog changes, the next lookup starts a rebuild on
+ * a background thread and keeps returning the previous completions until the new
+ * ones are ready, so a keystroke never waits for a rebuild of a large catalog.
+ * Only the very first lookup builds synchronously.
+ */
+public final class ProductAutocomplete {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductAutocomplete.class);
+    private static final int MAX_RANKED_OFFSET = 0xFFF;
+    private static final int MAX_RANKED_LENGTH = 0xFFFF;
+    
+    private static volatile ProductAutocomplete catalog;
+    private static final AtomicBoolean rebuilding = new AtomicBoolean();
+    
+    private final long catalogVersion;
+    private final Product[] products;
+    private final String[] names;
+    
+    // Keys in sorted order: product slot and start of the key in the folded name
+    private final int[] keyProducts;
+    private final int[] keyOffsets;
+    private final long[] ranks;
+    
+    // Range-minimum tree over ranks: leaves at [keys, 2 * keys) hold key positions
+    private final int[] tree;
+    
+    private ProductAutocomplete(long catalogVersion, List<Product> catalog) {
+        this.catalogVersion = catalogVersion;
+        this.products = catalog.toArray(new Product[0]);
+        this.names = new String[products.length];
+        int keys = 0;
+        for (int slot = 0; slot < products.length; slot++) {
+            names[slot] = ProductSearchIndex.normalize(products[slot].getName());
+            keys += wordCount(names[slot]);
+        }
+        
+        int[] entryProducts = new int[keys];
+        int[] entryOffsets = new int[keys];
+        int key = 0;
+        for (int slot = 0; slot < products.length; slot++) {
+            String name = names[slot];
+            for (int offset = 0; offset < name.length(); offset++) {
+                if (offset == 0 || name.charAt(offset - 1) == ' ') {
+                    entryProducts[key] = slot;
+                    entryOffsets[key] = offset;
+                    key++;
+                }
+            }
+        }
+        
+        int[] order = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            order[i] = i;
+        }
+        sort(order, entryProducts, entryOffsets);
+        
+        this.keyProducts = new int[keys];
+        this.keyOffsets = new int[keys];
+        this.ranks = new long[keys];
+        for (int i = 0; i < keys; i++) {
+            int slot = entryProducts[order[i]];
+            int offset = entryOffsets[order[i]];
+            keyProducts[i] = slot;
+            keyOffsets[i] = offset;
+            ranks[i] = (long) Math.min(offset, MAX_RANKED_OFFSET) << 48
+                | (long) Math.min(names[slot].length(), MAX_RANKED_LENGTH) << 32
+                | slot;
+        }
+        
+        this.tree = new int[Math.max(2, 2 * keys)];
+        for (int i = 0; i < keys; i++) {
+            tree[keys + i] = i;
+        }
+        for (int node = keys - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+    
+    /**
+     * Builds completions for a list of products.
+     * 
+     * @param products products to complete, in ranking order for equal matches
+     * @return immutable completions
+     * @throws IllegalArgumentException if products is null
+     */
+    public static ProductAutocomplete build(List<Product> products) {
+        if (products == null) {
+            throw new IllegalArgumentException("Products cannot be null");
+        }
+        return new ProductAutocomplete(-1, products);
+    }
+    
+    /**
+     * Gets completions for the {@link ProductCatalog}. If the catalog changed since
+     * they were built, a background rebuild is started and the previous
+     * completions are returned until it finishes.
+     * 
+     * @return completions for the current or a recent catalog version
+     */
+    public static ProductAutocomplete ofCatalog() {
+        ProductAutocomplete current = catalog;
+        if (current == null) {
+            return rebuildCatalog();
+        }
+        if (current.catalogVersion != ProductCatalog.getVersion() && rebuilding.compareAndSet(false, true)) {
+            Thread rebuild = new Thread(() -> {
+                try {
+                    rebuildCatalog();
+                } catch (RuntimeException e) {
+                    logger.error("Product autocomplete rebuild failed, keeping catalog version {}", current.catalogVersion, e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            }, "product-autocomplete-rebuild");
+            rebuild.setDaemon(true);
+            rebuild.start();
+        }
+        return current;
+    }
+    
+    private static synchronized ProductAutocomplete rebuildCatalog() {
+        ProductAutocomplete current = catalog;
+        // Read the version first: a concurrent change then only causes one extra rebuild
+        long version = ProductCatalog.getVersion();
+        if (current == null || current.catalogVersion != version) {
+            long start = System.nanoTime();
+            current = new ProductAutocomplete(version, ProductCatalog.getAllProducts());
+            catalog = current;
+            logger.info("Product autocomplete built for {} products, {} keys in {} ms (catalog version {})",
+                       current.products.length, current.size(), (System.nanoTime() - start) / 1_000_000, version);
+        }
+        return current;
+    }
+    
+    /**
+     * Completes a prefix of any word in product names, best completion first.
+     * Several words complete several consecutive name words: "sony kõrv" does not
+     * match "kõrvaklapid Sony", "kõrvaklapid so" does.
+     * 
+     * @param prefix typed text; case, diacritics and emoji are ignored
+     * @param limit maximum number of products
+     * @return distinct matching products, at most limit
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Product> complete(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String folded = ProductSearchIndex.normalize(prefix);
+        if (folded.isEmpty() || limit == 0) {
+            return Collections.emptyList();
+        }
+        int from = bound(folded, false);
+        int to = bound(folded, true);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        
+        // Best key of each remaining part of the range; taking it splits its part in two
+        PriorityQueue<Range> parts = new PriorityQueue<>((a, b) -> Long.compare(ranks[a.best], ranks[b.best]));
+        parts.add(new Range(from, to, minimum(from, to)));
+        List<Product> completions = new ArrayList<>(Math.min(limit, 16));
+        Set<Integer> seen = new HashSet<>();
+        while (!parts.isEmpty() && completions.size() < limit) {
+            Range part = parts.poll();
+            int slot = keyProducts[part.best];
+            if (seen.add(slot)) {
+                completions.add(products[slot]);
+            }
+            if (part.from < part.best) {
+                parts.add(new Range(part.from, part.best, minimum(part.from, part.best)));
+            }
+            if (part.best + 1 < part.to) {
+                parts.add(new Range(part.best + 1, part.to, minimum(part.best + 1, part.to)));
+            }
+        }
+        return completions;
+    }
+    
+    /**
+     * Gets the number of keys, one per word of every product name.
+     * 
+     * @return key count
+     */
+    public int size() {
+        return keyProducts.length;
+    }
+    
+    /**
+     * Gets the catalog version these completions were built from.
+     * 
+     * @return catalog version, or -1 if built from a product list
+     */
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+    
+    /**
+     * Finds the first key that starts with the prefix, or with upper set, the first
+     * key after those.
+     */
+    private int bound(String prefix, boolean upper) {
+        int low = 0;
+        int high = keyProducts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareToPrefix(names[keyProducts[middle]], keyOffsets[middle], prefix);
+            if (cmp < 0 || upper && cmp == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Compares the key at offset, cut to the prefix length, with the prefix.
+     */
+    private static int compareToPrefix(String name, int offset, String prefix) {
+        int length = Math.min(name.length() - offset, prefix.length());
+        for (int i = 0; i < length; i++) {
+            int diff = name.charAt(offset + i) - prefix.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length() - offset >= prefix.length() ? 0 : -1;
+    }
+    
+    /**
+     * Finds the best-ranked key position in [from, to).
+     */
+    private int minimum(int from, int to) {
+        int best = from;
+        int n = keyProducts.length;
+        for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = better(best, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                best = better(best, tree[--high]);
+            }
+        }
+        return best;
+    }
+    
+    private int better(int a, int b) {
+        return ranks[a] <= ranks[b] ? a : b;
+    }
+    
+    private static int wordCount(String name) {
+        if (name.isEmpty()) {
+            return 0;
+        }
+        int words = 1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words;
+    }
+    
+    /**
+     * Sorts key indexes by key text. Merge sort on primitive arrays, so millions
+     * of keys are sorted without boxing or copying the text.
+     */
+    private void sort(int[] order, int[] entryProducts, int[] entryOffsets) {
+        int[] buffer = new int[order.length];
+        for (int width = 1; width < order.length; width <<= 1) {
+            for (int low = 0; low < order.length; low += 2 * width) {
+                int middle = Math.min(low + width, order.length);
+                int high = Math.min(low + 2 * width, order.length);
+                int left = low;
+                int right = middle;
+                for (int out = low; out < high; out++) {
+                    if (right >= high || left < middle && compareKeys(order[left], order[right], entryProducts, entryOffsets) <= 0) {
+                        buffer[out] = order[left++];
+                    } else {
+                        buffer[out] = order[right++];
+                    }
+                }
+            }
+            System.arraycopy(buffer, 0, order, 0, order.length);
+        }
+    }
+    
+    private int compareKeys(int a, int b, int[] entryProducts, int[] entryOffsets) {
+        String first = names[entryProducts[a]];
+        String second = names[entryProducts[b]];
+        int i = entryOffsets[a];
+        int j = entryOffsets[b];
+        while (i < first.length() && j < second.length()) {
+            int diff = first.charAt(i++) - second.charAt(j++);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (first.length() - i) - (second.length() - j);
+    }
+    
+    /**
+     * Key positions [from, to) with the position of their best-ranked key.
+     */
+    private static final class Range {
+        final int from;
+        final int to;
+        final int best;
+        
+        Range(int from, int to, int best) {
+            this.from = from;
+            this.to = to;
+            this.best = best;
+        }
+    }
+}
@@ -1,39 +1,65 @@
 package ee.commerce.order.model;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Product catalog containing available products for ordering.
  * This follows the catalog pattern for managing product inventory.
+ * 
+ * Every change to the catalog increments its version, so derived data such as
+ * precomputed price tables can detect that they are stale.
+ * 
+ * Lookups by ID go through a {@link ProductIndex} and take constant time without
+ * allocating. The product list is an immutable snapshot that writers replace,
+ * so readers never lock; add large numbers of products with
+ * {@link #addProducts(Collection)}, which copies the list once.
+ * 
+ * Names and descriptions are kept in a {@link ProductSearchIndex} that is
+ * updated with every change, so {@link #search(String, int)} never rescans the
+ * catalog.
  */
 public class ProductCatalog {
     
-    private static final List<Product> PRODUCTS = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+    private static final ProductIndex INDEX = new ProductIndex();
+    private static final ProductSearchIndex SEARCH = new ProductSearchIndex();
+    private static final AtomicLong VERSION = new AtomicLong();
+    
+    // Products in insertion order; replaced as a whole on every change
+    private static volatile List<Product> products = Collections.emptyList();
     
     static {
         // Initialize product catalog
-        PRODUCTS.add(new Product(1, "💻 Sülearvuti Lenovo ThinkPad", 
+        List<Product> initial = new ArrayList<>();
+        initial.add(new Product(1, "💻 Sülearvuti Lenovo ThinkPad", 
             new BigDecimal("899.99"), 
             "Professionaalne 14\" sülearvuti, Intel i5, 16GB RAM"));
         
-        PRODUCTS.add(new Product(2, "📱 Nutitelefon Samsung Galaxy", 
+        initial.add(new Product(2, "📱 Nutitelefon Samsung Galaxy", 
             new BigDecimal("599.00"), 
             "6.1\" AMOLED ekraan, 128GB, 5G toega"));
         
-        PRODUCTS.add(new Product(3, "🎧 Juhtmevabad kõrvaklapid Sony", 
+        initial.add(new Product(3, "🎧 Juhtmevabad kõrvaklapid Sony", 
             new BigDecimal("179.99"), 
             "Mürasummutusega, 30h aku, Bluetooth 5.0"));
         
-        PRODUCTS.add(new Product(4, "📚 Raamat 'Clean Code'", 
+        initial.add(new Product(4, "📚 Raamat 'Clean Code'", 
             new BigDecimal("45.50"), 
             "Robert C. Martin, programmeerimise klassika"));
         
-        PRODUCTS.add(new Product(5, "☕ Kohvimasin DeLonghi", 
+        initial.add(new Product(5, "☕ Kohvimasin DeLonghi", 
             new BigDecimal("299.00"), 
             "Automaatne espressomasin, integreeritud kohviveski"));
+        
+        put(initial);
     }
     
     /**
@@ -42,7 +68,7 @@ public class ProductCatalog {
      * @return unmodifiable list of products
      */
     public static List<Product> getAllProducts() {
-        return Collections.unmodifiableList(PRODUCTS);
+        return products;
     }
     
     /**
@@ -52,10 +78,7 @@ public class ProductCatalog {
      * @return product or null if not found
      */
     public static Product getProductById(int id) {
-        return PRODUCTS.stream()
-            .filter(p -> p.getId() == id)
-            .findFirst()
-            .orElse(null);
+        return INDEX.get(id);
     }
     
     /**
@@ -65,6 +88,118 @@ public class ProductCatalog {
      * @return true if product exists
      */
     public static boolean productExists(int id) {
-        return getProductById(id) != null;
+        return INDEX.contains(id);
+    }
+    
+    /**
+     * Searches product names and descriptions, ignoring case, diacritics and emoji.
+     * 
+     * @param query search words; products must contain all of them
+     * @param limit maximum number of results
+     * @return matching products, best match first
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public static List<Product> search(String query, int limit) {
+        return SEARCH.search(query, limit);
+    }
+    
+    /**
+     * Gets the number of products in the catalog.
+     * 
+     * @return product count
+     */
+    public static int size() {
+        return INDEX.size();
+    }
+    
+    /**
+     * Adds a product to the catalog, replacing any product with the same ID.
+     * 
+     * @param product the product to add
+     * @throws IllegalArgumentException if product is null
+     */
+    public static synchronized void addProduct(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        put(List.of(product));
+        VERSION.incrementAndGet();
+        logger.info("Product {} added to catalog", product.getId());
+    }
+    
+    /**
+     * Adds many products at once, replacing any products with the same IDs.
+     * The catalog version is incremented once.
+     * 
+     * @param added the products to add
+     * @throws IllegalArgumentException if the collection or a product is null
+     */
+    public static synchronized void addProducts(Collection<Product> added) {
+        if (added == null) {
+            throw new IllegalArgumentException("Products cannot be null");
+        }
+        for (Product product : added) {
+            if (product == null) {
+                throw new IllegalArgumentException("Product cannot be null");
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        put(added);
+        VERSION.incrementAndGet();
+        logger.info("{} products added to catalog", added.size());
+    }
+    
+    /**
+     * Indexes products and publishes the new product list. Replaced products
+     * keep their position in the list.
+     */
+    private static void put(Collection<Product> added) {
+        INDEX.ensureCapacity(INDEX.size() + added.size());
+        List<Product> list = new ArrayList<>(products.size() + added.size());
+        list.addAll(products);
+        boolean replaced = false;
+        for (Product product : added) {
+            if (INDEX.put(product) == null) {
+                list.add(product);
+            } else {
+                replaced = true;
+            }
+        }
+        if (replaced) {
+            list.replaceAll(product -> INDEX.get(product.getId()));
+        }
+        products = Collections.unmodifiableList(list);
+        SEARCH.putAll(added);
+    }
+    
+    /**
+     * Removes a product from the catalog.
+     * 
+     * @param id product ID
+     * @return true if the product existed
+     */
+    public static synchronized boolean removeProduct(int id) {
+        Product removed = INDEX.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        List<Product> list = new ArrayList<>(products);
+        list.remove(removed);
+        products = Collections.unmodifiableList(list);
+        SEARCH.remove(id);
+        VERSION.incrementAndGet();
+        logger.info("Product {} removed from catalog", id);
+        return true;
+    }
+    
+    /**
+     * Gets the catalog version. Incremented on every change.
+     * 
+     * @return current catalog version
+     */
+    public static long getVersion() {
+        return VERSION.get();
     }
 }
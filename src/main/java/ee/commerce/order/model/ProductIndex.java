@@ -0,0 +1,218 @@
+package ee.commerce.order.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Hash index of products by ID.
+ * 
+ * Products live in a single open-addressing table keyed by the primitive ID,
+ * probed linearly; the product itself is the entry, so a lookup hashes the ID,
+ * reads a few consecutive slots and allocates nothing. The table is kept at
+ * most half full, so lookups take constant time however many products there
+ * are and however sparse their IDs are.
+ * 
+ * Lookups are lock-free and may run concurrently with one writer; writers must
+ * be serialized by the caller. Slots are published with release stores and the
+ * table is rebuilt into a new array when it grows, so a reader never sees a
+ * half-written entry. Removed products leave a marker that later rebuilds drop.
+ */
+public final class ProductIndex {
+    
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Product[].class);
+    private static final Product REMOVED = new Product(Integer.MIN_VALUE, "removed", BigDecimal.ZERO, null);
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    
+    private volatile Product[] slots = new Product[MIN_CAPACITY];
+    private volatile int size;
+    
+    // Slots holding a product or a removal marker; only touched by the writer
+    private int used;
+    
+    /**
+     * Gets a product by ID.
+     * 
+     * @param id product ID
+     * @return product, or null if not indexed
+     */
+    public Product get(int id) {
+        Product[] table = slots;
+        int mask = table.length - 1;
+        int i = hash(id) & mask;
+        while (true) {
+            Product product = (Product) SLOT.getAcquire(table, i);
+            if (product == null) {
+                return null;
+            }
+            if (product.getId() == id && product != REMOVED) {
+                return product;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+    
+    /**
+     * Checks whether a product ID is indexed.
+     * 
+     * @param id product ID
+     * @return true if the product is indexed
+     */
+    public boolean contains(int id) {
+        return get(id) != null;
+    }
+    
+    /**
+     * Adds a product, replacing any product with the same ID.
+     * 
+     * @param product the product
+     * @return the replaced product, or null
+     */
+    public Product put(Product product) {
+        if (2L * (used + 1) > slots.length) {
+            // Dropping removal markers may be enough; otherwise grow
+            rebuild(2L * (size + 1));
+        }
+        Product[] table = slots;
+        int mask = table.length - 1;
+        int id = product.getId();
+        int i = hash(id) & mask;
+        int free = -1;
+        while (true) {
+            Product current = table[i];
+            if (current == null) {
+                break;
+            }
+            if (current == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (current.getId() == id) {
+                SLOT.setRelease(table, i, product);
+                return current;
+            }
+            i = (i + 1) & mask;
+        }
+        if (free < 0) {
+            free = i;
+            used++;
+        }
+        SLOT.setRelease(table, free, product);
+        size++;
+        return null;
+    }
+    
+    /**
+     * Adds many products, growing the table once up front.
+     * 
+     * @param products the products
+     */
+    public void putAll(Collection<Product> products) {
+        ensureCapacity(size + products.size());
+        for (Product product : products) {
+            put(product);
+        }
+    }
+    
+    /**
+     * Grows the table so that it holds the given number of products without
+     * growing again.
+     * 
+     * @param products expected product count
+     */
+    public void ensureCapacity(int products) {
+        long needed = 2L * products;
+        if (needed > slots.length) {
+            rebuild(needed);
+        }
+    }
+    
+    /**
+     * Removes a product.
+     * 
+     * @param id product ID
+     * @return the removed product, or null if it was not indexed
+     */
+    public Product remove(int id) {
+        Product[] table = slots;
+        int mask = table.length - 1;
+        int i = hash(id) & mask;
+        while (true) {
+            Product current = table[i];
+            if (current == null) {
+                return null;
+            }
+            if (current != REMOVED && current.getId() == id) {
+                SLOT.setRelease(table, i, REMOVED);
+                size--;
+                return current;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+    
+    /**
+     * Gets the number of indexed products.
+     * 
+     * @return product count
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the number of slots in the table, for tests.
+     * 
+     * @return table capacity
+     */
+    int capacity() {
+        return slots.length;
+    }
+    
+    /**
+     * Removes all products.
+     */
+    public void clear() {
+        slots = new Product[MIN_CAPACITY];
+        size = 0;
+        used = 0;
+    }
+    
+    /**
+     * Copies the live products into a new table with room for the given number of
+     * slots, and publishes it.
+     */
+    private void rebuild(long minSlots) {
+        if (minSlots > MAX_CAPACITY) {
+            throw new IllegalStateException("Product index cannot hold more than " + MAX_CAPACITY / 2 + " products");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < minSlots) {
+            capacity <<= 1;
+        }
+        Product[] old = slots;
+        Product[] table = new Product[capacity];
+        int mask = capacity - 1;
+        for (Product product : old) {
+            if (product != null && product != REMOVED) {
+                int i = hash(product.getId()) & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = product;
+            }
+        }
+        used = size;
+        slots = table;
+    }
+    
+    /**
+     * Spreads consecutive IDs over the table; Fibonacci hashing with the high bits folded in.
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,399 @@
+package ee.commerce.order.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index over product names and descriptions.
+ * 
+ * Text is folded before indexing and searching: lower case, Estonian and other
+ * Latin diacritics removed (õ, ö → o, ä → a, ü → u, š → s, ž → z) and emoji and
+ * punctuation treated as word breaks, so "kõrvaklapid" finds "🎧 Juhtmevabad
+ * Kõrvaklapid". A query matches products that contain every query word; results
+ * are ranked by how rare the words are and whether they occur in the name, which
+ * counts {@value #NAME_WEIGHT} times as much as the description.
+ * 
+ * Each indexed product is a document with an increasing number, and every word
+ * has a sorted list of the documents that contain it. Updating a product retires
+ * its old document and appends a new one, so lists stay sorted without moving
+ * entries; retired documents are dropped in one pass once they outnumber the live
+ * ones. Searches run in parallel; updates take an exclusive lock.
+ */
+public final class ProductSearchIndex {
+    
+    static final int NAME_WEIGHT = 3;
+    private static final int MIN_COMPACTION = 1024;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Integer, Integer> documentsById = new HashMap<>();
+    
+    // Document number to product; null once the document is retired
+    private Product[] documents = new Product[16];
+    private int documentCount;
+    private int retired;
+    
+    /**
+     * Indexes a product, replacing the indexed version with the same ID.
+     * 
+     * @param product the product to index
+     * @throws IllegalArgumentException if product is null
+     */
+    public void put(Product product) {
+        putAll(List.of(product));
+    }
+    
+    /**
+     * Indexes many products under a single lock.
+     * 
+     * @param products the products to index
+     * @throws IllegalArgumentException if a product is null
+     */
+    public void putAll(Collection<Product> products) {
+        for (Product product : products) {
+            if (product == null) {
+                throw new IllegalArgumentException("Product cannot be null");
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                retire(product.getId());
+                index(product);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes a product from the index.
+     * 
+     * @param productId the product ID
+     * @return true if the product was indexed
+     */
+    public boolean remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = retire(productId);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Finds the products that contain every word of the query, best match first.
+     * 
+     * @param query search words
+     * @param limit maximum number of results
+     * @return matching products, at most limit; empty if the query has no words
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Product> search(String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        Set<String> words = new LinkedHashSet<>(tokenize(query));
+        if (words.isEmpty() || limit == 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[words.size()];
+            int n = 0;
+            for (String word : words) {
+                Postings postings = terms.get(word);
+                if (postings == null) {
+                    return Collections.emptyList();
+                }
+                lists[n++] = postings;
+            }
+            // Walk the rarest word's list and look the document up in the others
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int live = documentCount - retired;
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1.0 + (double) live / lists[i].size);
+            }
+            int[] cursors = new int[lists.length];
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, 64) + 1);
+            Postings driver = lists[0];
+            for (int p = 0; p < driver.size; p++) {
+                int document = driver.documents[p];
+                if (documents[document] == null) {
+                    continue;
+                }
+                double score = idf[0] * driver.weights[p];
+                boolean all = true;
+                for (int i = 1; i < lists.length && all; i++) {
+                    int at = lists[i].seek(document, cursors[i]);
+                    cursors[i] = at;
+                    if (at < lists[i].size && lists[i].documents[at] == document) {
+                        score += idf[i] * lists[i].weights[at];
+                    } else {
+                        all = false;
+                    }
+                }
+                if (all) {
+                    best.add(new Hit(document, score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            Product[] ranked = new Product[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = documents[best.poll().document];
+            }
+            return List.of(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of indexed products.
+     * 
+     * @return product count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount - retired;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of distinct indexed words.
+     * 
+     * @return word count
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Folds text the way the index does: lower case, diacritics removed, and
+     * everything except letters and digits replaced by single spaces.
+     * 
+     * @param text text to fold, may be null
+     * @return folded words separated by single spaces
+     */
+    public static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+    
+    /**
+     * Splits text into folded words.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                appendFolded(word, Character.toLowerCase(codePoint));
+            } else if (Character.getType(codePoint) != Character.NON_SPACING_MARK && word.length() > 0) {
+                // Combining accents (decomposed "õ") are dropped without breaking the word
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+    
+    /**
+     * Appends a lower-case letter or digit with its diacritic removed.
+     */
+    private static void appendFolded(StringBuilder word, int c) {
+        if (c < 0x80) {
+            word.append((char) c);
+            return;
+        }
+        switch (c) {
+            case 'õ': case 'ö': case 'ó': case 'ò': case 'ô': case 'ø':
+                word.append('o');
+                break;
+            case 'ä': case 'á': case 'à': case 'â': case 'å': case 'ã':
+                word.append('a');
+                break;
+            case 'ü': case 'ú': case 'ù': case 'û':
+                word.append('u');
+                break;
+            case 'é': case 'è': case 'ê': case 'ë':
+                word.append('e');
+                break;
+            case 'í': case 'ì': case 'î': case 'ï':
+                word.append('i');
+                break;
+            case 'š':
+                word.append('s');
+                break;
+            case 'ž':
+                word.append('z');
+                break;
+            case 'ç':
+                word.append('c');
+                break;
+            case 'ñ':
+                word.append('n');
+                break;
+            case 'ß':
+                word.append("ss");
+                break;
+            default:
+                word.appendCodePoint(c);
+        }
+    }
+    
+    private void index(Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String word : tokenize(product.getName())) {
+            weights.merge(word, NAME_WEIGHT, Integer::sum);
+        }
+        for (String word : tokenize(product.getDescription())) {
+            weights.merge(word, 1, Integer::sum);
+        }
+        if (documentCount == documents.length) {
+            documents = Arrays.copyOf(documents, documentCount * 2);
+        }
+        int document = documentCount++;
+        documents[document] = product;
+        documentsById.put(product.getId(), document);
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), word -> new Postings()).add(document, entry.getValue());
+        }
+    }
+    
+    private boolean retire(int productId) {
+        Integer document = documentsById.remove(productId);
+        if (document == null) {
+            return false;
+        }
+        documents[document] = null;
+        retired++;
+        return true;
+    }
+    
+    /**
+     * Drops retired documents from every list once they outnumber the live ones,
+     * renumbering the rest in the same order.
+     */
+    private void compactIfNeeded() {
+        if (retired < MIN_COMPACTION || retired <= documentCount - retired) {
+            return;
+        }
+        int[] renumbered = new int[documentCount];
+        Product[] live = new Product[Math.max(16, documentCount - retired)];
+        int count = 0;
+        for (int document = 0; document < documentCount; document++) {
+            Product product = documents[document];
+            renumbered[document] = product == null ? -1 : count;
+            if (product != null) {
+                live[count] = product;
+                documentsById.put(product.getId(), count);
+                count++;
+            }
+        }
+        terms.values().removeIf(postings -> postings.renumber(renumbered) == 0);
+        documents = live;
+        documentCount = count;
+        retired = 0;
+    }
+    
+    /**
+     * Documents containing one word, in increasing document order, each with the
+     * word's weight in that document.
+     */
+    private static final class Postings {
+        int[] documents = new int[2];
+        int[] weights = new int[2];
+        int size;
+        
+        void add(int document, int weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+        
+        /**
+         * Finds the first position at or after from whose document is at least the given one.
+         */
+        int seek(int document, int from) {
+            // Gallop forward, then binary search the last step
+            int step = 1;
+            int high = from;
+            while (high < size && documents[high] < document) {
+                from = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(documents, from, Math.min(high, size), document);
+            return index >= 0 ? index : -index - 1;
+        }
+        
+        int renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document >= 0) {
+                    documents[kept] = document;
+                    weights[kept] = weights[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+    
+    /**
+     * Scored match; orders worst first so the heap drops the weakest hit.
+     */
+    private static final class Hit implements Comparable<Hit> {
+        final int document;
+        final double score;
+        
+        Hit(int document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+        
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Double.compare(score, other.score);
+            // Equal scores: earlier products rank higher
+            return byScore != 0 ? byScore : Integer.compare(other.document, document);
+        }
+    }
+}
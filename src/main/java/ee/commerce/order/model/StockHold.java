@@ -0,0 +1,128 @@
+package ee.commerce.order.model;
+
+import ee.commerce.order.inventory.TimingWheel;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Time-limited hold on stock, created by {@link InventoryManager#hold(int, int, java.time.Duration)}.
+ * 
+ * The held units are taken out of the available stock when the hold is created.
+ * The hold then ends in exactly one of three ways: {@link #confirm()} keeps the
+ * units reserved (e.g. after payment), {@link #release()} returns them, and if
+ * neither happens before the deadline the hold expires and the units are returned
+ * automatically.
+ */
+public final class StockHold {
+    
+    /**
+     * Lifecycle state of a hold.
+     */
+    public enum State {
+        ACTIVE,
+        CONFIRMED,
+        RELEASED,
+        EXPIRED
+    }
+    
+    private final long holdId;
+    private final Map<Integer, Integer> quantities;
+    private final Instant expiresAt;
+    private final InventoryManager inventory;
+    private final AtomicReference<State> state = new AtomicReference<>(State.ACTIVE);
+    private volatile TimingWheel.Timeout<StockHold> timeout;
+    
+    StockHold(long holdId, Map<Integer, Integer> quantities, Instant expiresAt, InventoryManager inventory) {
+        this.holdId = holdId;
+        this.quantities = Collections.unmodifiableMap(new TreeMap<>(quantities));
+        this.expiresAt = expiresAt;
+        this.inventory = inventory;
+    }
+    
+    void setTimeout(TimingWheel.Timeout<StockHold> timeout) {
+        this.timeout = timeout;
+    }
+    
+    /**
+     * Confirms the hold: the units stay reserved for good.
+     * 
+     * @return true if the hold was active, false if it already ended
+     */
+    public boolean confirm() {
+        if (!state.compareAndSet(State.ACTIVE, State.CONFIRMED)) {
+            return false;
+        }
+        cancelTimeout();
+        inventory.onHoldEnded(this);
+        return true;
+    }
+    
+    /**
+     * Releases the hold and returns the units to the stock.
+     * 
+     * @return true if the hold was active, false if it already ended
+     */
+    public boolean release() {
+        if (!state.compareAndSet(State.ACTIVE, State.RELEASED)) {
+            return false;
+        }
+        cancelTimeout();
+        inventory.returnHeldStock(this);
+        return true;
+    }
+    
+    /**
+     * Expires the hold. Called by the inventory's expirer when the deadline passes.
+     * 
+     * @return true if the hold was still active
+     */
+    boolean expire() {
+        if (!state.compareAndSet(State.ACTIVE, State.EXPIRED)) {
+            return false;
+        }
+        inventory.returnHeldStock(this);
+        return true;
+    }
+    
+    private void cancelTimeout() {
+        TimingWheel.Timeout<StockHold> current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+    
+    public long getHoldId() {
+        return holdId;
+    }
+    
+    /**
+     * Gets the held quantities.
+     * 
+     * @return product ID to quantity map, sorted by product ID
+     */
+    public Map<Integer, Integer> getQuantities() {
+        return quantities;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public State getState() {
+        return state.get();
+    }
+    
+    public boolean isActive() {
+        return state.get() == State.ACTIVE;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StockHold{id=%d, quantities=%s, state=%s, expiresAt=%s}",
+                           holdId, quantities, state.get(), expiresAt);
+    }
+}
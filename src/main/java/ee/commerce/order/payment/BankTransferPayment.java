@@ -1,5 +1,6 @@
 package ee.commerce.order.payment;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.exception.PaymentFailedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ public class BankTransferPayment implements PaymentStrategy {
     
     private static final Logger logger = LoggerFactory.getLogger(BankTransferPayment.class);
     private static final BigDecimal MAX_TRANSACTION_AMOUNT = new BigDecimal("50000.00");
+    private static final long MAX_TRANSACTION_CENTS = Money.toCents(MAX_TRANSACTION_AMOUNT);
     private static final int SUCCESS_RATE = 98; // 98% success rate
     
     private final Random random = new Random();
@@ -81,6 +83,11 @@ public class BankTransferPayment implements PaymentStrategy {
                amount.compareTo(MAX_TRANSACTION_AMOUNT) <= 0;
     }
     
+    @Override
+    public boolean canProcess(long amountCents) {
+        return amountCents > 0 && amountCents <= MAX_TRANSACTION_CENTS;
+    }
+    
     /**
      * Gets the maximum transaction amount for bank transfers.
      * 
@@ -89,4 +96,13 @@ public class BankTransferPayment implements PaymentStrategy {
     public static BigDecimal getMaxTransactionAmount() {
         return MAX_TRANSACTION_AMOUNT;
     }
+    
+    /**
+     * Gets the maximum transaction amount for bank transfers in cents.
+     * 
+     * @return maximum amount in cents
+     */
+    public static long getMaxTransactionCents() {
+        return MAX_TRANSACTION_CENTS;
+    }
 }
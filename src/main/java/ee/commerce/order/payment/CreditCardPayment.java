@@ -1,5 +1,6 @@
 package ee.commerce.order.payment;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.exception.PaymentFailedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ public class CreditCardPayment implements PaymentStrategy {
     
     private static final Logger logger = LoggerFactory.getLogger(CreditCardPayment.class);
     private static final BigDecimal MAX_TRANSACTION_AMOUNT = new BigDecimal("10000.00");
+    private static final long MAX_TRANSACTION_CENTS = Money.toCents(MAX_TRANSACTION_AMOUNT);
     private static final int SUCCESS_RATE = 90; // 90% success rate for simulation
     
     private final Random random = new Random();
@@ -70,6 +72,11 @@ public class CreditCardPayment implements PaymentStrategy {
                amount.compareTo(MAX_TRANSACTION_AMOUNT) <= 0;
     }
     
+    @Override
+    public boolean canProcess(long amountCents) {
+        return amountCents > 0 && amountCents <= MAX_TRANSACTION_CENTS;
+    }
+    
     /**
      * Gets the maximum transaction amount for credit cards.
      * 
@@ -78,4 +85,13 @@ public class CreditCardPayment implements PaymentStrategy {
     public static BigDecimal getMaxTransactionAmount() {
         return MAX_TRANSACTION_AMOUNT;
     }
+    
+    /**
+     * Gets the maximum transaction amount for credit cards in cents.
+     * 
+     * @return maximum amount in cents
+     */
+    public static long getMaxTransactionCents() {
+        return MAX_TRANSACTION_CENTS;
+    }
 }
@@ -1,5 +1,6 @@
 package ee.commerce.order.payment;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.exception.PaymentFailedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ public class PayPalPayment implements PaymentStrategy {
     
     private static final Logger logger = LoggerFactory.getLogger(PayPalPayment.class);
     private static final BigDecimal MAX_TRANSACTION_AMOUNT = new BigDecimal("15000.00");
+    private static final long MAX_TRANSACTION_CENTS = Money.toCents(MAX_TRANSACTION_AMOUNT);
     private static final BigDecimal TRANSACTION_FEE_RATE = new BigDecimal("0.029"); // 2.9%
     private static final int SUCCESS_RATE = 95; // 95% success rate
     
@@ -85,6 +87,11 @@ public class PayPalPayment implements PaymentStrategy {
                amount.compareTo(MAX_TRANSACTION_AMOUNT) <= 0;
     }
     
+    @Override
+    public boolean canProcess(long amountCents) {
+        return amountCents > 0 && amountCents <= MAX_TRANSACTION_CENTS;
+    }
+    
     /**
      * Gets the maximum transaction amount for PayPal.
      * 
@@ -94,6 +101,15 @@ public class PayPalPayment implements PaymentStrategy {
         return MAX_TRANSACTION_AMOUNT;
     }
     
+    /**
+     * Gets the maximum transaction amount for PayPal in cents.
+     * 
+     * @return maximum amount in cents
+     */
+    public static long getMaxTransactionCents() {
+        return MAX_TRANSACTION_CENTS;
+    }
+    
     /**
      * Gets the transaction fee rate.
      * 
@@ -1,6 +1,8 @@
 package ee.commerce.order.payment;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.exception.PaymentFailedException;
+import ee.commerce.order.model.CompleteOrder;
 import ee.commerce.order.model.OrderStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,6 +83,62 @@ public class PaymentProcessor {
                                    paymentStrategy.getPaymentMethodName());
         }
         
+        return execute(amount, orderReference);
+    }
+    
+    /**
+     * Processes a payment given in cents using the current strategy.
+     * Validation runs on plain longs; the amount is converted to BigDecimal only
+     * when it is handed over to the payment method.
+     * 
+     * @param amountCents the amount to charge, in cents
+     * @param orderReference the order reference/ID
+     * @return PaymentResult containing transaction details
+     */
+    public PaymentResult processPayment(long amountCents, String orderReference) {
+        logger.info("Starting payment process for order {} using {}", 
+                   orderReference, paymentStrategy.getPaymentMethodName());
+        
+        if (amountCents <= 0) {
+            logger.error("Invalid payment amount: {}", Money.format(amountCents));
+            return new PaymentResult(false, null, OrderStatus.FAILED, 
+                                   "Invalid amount", paymentStrategy.getPaymentMethodName());
+        }
+        
+        if (!paymentStrategy.canProcess(amountCents)) {
+            logger.warn("Payment method {} cannot process amount {}", 
+                       paymentStrategy.getPaymentMethodName(), Money.format(amountCents));
+            return new PaymentResult(false, null, OrderStatus.FAILED,
+                                   "Amount exceeds payment method limit",
+                                   paymentStrategy.getPaymentMethodName());
+        }
+        
+        return execute(Money.toBigDecimal(amountCents), orderReference);
+    }
+    
+    /**
+     * Processes the payment for a complete order, charging its whole total once.
+     * For a cart order this is one payment for all lines.
+     * 
+     * @param order the order to pay
+     * @return PaymentResult containing transaction details
+     * @throws IllegalArgumentException if order is null
+     */
+    public PaymentResult processPayment(CompleteOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        return processPayment(order.getTotalCents(), order.getOrderId());
+    }
+    
+    /**
+     * Delegates an already validated payment to the current strategy.
+     * 
+     * @param amount the amount to charge
+     * @param orderReference the order reference/ID
+     * @return PaymentResult containing transaction details
+     */
+    private PaymentResult execute(BigDecimal amount, String orderReference) {
         try {
             // Delegate to strategy
             String transactionId = paymentStrategy.processPayment(amount, orderReference);
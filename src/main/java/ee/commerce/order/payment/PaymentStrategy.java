@@ -1,5 +1,6 @@
 package ee.commerce.order.payment;
 
+import ee.commerce.order.Money;
 import ee.commerce.order.exception.PaymentFailedException;
 
 import java.math.BigDecimal;
@@ -39,4 +40,16 @@ public interface PaymentStrategy {
      * @return true if the amount can be processed
      */
     boolean canProcess(BigDecimal amount);
+    
+    /**
+     * Validates if this payment method can process the given amount in cents.
+     * Strategies override this with a long comparison; the default converts
+     * and delegates to {@link #canProcess(BigDecimal)}.
+     * 
+     * @param amountCents the amount to validate, in cents
+     * @return true if the amount can be processed
+     */
+    default boolean canProcess(long amountCents) {
+        return canProcess(Money.toBigDecimal(amountCents));
+    }
 }
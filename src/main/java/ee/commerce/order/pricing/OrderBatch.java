@@ -0,0 +1,245 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Columnar (struct-of-arrays) representation of many single-product orders.
+ * 
+ * Instead of one {@code BasicOrder} plus a decorator chain per order, a batch keeps
+ * three parallel primitive arrays: product ID, service mask and base price in cents.
+ * Repricing a backlog is then a tight loop over those arrays with no per-order objects.
+ * Totals are identical to what the equivalent decorator chain returns from
+ * {@link ee.commerce.order.Order#calculateTotalCents()}.
+ * 
+ * Not thread-safe for concurrent modification; pricing only reads the arrays and
+ * can run in parallel once the batch is filled.
+ */
+public class OrderBatch {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderBatch.class);
+    private static final int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * Number of orders below which a fork/join task prices its range directly.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    
+    private int[] productIds;
+    private byte[] serviceMasks;
+    private long[] basePriceCents;
+    private int size;
+    
+    /**
+     * Creates an empty batch with default capacity.
+     */
+    public OrderBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Creates an empty batch.
+     * 
+     * @param initialCapacity number of orders to reserve space for
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public OrderBatch(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative");
+        }
+        this.productIds = new int[initialCapacity];
+        this.serviceMasks = new byte[initialCapacity];
+        this.basePriceCents = new long[initialCapacity];
+    }
+    
+    /**
+     * Adds an order to the batch.
+     * 
+     * @param productId product ID
+     * @param serviceMask services of the order, see {@link ServiceMask}
+     * @param basePriceCents base price in cents
+     * @return index of the added order
+     * @throws IllegalArgumentException if the mask is invalid or the price is negative
+     */
+    public int add(int productId, int serviceMask, long basePriceCents) {
+        if (!ServiceMask.isValid(serviceMask)) {
+            throw new IllegalArgumentException("Invalid service mask: " + serviceMask);
+        }
+        if (basePriceCents < 0) {
+            throw new IllegalArgumentException("Base price cannot be negative");
+        }
+        if (size == productIds.length) {
+            grow();
+        }
+        productIds[size] = productId;
+        serviceMasks[size] = (byte) serviceMask;
+        this.basePriceCents[size] = basePriceCents;
+        return size++;
+    }
+    
+    /**
+     * Adds an order for a catalog product at its current price.
+     * 
+     * @param product ordered product
+     * @param serviceMask services of the order
+     * @return index of the added order
+     */
+    public int add(Product product, int serviceMask) {
+        return add(product.getId(), serviceMask, product.getPriceCents());
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getProductId(int index) {
+        checkIndex(index);
+        return productIds[index];
+    }
+    
+    public int getServiceMask(int index) {
+        checkIndex(index);
+        return serviceMasks[index];
+    }
+    
+    public long getBasePriceCents(int index) {
+        checkIndex(index);
+        return basePriceCents[index];
+    }
+    
+    /**
+     * Changes the base price of an order, e.g. after a product price change.
+     * 
+     * @param index order index
+     * @param priceCents new base price in cents
+     * @throws IllegalArgumentException if the price is negative
+     */
+    public void setBasePriceCents(int index, long priceCents) {
+        checkIndex(index);
+        if (priceCents < 0) {
+            throw new IllegalArgumentException("Base price cannot be negative");
+        }
+        basePriceCents[index] = priceCents;
+    }
+    
+    /**
+     * Prices all orders with the current decorator service prices.
+     * 
+     * @return total in cents per order, indexed like the batch
+     */
+    public long[] priceAll() {
+        return priceAll(ServiceMask.costTable());
+    }
+    
+    /**
+     * Prices all orders with the given service prices.
+     * 
+     * @param costByMask service cost in cents for each of the {@link ServiceMask#COMBINATIONS} masks
+     * @return total in cents per order, indexed like the batch
+     * @throws IllegalArgumentException if the cost table has the wrong length
+     */
+    public long[] priceAll(long[] costByMask) {
+        long[] table = checkCostTable(costByMask);
+        long[] totals = new long[size];
+        priceRange(table, totals, 0, size);
+        return totals;
+    }
+    
+    /**
+     * Prices all orders with the current service prices, splitting the work across
+     * the common fork/join pool.
+     * 
+     * @return total in cents per order, indexed like the batch
+     */
+    public long[] priceAllParallel() {
+        return priceAllParallel(ServiceMask.costTable(), ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Prices all orders, splitting the work across the given pool.
+     * Results are identical to {@link #priceAll(long[])}.
+     * 
+     * @param costByMask service cost in cents for each mask
+     * @param pool pool to run the pricing tasks in
+     * @return total in cents per order, indexed like the batch
+     * @throws IllegalArgumentException if the cost table has the wrong length
+     */
+    public long[] priceAllParallel(long[] costByMask, ForkJoinPool pool) {
+        long[] table = checkCostTable(costByMask);
+        long[] totals = new long[size];
+        if (size <= PARALLEL_THRESHOLD) {
+            priceRange(table, totals, 0, size);
+        } else {
+            pool.invoke(new PriceTask(table, totals, 0, size));
+        }
+        logger.debug("Priced batch of {} orders in parallel", size);
+        return totals;
+    }
+    
+    /**
+     * Inner pricing loop. Kept free of branches and calls so the JIT can unroll
+     * and vectorize it.
+     */
+    private void priceRange(long[] table, long[] totals, int from, int to) {
+        byte[] masks = serviceMasks;
+        long[] prices = basePriceCents;
+        for (int i = from; i < to; i++) {
+            totals[i] = prices[i] + table[masks[i] & ServiceMask.ALL];
+        }
+    }
+    
+    private static long[] checkCostTable(long[] costByMask) {
+        if (costByMask == null || costByMask.length != ServiceMask.COMBINATIONS) {
+            throw new IllegalArgumentException("Cost table must have "
+                + ServiceMask.COMBINATIONS + " entries");
+        }
+        return costByMask.clone();
+    }
+    
+    private void grow() {
+        int newCapacity = Math.max(DEFAULT_CAPACITY, productIds.length + (productIds.length >> 1));
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        serviceMasks = Arrays.copyOf(serviceMasks, newCapacity);
+        basePriceCents = Arrays.copyOf(basePriceCents, newCapacity);
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+    
+    /**
+     * Fork/join task that splits a range in halves until it is small enough to price directly.
+     */
+    private final class PriceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final long[] table;
+        private final long[] totals;
+        private final int from;
+        private final int to;
+        
+        PriceTask(long[] table, long[] totals, int from, int to) {
+            this.table = table;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                priceRange(table, totals, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PriceTask(table, totals, from, mid), new PriceTask(table, totals, mid, to));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.OrderDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flattened, precomputed view of a decorated order.
+ * 
+ * A decorator chain is walked exactly once when the plan is compiled. The base
+ * order and every decorator become one line item in a flat array, and the total
+ * and description are computed up front. Afterwards {@link #calculateTotal()} and
+ * {@link #getDescription()} are O(1) field reads that neither allocate nor log.
+ * 
+ * Decorated orders are immutable, so a plan stays valid for the lifetime of the
+ * order it was compiled from. The plan itself implements {@link Order} and can be
+ * used anywhere the original chain is used.
+ */
+public final class OrderPricingPlan implements Order {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderPricingPlan.class);
+    private static final String SERVICE_SEPARATOR = " + ";
+    
+    private final Order source;
+    private final LineItem[] lineItems;
+    private final BigDecimal total;
+    private final long totalCents;
+    private final String description;
+    
+    private OrderPricingPlan(Order source, LineItem[] lineItems, BigDecimal total,
+                             long totalCents, String description) {
+        this.source = source;
+        this.lineItems = lineItems;
+        this.total = total;
+        this.totalCents = totalCents;
+        this.description = description;
+    }
+    
+    /**
+     * Compiles a pricing plan for the given order.
+     * The result matches what the decorator chain itself would return.
+     * 
+     * @param order the (possibly decorated) order to flatten
+     * @return compiled pricing plan
+     * @throws IllegalArgumentException if order is null
+     */
+    public static OrderPricingPlan compile(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (order instanceof OrderPricingPlan) {
+            return (OrderPricingPlan) order;
+        }
+        
+        // Collect decorators from the outermost layer down to the base order
+        List<OrderDecorator> layers = new ArrayList<>();
+        Order current = order;
+        while (current instanceof OrderDecorator) {
+            OrderDecorator decorator = (OrderDecorator) current;
+            layers.add(decorator);
+            current = decorator.getWrappedOrder();
+        }
+        
+        LineItem[] items = new LineItem[layers.size() + 1];
+        BigDecimal total = current.calculateTotal();
+        long totalCents = current.calculateTotalCents();
+        String baseDescription = current.getDescription();
+        StringBuilder description = new StringBuilder(baseDescription);
+        items[0] = new LineItem(baseDescription, total, totalCents);
+        
+        // Apply decorators innermost first, in the same order the chain adds them
+        for (int i = layers.size() - 1, slot = 1; i >= 0; i--, slot++) {
+            OrderDecorator decorator = layers.get(i);
+            BigDecimal cost = decorator.getLineItemCost();
+            long costCents = decorator.getLineItemCostCents();
+            String serviceDescription = decorator.getLineItemDescription();
+            
+            total = total.add(cost);
+            totalCents += costCents;
+            if (serviceDescription != null) {
+                description.append(SERVICE_SEPARATOR).append(serviceDescription);
+            }
+            items[slot] = new LineItem(serviceDescription, cost, costCents);
+        }
+        
+        logger.debug("Compiled pricing plan with {} line items, total {}", items.length, total);
+        return new OrderPricingPlan(order, items, total, totalCents, description.toString());
+    }
+    
+    @Override
+    public BigDecimal calculateTotal() {
+        return total;
+    }
+    
+    @Override
+    public long calculateTotalCents() {
+        return totalCents;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public StringBuilder appendDescription(StringBuilder target) {
+        return target.append(description);
+    }
+    
+    /**
+     * Gets the order this plan was compiled from.
+     * 
+     * @return source order
+     */
+    public Order getSource() {
+        return source;
+    }
+    
+    /**
+     * Gets the number of line items (base order plus one per decorator).
+     * 
+     * @return line item count
+     */
+    public int getLineItemCount() {
+        return lineItems.length;
+    }
+    
+    /**
+     * Gets a line item by position. Index 0 is the base order.
+     * 
+     * @param index line item index
+     * @return line item
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public LineItem getLineItem(int index) {
+        return lineItems[index];
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("OrderPricingPlan{lineItems=%d, total=%.2f€, description='%s'}",
+                           lineItems.length, total, description);
+    }
+    
+    /**
+     * Single priced entry of a compiled plan.
+     * Immutable value object.
+     */
+    public static final class LineItem {
+        private final String description;
+        private final BigDecimal amount;
+        private final long amountCents;
+        
+        public LineItem(String description, BigDecimal amount, long amountCents) {
+            this.description = description;
+            this.amount = amount;
+            this.amountCents = amountCents;
+        }
+        
+        /**
+         * Gets the line item description.
+         * 
+         * @return description, or null for decorators that add none
+         */
+        public String getDescription() {
+            return description;
+        }
+        
+        public BigDecimal getAmount() {
+            return amount;
+        }
+        
+        public long getAmountCents() {
+            return amountCents;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("LineItem{description='%s', amount=%.2f€}", description, amount);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Money;
+import ee.commerce.order.Order;
+import ee.commerce.order.model.Product;
+import ee.commerce.order.model.ProductCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed price table for every (product, service combination) pair.
+ * 
+ * There are only {@link ServiceMask#COMBINATIONS} service combinations per product,
+ * so the matrix stores the total of each combination in a flat array, and a
+ * product's row is found through an open-addressing hash of product IDs, so sparse
+ * or very large IDs cost no more than dense ones. Quoting a product with services
+ * is an array lookup instead of building a decorator chain.
+ * 
+ * Descriptions and the orders returned by {@link #getOrder(int, int)} are built on
+ * first use and cached in the table, so a rebuild after a catalog change only
+ * computes totals. Orders are shared flyweights: immutable compiled pricing plans
+ * reused for every later lookup.
+ * 
+ * The matrix remembers the catalog version it was built from and rebuilds itself
+ * on the next lookup after the catalog changes.
+ */
+public class PriceMatrix {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PriceMatrix.class);
+    private static final PriceMatrix INSTANCE = new PriceMatrix();
+    private static final int NO_SLOT = -1;
+    
+    private volatile Table table;
+    
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private PriceMatrix() {
+        this.table = build();
+    }
+    
+    /**
+     * Gets the singleton instance.
+     * 
+     * @return price matrix instance
+     */
+    public static PriceMatrix getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Gets the total price of a product with the given services.
+     * 
+     * @param productId product ID
+     * @param serviceMask services, see {@link ServiceMask}
+     * @return total price in cents
+     * @throws IllegalArgumentException if the product does not exist or the mask is invalid
+     */
+    public long getTotalCents(int productId, int serviceMask) {
+        Table current = current();
+        return current.totals[current.cell(productId, serviceMask)];
+    }
+    
+    /**
+     * Gets the total price of a product with the given services.
+     * 
+     * @param productId product ID
+     * @param serviceMask services, see {@link ServiceMask}
+     * @return total price
+     * @throws IllegalArgumentException if the product does not exist or the mask is invalid
+     */
+    public BigDecimal getTotal(int productId, int serviceMask) {
+        return Money.toBigDecimal(getTotalCents(productId, serviceMask));
+    }
+    
+    /**
+     * Gets the description of a product with the given services.
+     * 
+     * @param productId product ID
+     * @param serviceMask services, see {@link ServiceMask}
+     * @return order description
+     * @throws IllegalArgumentException if the product does not exist or the mask is invalid
+     */
+    public String getDescription(int productId, int serviceMask) {
+        Table current = current();
+        int cell = current.cell(productId, serviceMask);
+        String description = current.descriptions[cell];
+        if (description == null) {
+            // Benign race like the order cache: strings are immutable
+            description = ServiceMask.describe(current.products[cell / ServiceMask.COMBINATIONS].getName(), serviceMask);
+            current.descriptions[cell] = description;
+        }
+        return description;
+    }
+    
+    /**
+     * Gets the shared order for a product with the given services.
+     * 
+     * @param productId product ID
+     * @param serviceMask services, see {@link ServiceMask}
+     * @return immutable flyweight order, or null if the product does not exist
+     * @throws IllegalArgumentException if the mask is invalid
+     */
+    public Order getOrder(int productId, int serviceMask) {
+        Table current = current();
+        if (current.slotOf(productId) == NO_SLOT) {
+            checkMask(serviceMask);
+            return null;
+        }
+        int cell = current.cell(productId, serviceMask);
+        Order order = current.orders[cell];
+        if (order == null) {
+            // Benign race: plans are immutable, so a duplicate built by another thread is harmless
+            Product product = current.products[cell / ServiceMask.COMBINATIONS];
+            order = OrderPricingPlan.compile(
+                ServiceMask.apply(new BasicOrder(product.getName(), product.getPrice()), serviceMask));
+            current.orders[cell] = order;
+        }
+        return order;
+    }
+    
+    /**
+     * Checks whether the matrix contains a product.
+     * 
+     * @param productId product ID
+     * @return true if the product is in the matrix
+     */
+    public boolean contains(int productId) {
+        return current().slotOf(productId) != NO_SLOT;
+    }
+    
+    /**
+     * Gets the catalog version the current table was built from.
+     * 
+     * @return catalog version
+     */
+    public long getCatalogVersion() {
+        return current().catalogVersion;
+    }
+    
+    private Table current() {
+        Table current = table;
+        if (current.catalogVersion != ProductCatalog.getVersion()) {
+            current = rebuild();
+        }
+        return current;
+    }
+    
+    private synchronized Table rebuild() {
+        Table current = table;
+        if (current.catalogVersion != ProductCatalog.getVersion()) {
+            current = build();
+            table = current;
+        }
+        return current;
+    }
+    
+    private static Table build() {
+        // Read the version first: a concurrent change then only causes one extra rebuild
+        long version = ProductCatalog.getVersion();
+        List<Product> catalog = ProductCatalog.getAllProducts();
+        
+        Product[] products = new Product[catalog.size()];
+        int count = 0;
+        for (Product product : catalog) {
+            if (product.getId() < 0) {
+                logger.warn("Skipping product with negative ID {}", product.getId());
+                continue;
+            }
+            products[count++] = product;
+        }
+        products = Arrays.copyOf(products, count);
+        
+        long[] totals = new long[count * ServiceMask.COMBINATIONS];
+        long[] serviceCosts = ServiceMask.costTable();
+        for (int slot = 0; slot < count; slot++) {
+            int base = slot * ServiceMask.COMBINATIONS;
+            for (int mask = 0; mask < ServiceMask.COMBINATIONS; mask++) {
+                totals[base + mask] = products[slot].getPriceCents() + serviceCosts[mask];
+            }
+        }
+        
+        logger.info("Price matrix built for {} products (catalog version {})", count, version);
+        return new Table(version, products, totals);
+    }
+    
+    private static void checkMask(int serviceMask) {
+        if (!ServiceMask.isValid(serviceMask)) {
+            throw new IllegalArgumentException("Invalid service mask: " + serviceMask);
+        }
+    }
+    
+    /**
+     * Immutable snapshot of the matrix for one catalog version.
+     * Only the lazily filled description and flyweight order caches are written
+     * after construction.
+     */
+    private static final class Table {
+        final long catalogVersion;
+        final Product[] products;
+        final long[] totals;
+        final String[] descriptions;
+        final Order[] orders;
+        
+        // Open-addressing hash of product ID to slot, at most half full; NO_SLOT marks free entries
+        final int[] hashIds;
+        final int[] hashSlots;
+        
+        Table(long catalogVersion, Product[] products, long[] totals) {
+            this.catalogVersion = catalogVersion;
+            this.products = products;
+            this.totals = totals;
+            this.descriptions = new String[totals.length];
+            this.orders = new Order[totals.length];
+            
+            int capacity = Integer.highestOneBit(Math.max(1, products.length) * 2 - 1) << 1;
+            this.hashIds = new int[capacity];
+            this.hashSlots = new int[capacity];
+            Arrays.fill(hashIds, NO_SLOT);
+            for (int slot = 0; slot < products.length; slot++) {
+                int i = hash(products[slot].getId()) & (capacity - 1);
+                while (hashIds[i] != NO_SLOT && hashIds[i] != products[slot].getId()) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                hashIds[i] = products[slot].getId();
+                hashSlots[i] = slot;
+            }
+        }
+        
+        int slotOf(int productId) {
+            if (productId < 0) {
+                return NO_SLOT;
+            }
+            int mask = hashIds.length - 1;
+            for (int i = hash(productId) & mask; hashIds[i] != NO_SLOT; i = (i + 1) & mask) {
+                if (hashIds[i] == productId) {
+                    return hashSlots[i];
+                }
+            }
+            return NO_SLOT;
+        }
+        
+        int cell(int productId, int serviceMask) {
+            checkMask(serviceMask);
+            int slot = slotOf(productId);
+            if (slot == NO_SLOT) {
+                throw new IllegalArgumentException("Product " + productId + " not found in catalog");
+            }
+            return slot * ServiceMask.COMBINATIONS + serviceMask;
+        }
+        
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
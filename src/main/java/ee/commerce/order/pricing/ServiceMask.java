@@ -0,0 +1,178 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.decorator.GreetingCardDecorator;
+import ee.commerce.order.decorator.OrderDecorator;
+
+/**
+ * Bitmask encoding of the add-on services an order carries.
+ * 
+ * Each decorator maps to one bit, so every combination of the three services
+ * fits into a number between 0 and 7. Batch and matrix pricing use the mask
+ * instead of a decorator chain.
+ */
+public final class ServiceMask {
+    
+    public static final int NONE = 0;
+    public static final int GIFT_WRAPPING = 1;
+    public static final int EXPRESS_SHIPPING = 1 << 1;
+    public static final int GREETING_CARD = 1 << 2;
+    public static final int ALL = GIFT_WRAPPING | EXPRESS_SHIPPING | GREETING_CARD;
+    
+    /**
+     * Number of distinct service combinations.
+     */
+    public static final int COMBINATIONS = ALL + 1;
+    
+    private ServiceMask() {
+    }
+    
+    /**
+     * Checks whether a value is a valid service mask.
+     * 
+     * @param mask value to check
+     * @return true if mask only uses known service bits
+     */
+    public static boolean isValid(int mask) {
+        return (mask & ~ALL) == 0;
+    }
+    
+    /**
+     * Calculates the combined cost of the services in a mask using the decorator prices.
+     * 
+     * @param mask service mask
+     * @return combined service cost in cents
+     * @throws IllegalArgumentException if mask is invalid
+     */
+    public static long costCents(int mask) {
+        requireValid(mask);
+        long cost = 0;
+        if ((mask & GIFT_WRAPPING) != 0) {
+            cost += GiftWrappingDecorator.getServiceCostCents();
+        }
+        if ((mask & EXPRESS_SHIPPING) != 0) {
+            cost += ExpressShippingDecorator.getServiceCostCents();
+        }
+        if ((mask & GREETING_CARD) != 0) {
+            cost += GreetingCardDecorator.getServiceCostCents();
+        }
+        return cost;
+    }
+    
+    /**
+     * Builds a lookup table of service cost per mask.
+     * Callers may modify the returned array, e.g. to reprice with new service prices.
+     * 
+     * @return array of {@link #COMBINATIONS} costs in cents indexed by mask
+     */
+    public static long[] costTable() {
+        long[] table = new long[COMBINATIONS];
+        for (int mask = 0; mask < COMBINATIONS; mask++) {
+            table[mask] = costCents(mask);
+        }
+        return table;
+    }
+    
+    /**
+     * Extracts the service mask from a decorator chain.
+     * 
+     * @param order the (possibly decorated) order
+     * @return service mask of the chain
+     * @throws IllegalArgumentException if order is null, uses an unknown decorator
+     *         or applies the same service twice
+     */
+    public static int of(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        int mask = NONE;
+        Order current = order;
+        while (current instanceof OrderDecorator) {
+            int bit = bitOf((OrderDecorator) current);
+            if ((mask & bit) != 0) {
+                throw new IllegalArgumentException("Service applied more than once: "
+                    + current.getClass().getSimpleName());
+            }
+            mask |= bit;
+            current = ((OrderDecorator) current).getWrappedOrder();
+        }
+        return mask;
+    }
+    
+    /**
+     * Wraps an order with the decorators in a mask.
+     * Services are applied in a fixed order: gift wrapping, express shipping, greeting card.
+     * 
+     * @param order the order to decorate
+     * @param mask service mask
+     * @return decorated order
+     * @throws IllegalArgumentException if mask is invalid
+     */
+    public static Order apply(Order order, int mask) {
+        requireValid(mask);
+        Order result = order;
+        if ((mask & GIFT_WRAPPING) != 0) {
+            result = new GiftWrappingDecorator(result);
+        }
+        if ((mask & EXPRESS_SHIPPING) != 0) {
+            result = new ExpressShippingDecorator(result);
+        }
+        if ((mask & GREETING_CARD) != 0) {
+            result = new GreetingCardDecorator(result);
+        }
+        return result;
+    }
+    
+    /**
+     * Builds the description that {@link #apply(Order, int)} would produce,
+     * without creating any decorators.
+     * 
+     * @param baseDescription description of the undecorated order
+     * @param mask service mask
+     * @return description including the services in the mask
+     * @throws IllegalArgumentException if mask is invalid
+     */
+    public static String describe(String baseDescription, int mask) {
+        requireValid(mask);
+        StringBuilder description = new StringBuilder(baseDescription);
+        if ((mask & GIFT_WRAPPING) != 0) {
+            description.append(" + ").append(GiftWrappingDecorator.getServiceDescription());
+        }
+        if ((mask & EXPRESS_SHIPPING) != 0) {
+            description.append(" + ").append(ExpressShippingDecorator.getServiceDescription());
+        }
+        if ((mask & GREETING_CARD) != 0) {
+            description.append(" + ").append(GreetingCardDecorator.getServiceDescription());
+        }
+        return description.toString();
+    }
+    
+    /**
+     * Gets the service bit of a single decorator layer.
+     * 
+     * @param decorator decorator layer
+     * @return service bit of the decorator
+     * @throws IllegalArgumentException if the decorator is not a known service
+     */
+    public static int bitOf(OrderDecorator decorator) {
+        if (decorator instanceof GiftWrappingDecorator) {
+            return GIFT_WRAPPING;
+        }
+        if (decorator instanceof ExpressShippingDecorator) {
+            return EXPRESS_SHIPPING;
+        }
+        if (decorator instanceof GreetingCardDecorator) {
+            return GREETING_CARD;
+        }
+        throw new IllegalArgumentException("Unknown service decorator: "
+            + decorator.getClass().getSimpleName());
+    }
+    
+    private static void requireValid(int mask) {
+        if (!isValid(mask)) {
+            throw new IllegalArgumentException("Invalid service mask: " + mask);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.Money;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.OrderDecorator;
+
+import java.math.BigDecimal;
+
+/**
+ * Decorator that applies promotion and tax rules to the wrapped order.
+ * 
+ * The rules are evaluated once when the decorator is created, so the order keeps
+ * its price even if the active rules change later. When no rule applies the
+ * decorator adds nothing to the total or the description. An order that is
+ * already promoted has its outer promotions replaced, not stacked.
+ */
+public class PromotionDecorator extends OrderDecorator {
+    
+    private final PromotionResult result;
+    private final BigDecimal adjustment;
+    
+    /**
+     * Creates a promotion decorator using the active rules of the promotion engine.
+     * 
+     * @param order the order to apply promotions to; its outer promotions are replaced
+     * @param productId the base product ID of the order
+     * @throws IllegalArgumentException if order is null
+     */
+    public PromotionDecorator(Order order, int productId) {
+        this(PromotionEngine.withoutPromotions(order), PromotionEngine.getInstance().evaluate(order, productId));
+    }
+    
+    PromotionDecorator(Order order, PromotionResult result) {
+        super(order);
+        this.result = result;
+        this.adjustment = Money.toBigDecimal(result.getAdjustmentCents());
+    }
+    
+    @Override
+    public BigDecimal calculateTotal() {
+        BigDecimal baseTotal = wrappedOrder.calculateTotal();
+        return result.getAdjustmentCents() == 0 ? baseTotal : baseTotal.add(adjustment);
+    }
+    
+    @Override
+    public long calculateTotalCents() {
+        return wrappedOrder.calculateTotalCents() + result.getAdjustmentCents();
+    }
+    
+    @Override
+    public BigDecimal getLineItemCost() {
+        return result.getAdjustmentCents() == 0 ? BigDecimal.ZERO : adjustment;
+    }
+    
+    @Override
+    public long getLineItemCostCents() {
+        return result.getAdjustmentCents();
+    }
+    
+    @Override
+    public String getLineItemDescription() {
+        return result.getDescription();
+    }
+    
+    /**
+     * Gets the evaluated promotions.
+     * 
+     * @return promotion result
+     */
+    public PromotionResult getPromotionResult() {
+        return result;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+        PromotionDecorator that = (PromotionDecorator) o;
+        return result.getAdjustmentCents() == that.result.getAdjustmentCents()
+            && result.getAppliedRules().equals(that.result.getAppliedRules());
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Long.hashCode(result.getAdjustmentCents());
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PromotionDecorator{wrapping=%s, adjustment=%.2f€}", wrappedOrder, adjustment);
+    }
+}
@@ -0,0 +1,155 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.OrderDecorator;
+import ee.commerce.order.pricing.ServiceMask;
+import ee.commerce.order.service.ServiceCatalog;
+import ee.commerce.order.service.ServiceOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Holds the active promotion rule set and applies it to orders.
+ * 
+ * Publishing rules compiles them into a new {@link RuleSet} with the next version
+ * number and swaps it in atomically; orders evaluated afterwards use the new rules
+ * and a fresh result cache. With no rules published every order is left unchanged.
+ */
+public class PromotionEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PromotionEngine.class);
+    private static final PromotionEngine INSTANCE = new PromotionEngine();
+    
+    private volatile RuleSet ruleSet = RuleSet.compile(0L, Collections.emptyList());
+    
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private PromotionEngine() {
+    }
+    
+    /**
+     * Gets the singleton instance.
+     * 
+     * @return promotion engine instance
+     */
+    public static PromotionEngine getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Replaces the active rules.
+     * 
+     * @param rules the new rules
+     * @return the compiled rule set now in use
+     * @throws IllegalArgumentException if the rules are invalid
+     */
+    public synchronized RuleSet publish(Collection<PromotionRule> rules) {
+        RuleSet next = RuleSet.compile(ruleSet.getVersion() + 1, rules);
+        ruleSet = next;
+        logger.info("Published promotion rule set version {} with {} rules", next.getVersion(), next.size());
+        return next;
+    }
+    
+    /**
+     * Removes all active rules.
+     */
+    public void clear() {
+        publish(Collections.emptyList());
+    }
+    
+    /**
+     * Gets the active rule set.
+     * 
+     * @return current rule set
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+    
+    /**
+     * Evaluates the active rules for an order.
+     * The order chain is walked once to collect its services and list total;
+     * promotions already applied to the order are not part of the list total.
+     * 
+     * @param order the (possibly decorated) order
+     * @param productId the base product ID of the order
+     * @return evaluation result
+     * @throws IllegalArgumentException if order is null or uses an unknown decorator
+     */
+    public PromotionResult evaluate(Order order, int productId) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        
+        int serviceMask = ServiceMask.NONE;
+        long listCents = 0;
+        Order current = order;
+        while (current instanceof OrderDecorator) {
+            OrderDecorator layer = (OrderDecorator) current;
+            if (!(layer instanceof PromotionDecorator)) {
+                listCents += layer.getLineItemCostCents();
+                serviceMask |= ServiceMask.bitOf(layer);
+            }
+            current = layer.getWrappedOrder();
+        }
+        if (current instanceof ServiceOrder) {
+            serviceMask |= builtInServices((ServiceOrder) current);
+        }
+        listCents += current.calculateTotalCents();
+        
+        return ruleSet.evaluate(productId, serviceMask, listCents);
+    }
+    
+    /**
+     * Applies the active rules to an order.
+     * Promotions on the outside of the order are replaced rather than stacked,
+     * so applying the rules to an already promoted order prices it again.
+     * 
+     * @param order the (possibly decorated) order
+     * @param productId the base product ID of the order
+     * @return the order without its outer promotions wrapped in a
+     *         {@link PromotionDecorator}, or that order itself if no rule applies
+     * @throws IllegalArgumentException if order is null or uses an unknown decorator
+     */
+    public Order apply(Order order, int productId) {
+        PromotionResult result = evaluate(order, productId);
+        Order unpromoted = withoutPromotions(order);
+        if (result.isEmpty()) {
+            return unpromoted;
+        }
+        logger.debug("Applied promotions '{}' to product {}", result.getDescription(), productId);
+        return new PromotionDecorator(unpromoted, result);
+    }
+    
+    /**
+     * Removes the promotion layers on the outside of an order.
+     */
+    static Order withoutPromotions(Order order) {
+        Order current = order;
+        while (current instanceof PromotionDecorator) {
+            current = ((PromotionDecorator) current).getWrappedOrder();
+        }
+        return current;
+    }
+    
+    /**
+     * Maps the built-in services of a registry-based order to service mask bits.
+     */
+    private static int builtInServices(ServiceOrder order) {
+        int mask = ServiceMask.NONE;
+        if (order.hasService(ServiceCatalog.GIFT_WRAPPING)) {
+            mask |= ServiceMask.GIFT_WRAPPING;
+        }
+        if (order.hasService(ServiceCatalog.EXPRESS_SHIPPING)) {
+            mask |= ServiceMask.EXPRESS_SHIPPING;
+        }
+        if (order.hasService(ServiceCatalog.GREETING_CARD)) {
+            mask |= ServiceMask.GREETING_CARD;
+        }
+        return mask;
+    }
+}
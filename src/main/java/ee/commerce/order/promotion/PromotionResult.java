@@ -0,0 +1,89 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.Money;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of evaluating a rule set for one order.
+ * Immutable value object; shared between orders through the rule set cache.
+ */
+public final class PromotionResult {
+    
+    private final long listCents;
+    private final long adjustmentCents;
+    private final List<PromotionRule> appliedRules;
+    private final String description;
+    
+    PromotionResult(long listCents, long adjustmentCents, List<PromotionRule> appliedRules) {
+        this.listCents = listCents;
+        this.adjustmentCents = adjustmentCents;
+        this.appliedRules = Collections.unmodifiableList(appliedRules);
+        this.description = describe(appliedRules);
+    }
+    
+    private static String describe(List<PromotionRule> rules) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (PromotionRule rule : rules) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(rule.getName());
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Gets the order total before promotions and tax.
+     * 
+     * @return list total in cents
+     */
+    public long getListCents() {
+        return listCents;
+    }
+    
+    /**
+     * Gets the net change to the list total: discounts are negative, tax positive.
+     * 
+     * @return adjustment in cents
+     */
+    public long getAdjustmentCents() {
+        return adjustmentCents;
+    }
+    
+    public long getTotalCents() {
+        return listCents + adjustmentCents;
+    }
+    
+    public List<PromotionRule> getAppliedRules() {
+        return appliedRules;
+    }
+    
+    /**
+     * Gets the names of the applied rules.
+     * 
+     * @return comma separated rule names, or null if no rule applied
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Checks whether any rule applied.
+     * 
+     * @return true if the order is unaffected by the rule set
+     */
+    public boolean isEmpty() {
+        return appliedRules.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PromotionResult{list=%s, adjustment=%s, rules=%d}",
+                           Money.format(listCents), Money.format(adjustmentCents), appliedRules.size());
+    }
+}
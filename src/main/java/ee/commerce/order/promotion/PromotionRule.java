@@ -0,0 +1,208 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.Money;
+import ee.commerce.order.pricing.ServiceMask;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A single promotion or tax rule.
+ * 
+ * A rule targets one product or every product ({@link #ANY_PRODUCT}) and may require
+ * a set of services (see {@link ServiceMask}) to be present on the order. Percentages
+ * are stored in basis points (1/100 of a percent) and amounts in cents, so evaluation
+ * is plain long arithmetic.
+ * 
+ * Immutable value object; create rules through the static factory methods.
+ */
+public final class PromotionRule {
+    
+    /**
+     * Product ID of rules that apply to every product.
+     */
+    public static final int ANY_PRODUCT = -1;
+    
+    /**
+     * Kind of adjustment a rule makes.
+     */
+    public enum Type {
+        PERCENTAGE_DISCOUNT,
+        FIXED_DISCOUNT,
+        BUNDLE_DISCOUNT,
+        VAT
+    }
+    
+    private static final BigDecimal BASIS_POINTS_PER_PERCENT = new BigDecimal(100);
+    private static final long MAX_BASIS_POINTS = 10_000L;
+    
+    private final String id;
+    private final String name;
+    private final Type type;
+    private final int productId;
+    private final int requiredServices;
+    private final long value;
+    
+    private PromotionRule(String id, String name, Type type, int productId,
+                          int requiredServices, long value) {
+        if (id == null || id.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule ID cannot be null or empty");
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule name cannot be null or empty");
+        }
+        if (productId < ANY_PRODUCT) {
+            throw new IllegalArgumentException("Invalid product ID: " + productId);
+        }
+        if (!ServiceMask.isValid(requiredServices)) {
+            throw new IllegalArgumentException("Invalid service mask: " + requiredServices);
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Rule value cannot be negative");
+        }
+        
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.productId = productId;
+        this.requiredServices = requiredServices;
+        this.value = value;
+    }
+    
+    /**
+     * Creates a percentage discount on the list price.
+     * 
+     * @param id unique rule ID
+     * @param name name shown in the order description
+     * @param productId product the discount applies to, or {@link #ANY_PRODUCT}
+     * @param percent discount percentage, e.g. 15 for 15%
+     * @return discount rule
+     * @throws IllegalArgumentException if percent is not between 0 and 100
+     */
+    public static PromotionRule percentageDiscount(String id, String name, int productId, BigDecimal percent) {
+        long basisPoints = toBasisPoints(percent);
+        if (basisPoints > MAX_BASIS_POINTS) {
+            throw new IllegalArgumentException("Discount cannot exceed 100%");
+        }
+        return new PromotionRule(id, name, Type.PERCENTAGE_DISCOUNT, productId, ServiceMask.NONE, basisPoints);
+    }
+    
+    /**
+     * Creates a fixed amount discount.
+     * 
+     * @param id unique rule ID
+     * @param name name shown in the order description
+     * @param productId product the discount applies to, or {@link #ANY_PRODUCT}
+     * @param amountCents discount in cents
+     * @return discount rule
+     */
+    public static PromotionRule fixedDiscount(String id, String name, int productId, long amountCents) {
+        return new PromotionRule(id, name, Type.FIXED_DISCOUNT, productId, ServiceMask.NONE, amountCents);
+    }
+    
+    /**
+     * Creates a bundle deal: a fixed discount when a product is ordered with a set of services.
+     * 
+     * @param id unique rule ID
+     * @param name name shown in the order description
+     * @param productId product the deal applies to, or {@link #ANY_PRODUCT}
+     * @param requiredServices services that must all be on the order
+     * @param amountCents discount in cents
+     * @return bundle rule
+     * @throws IllegalArgumentException if no services are required
+     */
+    public static PromotionRule bundleDiscount(String id, String name, int productId,
+                                               int requiredServices, long amountCents) {
+        if (requiredServices == ServiceMask.NONE) {
+            throw new IllegalArgumentException("Bundle must require at least one service");
+        }
+        return new PromotionRule(id, name, Type.BUNDLE_DISCOUNT, productId, requiredServices, amountCents);
+    }
+    
+    /**
+     * Creates a VAT rule that adds tax on the discounted price of every product.
+     * 
+     * @param id unique rule ID
+     * @param name name shown in the order description
+     * @param percent tax rate, e.g. 22 for 22%
+     * @return VAT rule
+     */
+    public static PromotionRule vat(String id, String name, BigDecimal percent) {
+        return new PromotionRule(id, name, Type.VAT, ANY_PRODUCT, ServiceMask.NONE, toBasisPoints(percent));
+    }
+    
+    private static long toBasisPoints(BigDecimal percent) {
+        if (percent == null || percent.signum() < 0) {
+            throw new IllegalArgumentException("Percentage cannot be null or negative");
+        }
+        try {
+            return percent.multiply(BASIS_POINTS_PER_PERCENT).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Percentage can have at most two decimals: " + percent, e);
+        }
+    }
+    
+    /**
+     * Checks whether the rule applies to a product with the given services.
+     * 
+     * @param product product ID
+     * @param serviceMask services on the order
+     * @return true if the rule applies
+     */
+    public boolean appliesTo(int product, int serviceMask) {
+        return (productId == ANY_PRODUCT || productId == product)
+            && (serviceMask & requiredServices) == requiredServices;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public int getRequiredServices() {
+        return requiredServices;
+    }
+    
+    /**
+     * Gets the rule value: basis points for percentages and VAT, cents for amounts.
+     * 
+     * @return rule value
+     */
+    public long getValue() {
+        return value;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PromotionRule that = (PromotionRule) o;
+        return productId == that.productId && requiredServices == that.requiredServices
+            && value == that.value && id.equals(that.id) && name.equals(that.name) && type == that.type;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, type, productId, requiredServices, value);
+    }
+    
+    @Override
+    public String toString() {
+        String amount = type == Type.PERCENTAGE_DISCOUNT || type == Type.VAT
+            ? BigDecimal.valueOf(value, 2).stripTrailingZeros().toPlainString() + "%"
+            : Money.format(value);
+        return String.format("PromotionRule{id='%s', type=%s, productId=%d, services=%d, value=%s}",
+                           id, type, productId, requiredServices, amount);
+    }
+}
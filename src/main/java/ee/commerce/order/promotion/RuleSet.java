@@ -0,0 +1,208 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.pricing.ServiceMask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled, versioned set of promotion rules.
+ * 
+ * Rules are indexed when the set is compiled: product specific rules by product ID,
+ * and rules for every product by the lowest service they require. Evaluating an
+ * order only visits the rules in the buckets of its product and its services,
+ * instead of every rule of every campaign.
+ * 
+ * Results are cached per (product, service mask). The cache belongs to the rule set,
+ * so publishing a new version starts with an empty cache.
+ * 
+ * Immutable apart from the cache, and safe to share between threads.
+ */
+public final class RuleSet {
+    
+    private static final PromotionRule[] NO_RULES = new PromotionRule[0];
+    private static final long BASIS_POINTS = 10_000L;
+    
+    private final long version;
+    private final List<PromotionRule> rules;
+    private final Map<Integer, PromotionRule[]> rulesByProduct;
+    
+    /**
+     * Rules for every product. Index 0 holds rules without service requirements,
+     * index {@code bit + 1} holds rules whose lowest required service is {@code bit}.
+     */
+    private final PromotionRule[][] globalRulesByService;
+    
+    private final Map<Long, PromotionResult> cache = new ConcurrentHashMap<>();
+    
+    private RuleSet(long version, List<PromotionRule> rules, Map<Integer, PromotionRule[]> rulesByProduct,
+                    PromotionRule[][] globalRulesByService) {
+        this.version = version;
+        this.rules = rules;
+        this.rulesByProduct = rulesByProduct;
+        this.globalRulesByService = globalRulesByService;
+    }
+    
+    /**
+     * Compiles rules into an indexed rule set.
+     * 
+     * @param version version number of the rule set
+     * @param rules rules to compile
+     * @return compiled rule set
+     * @throws IllegalArgumentException if rules is null, contains null or has duplicate IDs
+     */
+    public static RuleSet compile(long version, Collection<PromotionRule> rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Rules cannot be null");
+        }
+        
+        Set<String> ids = new HashSet<>();
+        Map<Integer, List<PromotionRule>> byProduct = new HashMap<>();
+        List<List<PromotionRule>> global = new ArrayList<>();
+        int serviceBits = Integer.bitCount(ServiceMask.ALL);
+        for (int i = 0; i <= serviceBits; i++) {
+            global.add(new ArrayList<>());
+        }
+        
+        for (PromotionRule rule : rules) {
+            if (rule == null) {
+                throw new IllegalArgumentException("Rule cannot be null");
+            }
+            if (!ids.add(rule.getId())) {
+                throw new IllegalArgumentException("Duplicate rule ID: " + rule.getId());
+            }
+            if (rule.getProductId() != PromotionRule.ANY_PRODUCT) {
+                byProduct.computeIfAbsent(rule.getProductId(), id -> new ArrayList<>()).add(rule);
+            } else if (rule.getRequiredServices() == ServiceMask.NONE) {
+                global.get(0).add(rule);
+            } else {
+                global.get(Integer.numberOfTrailingZeros(rule.getRequiredServices()) + 1).add(rule);
+            }
+        }
+        
+        Map<Integer, PromotionRule[]> rulesByProduct = new HashMap<>();
+        for (Map.Entry<Integer, List<PromotionRule>> entry : byProduct.entrySet()) {
+            rulesByProduct.put(entry.getKey(), entry.getValue().toArray(NO_RULES));
+        }
+        PromotionRule[][] globalRulesByService = new PromotionRule[global.size()][];
+        for (int i = 0; i < global.size(); i++) {
+            globalRulesByService[i] = global.get(i).toArray(NO_RULES);
+        }
+        
+        return new RuleSet(version, Collections.unmodifiableList(new ArrayList<>(rules)),
+                           rulesByProduct, globalRulesByService);
+    }
+    
+    /**
+     * Evaluates the rules for a product with the given services.
+     * 
+     * Discounts are taken from the list total (percentages first, then fixed and
+     * bundle amounts) and never make it negative; VAT is then added on the
+     * discounted amount. Percentages of the same kind add up.
+     * 
+     * @param productId product ID
+     * @param serviceMask services on the order
+     * @param listCents order total before promotions, in cents
+     * @return evaluation result
+     * @throws IllegalArgumentException if the mask is invalid or the total is negative
+     */
+    public PromotionResult evaluate(int productId, int serviceMask, long listCents) {
+        if (!ServiceMask.isValid(serviceMask)) {
+            throw new IllegalArgumentException("Invalid service mask: " + serviceMask);
+        }
+        if (listCents < 0) {
+            throw new IllegalArgumentException("List total cannot be negative");
+        }
+        
+        long key = ((long) productId << Integer.SIZE) | serviceMask;
+        PromotionResult cached = cache.get(key);
+        // A cached result is only reused for the same list price
+        if (cached != null && cached.getListCents() == listCents) {
+            return cached;
+        }
+        
+        PromotionResult result = compute(productId, serviceMask, listCents);
+        cache.put(key, result);
+        return result;
+    }
+    
+    private PromotionResult compute(int productId, int serviceMask, long listCents) {
+        Accumulator accumulator = new Accumulator();
+        accumulator.collect(rulesByProduct.getOrDefault(productId, NO_RULES), productId, serviceMask);
+        accumulator.collect(globalRulesByService[0], productId, serviceMask);
+        for (int remaining = serviceMask; remaining != 0; remaining &= remaining - 1) {
+            accumulator.collect(globalRulesByService[Integer.numberOfTrailingZeros(remaining) + 1],
+                                productId, serviceMask);
+        }
+        
+        long discount = percentOf(listCents, accumulator.discountBasisPoints) + accumulator.discountCents;
+        discount = Math.min(discount, listCents);
+        long tax = percentOf(listCents - discount, accumulator.vatBasisPoints);
+        return new PromotionResult(listCents, tax - discount, accumulator.applied);
+    }
+    
+    private static long percentOf(long cents, long basisPoints) {
+        return (Math.multiplyExact(cents, basisPoints) + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public List<PromotionRule> getRules() {
+        return rules;
+    }
+    
+    public int size() {
+        return rules.size();
+    }
+    
+    int getCacheSize() {
+        return cache.size();
+    }
+    
+    /**
+     * Sums the rules that apply to one order while the buckets are scanned.
+     */
+    private static final class Accumulator {
+        long discountBasisPoints;
+        long discountCents;
+        long vatBasisPoints;
+        final List<PromotionRule> applied = new ArrayList<>();
+        
+        void collect(PromotionRule[] candidates, int productId, int serviceMask) {
+            for (PromotionRule rule : candidates) {
+                if (!rule.appliesTo(productId, serviceMask)) {
+                    continue;
+                }
+                switch (rule.getType()) {
+                    case PERCENTAGE_DISCOUNT:
+                        discountBasisPoints = Math.min(BASIS_POINTS, discountBasisPoints + rule.getValue());
+                        break;
+                    case FIXED_DISCOUNT:
+                    case BUNDLE_DISCOUNT:
+                        discountCents = Math.addExact(discountCents, rule.getValue());
+                        break;
+                    case VAT:
+                        vatBasisPoints += rule.getValue();
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown rule type: " + rule.getType());
+                }
+                applied.add(rule);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RuleSet{version=%d, rules=%d}", version, rules.size());
+    }
+}
@@ -0,0 +1,170 @@
+package ee.commerce.order.replication;
+
+import java.util.Arrays;
+
+/**
+ * Replicated stock counter for one product that can never go below zero.
+ * 
+ * This is a bounded counter CRDT (an escrow PN-counter). Every node only ever grows
+ * its own entries: units it added, units it reserved, and units of reservation
+ * rights it handed to other nodes. Merging two replicas takes the maximum of each
+ * entry, so replicas converge whatever order states arrive in.
+ * 
+ * A node may only reserve against its own rights: the units it added, minus what
+ * it reserved, plus what other nodes transferred to it, minus what it transferred
+ * away. Because rights are never shared, nodes reserve without talking to each
+ * other and the sum over all nodes still never goes negative.
+ * 
+ * Thread-safe: all methods synchronize on the counter.
+ */
+public final class BoundedCounter {
+    
+    private final int nodeId;
+    private final int nodeCount;
+    private final long[] increments;
+    private final long[] decrements;
+    private final long[] transfers; // [from * nodeCount + to]
+    
+    /**
+     * Creates an empty counter as seen by one node.
+     * 
+     * @param nodeId ID of the local node
+     * @param nodeCount number of nodes in the cluster
+     * @throws IllegalArgumentException if nodeId is not between 0 and nodeCount - 1
+     */
+    public BoundedCounter(int nodeId, int nodeCount) {
+        if (nodeCount <= 0 || nodeId < 0 || nodeId >= nodeCount) {
+            throw new IllegalArgumentException("Invalid node " + nodeId + " of " + nodeCount);
+        }
+        this.nodeId = nodeId;
+        this.nodeCount = nodeCount;
+        this.increments = new long[nodeCount];
+        this.decrements = new long[nodeCount];
+        this.transfers = new long[nodeCount * nodeCount];
+    }
+    
+    /**
+     * Gets the stock over all nodes, as far as this replica knows.
+     * 
+     * @return stock level
+     */
+    public synchronized long value() {
+        long total = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            total += increments[node] - decrements[node];
+        }
+        return total;
+    }
+    
+    /**
+     * Gets the units a node may reserve, as far as this replica knows.
+     * Exact for the local node.
+     * 
+     * @param node node ID
+     * @return reservation rights of the node
+     */
+    public synchronized long rights(int node) {
+        long rights = increments[node] - decrements[node];
+        for (int other = 0; other < nodeCount; other++) {
+            rights += transfers[other * nodeCount + node] - transfers[node * nodeCount + other];
+        }
+        return rights;
+    }
+    
+    /**
+     * Adds units at the local node, e.g. a restock or a cancelled order.
+     * 
+     * @param amount units to add
+     * @throws IllegalArgumentException if amount is not positive
+     */
+    public synchronized void increment(long amount) {
+        requirePositive(amount);
+        increments[nodeId] += amount;
+    }
+    
+    /**
+     * Reserves units against the local node's rights.
+     * 
+     * @param amount units to reserve
+     * @return false if the local node does not hold enough rights
+     * @throws IllegalArgumentException if amount is not positive
+     */
+    public synchronized boolean tryDecrement(long amount) {
+        requirePositive(amount);
+        if (rights(nodeId) < amount) {
+            return false;
+        }
+        decrements[nodeId] += amount;
+        return true;
+    }
+    
+    /**
+     * Hands reservation rights from the local node to another node.
+     * 
+     * @param to receiving node
+     * @param amount units of rights to hand over
+     * @return false if the local node does not hold enough rights
+     * @throws IllegalArgumentException if amount is not positive or the node is invalid
+     */
+    public synchronized boolean transfer(int to, long amount) {
+        requirePositive(amount);
+        if (to < 0 || to >= nodeCount || to == nodeId) {
+            throw new IllegalArgumentException("Invalid transfer target: " + to);
+        }
+        if (rights(nodeId) < amount) {
+            return false;
+        }
+        transfers[nodeId * nodeCount + to] += amount;
+        return true;
+    }
+    
+    /**
+     * Merges another replica's state into this one.
+     * 
+     * @param state state of the same product from another node
+     * @return true if this replica learned anything new
+     * @throws IllegalArgumentException if the state has a different node count
+     */
+    public synchronized boolean merge(CounterState state) {
+        if (state.getNodeCount() != nodeCount) {
+            throw new IllegalArgumentException("State is for " + state.getNodeCount() + " nodes, not " + nodeCount);
+        }
+        boolean changed = mergeMax(increments, state.increments);
+        changed |= mergeMax(decrements, state.decrements);
+        changed |= mergeMax(transfers, state.transfers);
+        return changed;
+    }
+    
+    /**
+     * Copies the replica's state for sending to other nodes.
+     * 
+     * @param productId product the counter belongs to
+     * @return immutable state
+     */
+    public synchronized CounterState state(int productId) {
+        return new CounterState(productId, increments.clone(), decrements.clone(), transfers.clone());
+    }
+    
+    private static boolean mergeMax(long[] local, long[] remote) {
+        boolean changed = false;
+        for (int i = 0; i < local.length; i++) {
+            if (remote[i] > local[i]) {
+                local[i] = remote[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    private static void requirePositive(long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("BoundedCounter{node=%d, value=%d, rights=%d, increments=%s, decrements=%s}",
+                           nodeId, value(), rights(nodeId), Arrays.toString(increments), Arrays.toString(decrements));
+    }
+}
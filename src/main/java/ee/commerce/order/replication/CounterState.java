@@ -0,0 +1,59 @@
+package ee.commerce.order.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * State of one product's {@link BoundedCounter} as sent between nodes.
+ * Immutable value object; the arrays are never handed out.
+ */
+public final class CounterState {
+    
+    private final int productId;
+    final long[] increments;
+    final long[] decrements;
+    final long[] transfers;
+    
+    CounterState(int productId, long[] increments, long[] decrements, long[] transfers) {
+        this.productId = productId;
+        this.increments = increments;
+        this.decrements = decrements;
+        this.transfers = transfers;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public int getNodeCount() {
+        return increments.length;
+    }
+    
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(productId);
+        writeLongs(out, increments);
+        writeLongs(out, decrements);
+        writeLongs(out, transfers);
+    }
+    
+    static CounterState readFrom(DataInputStream in, int nodeCount) throws IOException {
+        int productId = in.readInt();
+        return new CounterState(productId, readLongs(in, nodeCount), readLongs(in, nodeCount),
+                                readLongs(in, nodeCount * nodeCount));
+    }
+    
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+    
+    private static long[] readLongs(DataInputStream in, int count) throws IOException {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,86 @@
+package ee.commerce.order.replication;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Simulated network for running several replica nodes in one process.
+ * 
+ * Messages are delivered asynchronously on a single delivery thread, in the order
+ * they were sent. Nodes can be cut off and reconnected to simulate partitions;
+ * messages to or from an isolated node are dropped.
+ */
+public final class InProcessNetwork implements AutoCloseable {
+    
+    private final Map<Integer, Consumer<ReplicaMessage>> receivers = new ConcurrentHashMap<>();
+    private final Set<Integer> isolated = ConcurrentHashMap.newKeySet();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "replica-network");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Creates a transport for one node on this network.
+     * 
+     * @return new transport
+     */
+    public ReplicaTransport transport() {
+        return new Transport();
+    }
+    
+    /**
+     * Cuts a node off from the network.
+     * 
+     * @param nodeId node to isolate
+     */
+    public void isolate(int nodeId) {
+        isolated.add(nodeId);
+    }
+    
+    /**
+     * Connects an isolated node again.
+     * 
+     * @param nodeId node to reconnect
+     */
+    public void reconnect(int nodeId) {
+        isolated.remove(nodeId);
+    }
+    
+    @Override
+    public void close() {
+        delivery.shutdownNow();
+    }
+    
+    private final class Transport implements ReplicaTransport {
+        private int nodeId = -1;
+        
+        @Override
+        public void start(int nodeId, Consumer<ReplicaMessage> receiver) {
+            this.nodeId = nodeId;
+            receivers.put(nodeId, receiver);
+        }
+        
+        @Override
+        public void send(int toNode, ReplicaMessage message) {
+            if (isolated.contains(nodeId) || isolated.contains(toNode)) {
+                return;
+            }
+            delivery.execute(() -> {
+                Consumer<ReplicaMessage> receiver = receivers.get(toNode);
+                if (receiver != null && !isolated.contains(toNode)) {
+                    receiver.accept(message);
+                }
+            });
+        }
+        
+        @Override
+        public void close() {
+            receivers.remove(nodeId);
+        }
+    }
+}
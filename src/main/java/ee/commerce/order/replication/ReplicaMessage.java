@@ -0,0 +1,107 @@
+package ee.commerce.order.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batch of counter states one node sends to another.
+ * 
+ * A full message carries every counter the sender knows. A joining sender has not
+ * yet merged the state of all other nodes and asks them for full messages.
+ * Immutable value object.
+ */
+public final class ReplicaMessage {
+    
+    /**
+     * Largest number of counter states a message may carry.
+     */
+    public static final int MAX_STATES = 1 << 24;
+    
+    private static final int FULL = 1;
+    private static final int JOINING = 2;
+    
+    private final int senderId;
+    private final int nodeCount;
+    private final boolean full;
+    private final boolean joining;
+    private final List<CounterState> states;
+    
+    public ReplicaMessage(int senderId, int nodeCount, List<CounterState> states) {
+        this(senderId, nodeCount, false, false, states);
+    }
+    
+    public ReplicaMessage(int senderId, int nodeCount, boolean full, boolean joining, List<CounterState> states) {
+        this.senderId = senderId;
+        this.nodeCount = nodeCount;
+        this.full = full;
+        this.joining = joining;
+        this.states = Collections.unmodifiableList(new ArrayList<>(states));
+    }
+    
+    public int getSenderId() {
+        return senderId;
+    }
+    
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    public boolean isFull() {
+        return full;
+    }
+    
+    public boolean isJoining() {
+        return joining;
+    }
+    
+    public List<CounterState> getStates() {
+        return states;
+    }
+    
+    /**
+     * Writes the message in the binary wire format.
+     * 
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(senderId);
+        out.writeInt(nodeCount);
+        out.writeInt((full ? FULL : 0) | (joining ? JOINING : 0));
+        out.writeInt(states.size());
+        for (CounterState state : states) {
+            state.writeTo(out);
+        }
+    }
+    
+    /**
+     * Reads a message written by {@link #writeTo(DataOutputStream)}.
+     * The header is checked before anything is allocated, so a corrupt or hostile
+     * peer cannot make the reader allocate huge arrays.
+     * 
+     * @param in stream to read from
+     * @param expectedNodeCount number of nodes in the local cluster
+     * @return message
+     * @throws IOException if reading fails or the message is malformed or for another cluster size
+     */
+    public static ReplicaMessage readFrom(DataInputStream in, int expectedNodeCount) throws IOException {
+        int senderId = in.readInt();
+        int nodeCount = in.readInt();
+        int flags = in.readInt();
+        int count = in.readInt();
+        if (nodeCount != expectedNodeCount || senderId < 0 || senderId >= nodeCount
+            || (flags & ~(FULL | JOINING)) != 0 || count < 0 || count > MAX_STATES) {
+            throw new IOException("Malformed replica message");
+        }
+        // Grow with the states actually read instead of trusting the count
+        List<CounterState> states = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            states.add(CounterState.readFrom(in, nodeCount));
+        }
+        return new ReplicaMessage(senderId, nodeCount, (flags & FULL) != 0, (flags & JOINING) != 0, states);
+    }
+}
@@ -0,0 +1,342 @@
+package ee.commerce.order.replication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One node of a replicated inventory.
+ * 
+ * The node keeps a {@link BoundedCounter} per product and reserves against its own
+ * share of the stock without contacting other nodes. In the background it
+ * periodically
+ * <ul>
+ *   <li>hands spare reservation rights to nodes that are running low, and</li>
+ *   <li>sends the counters that changed to every other node; every
+ *       {@value #FULL_SYNC_ROUNDS} rounds it sends all counters, which repairs
+ *       lost messages and brings restarted nodes up to date.</li>
+ * </ul>
+ * A reservation fails when the local node's rights are used up, even if other
+ * nodes still hold stock; the rebalancing moves rights over within a few rounds.
+ * 
+ * A node keeps its counters in memory only, so after a restart its own entries
+ * are known only to the other nodes. Until it has merged a full sync from every
+ * other node, a node is joining: it asks the others for full syncs, reserves and
+ * adds nothing, and only remembers {@link #seed(int, int) seeds}. Otherwise it
+ * could reserve its old rights a second time. A node that cannot reach all the
+ * others at start-up therefore stays read-only. Changes a node made during the
+ * last round before it stopped, which no other node received, are lost.
+ */
+public final class ReplicaNode implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaNode.class);
+    
+    static final int FULL_SYNC_ROUNDS = 20;
+    
+    private final int nodeId;
+    private final int nodeCount;
+    private final ReplicaTransport transport;
+    private final Map<Integer, BoundedCounter> counters = new ConcurrentHashMap<>();
+    private final Set<Integer> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> fullSyncsFrom = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Integer> pendingSeeds = new LinkedHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean ready;
+    private volatile boolean fullSyncRequested;
+    private long rounds;
+    
+    /**
+     * Creates a node. Call {@link #start(long)} to connect it to the others.
+     * 
+     * @param nodeId ID of this node, 0 to nodeCount - 1
+     * @param nodeCount number of nodes in the cluster
+     * @param transport transport to the other nodes
+     * @throws IllegalArgumentException if the IDs are invalid or transport is null
+     */
+    public ReplicaNode(int nodeId, int nodeCount, ReplicaTransport transport) {
+        if (nodeCount <= 0 || nodeId < 0 || nodeId >= nodeCount) {
+            throw new IllegalArgumentException("Invalid node " + nodeId + " of " + nodeCount);
+        }
+        if (transport == null) {
+            throw new IllegalArgumentException("Transport cannot be null");
+        }
+        this.nodeId = nodeId;
+        this.nodeCount = nodeCount;
+        this.transport = transport;
+        this.ready = nodeCount == 1;
+    }
+    
+    /**
+     * Starts receiving from the other nodes and synchronizing in the background.
+     * 
+     * @param syncIntervalMillis time between synchronization rounds
+     * @throws IOException if the transport cannot start
+     * @throws IllegalStateException if the node is already started
+     */
+    public synchronized void start(long syncIntervalMillis) throws IOException {
+        if (scheduler != null) {
+            throw new IllegalStateException("Replica node " + nodeId + " already started");
+        }
+        transport.start(nodeId, this::receive);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-sync-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                logger.error("Replica node {} failed to synchronize", nodeId, e);
+            }
+        }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+        logger.info("Replica node {} of {} started", nodeId, nodeCount);
+    }
+    
+    public int getNodeId() {
+        return nodeId;
+    }
+    
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    /**
+     * Checks whether the node has merged the state of every other node, and so
+     * may reserve and add stock.
+     * 
+     * @return true once the node has joined the cluster
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Adds units of a product at this node, creating the product if needed.
+     * 
+     * @param productId product ID
+     * @param quantity units to add, 0 only creates the product
+     * @throws IllegalArgumentException if quantity is negative
+     * @throws IllegalStateException if the node is still joining
+     */
+    public void add(int productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        if (!ready) {
+            // Entries grown from zero would be swallowed by the larger ones the other nodes hold
+            throw new IllegalStateException("Replica node " + nodeId + " has not merged the state of the other nodes yet");
+        }
+        BoundedCounter counter = counters.computeIfAbsent(productId, id -> new BoundedCounter(nodeId, nodeCount));
+        if (quantity > 0) {
+            counter.increment(quantity);
+        }
+        changed.add(productId);
+    }
+    
+    /**
+     * Adds a product with initial stock unless any node already knows it. A joining
+     * node remembers the seed and applies it once it has merged the state of the
+     * other nodes, so a restarted node never seeds a product a second time.
+     * 
+     * @param productId product ID
+     * @param quantity initial units
+     * @return true if the product was added now
+     * @throws IllegalArgumentException if quantity is negative
+     */
+    public synchronized boolean seed(int productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        if (!ready) {
+            pendingSeeds.putIfAbsent(productId, quantity);
+            return false;
+        }
+        if (counters.containsKey(productId)) {
+            return false;
+        }
+        add(productId, quantity);
+        return true;
+    }
+    
+    /**
+     * Reserves units against this node's share of the stock.
+     * 
+     * @param productId product ID
+     * @param quantity units to reserve
+     * @return false if the product is unknown, this node's share is too small or
+     *         the node is still joining
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public boolean reserve(int productId, int quantity) {
+        if (!ready) {
+            return false;
+        }
+        BoundedCounter counter = counters.get(productId);
+        if (counter == null || !counter.tryDecrement(quantity)) {
+            return false;
+        }
+        changed.add(productId);
+        return true;
+    }
+    
+    public boolean contains(int productId) {
+        return counters.containsKey(productId);
+    }
+    
+    /**
+     * Gets the stock of a product over all nodes, as far as this node knows.
+     * 
+     * @param productId product ID
+     * @return stock level, or -1 if the product is unknown
+     */
+    public long getStock(int productId) {
+        BoundedCounter counter = counters.get(productId);
+        return counter != null ? counter.value() : -1;
+    }
+    
+    /**
+     * Gets the units this node can reserve right now.
+     * 
+     * @param productId product ID
+     * @return local reservation rights, 0 if the product is unknown
+     */
+    public long getLocalRights(int productId) {
+        BoundedCounter counter = counters.get(productId);
+        return counter != null ? counter.rights(nodeId) : 0;
+    }
+    
+    /**
+     * Gets the IDs of all products this node knows, in ascending order.
+     * 
+     * @return product IDs
+     */
+    public int[] getProductIds() {
+        return counters.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+    
+    /**
+     * Runs one synchronization round: rebalances rights and sends changed counters.
+     * The first round, and the round after a joining node asked for it, sends all
+     * counters. Called by the background thread; public for tests and manual control.
+     */
+    public synchronized void sync() {
+        // A joining node does not know its own rights yet
+        if (ready) {
+            counters.forEach(this::rebalance);
+        }
+        
+        boolean full = rounds++ % FULL_SYNC_ROUNDS == 0 || fullSyncRequested;
+        if (full) {
+            fullSyncRequested = false;
+        }
+        List<CounterState> states = new ArrayList<>();
+        if (full) {
+            changed.clear();
+            counters.forEach((productId, counter) -> states.add(counter.state(productId)));
+        } else {
+            for (Iterator<Integer> it = changed.iterator(); it.hasNext(); ) {
+                int productId = it.next();
+                it.remove();
+                states.add(counters.get(productId).state(productId));
+            }
+        }
+        if (states.isEmpty() && !full && ready) {
+            return;
+        }
+        ReplicaMessage message = new ReplicaMessage(nodeId, nodeCount, full, !ready, states);
+        for (int node = 0; node < nodeCount; node++) {
+            if (node != nodeId) {
+                transport.send(node, message);
+            }
+        }
+        logger.debug("Replica node {} sent {} counters ({} sync)", nodeId, states.size(), full ? "full" : "delta");
+    }
+    
+    /**
+     * Hands spare rights of one product to nodes holding less than half their fair share.
+     */
+    private void rebalance(int productId, BoundedCounter counter) {
+        long fairShare = counter.value() / nodeCount;
+        long spare = counter.rights(nodeId) - fairShare;
+        for (int node = 0; node < nodeCount && spare > 0; node++) {
+            long rights = counter.rights(node);
+            if (node == nodeId || rights > fairShare / 2) {
+                continue;
+            }
+            long amount = Math.min(spare, fairShare - rights);
+            if (amount > 0 && counter.transfer(node, amount)) {
+                spare -= amount;
+                changed.add(productId);
+                logger.debug("Replica node {} handed {} units of product {} to node {}", nodeId, amount, productId, node);
+            }
+        }
+    }
+    
+    void receive(ReplicaMessage message) {
+        if (message.getNodeCount() != nodeCount) {
+            logger.warn("Ignoring message from node {} with {} nodes, expected {}",
+                       message.getSenderId(), message.getNodeCount(), nodeCount);
+            return;
+        }
+        for (CounterState state : message.getStates()) {
+            counters.computeIfAbsent(state.getProductId(), id -> new BoundedCounter(nodeId, nodeCount)).merge(state);
+        }
+        if (message.isJoining()) {
+            fullSyncRequested = true;
+        }
+        if (!ready && message.isFull() && message.getSenderId() != nodeId) {
+            fullSyncsFrom.add(message.getSenderId());
+            if (fullSyncsFrom.size() == nodeCount - 1) {
+                join();
+            }
+        }
+    }
+    
+    /**
+     * Starts serving once the state of every other node has been merged, then
+     * applies the seeds of products no node knew.
+     */
+    private synchronized void join() {
+        if (ready) {
+            return;
+        }
+        ready = true;
+        pendingSeeds.forEach((productId, quantity) -> {
+            if (!counters.containsKey(productId)) {
+                add(productId, quantity);
+            }
+        });
+        logger.info("Replica node {} merged the state of all {} other nodes, {} products, {} seeds applied",
+                   nodeId, nodeCount - 1, counters.size(), pendingSeeds.size());
+        pendingSeeds.clear();
+    }
+    
+    /**
+     * Stops synchronizing and closes the transport.
+     * 
+     * @throws IOException if the transport cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService current = scheduler;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        transport.close();
+        logger.info("Replica node {} stopped", nodeId);
+    }
+}
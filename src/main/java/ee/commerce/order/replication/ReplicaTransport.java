@@ -0,0 +1,32 @@
+package ee.commerce.order.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Delivers replica messages between nodes.
+ * 
+ * Delivery is best effort: messages may be lost, duplicated or reordered. Counter
+ * states are merged idempotently and every node resends its full state from time
+ * to time, so replicas still converge.
+ */
+public interface ReplicaTransport extends Closeable {
+    
+    /**
+     * Starts receiving messages for a node.
+     * 
+     * @param nodeId the local node
+     * @param receiver called for every message that arrives, possibly concurrently
+     * @throws IOException if the transport cannot start
+     */
+    void start(int nodeId, Consumer<ReplicaMessage> receiver) throws IOException;
+    
+    /**
+     * Sends a message without waiting for delivery.
+     * 
+     * @param toNode receiving node
+     * @param message message to send
+     */
+    void send(int toNode, ReplicaMessage message);
+}
@@ -0,0 +1,125 @@
+package ee.commerce.order.replication;
+
+import ee.commerce.order.inventory.StockStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Stock store backed by a {@link ReplicaNode}, so an {@code InventoryManager} can
+ * run as one node of a replicated inventory.
+ * 
+ * Reservations use the local node's share of the stock and never wait for other
+ * nodes. Releases add units at the local node. Stock levels are the cluster-wide
+ * totals as far as this node knows them.
+ * 
+ * Only node {@value #SEED_NODE} seeds initial stock, so starting more nodes does
+ * not multiply it; the other nodes receive their share through rebalancing.
+ * A node that is still joining the cluster (see {@link ReplicaNode}) reserves and
+ * releases nothing, and seeds only the products no other node knows once it has
+ * joined, so restarting the seed node does not seed the stock again.
+ * Stock levels cannot be overwritten or cleared, because other nodes may be
+ * reserving against them.
+ */
+public final class ReplicatedStockStore implements StockStore, Closeable {
+    
+    /**
+     * Node that seeds initial stock.
+     */
+    public static final int SEED_NODE = 0;
+    
+    private final ReplicaNode node;
+    
+    /**
+     * Creates a store on a node.
+     * 
+     * @param node replica node, started or not
+     * @throws IllegalArgumentException if node is null
+     */
+    public ReplicatedStockStore(ReplicaNode node) {
+        if (node == null) {
+            throw new IllegalArgumentException("Node cannot be null");
+        }
+        this.node = node;
+    }
+    
+    public ReplicaNode getNode() {
+        return node;
+    }
+    
+    @Override
+    public int get(int productId) {
+        long stock = node.getStock(productId);
+        return stock < 0 ? ABSENT : (int) Math.min(Integer.MAX_VALUE, stock);
+    }
+    
+    /**
+     * Not supported: other nodes may be reserving against the stock.
+     * 
+     * @throws IllegalStateException always
+     */
+    @Override
+    public void set(int productId, int quantity) {
+        throw new IllegalStateException("Replicated stock cannot be overwritten");
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Only the seed node adds products; other nodes return false. While the seed
+     * node is joining it returns false and adds the product after joining, if no
+     * other node knows it.
+     */
+    @Override
+    public boolean setIfAbsent(int productId, int quantity) {
+        if (productId < 0 || quantity < 0) {
+            throw new IllegalArgumentException("Product ID and stock cannot be negative");
+        }
+        return node.getNodeId() == SEED_NODE && node.seed(productId, quantity);
+    }
+    
+    @Override
+    public boolean tryReserve(int productId, int quantity) {
+        return node.reserve(productId, quantity);
+    }
+    
+    @Override
+    public boolean release(int productId, int quantity) {
+        if (!node.isReady() || !node.contains(productId) || node.getStock(productId) > Integer.MAX_VALUE - quantity) {
+            return false;
+        }
+        node.add(productId, quantity);
+        return true;
+    }
+    
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+    
+    @Override
+    public int size() {
+        return node.getProductIds().length;
+    }
+    
+    /**
+     * Not supported: other nodes may be reserving against the stock.
+     * 
+     * @throws IllegalStateException always
+     */
+    @Override
+    public void clear() {
+        throw new IllegalStateException("Replicated stock cannot be cleared");
+    }
+    
+    @Override
+    public void forEach(StockVisitor visitor) {
+        for (int productId : node.getProductIds()) {
+            visitor.accept(productId, get(productId));
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        node.close();
+    }
+}
@@ -0,0 +1,171 @@
+package ee.commerce.order.replication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Replica transport over TCP, e.g. between order system processes on one host.
+ * 
+ * Every node listens on its own address; outgoing connections are opened on first
+ * use and reopened after a failure. A message that cannot be written is dropped,
+ * the next full synchronization round makes up for it.
+ */
+public final class SocketTransport implements ReplicaTransport {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SocketTransport.class);
+    private static final int CONNECT_TIMEOUT_MILLIS = 1_000;
+    
+    private final List<InetSocketAddress> addresses;
+    private final DataOutputStream[] outputs;
+    private final Socket[] sockets;
+    private final ExecutorService readers = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "replica-socket-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ServerSocket server;
+    private volatile boolean closed;
+    
+    /**
+     * Creates a transport for a cluster.
+     * 
+     * @param addresses listening address of every node, indexed by node ID
+     * @throws IllegalArgumentException if addresses is null or empty
+     */
+    public SocketTransport(List<InetSocketAddress> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IllegalArgumentException("Addresses cannot be null or empty");
+        }
+        this.addresses = Collections.unmodifiableList(new ArrayList<>(addresses));
+        this.outputs = new DataOutputStream[addresses.size()];
+        this.sockets = new Socket[addresses.size()];
+    }
+    
+    /**
+     * Parses a comma-separated list of {@code host:port} addresses.
+     * 
+     * @param addresses address list, e.g. {@code localhost:7001,localhost:7002}
+     * @return parsed addresses in list order
+     * @throws IllegalArgumentException if an address is malformed
+     */
+    public static List<InetSocketAddress> parseAddresses(String addresses) {
+        List<InetSocketAddress> parsed = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            String trimmed = address.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid address: " + trimmed);
+            }
+            try {
+                parsed.add(new InetSocketAddress(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port in address: " + trimmed, e);
+            }
+        }
+        return parsed;
+    }
+    
+    @Override
+    public void start(int nodeId, Consumer<ReplicaMessage> receiver) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(addresses.get(nodeId));
+        server = socket;
+        Thread acceptor = new Thread(() -> accept(socket, receiver), "replica-socket-acceptor-" + nodeId);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Replica node {} listening on {}", nodeId, socket.getLocalSocketAddress());
+    }
+    
+    @Override
+    public void send(int toNode, ReplicaMessage message) {
+        synchronized (sockets) {
+            try {
+                if (outputs[toNode] == null) {
+                    Socket socket = new Socket();
+                    socket.connect(addresses.get(toNode), CONNECT_TIMEOUT_MILLIS);
+                    socket.setTcpNoDelay(true);
+                    sockets[toNode] = socket;
+                    outputs[toNode] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                }
+                message.writeTo(outputs[toNode]);
+                outputs[toNode].flush();
+            } catch (IOException e) {
+                logger.debug("Dropped message to replica node {}: {}", toNode, e.getMessage());
+                disconnect(toNode);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (sockets) {
+            for (int node = 0; node < sockets.length; node++) {
+                disconnect(node);
+            }
+        }
+        ServerSocket current = server;
+        if (current != null) {
+            current.close();
+        }
+        readers.shutdownNow();
+    }
+    
+    private void accept(ServerSocket socket, Consumer<ReplicaMessage> receiver) {
+        while (!closed) {
+            try {
+                Socket connection = socket.accept();
+                readers.execute(() -> read(connection, receiver));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Replica socket accept failed", e);
+                }
+            }
+        }
+    }
+    
+    private void read(Socket connection, Consumer<ReplicaMessage> receiver) {
+        try (Socket socket = connection;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (!closed) {
+                receiver.accept(ReplicaMessage.readFrom(in, addresses.size()));
+            }
+        } catch (EOFException e) {
+            // Peer closed the connection
+        } catch (IOException e) {
+            if (!closed) {
+                logger.debug("Replica connection closed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void disconnect(int node) {
+        Socket socket = sockets[node];
+        sockets[node] = null;
+        outputs[node] = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Error closing connection to replica node {}", node, e);
+            }
+        }
+    }
+}
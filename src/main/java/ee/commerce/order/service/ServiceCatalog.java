@@ -0,0 +1,213 @@
+package ee.commerce.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Registry of add-on services, loaded from configuration.
+ * 
+ * Adding a service is a configuration change instead of a new decorator class.
+ * Each service gets an index from its position in the {@code services} list, so a
+ * set of selected services fits into one {@code long} bitmask (see {@link ServiceOrder}).
+ * 
+ * Configuration format ({@code services.properties} on the classpath by default):
+ * <pre>
+ * services=gift-wrapping,express-shipping
+ * service.gift-wrapping.description=Kingituspakend
+ * service.gift-wrapping.price=5.00
+ * service.gift-wrapping.icon=🎁
+ * service.greeting-card.param.message=Palju õnne!
+ * service.greeting-card.prompt.message=Sisesta tervitussõnum
+ * </pre>
+ * 
+ * The default catalog contains the three services that are also available as
+ * decorators, in the same bit order as {@link ee.commerce.order.pricing.ServiceMask}.
+ */
+public class ServiceCatalog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ServiceCatalog.class);
+    
+    /**
+     * Maximum number of services a catalog can hold (bits in a long).
+     */
+    public static final int MAX_SERVICES = Long.SIZE;
+    
+    public static final String GIFT_WRAPPING = "gift-wrapping";
+    public static final String EXPRESS_SHIPPING = "express-shipping";
+    public static final String GREETING_CARD = "greeting-card";
+    
+    private static final String DEFAULT_RESOURCE = "/services.properties";
+    private static final String SERVICES_KEY = "services";
+    private static final String SERVICE_PREFIX = "service.";
+    private static final String PARAM_INFIX = ".param.";
+    private static final String PROMPT_INFIX = ".prompt.";
+    
+    private static volatile ServiceCatalog defaultCatalog;
+    
+    private final ServiceDefinition[] services;
+    private final Map<String, ServiceDefinition> servicesById;
+    
+    private ServiceCatalog(ServiceDefinition[] services) {
+        this.services = services;
+        Map<String, ServiceDefinition> byId = new HashMap<>();
+        for (ServiceDefinition service : services) {
+            if (byId.put(service.getId(), service) != null) {
+                throw new IllegalArgumentException("Duplicate service id: " + service.getId());
+            }
+        }
+        this.servicesById = byId;
+    }
+    
+    /**
+     * Gets the catalog loaded from {@code services.properties} on the classpath.
+     * 
+     * @return default service catalog
+     * @throws IllegalStateException if the configuration is missing or invalid
+     */
+    public static ServiceCatalog getDefault() {
+        ServiceCatalog catalog = defaultCatalog;
+        if (catalog == null) {
+            synchronized (ServiceCatalog.class) {
+                catalog = defaultCatalog;
+                if (catalog == null) {
+                    catalog = loadDefault();
+                    defaultCatalog = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+    
+    /**
+     * Loads a catalog from a properties reader.
+     * 
+     * @param reader configuration in properties format
+     * @return loaded catalog
+     * @throws IOException if the configuration cannot be read
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static ServiceCatalog load(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        return fromProperties(properties);
+    }
+    
+    /**
+     * Creates a catalog from configuration properties.
+     * 
+     * @param properties service configuration
+     * @return catalog
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static ServiceCatalog fromProperties(Properties properties) {
+        String list = properties.getProperty(SERVICES_KEY, "").trim();
+        if (list.isEmpty()) {
+            return new ServiceCatalog(new ServiceDefinition[0]);
+        }
+        
+        String[] ids = list.split("\\s*,\\s*");
+        if (ids.length > MAX_SERVICES) {
+            throw new IllegalArgumentException("At most " + MAX_SERVICES + " services are supported");
+        }
+        
+        ServiceDefinition[] definitions = new ServiceDefinition[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            definitions[i] = parseService(properties, ids[i], i);
+        }
+        return new ServiceCatalog(definitions);
+    }
+    
+    private static ServiceDefinition parseService(Properties properties, String id, int index) {
+        String prefix = SERVICE_PREFIX + id;
+        String priceValue = properties.getProperty(prefix + ".price");
+        if (priceValue == null) {
+            throw new IllegalArgumentException("Missing price for service " + id);
+        }
+        
+        BigDecimal price;
+        try {
+            price = new BigDecimal(priceValue.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price for service " + id + ": " + priceValue, e);
+        }
+        
+        Map<String, String> parameters = new LinkedHashMap<>();
+        Map<String, String> prompts = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix + PARAM_INFIX)) {
+                parameters.put(key.substring((prefix + PARAM_INFIX).length()), properties.getProperty(key));
+            } else if (key.startsWith(prefix + PROMPT_INFIX)) {
+                prompts.put(key.substring((prefix + PROMPT_INFIX).length()), properties.getProperty(key));
+            }
+        }
+        
+        return new ServiceDefinition(id, index, properties.getProperty(prefix + ".description"),
+                                     properties.getProperty(prefix + ".icon"), price, parameters, prompts);
+    }
+    
+    private static ServiceCatalog loadDefault() {
+        try (InputStream in = ServiceCatalog.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Service configuration " + DEFAULT_RESOURCE + " not found");
+            }
+            ServiceCatalog catalog = load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            logger.info("Service catalog loaded with {} services", catalog.size());
+            return catalog;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to load service configuration", e);
+        }
+    }
+    
+    /**
+     * Gets a service by its ID.
+     * 
+     * @param id service ID
+     * @return service or null if not found
+     */
+    public ServiceDefinition getService(String id) {
+        return servicesById.get(id);
+    }
+    
+    /**
+     * Gets a service by its index.
+     * 
+     * @param index service index
+     * @return service
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public ServiceDefinition getService(int index) {
+        return services[index];
+    }
+    
+    /**
+     * Gets all services in index order.
+     * 
+     * @return unmodifiable list of services
+     */
+    public List<ServiceDefinition> getServices() {
+        return Collections.unmodifiableList(Arrays.asList(services));
+    }
+    
+    public int size() {
+        return services.length;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ServiceCatalog{services=%d}", services.length);
+    }
+}
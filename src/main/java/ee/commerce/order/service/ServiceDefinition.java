@@ -0,0 +1,161 @@
+package ee.commerce.order.service;
+
+import ee.commerce.order.Money;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Definition of an add-on service from the {@link ServiceCatalog}.
+ * Immutable value object.
+ * 
+ * Besides price and description a service can declare named parameters,
+ * e.g. the message of a greeting card, each with a default value and an
+ * optional prompt for the user interface.
+ */
+public final class ServiceDefinition {
+    
+    private final String id;
+    private final int index;
+    private final String description;
+    private final String icon;
+    private final BigDecimal price;
+    private final long priceCents;
+    private final Map<String, String> defaultParameters;
+    private final Map<String, String> parameterPrompts;
+    
+    /**
+     * Creates a new service definition.
+     * 
+     * @param id unique service identifier, e.g. "gift-wrapping"
+     * @param index position of the service in its catalog (bit in a service set)
+     * @param description human-readable description shown on orders
+     * @param icon icon for the user interface (optional)
+     * @param price price of the service (must be non-negative)
+     * @param defaultParameters default values of the service parameters (optional)
+     * @param parameterPrompts user interface prompts per parameter (optional)
+     * @throws IllegalArgumentException if id/description is empty, index is out of range
+     *         or price is null/negative
+     */
+    public ServiceDefinition(String id, int index, String description, String icon, BigDecimal price,
+                             Map<String, String> defaultParameters, Map<String, String> parameterPrompts) {
+        if (id == null || id.trim().isEmpty()) {
+            throw new IllegalArgumentException("Service id cannot be null or empty");
+        }
+        if (index < 0 || index >= ServiceCatalog.MAX_SERVICES) {
+            throw new IllegalArgumentException("Service index must be between 0 and "
+                + (ServiceCatalog.MAX_SERVICES - 1));
+        }
+        if (description == null || description.trim().isEmpty()) {
+            throw new IllegalArgumentException("Service description cannot be null or empty");
+        }
+        if (price == null || price.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Service price cannot be null or negative");
+        }
+        
+        this.id = id;
+        this.index = index;
+        this.description = description;
+        this.icon = icon != null ? icon : "";
+        this.price = price;
+        this.priceCents = Money.toCents(price);
+        this.defaultParameters = copyOf(defaultParameters);
+        this.parameterPrompts = copyOf(parameterPrompts);
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * Gets the position of the service in its catalog.
+     * 
+     * @return service index
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Gets the bit representing this service in a service set.
+     * 
+     * @return service bit
+     */
+    public long getBit() {
+        return 1L << index;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public String getIcon() {
+        return icon;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public long getPriceCents() {
+        return priceCents;
+    }
+    
+    /**
+     * Gets the names of the parameters this service accepts.
+     * 
+     * @return unmodifiable set of parameter names
+     */
+    public Set<String> getParameterNames() {
+        return defaultParameters.keySet();
+    }
+    
+    /**
+     * Gets the default value of a parameter.
+     * 
+     * @param name parameter name
+     * @return default value, or null if the service has no such parameter
+     */
+    public String getDefaultParameter(String name) {
+        return defaultParameters.get(name);
+    }
+    
+    /**
+     * Gets the user interface prompt for a parameter.
+     * 
+     * @param name parameter name
+     * @return prompt, or the parameter name if none is configured
+     */
+    public String getParameterPrompt(String name) {
+        return parameterPrompts.getOrDefault(name, name);
+    }
+    
+    private static Map<String, String> copyOf(Map<String, String> source) {
+        if (source == null || source.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(new LinkedHashMap<>(source));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceDefinition that = (ServiceDefinition) o;
+        return index == that.index && id.equals(that.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return id.hashCode() * 31 + index;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ServiceDefinition{id='%s', description='%s', price=%.2f€}",
+                           id, description, price);
+    }
+}
@@ -0,0 +1,256 @@
+package ee.commerce.order.service;
+
+import ee.commerce.order.Order;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Order with a set of add-on services from a {@link ServiceCatalog}.
+ * 
+ * Unlike a decorator chain, the selected services are kept as one {@code long}
+ * bitmask next to the base order, so the order stays one level deep no matter how
+ * many services are offered or chosen. Total and description are computed once
+ * when the order is created.
+ * 
+ * Immutable: {@link #withService(String)} and {@link #withoutService(String)}
+ * return new orders. A service can be selected at most once, and services are
+ * listed in catalog order in the description.
+ */
+public final class ServiceOrder implements Order {
+    
+    private final Order baseOrder;
+    private final ServiceCatalog catalog;
+    private final long serviceMask;
+    private final Map<String, String> parameters; // key: serviceId + "." + parameter name
+    private final BigDecimal total;
+    private final long totalCents;
+    private final String description;
+    
+    /**
+     * Creates an order without services using the default service catalog.
+     * 
+     * @param baseOrder the order to add services to
+     * @throws IllegalArgumentException if baseOrder is null
+     */
+    public ServiceOrder(Order baseOrder) {
+        this(baseOrder, ServiceCatalog.getDefault());
+    }
+    
+    /**
+     * Creates an order without services.
+     * 
+     * @param baseOrder the order to add services to
+     * @param catalog catalog the services come from
+     * @throws IllegalArgumentException if baseOrder or catalog is null
+     */
+    public ServiceOrder(Order baseOrder, ServiceCatalog catalog) {
+        this(baseOrder, catalog, 0L, Collections.emptyMap());
+    }
+    
+    private ServiceOrder(Order baseOrder, ServiceCatalog catalog, long serviceMask,
+                         Map<String, String> parameters) {
+        if (baseOrder == null) {
+            throw new IllegalArgumentException("Base order cannot be null");
+        }
+        if (catalog == null) {
+            throw new IllegalArgumentException("Service catalog cannot be null");
+        }
+        
+        this.baseOrder = baseOrder;
+        this.catalog = catalog;
+        this.serviceMask = serviceMask;
+        this.parameters = parameters;
+        
+        BigDecimal sum = baseOrder.calculateTotal();
+        long sumCents = baseOrder.calculateTotalCents();
+        StringBuilder text = baseOrder.appendDescription(new StringBuilder());
+        for (long remaining = serviceMask; remaining != 0; remaining &= remaining - 1) {
+            ServiceDefinition service = catalog.getService(Long.numberOfTrailingZeros(remaining));
+            sum = sum.add(service.getPrice());
+            sumCents += service.getPriceCents();
+            text.append(" + ").append(service.getDescription());
+        }
+        this.total = sum;
+        this.totalCents = sumCents;
+        this.description = text.toString();
+    }
+    
+    /**
+     * Returns an order with the given service added, using its default parameters.
+     * 
+     * @param serviceId service ID
+     * @return order including the service
+     * @throws IllegalArgumentException if the service is not in the catalog
+     */
+    public ServiceOrder withService(String serviceId) {
+        return withService(serviceId, Collections.emptyMap());
+    }
+    
+    /**
+     * Returns an order with the given service added.
+     * Blank parameter values fall back to the service's defaults.
+     * 
+     * @param serviceId service ID
+     * @param serviceParameters parameter values for the service
+     * @return order including the service
+     * @throws IllegalArgumentException if the service is not in the catalog
+     *         or a parameter is not declared by the service
+     */
+    public ServiceOrder withService(String serviceId, Map<String, String> serviceParameters) {
+        ServiceDefinition service = requireService(serviceId);
+        
+        Map<String, String> merged = new HashMap<>(parameters);
+        for (Map.Entry<String, String> entry : serviceParameters.entrySet()) {
+            if (service.getDefaultParameter(entry.getKey()) == null) {
+                throw new IllegalArgumentException("Service " + serviceId
+                    + " has no parameter " + entry.getKey());
+            }
+            String value = entry.getValue();
+            String key = parameterKey(serviceId, entry.getKey());
+            if (value != null && !value.trim().isEmpty()) {
+                merged.put(key, value.trim());
+            } else {
+                merged.remove(key);
+            }
+        }
+        
+        return new ServiceOrder(baseOrder, catalog, serviceMask | service.getBit(),
+                                Collections.unmodifiableMap(merged));
+    }
+    
+    /**
+     * Returns an order with the given service removed.
+     * 
+     * @param serviceId service ID
+     * @return order without the service
+     * @throws IllegalArgumentException if the service is not in the catalog
+     */
+    public ServiceOrder withoutService(String serviceId) {
+        ServiceDefinition service = requireService(serviceId);
+        if ((serviceMask & service.getBit()) == 0) {
+            return this;
+        }
+        
+        Map<String, String> remaining = new HashMap<>(parameters);
+        remaining.keySet().removeIf(key -> key.startsWith(serviceId + "."));
+        return new ServiceOrder(baseOrder, catalog, serviceMask & ~service.getBit(),
+                                Collections.unmodifiableMap(remaining));
+    }
+    
+    /**
+     * Checks whether a service is selected.
+     * 
+     * @param serviceId service ID
+     * @return true if the service is part of this order
+     */
+    public boolean hasService(String serviceId) {
+        ServiceDefinition service = catalog.getService(serviceId);
+        return service != null && (serviceMask & service.getBit()) != 0;
+    }
+    
+    /**
+     * Gets the value of a service parameter for this order.
+     * 
+     * @param serviceId service ID
+     * @param name parameter name
+     * @return the order's value, the service default, or null if the parameter does not exist
+     */
+    public String getParameter(String serviceId, String name) {
+        String value = parameters.get(parameterKey(serviceId, name));
+        if (value != null) {
+            return value;
+        }
+        ServiceDefinition service = catalog.getService(serviceId);
+        return service != null ? service.getDefaultParameter(name) : null;
+    }
+    
+    /**
+     * Gets the selected services in catalog order.
+     * 
+     * @return list of selected services
+     */
+    public List<ServiceDefinition> getServices() {
+        List<ServiceDefinition> selected = new ArrayList<>(Long.bitCount(serviceMask));
+        for (long remaining = serviceMask; remaining != 0; remaining &= remaining - 1) {
+            selected.add(catalog.getService(Long.numberOfTrailingZeros(remaining)));
+        }
+        return selected;
+    }
+    
+    /**
+     * Gets the selected services as a bitmask of service indexes.
+     * 
+     * @return service bitmask
+     */
+    public long getServiceMask() {
+        return serviceMask;
+    }
+    
+    public Order getBaseOrder() {
+        return baseOrder;
+    }
+    
+    public ServiceCatalog getCatalog() {
+        return catalog;
+    }
+    
+    @Override
+    public BigDecimal calculateTotal() {
+        return total;
+    }
+    
+    @Override
+    public long calculateTotalCents() {
+        return totalCents;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public StringBuilder appendDescription(StringBuilder target) {
+        return target.append(description);
+    }
+    
+    private ServiceDefinition requireService(String serviceId) {
+        ServiceDefinition service = catalog.getService(serviceId);
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceId);
+        }
+        return service;
+    }
+    
+    private static String parameterKey(String serviceId, String name) {
+        return serviceId + "." + name;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceOrder that = (ServiceOrder) o;
+        return serviceMask == that.serviceMask &&
+               Objects.equals(baseOrder, that.baseOrder) &&
+               catalog == that.catalog &&
+               Objects.equals(parameters, that.parameters);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(baseOrder, serviceMask, parameters);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ServiceOrder{base=%s, services=%d, total=%.2f€}",
+                           baseOrder, Long.bitCount(serviceMask), total);
+    }
+}
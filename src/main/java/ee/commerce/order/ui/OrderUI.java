@@ -2,17 +2,21 @@ package ee.commerce.order.ui;
 
 import ee.commerce.order.BasicOrder;
 import ee.commerce.order.Order;
-import ee.commerce.order.decorator.ExpressShippingDecorator;
-import ee.commerce.order.decorator.GiftWrappingDecorator;
-import ee.commerce.order.decorator.GreetingCardDecorator;
 import ee.commerce.order.model.*;
 import ee.commerce.order.payment.*;
+import ee.commerce.order.promotion.PromotionEngine;
+import ee.commerce.order.service.ServiceCatalog;
+import ee.commerce.order.service.ServiceDefinition;
+import ee.commerce.order.service.ServiceOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -22,6 +26,9 @@ import java.util.Scanner;
 public class OrderUI {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderUI.class);
+    private static final Duration STOCK_HOLD_DURATION = Duration.ofMinutes(15);
+    private static final int MAX_LISTED_PRODUCTS = 20;
+    private static final int MAX_SEARCH_RESULTS = 10;
     private final Scanner scanner;
     private final List<OrderItem> orderHistory;
     
@@ -123,59 +130,139 @@ public class OrderUI {
         System.out.println("📦 UUS TELLIMUS");
         System.out.println("─".repeat(60));
         
-        // Show product catalog
-        Product selectedProduct = selectProduct();
-        if (selectedProduct == null) {
-            return; // User cancelled
-        }
-        
-        // Display selected product
-        System.out.println("\n✅ Valitud toode:");
-        System.out.println("   " + selectedProduct.getName());
-        System.out.println("   💰 " + String.format("%.2f€", selectedProduct.getPrice()));
-        if (!selectedProduct.getDescription().isEmpty()) {
-            System.out.println("   📝 " + selectedProduct.getDescription());
+        // Fill the cart one product at a time
+        Cart cart = new Cart();
+        boolean addingProducts = true;
+        while (addingProducts) {
+            Product selectedProduct = selectProduct();
+            if (selectedProduct == null) {
+                break; // User cancelled
+            }
+            
+            // Display selected product
+            System.out.println("\n✅ Valitud toode:");
+            System.out.println("   " + selectedProduct.getName());
+            System.out.println("   💰 " + String.format("%.2f€", selectedProduct.getPrice()));
+            if (!selectedProduct.getDescription().isEmpty()) {
+                System.out.println("   📝 " + selectedProduct.getDescription());
+            }
+            
+            // Create base order
+            Order order;
+            try {
+                order = new BasicOrder(selectedProduct.getName(), selectedProduct.getPrice());
+                logger.info("Created new order: {} - {}€", selectedProduct.getName(), selectedProduct.getPrice());
+            } catch (Exception e) {
+                System.out.println("❌ Viga tellimuse loomisel: " + e.getMessage());
+                return;
+            }
+            
+            // Add services and apply active promotions
+            order = addServices(order);
+            order = PromotionEngine.getInstance().apply(order, selectedProduct.getId());
+            
+            int quantity = selectQuantity();
+            int lineId = cart.addLine(selectedProduct.getId(), order, quantity);
+            System.out.println("\n🛒 Lisatud ostukorvi: " + cart.getLine(lineId).getDescription());
+            System.out.println("🛒 Ostukorvis: " + cart.getItemCount() + " toodet, kokku "
+                + String.format("%.2f€", cart.calculateTotal()));
+            
+            System.out.print("\nKas soovid lisada veel mõne toote? (j/e): ");
+            addingProducts = scanner.nextLine().trim().equalsIgnoreCase("j");
         }
         
-        // Create base order
-        Order order;
-        try {
-            order = new BasicOrder(selectedProduct.getName(), selectedProduct.getPrice());
-            logger.info("Created new order: {} - {}€", selectedProduct.getName(), selectedProduct.getPrice());
-        } catch (Exception e) {
-            System.out.println("❌ Viga tellimuse loomisel: " + e.getMessage());
+        if (cart.isEmpty()) {
             return;
         }
         
-        // Add services
-        order = addServices(order);
-        
-        // Create complete order
-        CompleteOrder completeOrder = new CompleteOrder(order, selectedProduct.getId());
+        // Create complete order for the whole cart
+        CompleteOrder completeOrder = new CompleteOrder(cart);
         
         // Show order summary
         System.out.println("\n" + "═".repeat(60));
         System.out.println("📋 TELLIMUSE KOKKUVÕTE");
         System.out.println("═".repeat(60));
-        System.out.println("📝 Tellimus: " + order.getDescription());
-        System.out.println("💰 KOGUSUMMA: " + String.format("%.2f€", order.calculateTotal()));
+        for (CartLine line : completeOrder.getLines()) {
+            System.out.println("📝 " + line.getDescription() + " ... " + String.format("%.2f€", line.getTotal()));
+        }
+        System.out.println("💰 KOGUSUMMA: " + String.format("%.2f€", completeOrder.getTotal()));
         System.out.println("🆔 Tellimuse number: " + completeOrder.getOrderId());
         System.out.println("═".repeat(60));
         
+        // Hold the stock while the customer pays, so nobody else can buy the same units
+        InventoryManager inventory = InventoryManager.getInstance();
+        Map<Integer, Integer> quantities = completeOrder.getProductQuantities();
+        StockHold hold = inventory.holdAll(quantities, STOCK_HOLD_DURATION);
+        if (hold == null) {
+            completeOrder.markAsFailed();
+            System.out.println("\n❌ Kahjuks ei ole kõiki tooteid piisavalt laos:");
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                int available = inventory.getStock(entry.getKey());
+                if (available < entry.getValue()) {
+                    Product product = ProductCatalog.getProductById(entry.getKey());
+                    String name = product != null ? product.getName() : "#" + entry.getKey();
+                    System.out.println("   • " + name + ": soovid " + entry.getValue() + ", laos " + available);
+                }
+            }
+            System.out.print("\nVajuta ENTER et jätkata...");
+            scanner.nextLine();
+            return;
+        }
+        
         // Process payment
-        PaymentProcessor.PaymentResult paymentResult = processPayment(completeOrder);
+        PaymentStrategy strategy = selectPaymentStrategy();
+        if (strategy != null && !hold.isActive()) {
+            // Choosing took longer than the hold: hold the stock again before charging
+            hold = inventory.holdAll(quantities, STOCK_HOLD_DURATION);
+            if (hold == null) {
+                completeOrder.markAsFailed();
+                System.out.println("\n❌ Broneering aegus ja kõiki tooteid ei ole enam laos. Makset ei tehtud.");
+                System.out.print("\nVajuta ENTER et jätkata...");
+                scanner.nextLine();
+                return;
+            }
+        }
+        PaymentProcessor.PaymentResult paymentResult = strategy != null
+            ? processPayment(completeOrder, strategy)
+            : new PaymentProcessor.PaymentResult(false, null, OrderStatus.CANCELLED, "Kasutaja tühistas", "None");
         
         if (paymentResult.isSuccess()) {
             // Mark order as paid
             completeOrder.markAsPaid(paymentResult.getTransactionId(), 
                                     paymentResult.getPaymentMethod());
             
-            // Decrease inventory
-            InventoryManager inventory = InventoryManager.getInstance();
-            if (inventory.reserveStock(selectedProduct.getId(), 1)) {
-                logger.info("Stock reserved for product {}", selectedProduct.getId());
+            // Keep the held stock; if the hold expired during payment, reserve again
+            boolean reserved = true;
+            if (hold.confirm()) {
+                logger.info("Stock hold {} confirmed for order {}", hold.getHoldId(), completeOrder.getOrderId());
+            } else if (inventory.reserveAll(quantities).isSuccess()) {
+                logger.info("Stock hold {} had expired, stock reserved again", hold.getHoldId());
             } else {
-                logger.warn("Failed to reserve stock for product {}", selectedProduct.getId());
+                reserved = false;
+            }
+            
+            if (!reserved) {
+                // Paid, but the units went to someone else: the order cannot be delivered
+                completeOrder.markAsFailed();
+                logger.error("Order {} paid with transaction {} but its stock is gone, payment must be refunded",
+                            completeOrder.getOrderId(), paymentResult.getTransactionId());
+                
+                System.out.println("\n" + "═".repeat(60));
+                System.out.println("❌ TELLIMUST EI SAA TÄITA");
+                System.out.println("═".repeat(60));
+                System.out.println("⚠️  Broneering aegus makse ajal ja kõiki tooteid ei ole enam laos");
+                System.out.println("💳 Makse tagastamiseks võta ühendust klienditoega");
+                System.out.println("🆔 Tellimuse number: " + completeOrder.getOrderId());
+                System.out.println("🔖 Tehingu ID: " + paymentResult.getTransactionId());
+                System.out.println("📦 Staatus: " + completeOrder.getStatus().getEstonianName());
+                System.out.println("═".repeat(60));
+                
+                orderHistory.add(new OrderItem(completeOrder.getDescription(), completeOrder.getTotal(),
+                                              completeOrder.getStatus(), paymentResult.getPaymentMethod(),
+                                              paymentResult.getTransactionId()));
+                System.out.print("\nVajuta ENTER et jätkata...");
+                scanner.nextLine();
+                return;
             }
             
             // Show success
@@ -190,11 +277,12 @@ public class OrderUI {
             System.out.println("═".repeat(60));
             
             // Add to history
-            orderHistory.add(new OrderItem(order.getDescription(), order.calculateTotal(),
+            orderHistory.add(new OrderItem(completeOrder.getDescription(), completeOrder.getTotal(),
                                           completeOrder.getStatus(), paymentResult.getPaymentMethod(),
                                           paymentResult.getTransactionId()));
         } else {
-            // Payment failed - order stays in cart
+            // Payment failed - order stays in cart, held stock goes back
+            hold.release();
             completeOrder.markAsFailed();
             
             System.out.println("\n" + "═".repeat(60));
@@ -212,7 +300,7 @@ public class OrderUI {
     }
     
     /**
-     * Allows user to select a product from the catalog.
+     * Allows user to select a product from the catalog, by number or by searching.
      * 
      * @return selected product or null if cancelled
      */
@@ -221,18 +309,20 @@ public class OrderUI {
         System.out.println("─".repeat(60));
         
         List<Product> products = ProductCatalog.getAllProducts();
-        
-        for (Product product : products) {
-            System.out.println("\n[" + product.getId() + "] " + product.getName());
-            System.out.println("    💰 " + String.format("%.2f€", product.getPrice()));
-            System.out.println("    📝 " + product.getDescription());
+        if (products.size() <= MAX_LISTED_PRODUCTS) {
+            printProductChoices(products);
+        } else {
+            System.out.println("\n📦 Kataloogis on " + products.size() + " toodet. Otsi toodet nime või kirjelduse järgi.");
         }
         
         System.out.println("\n[0] ❌ Tühista");
         
         while (true) {
-            System.out.print("\nVali toode (number): ");
+            System.out.print("\nVali toode (number või otsingusõna): ");
             String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                continue;
+            }
             
             try {
                 int productId = Integer.parseInt(input);
@@ -247,6 +337,68 @@ public class OrderUI {
                 } else {
                     System.out.println("❌ Toodet numbriga " + productId + " ei leitud! Proovi uuesti.");
                 }
+            } catch (NumberFormatException e) {
+                List<Product> found = findProducts(input);
+                if (found.isEmpty()) {
+                    System.out.println("❌ Otsingule \"" + input + "\" ei vastanud ükski toode.");
+                } else {
+                    System.out.println("\n🔍 Otsingu \"" + input + "\" tulemused:");
+                    printProductChoices(found);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Finds products for typed text: names with a word starting with the text
+     * first, then full-text matches anywhere in the name or description.
+     * 
+     * @param input typed text
+     * @return at most {@link #MAX_SEARCH_RESULTS} distinct products
+     */
+    private List<Product> findProducts(String input) {
+        List<Product> found = new ArrayList<>(ProductAutocomplete.ofCatalog().complete(input, MAX_SEARCH_RESULTS));
+        if (found.size() < MAX_SEARCH_RESULTS) {
+            for (Product product : ProductCatalog.search(input, MAX_SEARCH_RESULTS)) {
+                if (found.size() < MAX_SEARCH_RESULTS && !found.contains(product)) {
+                    found.add(product);
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Prints products with the numbers used to select them.
+     * 
+     * @param products products to print
+     */
+    private void printProductChoices(List<Product> products) {
+        for (Product product : products) {
+            System.out.println("\n[" + product.getId() + "] " + product.getName());
+            System.out.println("    💰 " + String.format("%.2f€", product.getPrice()));
+            System.out.println("    📝 " + product.getDescription());
+        }
+    }
+    
+    /**
+     * Asks for the quantity of the selected product.
+     * 
+     * @return quantity, at least 1
+     */
+    private int selectQuantity() {
+        while (true) {
+            System.out.print("\nKogus (ENTER = 1): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return 1;
+            }
+            try {
+                int quantity = Integer.parseInt(input);
+                if (quantity > 0) {
+                    return quantity;
+                }
+                System.out.println("❌ Kogus peab olema vähemalt 1!");
             } catch (NumberFormatException e) {
                 System.out.println("❌ Palun sisesta number!");
             }
@@ -255,64 +407,83 @@ public class OrderUI {
     
     /**
      * Allows user to add services to an order.
+     * The offered services come from the service catalog configuration.
      */
     private Order addServices(Order order) {
         System.out.println("\n" + "─".repeat(60));
         System.out.println("🎁 LISA LISATEENUSEID");
         System.out.println("─".repeat(60));
         
+        List<ServiceDefinition> services = ServiceCatalog.getDefault().getServices();
+        ServiceOrder serviceOrder = new ServiceOrder(order);
+        
         boolean addingServices = true;
         while (addingServices) {
-            System.out.println("\nPraegune tellimus: " + order.getDescription());
-            System.out.println("Praegune hind: " + String.format("%.2f€", order.calculateTotal()));
+            System.out.println("\nPraegune tellimus: " + serviceOrder.getDescription());
+            System.out.println("Praegune hind: " + String.format("%.2f€", serviceOrder.calculateTotal()));
             
             System.out.println("\n📦 Saadaolevad teenused:");
-            System.out.println("  [1] 🎁 Kingituspakend (+5.00€)");
-            System.out.println("  [2] 🚀 Kiirtoimetamine (+10.00€)");
-            System.out.println("  [3] 💌 Tervituskaart (+2.00€)");
+            for (int i = 0; i < services.size(); i++) {
+                ServiceDefinition service = services.get(i);
+                System.out.println("  [" + (i + 1) + "] " + service.getIcon() + " " + service.getDescription()
+                    + String.format(" (+%.2f€)", service.getPrice()));
+            }
             System.out.println("  [0] ✔️  Lõpeta teenuste lisamine");
             System.out.print("\nMida soovid lisada? ");
             
             String choice = scanner.nextLine().trim();
+            if (choice.equals("0")) {
+                addingServices = false;
+                continue;
+            }
             
-            switch (choice) {
-                case "1":
-                    order = new GiftWrappingDecorator(order);
-                    System.out.println("✅ Kingituspakend lisatud! (+5.00€)");
-                    break;
-                case "2":
-                    order = new ExpressShippingDecorator(order);
-                    System.out.println("✅ Kiirtoimetamine lisatud! (+10.00€)");
-                    break;
-                case "3":
-                    System.out.print("💬 Sisesta tervitussõnum (või jäta tühjaks): ");
-                    String message = scanner.nextLine().trim();
-                    if (message.isEmpty()) {
-                        order = new GreetingCardDecorator(order);
-                    } else {
-                        order = new GreetingCardDecorator(order, message);
-                    }
-                    System.out.println("✅ Tervituskaart lisatud! (+2.00€)");
-                    break;
-                case "0":
-                    addingServices = false;
-                    break;
-                default:
-                    System.out.println("❌ Vigane valik! Palun vali 0-3.");
-                    break;
+            ServiceDefinition service = parseServiceChoice(choice, services);
+            if (service == null) {
+                System.out.println("❌ Vigane valik! Palun vali 0-" + services.size() + ".");
+                continue;
+            }
+            if (serviceOrder.hasService(service.getId())) {
+                System.out.println("ℹ️  " + service.getDescription() + " on juba lisatud.");
+                continue;
+            }
+            
+            Map<String, String> parameters = new HashMap<>();
+            for (String name : service.getParameterNames()) {
+                System.out.print("💬 " + service.getParameterPrompt(name) + ": ");
+                parameters.put(name, scanner.nextLine().trim());
             }
+            
+            serviceOrder = serviceOrder.withService(service.getId(), parameters);
+            logger.info("Added service {} (+{}€) to order", service.getId(), service.getPrice());
+            System.out.println("✅ " + service.getDescription()
+                + String.format(" lisatud! (+%.2f€)", service.getPrice()));
         }
         
-        return order;
+        return serviceOrder;
     }
     
     /**
-     * Processes payment for an order.
+     * Parses a service menu choice.
      * 
-     * @param completeOrder the complete order to process payment for
-     * @return payment result
+     * @param choice user input (1-based menu number)
+     * @param services offered services
+     * @return chosen service or null if the input is not a valid choice
+     */
+    private ServiceDefinition parseServiceChoice(String choice, List<ServiceDefinition> services) {
+        try {
+            int index = Integer.parseInt(choice) - 1;
+            return index >= 0 && index < services.size() ? services.get(index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Asks the user for a payment method.
+     * 
+     * @return chosen payment strategy or null if the order was cancelled
      */
-    private PaymentProcessor.PaymentResult processPayment(CompleteOrder completeOrder) {
+    private PaymentStrategy selectPaymentStrategy() {
         System.out.println("\n" + "─".repeat(60));
         System.out.println("💳 MAKSEMEETODI VALIK");
         System.out.println("─".repeat(60));
@@ -327,39 +498,37 @@ public class OrderUI {
             System.out.print("\nVali maksemeetod: ");
             String choice = scanner.nextLine().trim();
             
-            PaymentStrategy strategy = null;
-            
             switch (choice) {
                 case "1":
-                    strategy = new CreditCardPayment();
-                    break;
+                    return new CreditCardPayment();
                 case "2":
-                    strategy = new PayPalPayment();
-                    break;
+                    return new PayPalPayment();
                 case "3":
-                    strategy = new BankTransferPayment();
-                    break;
+                    return new BankTransferPayment();
                 case "0":
                     System.out.println("❌ Tellimus tühistatud");
-                    return new PaymentProcessor.PaymentResult(false, null, OrderStatus.CANCELLED,
-                                                             "Kasutaja tühistas", "None");
+                    return null;
                 default:
                     System.out.println("❌ Vigane valik! Palun vali 0-3.");
-                    continue;
             }
-            
-            // Process payment with selected strategy
-            completeOrder.markAsProcessing();
-            System.out.println("\n⏳ Makset töödeldakse...");
-            
-            PaymentProcessor processor = new PaymentProcessor(strategy);
-            PaymentProcessor.PaymentResult result = processor.processPayment(
-                completeOrder.getTotal(), completeOrder.getOrderId());
-            
-            return result;
         }
     }
     
+    /**
+     * Processes payment for an order.
+     * 
+     * @param completeOrder the complete order to process payment for
+     * @param strategy chosen payment method
+     * @return payment result
+     */
+    private PaymentProcessor.PaymentResult processPayment(CompleteOrder completeOrder, PaymentStrategy strategy) {
+        completeOrder.markAsProcessing();
+        System.out.println("\n⏳ Makset töödeldakse...");
+        
+        PaymentProcessor processor = new PaymentProcessor(strategy);
+        return processor.processPayment(completeOrder);
+    }
+    
     /**
      * Browse available products.
      */
@@ -368,13 +537,31 @@ public class OrderUI {
         System.out.println("📦 TOOTEKATALOOG");
         System.out.println("─".repeat(60));
         
-        List<Product> products = ProductCatalog.getAllProducts();
+        System.out.print("\n🔍 Otsi tooteid (ENTER = kõik): ");
+        String query = scanner.nextLine().trim();
         
-        for (Product product : products) {
+        List<Product> products = query.isEmpty()
+            ? ProductCatalog.getAllProducts()
+            : findProducts(query);
+        int total = products.size();
+        if (products.isEmpty()) {
+            System.out.println("\n❌ Otsingule \"" + query + "\" ei vastanud ükski toode.");
+        } else if (total > MAX_LISTED_PRODUCTS) {
+            products = products.subList(0, MAX_LISTED_PRODUCTS);
+        }
+        int[] productIds = products.stream().mapToInt(Product::getId).toArray();
+        int[] stocks = InventoryManager.getInstance().getStocks(productIds);
+        
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
             System.out.println("\n" + product.getName());
             System.out.println("   💰 Hind: " + String.format("%.2f€", product.getPrice()));
             System.out.println("   📝 " + product.getDescription());
             System.out.println("   🆔 Toote ID: " + product.getId());
+            System.out.println("   📦 Laos: " + stocks[i] + " tk");
+        }
+        if (total > products.size()) {
+            System.out.println("\n... ja veel " + (total - products.size()) + " toodet. Kitsenda otsingut.");
         }
         
         System.out.println("\n" + "─".repeat(60));
@@ -0,0 +1,68 @@
+package ee.commerce.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Money value type.
+ * Tests conversions between cents and BigDecimal and basic arithmetic.
+ */
+@DisplayName("Money Tests")
+class MoneyTest {
+    
+    @ParameterizedTest
+    @CsvSource({"0.00, 0", "0.01, 1", "5.00, 500", "899.99, 89999", "45.5, 4550", "0.005, 1", "-10.00, -1000"})
+    @DisplayName("Should convert BigDecimal to cents")
+    void testToCents(String amount, long expectedCents) {
+        assertEquals(expectedCents, Money.toCents(new BigDecimal(amount)));
+    }
+    
+    @Test
+    @DisplayName("Should convert cents to BigDecimal with scale 2")
+    void testToBigDecimal() {
+        assertEquals(new BigDecimal("899.99"), Money.toBigDecimal(89_999L));
+        assertEquals(new BigDecimal("0.00"), Money.toBigDecimal(0L));
+        assertEquals(new BigDecimal("10.00"), Money.ofCents(1_000L).toBigDecimal());
+    }
+    
+    @Test
+    @DisplayName("Should throw exception for null amount")
+    void testNullAmount() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(null));
+    }
+    
+    @Test
+    @DisplayName("Should add, subtract and multiply amounts")
+    void testArithmetic() {
+        Money price = Money.of(new BigDecimal("599.00"));
+        Money service = Money.ofCents(500L);
+        
+        assertEquals(Money.ofCents(60_400L), price.plus(service));
+        assertEquals(Money.ofCents(59_400L), price.minus(service));
+        assertEquals(Money.ofCents(1_500L), service.times(3));
+        assertTrue(price.compareTo(service) > 0);
+        assertTrue(service.isPositive());
+        assertTrue(service.minus(price).isNegative());
+    }
+    
+    @Test
+    @DisplayName("Should detect overflow")
+    void testOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1L)));
+    }
+    
+    @Test
+    @DisplayName("Should format amounts for display")
+    void testFormat() {
+        assertEquals("12.34€", Money.format(1_234L));
+        assertEquals("0.05€", Money.format(5L));
+        assertEquals("-1.50€", Money.format(-150L));
+        assertEquals("617.00€", Money.ofCents(61_700L).toString());
+    }
+}
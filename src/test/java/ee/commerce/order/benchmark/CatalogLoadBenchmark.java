@@ -0,0 +1,85 @@
+package ee.commerce.order.benchmark;
+
+import ee.commerce.order.model.CatalogLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse time of a large catalog file.
+ * 
+ * Setup writes a CSV and a JSON-lines file with {@code rows} products; each
+ * measured call parses one of them with {@code parallelism} workers, without
+ * touching the catalog. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="CatalogLoad"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class CatalogLoadBenchmark {
+    
+    @Param("1000000")
+    private int rows;
+    
+    @Param({"1", "4"})
+    private int parallelism;
+    
+    private Path csv;
+    private Path jsonLines;
+    private CatalogLoader loader;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("catalog", ".csv");
+        jsonLines = Files.createTempFile("catalog", ".jsonl");
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("id,name,price,description\n");
+            for (int id = 1; id <= rows; id++) {
+                out.write(id + ",\"Toode " + id + "\"," + id % 1000 + ".99,\"Kirjeldus, mõõdud ja värv\"\n");
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(jsonLines, StandardCharsets.UTF_8)) {
+            for (int id = 1; id <= rows; id++) {
+                out.write("{\"id\": " + id + ", \"name\": \"Toode " + id + "\", \"price\": " + id % 1000
+                        + ".99, \"description\": \"Kirjeldus, mõõdud ja värv\"}\n");
+            }
+        }
+        loader = new CatalogLoader(parallelism);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(jsonLines);
+    }
+    
+    @Benchmark
+    public long parseCsv() throws IOException {
+        return loader.read(csv, CatalogLoader.Format.CSV, products -> { }).getLoaded();
+    }
+    
+    @Benchmark
+    public long parseJsonLines() throws IOException {
+        return loader.read(jsonLines, CatalogLoader.Format.JSON_LINES, products -> { }).getLoaded();
+    }
+}
@@ -0,0 +1,76 @@
+package ee.commerce.order.benchmark;
+
+import ee.commerce.order.inventory.InventoryJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery time of the inventory journal.
+ * 
+ * Setup writes a snapshot with {@code skus} products followed by a WAL tail of
+ * {@code tailOperations} deltas; each measured call opens the journal, which
+ * loads the snapshot and replays the tail. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="InventoryRecovery"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class InventoryRecoveryBenchmark {
+    
+    @Param("1000000")
+    private int skus;
+    
+    @Param("100000")
+    private int tailOperations;
+    
+    private Path directory;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("inventory-recovery");
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            for (int productId = 1; productId <= skus; productId++) {
+                journal.logSet(productId, 100);
+            }
+            journal.snapshot();
+            for (int i = 0; i < tailOperations; i++) {
+                journal.logDelta(i % skus + 1, -1);
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public int recover() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            return journal.getRecoveredState().size();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ee.commerce.order.benchmark;
+
+import ee.commerce.order.model.InventoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reserve/release pairs on a mixed-SKU workload.
+ * 
+ * Every operation picks a random product, so with per-product counters threads
+ * only contend when they hit the same product. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="InventoryReservation"}
+ * and compare the single-thread score with the all-cores score.
+ * 
+ * The forked JVM uses logback-benchmark.xml, which only logs errors, so the
+ * measurement is the reservation and not the log output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class InventoryReservationBenchmark {
+    
+    private static final int PRODUCTS = 5;
+    
+    private InventoryManager inventory;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = InventoryManager.getInstance();
+        for (int productId = 1; productId <= PRODUCTS; productId++) {
+            inventory.releaseStock(productId, 1_000_000);
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public boolean reserveAndReleaseSingleThread() {
+        return reserveAndRelease();
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean reserveAndReleaseAllCores() {
+        return reserveAndRelease();
+    }
+    
+    /**
+     * Flash sale: every thread hits the same product, which switches it to striped counters.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean reserveAndReleaseHotProduct() {
+        return inventory.reserveStock(1, 1) && inventory.releaseStock(1, 1);
+    }
+    
+    private boolean reserveAndRelease() {
+        int productId = ThreadLocalRandom.current().nextInt(PRODUCTS) + 1;
+        return inventory.reserveStock(productId, 1) && inventory.releaseStock(productId, 1);
+    }
+}
@@ -0,0 +1,72 @@
+package ee.commerce.order.benchmark;
+
+import ee.commerce.order.model.Product;
+import ee.commerce.order.model.ProductIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a product lookup by ID as the catalog grows.
+ * 
+ * {@code indexedLookup} goes through {@link ProductIndex}, as
+ * {@code ProductCatalog.getProductById} does; its score should stay flat from a
+ * thousand to millions of products. {@code linearScan} is the stream filter the
+ * catalog used before, for comparison; it grows with the catalog size. IDs are
+ * drawn at random, so the index does not benefit from a warm cache line. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProductLookup"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlogback.configurationFile=logback-benchmark.xml"})
+@State(Scope.Benchmark)
+public class ProductLookupBenchmark {
+    
+    @Param({"1000", "1000000", "4000000"})
+    private int products;
+    
+    private ProductIndex index;
+    private List<Product> list;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = new ArrayList<>(products);
+        BigDecimal price = new BigDecimal("9.99");
+        for (int id = 1; id <= products; id++) {
+            list.add(new Product(id, "Toode " + id, price, null));
+        }
+        index = new ProductIndex();
+        index.putAll(list);
+    }
+    
+    @Benchmark
+    public Product indexedLookup() {
+        return index.get(ThreadLocalRandom.current().nextInt(products) + 1);
+    }
+    
+    @Benchmark
+    public Product linearScan() {
+        int id = ThreadLocalRandom.current().nextInt(products) + 1;
+        return list.stream()
+            .filter(p -> p.getId() == id)
+            .findFirst()
+            .orElse(null);
+    }
+}
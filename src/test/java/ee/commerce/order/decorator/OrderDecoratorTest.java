@@ -1,6 +1,7 @@
 package ee.commerce.order.decorator;
 
 import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Money;
 import ee.commerce.order.Order;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -202,4 +203,42 @@ class OrderDecoratorTest {
         assertEquals(new BigDecimal("10.00"), ExpressShippingDecorator.getServiceCost());
         assertEquals(new BigDecimal("2.00"), GreetingCardDecorator.getServiceCost());
     }
+    
+    @Test
+    @DisplayName("Should calculate the same total in cents as in BigDecimal")
+    void testTotalInCents() {
+        Order order = new GiftWrappingDecorator(baseOrder);
+        order = new ExpressShippingDecorator(order);
+        order = new GreetingCardDecorator(order);
+        
+        assertEquals(11_700L, order.calculateTotalCents());
+        assertEquals(order.calculateTotal(), Money.toBigDecimal(order.calculateTotalCents()));
+        assertEquals(500L, GiftWrappingDecorator.getServiceCostCents());
+        assertEquals(1_000L, ExpressShippingDecorator.getServiceCostCents());
+        assertEquals(200L, GreetingCardDecorator.getServiceCostCents());
+    }
+    
+    @Test
+    @DisplayName("Should stream description into an existing builder")
+    void testAppendDescription() {
+        Order order = new GiftWrappingDecorator(baseOrder);
+        order = new ExpressShippingDecorator(order);
+        order = new GreetingCardDecorator(order);
+        
+        StringBuilder receipt = new StringBuilder("Tellimus: ");
+        order.appendDescription(receipt);
+        
+        assertEquals("Tellimus: Test Product + Kingituspakend + Kiirtoimetamine + Tervituskaart",
+                     receipt.toString());
+        assertEquals("Test Product + Kingituspakend + Kiirtoimetamine + Tervituskaart",
+                     order.getDescription());
+    }
+    
+    @Test
+    @DisplayName("Should cache description of the chain")
+    void testCachedDescription() {
+        Order order = new ExpressShippingDecorator(new GiftWrappingDecorator(baseOrder));
+        
+        assertSame(order.getDescription(), order.getDescription());
+    }
 }
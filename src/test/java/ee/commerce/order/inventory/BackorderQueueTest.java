@@ -0,0 +1,137 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BackorderQueue.
+ * A plain counter stands in for the stock store.
+ */
+@DisplayName("Backorder Queue Tests")
+class BackorderQueueTest {
+    
+    private final AtomicInteger stock = new AtomicInteger();
+    private final IntPredicate reserve = units -> {
+        if (stock.get() < units) {
+            return false;
+        }
+        stock.addAndGet(-units);
+        return true;
+    };
+    
+    @Test
+    @DisplayName("Should reserve at once when nobody is waiting")
+    void testReserveWhenLineEmpty() {
+        BackorderQueue<String> queue = new BackorderQueue<>(10);
+        stock.set(5);
+        
+        assertEquals(BackorderQueue.Admission.RESERVED, queue.offer(1, "a", 3, reserve));
+        assertEquals(2, stock.get());
+        assertEquals(0, queue.size());
+        
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(1, "b", 3, reserve));
+        assertEquals(1, queue.size(1));
+        assertEquals(2, stock.get());
+    }
+    
+    @Test
+    @DisplayName("Should fulfil in arrival order and keep later requests behind the head")
+    void testFifoDrain() {
+        BackorderQueue<String> queue = new BackorderQueue<>(10);
+        queue.offer(1, "a", 2, reserve);
+        queue.offer(1, "b", 5, reserve);
+        // Fits the stock, but must not overtake the requests ahead of it
+        stock.set(1);
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(1, "c", 1, reserve));
+        
+        stock.set(6);
+        assertEquals(List.of("a"), queue.drain(1, reserve));
+        assertEquals(4, stock.get());
+        
+        stock.addAndGet(2);
+        assertEquals(List.of("b", "c"), queue.drain(1, reserve));
+        assertEquals(0, stock.get());
+        assertEquals(0, queue.size());
+        assertTrue(queue.drain(1, reserve).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should reject requests when a product's line is full")
+    void testBoundedLine() {
+        BackorderQueue<Integer> queue = new BackorderQueue<>(2);
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(1, 1, 1, reserve));
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(1, 2, 1, reserve));
+        assertEquals(BackorderQueue.Admission.REJECTED, queue.offer(1, 3, 1, reserve));
+        // Other products have their own lines
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(2, 4, 1, reserve));
+        assertEquals(3, queue.size());
+        
+        assertThrows(IllegalArgumentException.class, () -> new BackorderQueue<>(0));
+    }
+    
+    @Test
+    @DisplayName("Should remove a waiting request only once")
+    void testRemove() {
+        BackorderQueue<String> queue = new BackorderQueue<>(10);
+        queue.offer(1, "a", 1, reserve);
+        queue.offer(1, "b", 1, reserve);
+        
+        assertTrue(queue.remove(1, "a"));
+        assertFalse(queue.remove(1, "a"));
+        assertFalse(queue.remove(2, "b"));
+        
+        stock.set(1);
+        assertEquals(List.of("b"), queue.drain(1, reserve));
+        assertFalse(queue.remove(1, "b"));
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    @DisplayName("Should not lose a drain that runs while a request is being queued")
+    void testDrainDuringOffer() throws Exception {
+        BackorderQueue<String> queue = new BackorderQueue<>(10);
+        List<List<String>> drained = new ArrayList<>();
+        Thread releaser = new Thread(() -> {
+            stock.addAndGet(1);
+            drained.add(queue.drain(1, reserve));
+        });
+        // The releaser returns the units after the request found the stock empty
+        IntPredicate emptyThenRelease = units -> {
+            boolean reserved = reserve.test(units);
+            releaser.start();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return reserved;
+        };
+        
+        assertEquals(BackorderQueue.Admission.QUEUED, queue.offer(1, "a", 1, emptyThenRelease));
+        releaser.join();
+        
+        assertEquals(List.of(List.of("a")), drained);
+        assertEquals(0, queue.size());
+        assertEquals(0, stock.get());
+    }
+    
+    @Test
+    @DisplayName("Should list the products that have waiting requests")
+    void testWaitingProducts() {
+        BackorderQueue<String> queue = new BackorderQueue<>(10);
+        queue.offer(1, "a", 1, reserve);
+        queue.offer(3, "b", 1, reserve);
+        
+        int[] products = queue.waitingProducts();
+        Arrays.sort(products);
+        assertArrayEquals(new int[] {1, 3}, products);
+    }
+}
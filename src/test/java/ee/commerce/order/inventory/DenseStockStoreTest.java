@@ -0,0 +1,262 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DenseStockStore.
+ * Tests paging, bulk reads, escalation of contended products, folding back of cooled
+ * ones and the never-oversell guarantee.
+ */
+@DisplayName("Dense Stock Store Tests")
+class DenseStockStoreTest {
+    
+    @Test
+    @DisplayName("Should reserve and release stock")
+    void testReserveAndRelease() {
+        DenseStockStore store = new DenseStockStore();
+        store.set(1, 10);
+        
+        assertTrue(store.tryReserve(1, 4));
+        assertFalse(store.tryReserve(1, 7));
+        assertTrue(store.release(1, 1));
+        assertEquals(7, store.get(1));
+        assertFalse(store.release(1, Integer.MAX_VALUE));
+        assertEquals(1, store.size());
+    }
+    
+    @Test
+    @DisplayName("Should treat unknown products as absent")
+    void testAbsentProducts() {
+        DenseStockStore store = new DenseStockStore();
+        store.set(1, 0);
+        
+        assertTrue(store.contains(1));
+        assertEquals(StockStore.ABSENT, store.get(2));
+        assertEquals(StockStore.ABSENT, store.get(-5));
+        assertEquals(StockStore.ABSENT, store.get(Integer.MAX_VALUE));
+        assertFalse(store.tryReserve(2, 1));
+        assertFalse(store.release(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.set(-1, 5));
+        assertThrows(IllegalArgumentException.class, () -> store.set(3, -5));
+    }
+    
+    @Test
+    @DisplayName("Should read many products across pages in one call")
+    void testGetStocksAcrossPages() {
+        DenseStockStore store = new DenseStockStore();
+        int farId = 10_000_000;
+        store.set(3, 30);
+        store.set(DenseStockStore.PAGE_SIZE, 40);
+        store.set(farId, 50);
+        
+        assertArrayEquals(new int[] {30, 40, 50, StockStore.ABSENT, StockStore.ABSENT},
+            store.getStocks(new int[] {3, DenseStockStore.PAGE_SIZE, farId, 4, -1}));
+        
+        List<Integer> visited = new ArrayList<>();
+        store.forEach((productId, quantity) -> visited.add(productId));
+        assertEquals(List.of(3, DenseStockStore.PAGE_SIZE, farId), visited);
+        
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(StockStore.ABSENT, store.get(farId));
+    }
+    
+    @Test
+    @DisplayName("Should keep stock when a product is escalated and striped")
+    void testStripeKeepsStock() {
+        DenseStockStore store = new DenseStockStore();
+        store.set(7, 100);
+        
+        assertTrue(store.stripe(7));
+        assertTrue(store.isEscalated(7));
+        assertTrue(store.isHot(7));
+        assertEquals(100, store.get(7));
+        assertTrue(store.tryReserve(7, 100));
+        assertFalse(store.tryReserve(7, 1));
+        assertTrue(store.release(7, 5));
+        assertArrayEquals(new int[] {5}, store.getStocks(new int[] {7}));
+        
+        store.set(7, 20);
+        assertEquals(20, store.get(7));
+        assertFalse(store.stripe(8));
+    }
+    
+    @Test
+    @DisplayName("Should only escalate a product on its own contention")
+    void testContentionPerProduct() {
+        DenseStockStore store = new DenseStockStore(3);
+        int other = 2;
+        while ((other * 0x9E3779B9) >>> 24 != 0x9E3779B9 >>> 24) {
+            other++;
+        }
+        store.set(1, 10);
+        store.set(other, 10);
+        
+        // Both products hash to the same cell, but their failures never add up
+        for (int i = 0; i < 10; i++) {
+            store.onContention(1);
+            store.onContention(other);
+        }
+        assertFalse(store.isEscalated(1));
+        assertFalse(store.isEscalated(other));
+        
+        store.onContention(1);
+        store.onContention(1);
+        store.onContention(1);
+        assertTrue(store.isEscalated(1));
+        assertFalse(store.isEscalated(other));
+    }
+    
+    @Test
+    @DisplayName("Should fold cooled counters back and reuse their entries")
+    void testCompact() throws InterruptedException {
+        DenseStockStore store = new DenseStockStore();
+        store.set(7, 100);
+        store.set(8, 50);
+        assertTrue(store.escalate(7));
+        assertTrue(store.stripe(8));
+        assertTrue(store.tryReserve(7, 30));
+        
+        store.compact();
+        assertTrue(store.isEscalated(7), "a fresh counter is not cold yet");
+        
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(2 * StockCounter.DEFAULT_WINDOW_NANOS) + 50);
+        store.compact();
+        assertFalse(store.isEscalated(7));
+        assertTrue(store.isEscalated(8), "a striped counter stays");
+        assertEquals(70, store.get(7));
+        assertTrue(store.tryReserve(7, 70));
+        assertEquals(Map.of(7, 0, 8, 50), store.snapshot(1).toMap());
+        
+        // The freed entry is reused, and clearing drops every counter
+        assertTrue(store.escalate(7));
+        assertEquals(0, store.get(7));
+        assertEquals(50, store.get(8));
+        store.clear();
+        store.set(8, 5);
+        assertFalse(store.isEscalated(8));
+        assertTrue(store.escalate(8));
+        assertEquals(5, store.get(8));
+    }
+    
+    @Test
+    @DisplayName("Should share unchanged pages between snapshots")
+    void testSnapshotSharesPages() {
+        DenseStockStore store = new DenseStockStore();
+        int otherPage = DenseStockStore.PAGE_SIZE * 3;
+        store.set(1, 10);
+        store.set(otherPage, 20);
+        StockSnapshot first = store.snapshot(1);
+        
+        assertTrue(store.tryReserve(1, 4));
+        store.set(2, 5);
+        StockSnapshot second = store.snapshot(2);
+        
+        assertEquals(10, first.get(1));
+        assertEquals(6, second.get(1));
+        assertSame(first.page(3), second.page(3));
+        assertNotSame(first.page(0), second.page(0));
+        assertEquals(Map.of(1, 6, 2, 5), second.changesSince(first));
+        assertEquals(Map.of(1, 10, 2, StockStore.ABSENT), first.changesSince(second));
+        assertEquals(Map.of(1, 6, 2, 5, otherPage, 20), second.toMap());
+        assertEquals(3, second.size());
+    }
+    
+    @Test
+    @DisplayName("Should resolve escalated counters in snapshots")
+    void testSnapshotOfEscalatedProduct() {
+        DenseStockStore store = new DenseStockStore();
+        store.set(7, 100);
+        StockSnapshot before = store.snapshot(1);
+        
+        assertTrue(store.stripe(7));
+        assertTrue(store.tryReserve(7, 30));
+        StockSnapshot after = store.snapshot(2);
+        
+        assertEquals(70, after.get(7));
+        assertEquals(Map.of(7, 70), after.changesSince(before));
+        assertEquals(Map.of(), store.snapshot(3).changesSince(after));
+    }
+    
+    @Test
+    @DisplayName("Should never oversell while contended products are escalated")
+    void testNoOversellUnderContention() throws InterruptedException {
+        DenseStockStore store = new DenseStockStore(1);
+        int stock = 20_000;
+        store.set(1, stock);
+        int threads = 8;
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < stock; i++) {
+                    if (store.tryReserve(1, 1)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        assertEquals(stock, reserved.get());
+        assertEquals(0, store.get(1));
+    }
+    
+    @Test
+    @DisplayName("Should read products while they are being escalated")
+    void testReadDuringEscalation() throws InterruptedException {
+        DenseStockStore store = new DenseStockStore();
+        int products = 2_000;
+        int[] productIds = new int[products];
+        for (int i = 0; i < products; i++) {
+            productIds[i] = i;
+            store.set(i, 10);
+        }
+        AtomicInteger failures = new AtomicInteger();
+        Thread escalator = new Thread(() -> {
+            for (int i = 0; i < products; i++) {
+                store.stripe(i);
+            }
+        });
+        // Striping moves units between counters, so only the lookups are checked while it runs
+        Thread reader = new Thread(() -> {
+            try {
+                while (escalator.isAlive()) {
+                    store.getStocks(productIds);
+                    store.forEach((productId, stock) -> { });
+                }
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        });
+        
+        escalator.start();
+        reader.start();
+        escalator.join();
+        reader.join();
+        
+        assertEquals(0, failures.get());
+        assertTrue(store.isEscalated(products - 1));
+        for (int stock : store.getStocks(productIds)) {
+            assertEquals(10, stock);
+        }
+    }
+}
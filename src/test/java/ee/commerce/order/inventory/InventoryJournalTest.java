@@ -0,0 +1,176 @@
+package ee.commerce.order.inventory;
+
+import ee.commerce.order.model.InventoryManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InventoryJournal.
+ * Tests WAL replay, snapshots and recovery after unclean shutdowns.
+ */
+@DisplayName("Inventory Journal Tests")
+class InventoryJournalTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Should recover state from the WAL")
+    void testRecoverFromWal() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertTrue(journal.getRecoveredState().isEmpty());
+            journal.logSet(1, 10);
+            journal.logSet(2, 5);
+            journal.logDelta(1, -3);
+            journal.logDeltas(new int[] {1, 2}, new int[] {1, -5});
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(Map.of(1, 8, 2, 0), journal.getRecoveredState());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should recover from a snapshot plus the WAL tail")
+    void testSnapshotAndTail() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            journal.logSet(7, 100);
+            journal.snapshot();
+            assertEquals(1, journal.getGeneration());
+            journal.logDelta(7, -1);
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(Map.of(7, 99), journal.getRecoveredState());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should snapshot automatically when the WAL is full")
+    void testCompactionWhenFull() throws IOException {
+        int capacity = 16 + 16 * 8;
+        try (InventoryJournal journal = InventoryJournal.open(directory, capacity, 1_000)) {
+            journal.logSet(1, 0);
+            for (int i = 0; i < 100; i++) {
+                journal.logDelta(1, 1);
+            }
+            assertTrue(journal.getGeneration() > 0);
+            assertTrue(journal.getWalSize() <= capacity);
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory, capacity, 1_000)) {
+            assertEquals(Map.of(1, 100), journal.getRecoveredState());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should stop replay at a torn record")
+    void testTornTail() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            journal.logSet(1, 10);
+            journal.logDelta(1, -1);
+        }
+        // Corrupt the value of the second record, as if the write was torn
+        try (FileChannel channel = FileChannel.open(directory.resolve(InventoryJournal.WAL_FILE),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, -999), 16 + 16 + 8);
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(Map.of(1, 10), journal.getRecoveredState());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should keep every record of concurrent appends across WAL rotations")
+    void testConcurrentAppends() throws Exception {
+        int capacity = 16 + 16 * 64;
+        int threads = 8;
+        int appends = 2_000;
+        try (InventoryJournal journal = InventoryJournal.open(directory, capacity, 1)) {
+            journal.logSet(1, 0);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int productId = t + 2;
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < appends; i++) {
+                        journal.logDelta(1, 1);
+                        journal.logDeltas(new int[] {productId, productId}, new int[] {1, -1});
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertTrue(journal.getGeneration() > 2);
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory, capacity, 1)) {
+            Map<Integer, Integer> recovered = journal.getRecoveredState();
+            assertEquals(threads * appends, recovered.get(1));
+            for (int t = 0; t < threads; t++) {
+                assertEquals(0, recovered.get(t + 2));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should skip the gap left by an interrupted append")
+    void testGapInWal() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            journal.logSet(1, 10);
+            journal.logDelta(1, -1);
+            journal.logDelta(1, -2);
+            journal.logClear();
+            journal.logSet(2, 4);
+            journal.logDelta(2, -1);
+        }
+        // Zero the second record, as if its writer had claimed the space and then crashed
+        try (FileChannel channel = FileChannel.open(directory.resolve(InventoryJournal.WAL_FILE),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(16), 16 + 16);
+        }
+        
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(Map.of(2, 3), journal.getRecoveredState());
+            journal.logDelta(2, -1);
+        }
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(Map.of(2, 2), journal.getRecoveredState());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should keep inventory stock across restarts")
+    void testInventoryManagerJournal() throws IOException {
+        InventoryManager inventory = InventoryManager.getInstance();
+        int stock = inventory.getStock(5);
+        try {
+            inventory.attachJournal(directory);
+            assertTrue(inventory.reserveStock(5, 2));
+            assertTrue(inventory.reserveAll(Map.of(5, 1)).isSuccess());
+        } finally {
+            inventory.detachJournal();
+            inventory.releaseStock(5, 3);
+        }
+        
+        assertTrue(Files.exists(directory.resolve(InventoryJournal.WAL_FILE)));
+        try (InventoryJournal journal = InventoryJournal.open(directory)) {
+            assertEquals(stock - 3, journal.getRecoveredState().get(5));
+        }
+    }
+}
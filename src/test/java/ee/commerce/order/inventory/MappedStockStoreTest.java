@@ -0,0 +1,116 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MappedStockStore.
+ * Separate mappings of one file stand in for separate processes.
+ */
+@DisplayName("Mapped Stock Store Tests")
+class MappedStockStoreTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Should keep stock in the file across reopen")
+    void testPersistAcrossReopen() throws IOException {
+        Path file = directory.resolve("stock.dat");
+        try (MappedStockStore store = MappedStockStore.open(file, 100)) {
+            store.set(1, 10);
+            assertTrue(store.tryReserve(1, 3));
+            assertTrue(store.setIfAbsent(2, 5));
+            assertFalse(store.setIfAbsent(2, 50));
+        }
+        
+        try (MappedStockStore store = MappedStockStore.open(file, 1_000)) {
+            assertEquals(100, store.getCapacity());
+            assertEquals(7, store.get(1));
+            assertEquals(5, store.get(2));
+            assertEquals(2, store.size());
+            assertArrayEquals(new int[] {7, StockStore.ABSENT, StockStore.ABSENT},
+                store.getStocks(new int[] {1, 3, 100}));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should share stock between mappings of the same file")
+    void testSharedBetweenMappings() throws IOException {
+        Path file = directory.resolve("stock.dat");
+        try (MappedStockStore first = MappedStockStore.open(file, 10);
+             MappedStockStore second = MappedStockStore.open(file, 10)) {
+            first.set(4, 2);
+            
+            assertTrue(second.tryReserve(4, 2));
+            assertFalse(first.tryReserve(4, 1));
+            assertTrue(first.release(4, 1));
+            assertEquals(1, second.get(4));
+            
+            // Clearing would wipe the other mapping's stock too
+            assertThrows(IllegalStateException.class, first::clear);
+            assertEquals(1, second.get(4));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should never oversell across mappings")
+    void testNoOversellAcrossMappings() throws IOException, InterruptedException {
+        Path file = directory.resolve("stock.dat");
+        int stock = 10_000;
+        int threads = 8;
+        try (MappedStockStore first = MappedStockStore.open(file, 10);
+             MappedStockStore second = MappedStockStore.open(file, 10)) {
+            first.set(1, stock);
+            AtomicInteger reserved = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            
+            for (int t = 0; t < threads; t++) {
+                MappedStockStore store = t % 2 == 0 ? first : second;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < stock; i++) {
+                        if (store.tryReserve(1, 1)) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            
+            assertEquals(stock, reserved.get());
+            assertEquals(0, first.get(1));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should reject product IDs outside the capacity and foreign files")
+    void testInvalidInput() throws IOException {
+        try (MappedStockStore store = MappedStockStore.open(directory.resolve("stock.dat"), 10)) {
+            assertThrows(IllegalArgumentException.class, () -> store.set(10, 1));
+            assertThrows(IllegalArgumentException.class, () -> store.set(-1, 1));
+            assertEquals(StockStore.ABSENT, store.get(10));
+            assertFalse(store.tryReserve(10, 1));
+        }
+        
+        Path foreign = Files.write(directory.resolve("foreign.dat"), new byte[64]);
+        assertThrows(IOException.class, () -> MappedStockStore.open(foreign, 10));
+        assertThrows(IllegalArgumentException.class, () -> MappedStockStore.open(foreign, 0));
+    }
+}
@@ -0,0 +1,67 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MutationGate.
+ * Tests that closing waits for writers and holds new writers back.
+ */
+@DisplayName("Mutation Gate Tests")
+class MutationGateTest {
+    
+    @Test
+    @DisplayName("Should wait for writers inside and hold new writers back")
+    void testCloseWaitsForWriters() throws InterruptedException {
+        MutationGate gate = new MutationGate();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            gate.enter();
+            entered.countDown();
+            try {
+                leave.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                gate.exit();
+            }
+        });
+        writer.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        
+        AtomicBoolean closed = new AtomicBoolean();
+        Thread closer = new Thread(() -> {
+            gate.close();
+            closed.set(true);
+        });
+        closer.start();
+        Thread.sleep(50);
+        assertFalse(closed.get());
+        
+        leave.countDown();
+        closer.join(5_000);
+        assertTrue(closed.get());
+        
+        AtomicBoolean lateWriterEntered = new AtomicBoolean();
+        Thread lateWriter = new Thread(() -> {
+            gate.enter();
+            lateWriterEntered.set(true);
+            gate.exit();
+        });
+        lateWriter.start();
+        Thread.sleep(50);
+        assertFalse(lateWriterEntered.get());
+        
+        gate.open();
+        lateWriter.join(5_000);
+        assertTrue(lateWriterEntered.get());
+        writer.join(5_000);
+    }
+}
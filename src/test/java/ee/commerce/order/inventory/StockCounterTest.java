@@ -0,0 +1,154 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StockCounter.
+ * Tests striping, borrowing between stripes and the never-oversell guarantee.
+ */
+@DisplayName("Stock Counter Tests")
+class StockCounterTest {
+    
+    private static final long NEVER = Long.MAX_VALUE;
+    
+    @Test
+    @DisplayName("Should reserve and release on a single counter")
+    void testSingleCounter() {
+        StockCounter counter = new StockCounter(10);
+        
+        assertTrue(counter.tryReserve(4));
+        assertFalse(counter.tryReserve(7));
+        assertTrue(counter.release(1));
+        assertEquals(7, counter.get());
+        assertFalse(counter.isStriped());
+        assertFalse(counter.release(Integer.MAX_VALUE));
+    }
+    
+    @Test
+    @DisplayName("Should borrow from other stripes before refusing a reservation")
+    void testBorrowBetweenStripes() {
+        StockCounter counter = new StockCounter(10, 4, 1, 0, NEVER);
+        counter.stripe();
+        
+        assertTrue(counter.isStriped());
+        assertEquals(10, counter.get());
+        assertTrue(counter.tryReserve(10)); // more than any single stripe holds
+        assertEquals(0, counter.get());
+        assertFalse(counter.tryReserve(1));
+    }
+    
+    @Test
+    @DisplayName("Should stay striped when a reservation fails for lack of stock")
+    void testSoldOutKeepsStripes() {
+        StockCounter counter = new StockCounter(8, 4, 1, 0, NEVER);
+        counter.stripe();
+        
+        // Two units per stripe: the other stripes cover six, the home stripe the rest
+        assertTrue(counter.tryReserve(6));
+        assertTrue(counter.tryReserve(2));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(counter.tryReserve(1));
+        }
+        assertTrue(counter.isStriped());
+        assertTrue(counter.release(3));
+        assertTrue(counter.tryReserve(3));
+    }
+    
+    @Test
+    @DisplayName("Should reserve more than half the integer range from stripes")
+    void testLargeReservation() {
+        StockCounter counter = new StockCounter(Integer.MAX_VALUE, 2, 1, 0, NEVER);
+        counter.stripe();
+        
+        assertTrue(counter.tryReserve((1 << 30) + 1));
+        assertEquals(Integer.MAX_VALUE - (1 << 30) - 1, counter.get());
+        assertTrue(counter.tryReserve(counter.get()));
+        assertEquals(0, counter.get());
+    }
+    
+    @Test
+    @DisplayName("Should collapse stripes when traffic cools down")
+    void testCollapseWhenCool() throws InterruptedException {
+        StockCounter counter = new StockCounter(100, 4, 1, Long.MAX_VALUE, 1);
+        counter.stripe();
+        Thread.sleep(1);
+        
+        assertTrue(counter.tryReserve(1));
+        assertFalse(counter.isStriped());
+        assertEquals(99, counter.get());
+    }
+    
+    @Test
+    @DisplayName("Should switch to stripes under contention")
+    void testStripeUnderContention() throws InterruptedException {
+        StockCounter counter = new StockCounter(1_000_000, 4, 1, 0, NEVER);
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 20_000 && !counter.isStriped(); i++) {
+                counter.tryReserve(1);
+                counter.release(1);
+            }
+        });
+        
+        // Contention is likely but not guaranteed on a single core; the total must hold either way
+        assertEquals(1_000_000, counter.get());
+    }
+    
+    @Test
+    @DisplayName("Should never oversell in striped mode")
+    void testNeverOversell() throws InterruptedException {
+        int initialStock = 5_000;
+        StockCounter counter = new StockCounter(initialStock, 8, 1, 0, NEVER);
+        counter.stripe();
+        AtomicInteger reserved = new AtomicInteger();
+        
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 2_000; i++) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                if (counter.tryReserve(quantity)) {
+                    reserved.addAndGet(quantity);
+                }
+            }
+        });
+        
+        assertEquals(initialStock, reserved.get() + counter.get());
+        assertTrue(counter.get() < 3, "Stock left over although demand exceeded supply");
+    }
+    
+    @Test
+    @DisplayName("Should collapse stripes when the stock is replaced")
+    void testSetCollapses() {
+        StockCounter counter = new StockCounter(10, 2, 1, 0, NEVER);
+        counter.stripe();
+        counter.set(3);
+        
+        assertFalse(counter.isStriped());
+        assertEquals(3, counter.get());
+        assertThrows(IllegalArgumentException.class, () -> new StockCounter(1, 3, 1, 0, 1));
+    }
+    
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    task.run();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
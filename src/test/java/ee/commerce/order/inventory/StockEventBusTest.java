@@ -0,0 +1,239 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StockEventBus.
+ * Tests ordering, batching, back-pressure by dropping, low-stock overflow and
+ * concurrent publishers.
+ */
+@DisplayName("Stock Event Bus Tests")
+class StockEventBusTest {
+    
+    @Test
+    @DisplayName("Should deliver the events of a product in publication order")
+    void testDeliveryOrder() {
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(4, 16, 4)) {
+            bus.subscribe(received::addAll);
+            
+            assertTrue(bus.publish(StockEvent.Type.RESERVED, 1, 2, 8));
+            assertTrue(bus.publish(StockEvent.Type.RELEASED, 2, 5, 50));
+            assertTrue(bus.publish(StockEvent.Type.LOW_STOCK, 1, 0, 3));
+            assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+        }
+        
+        assertEquals(3, received.size());
+        List<StockEvent> product = new ArrayList<>();
+        for (StockEvent event : received) {
+            if (event.getProductId() == 1) {
+                product.add(event);
+            }
+        }
+        assertEquals(StockEvent.Type.RESERVED, product.get(0).getType());
+        assertEquals(8, product.get(0).getStockLevel());
+        assertEquals(StockEvent.Type.LOW_STOCK, product.get(1).getType());
+        assertTrue(product.get(1).getSequence() > product.get(0).getSequence());
+    }
+    
+    @Test
+    @DisplayName("Should sleep while idle and wake for the next event")
+    void testSleepWhileIdle() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(2);
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(1024, 16)) {
+            bus.subscribe(batch -> {
+                received.addAll(batch);
+                batch.forEach(event -> delivered.countDown());
+            });
+            assertTrue(bus.publish(StockEvent.Type.RESERVED, 1, 1, 9));
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!bus.isSleeping() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(bus.isSleeping());
+            
+            // A single event is far below the wake-up threshold, yet must not wait for another event
+            long before = System.currentTimeMillis();
+            assertTrue(bus.publish(StockEvent.Type.RELEASED, 1, 1, 10));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            // The clock was refreshed although the dispatcher was asleep
+            assertTrue(received.get(1).getTimestamp().toEpochMilli() >= before);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should drop events instead of blocking when full")
+    void testDropWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(4, 1)) {
+            bus.subscribe(batch -> {
+                received.addAll(batch);
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            
+            bus.publish(StockEvent.Type.SET, 1, 0, 1);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            int accepted = 0;
+            for (int i = 0; i < 10; i++) {
+                if (bus.publish(StockEvent.Type.RESERVED, 1, 1, 0)) {
+                    accepted++;
+                }
+            }
+            
+            assertEquals(4, accepted);
+            assertEquals(6, bus.getDroppedCount());
+            release.countDown();
+            assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+        }
+        assertEquals(5, received.size());
+    }
+    
+    @Test
+    @DisplayName("Should keep the latest low-stock event of each product when full")
+    void testLowStockNeverDropped() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(1, 2, 1)) {
+            bus.subscribe(batch -> {
+                received.addAll(batch);
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            
+            bus.publish(StockEvent.Type.SET, 1, 0, 1);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            assertTrue(bus.publish(StockEvent.Type.RESERVED, 1, 1, 5));
+            assertTrue(bus.publish(StockEvent.Type.RESERVED, 2, 1, 5));
+            assertFalse(bus.publish(StockEvent.Type.RESERVED, 1, 1, 4));
+            assertTrue(bus.publish(StockEvent.Type.LOW_STOCK, 1, 0, 3));
+            assertTrue(bus.publish(StockEvent.Type.LOW_STOCK, 1, 0, 2));
+            assertTrue(bus.publish(StockEvent.Type.LOW_STOCK, 2, 0, 4));
+            
+            assertEquals(1, bus.getDroppedCount());
+            // The SET event held by the listener, two in the ring and two low-stock events kept aside
+            assertEquals(5, bus.getPendingCount());
+            release.countDown();
+            assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+            assertEquals(0, bus.getPendingCount());
+        }
+        
+        assertEquals(5, received.size());
+        List<Integer> alerts = new ArrayList<>();
+        for (StockEvent event : received) {
+            if (event.getType() == StockEvent.Type.LOW_STOCK) {
+                alerts.add(event.getProductId() * 100 + event.getStockLevel());
+            }
+        }
+        Collections.sort(alerts);
+        assertEquals(List.of(102, 204), alerts);
+    }
+    
+    @Test
+    @DisplayName("Should deliver every event from concurrent publishers in batches")
+    void testConcurrentPublishers() throws InterruptedException {
+        int publishers = 4;
+        int perPublisher = 10_000;
+        int[] counts = new int[publishers];
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(1 << 10, 64)) {
+            bus.subscribe(batch -> {
+                batchSizes.add(batch.size());
+                for (StockEvent event : batch) {
+                    counts[event.getProductId()]++;
+                }
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(publishers);
+            for (int p = 0; p < publishers; p++) {
+                int productId = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < perPublisher; i++) {
+                        while (!bus.publish(StockEvent.Type.RESERVED, productId, 1, i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+            assertEquals(0, bus.getPendingCount());
+        }
+        
+        for (int count : counts) {
+            assertEquals(perPublisher, count);
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size > 0 && size <= 64));
+    }
+    
+    @Test
+    @DisplayName("Should deliver on a shared executor without a thread of its own")
+    void testExecutorDelivery() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "shared-worker"));
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try {
+            try (StockEventBus bus = new StockEventBus(executor, 2, 16, 4)) {
+                bus.subscribe(batch -> {
+                    threads.add(Thread.currentThread().getName());
+                    received.addAll(batch);
+                });
+                assertTrue(bus.isSleeping());
+                
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(bus.publish(StockEvent.Type.RESERVED, i % 3, 1, 100 - i));
+                }
+                assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+            }
+            assertEquals(10, received.size());
+            assertTrue(threads.stream().allMatch("shared-worker"::equals));
+            assertThrows(IllegalArgumentException.class, () -> new StockEventBus((ExecutorService) null));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    @DisplayName("Should keep delivering after a listener fails")
+    void testFailingListener() {
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (StockEventBus bus = new StockEventBus(16, 16)) {
+            bus.subscribe(batch -> {
+                throw new IllegalStateException("listener failure");
+            });
+            bus.subscribe(received::addAll);
+            
+            bus.publish(StockEvent.Type.RELEASED, 1, 1, 1);
+            bus.publish(StockEvent.Type.RELEASED, 1, 1, 2);
+            assertTrue(bus.awaitDelivery(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, received.size());
+        assertThrows(IllegalArgumentException.class, () -> new StockEventBus(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StockEventBus(3, 16, 1));
+    }
+}
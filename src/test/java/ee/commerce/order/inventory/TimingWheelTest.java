@@ -0,0 +1,90 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel.
+ * Uses explicit timestamps, so no test depends on the wall clock.
+ */
+@DisplayName("Timing Wheel Tests")
+class TimingWheelTest {
+    
+    private static final long START = 1_000_000L;
+    
+    @Test
+    @DisplayName("Should expire timeouts at their deadline, never earlier")
+    void testExpiresAtDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, START);
+        List<String> expired = new ArrayList<>();
+        wheel.schedule("a", START + 25);
+        wheel.schedule("b", START + 100);
+        
+        assertEquals(0, wheel.advance(START + 20, expired::add));
+        assertEquals(1, wheel.advance(START + 30, expired::add));
+        assertEquals(List.of("a"), expired);
+        assertEquals(1, wheel.size());
+        
+        wheel.advance(START + 100, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    @DisplayName("Should cascade timeouts from higher levels")
+    void testCascadeAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, START);
+        long[] delays = {1, 255, 256, 257, 65_535, 65_536, 70_000, 16_777_300};
+        for (long delay : delays) {
+            wheel.schedule(delay, START + delay);
+        }
+        
+        List<Long> expired = new ArrayList<>();
+        for (long delay : delays) {
+            wheel.advance(START + delay - 1, expired::add);
+            assertFalse(expired.contains(delay), "Expired early: " + delay);
+            wheel.advance(START + delay, expired::add);
+            assertTrue(expired.contains(delay), "Not expired: " + delay);
+        }
+        assertEquals(delays.length, expired.size());
+    }
+    
+    @Test
+    @DisplayName("Should not expire cancelled timeouts")
+    void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, START);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("a", START + 50);
+        wheel.schedule("b", START + 50);
+        
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START + 60, expired::add);
+        assertEquals(List.of("b"), expired);
+    }
+    
+    @Test
+    @DisplayName("Should handle many timeouts")
+    void testManyTimeouts() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, START);
+        int count = 200_000;
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(i, START + 1 + (i * 7L) % 100_000);
+        }
+        
+        int[] expired = {0};
+        wheel.advance(START + 50_000, value -> expired[0]++);
+        int early = expired[0];
+        wheel.advance(START + 100_000, value -> expired[0]++);
+        
+        assertTrue(early > 0 && early < count);
+        assertEquals(count, expired[0]);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,109 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WarehouseStockStore.
+ */
+@DisplayName("Warehouse Stock Store Tests")
+class WarehouseStockStoreTest {
+    
+    private static final int TALLINN = 0;
+    private static final int TARTU = 1;
+    private static final int PARNU = 2;
+    private static final int SOUTH = 1;
+    
+    private WarehouseStock warehouses;
+    private WarehouseStockStore store;
+    
+    @BeforeEach
+    void setUp() {
+        warehouses = WarehouseStock.parse("TLN,TRT,PRN", "1,5,3;6,1,4");
+        store = new WarehouseStockStore(warehouses, SOUTH);
+    }
+    
+    @Test
+    @DisplayName("Should report totals over all warehouses")
+    void testTotals() {
+        warehouses.setStock(TALLINN, 1, 3);
+        warehouses.setStock(PARNU, 1, 4);
+        warehouses.setStock(TARTU, 2, 0);
+        
+        assertEquals(7, store.get(1));
+        assertEquals(0, store.get(2));
+        assertEquals(StockStore.ABSENT, store.get(3));
+        assertEquals(2, store.size());
+        
+        List<Integer> visited = new ArrayList<>();
+        store.forEach((productId, quantity) -> visited.add(productId * 100 + quantity));
+        assertEquals(List.of(107, 200), visited);
+    }
+    
+    @Test
+    @DisplayName("Should return released units to the warehouses that shipped them")
+    void testReserveAndRelease() {
+        warehouses.setStock(TALLINN, 1, 3);
+        warehouses.setStock(PARNU, 1, 4);
+        
+        assertTrue(store.tryReserve(1, 5));
+        // South is served from Tartu, Pärnu, Tallinn: Pärnu alone cannot ship 5, so the split empties it first
+        assertEquals(0, warehouses.getStock(PARNU, 1));
+        assertEquals(2, warehouses.getStock(TALLINN, 1));
+        assertEquals(4, store.getOutstanding(PARNU, 1));
+        assertEquals(1, store.getOutstanding(TALLINN, 1));
+        assertFalse(store.tryReserve(1, 3));
+        
+        assertTrue(store.release(1, 4));
+        assertTrue(store.release(1, 1));
+        assertEquals(4, warehouses.getStock(PARNU, 1));
+        assertEquals(3, warehouses.getStock(TALLINN, 1));
+        assertEquals(0, store.getOutstanding(PARNU, 1));
+        
+        // Units nobody reserved, e.g. a restock, go to the cheapest warehouse carrying the product
+        assertTrue(store.release(1, 2));
+        assertEquals(6, warehouses.getStock(PARNU, 1));
+        assertFalse(store.release(9, 1));
+    }
+    
+    @Test
+    @DisplayName("Should spread stock set through the store over all warehouses")
+    void testSet() {
+        warehouses.setStock(TALLINN, 1, 3);
+        
+        assertFalse(store.setIfAbsent(1, 10));
+        assertTrue(store.setIfAbsent(2, 10));
+        assertEquals(4, warehouses.getStock(TARTU, 2));
+        assertEquals(3, warehouses.getStock(PARNU, 2));
+        assertEquals(3, warehouses.getStock(TALLINN, 2));
+        
+        store.set(1, 6);
+        assertEquals(2, warehouses.getStock(TALLINN, 1));
+        assertEquals(6, store.get(1));
+        
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0L, warehouses.getAvailability(1));
+        assertThrows(IllegalArgumentException.class, () -> new WarehouseStockStore(warehouses, 2));
+    }
+    
+    @Test
+    @DisplayName("Should seed warehouse stock from configuration")
+    void testSeed() {
+        warehouses.seed("TLN:1=5,2=10; TRT:1=7");
+        
+        assertEquals(5, warehouses.getStock(TALLINN, 1));
+        assertEquals(7, warehouses.getStock(TARTU, 1));
+        assertEquals(10, warehouses.getStock(TALLINN, 2));
+        assertFalse(store.setIfAbsent(1, 100));
+        assertEquals(12, store.get(1));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.seed("XYZ:1=5"));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.seed("TLN:1"));
+    }
+}
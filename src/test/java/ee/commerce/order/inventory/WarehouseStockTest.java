@@ -0,0 +1,181 @@
+package ee.commerce.order.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WarehouseStock allocation.
+ */
+@DisplayName("Warehouse Stock Tests")
+class WarehouseStockTest {
+    
+    private static final int TALLINN = 0;
+    private static final int TARTU = 1;
+    private static final int PARNU = 2;
+    private static final int NORTH = 0;
+    private static final int SOUTH = 1;
+    
+    private WarehouseStock warehouses;
+    
+    @BeforeEach
+    void setUp() {
+        warehouses = new WarehouseStock(new String[] {"TLN", "TRT", "PRN"}, new int[][] {
+            {1, 5, 3},  // north: Tallinn, Pärnu, Tartu
+            {6, 1, 4}   // south: Tartu, Pärnu, Tallinn
+        });
+    }
+    
+    @Test
+    @DisplayName("Should rank warehouses by shipping cost per zone")
+    void testRoutes() {
+        assertArrayEquals(new int[] {TALLINN, PARNU, TARTU}, warehouses.getRoute(NORTH));
+        assertArrayEquals(new int[] {TARTU, PARNU, TALLINN}, warehouses.getRoute(SOUTH));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new WarehouseStock(new String[] {"TLN", "TRT"}, new int[][] {{1}}));
+    }
+    
+    @Test
+    @DisplayName("Should ship from the cheapest warehouse that has everything")
+    void testSingleWarehouse() {
+        warehouses.setStock(TALLINN, 1, 2);
+        warehouses.setStock(PARNU, 1, 10);
+        
+        Allocation north = warehouses.allocate(1, 2, NORTH);
+        assertFalse(north.isSplit());
+        assertEquals(TALLINN, north.getWarehouse(0));
+        assertEquals(0, warehouses.getStock(TALLINN, 1));
+        
+        // Tartu has nothing, so the south zone falls back to Pärnu
+        Allocation south = warehouses.allocate(1, 3, SOUTH);
+        assertEquals(PARNU, south.getWarehouse(0));
+        assertEquals(7, warehouses.getTotalStock(1));
+        assertEquals(1L << PARNU, warehouses.getAvailability(1));
+    }
+    
+    @Test
+    @DisplayName("Should split over warehouses in cost order only when needed")
+    void testSplit() {
+        warehouses.setStock(TALLINN, 1, 3);
+        warehouses.setStock(TARTU, 1, 4);
+        warehouses.setStock(PARNU, 1, 2);
+        
+        Allocation allocation = warehouses.allocate(1, 6, NORTH);
+        assertTrue(allocation.isSplit());
+        assertEquals(6, allocation.getQuantity());
+        assertEquals(TALLINN, allocation.getWarehouse(0));
+        assertEquals(3, allocation.getQuantity(0));
+        assertEquals(PARNU, allocation.getWarehouse(1));
+        assertEquals(TARTU, allocation.getWarehouse(2));
+        assertEquals(1, allocation.getQuantity(2));
+        
+        warehouses.release(allocation);
+        assertEquals(3, warehouses.getStock(TALLINN, 1));
+        assertEquals(4, warehouses.getStock(TARTU, 1));
+        assertEquals(2, warehouses.getStock(PARNU, 1));
+    }
+    
+    @Test
+    @DisplayName("Should take nothing when all warehouses together are short")
+    void testShortage() {
+        warehouses.setStock(TALLINN, 1, 3);
+        warehouses.setStock(TARTU, 1, 4);
+        
+        assertNull(warehouses.allocate(1, 8, NORTH));
+        assertEquals(3, warehouses.getStock(TALLINN, 1));
+        assertEquals(4, warehouses.getStock(TARTU, 1));
+        assertNull(warehouses.allocate(99, 1, NORTH));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.allocate(1, 0, NORTH));
+    }
+    
+    @Test
+    @DisplayName("Should allocate a basket all or nothing")
+    void testAllocateAll() {
+        warehouses.setStock(TARTU, 1, 5);
+        warehouses.setStock(TALLINN, 2, 1);
+        
+        assertNull(warehouses.allocateAll(Map.of(1, 5, 2, 2), SOUTH));
+        assertEquals(5, warehouses.getTotalStock(1));
+        assertEquals(1, warehouses.getTotalStock(2));
+        
+        Map<Integer, Allocation> basket = warehouses.allocateAll(Map.of(1, 5, 2, 1), SOUTH);
+        assertEquals(TARTU, basket.get(1).getWarehouse(0));
+        assertEquals(TALLINN, basket.get(2).getWarehouse(0));
+        assertEquals(0, warehouses.getTotalStock(1));
+        assertEquals(0L, warehouses.getAvailability(2));
+        
+        assertTrue(warehouses.release(TARTU, 1, 2));
+        assertEquals(1L << TARTU, warehouses.getAvailability(1));
+        assertFalse(warehouses.release(PARNU, 1, 2));
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown zones and warehouses")
+    void testInvalidIndexes() {
+        warehouses.setStock(TALLINN, 1, 3);
+        
+        assertThrows(IllegalArgumentException.class, () -> warehouses.allocate(1, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.allocate(1, 1, -1));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.allocateAll(Map.of(1, 1), 5));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.getRoute(2));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.setStock(3, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.getStock(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> warehouses.release(3, 1, 1));
+        assertEquals(3, warehouses.getTotalStock(1));
+    }
+    
+    @Test
+    @DisplayName("Should parse warehouses and shipping costs from configuration")
+    void testParse() {
+        WarehouseStock parsed = WarehouseStock.parse("TLN, TRT,PRN", "1,5,3; 6,1,4");
+        
+        assertEquals(3, parsed.getWarehouseCount());
+        assertEquals("TRT", parsed.getCode(TARTU));
+        assertArrayEquals(warehouses.getRoute(SOUTH), parsed.getRoute(SOUTH));
+        assertThrows(IllegalArgumentException.class, () -> WarehouseStock.parse("TLN,TRT", "1,x"));
+        assertThrows(IllegalArgumentException.class, () -> WarehouseStock.parse("TLN,TRT", "1,2;3"));
+        assertThrows(IllegalArgumentException.class, () -> WarehouseStock.parse("TLN", null));
+    }
+    
+    @Test
+    @DisplayName("Should never oversell across warehouses under contention")
+    void testConcurrentAllocations() throws InterruptedException {
+        warehouses.setStock(TALLINN, 1, 50);
+        warehouses.setStock(TARTU, 1, 30);
+        warehouses.setStock(PARNU, 1, 20);
+        AtomicInteger allocated = new AtomicInteger();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            int zone = i % 2;
+            int quantity = 1 + i % 3;
+            executor.submit(() -> {
+                try {
+                    Allocation allocation = warehouses.allocate(1, quantity, zone);
+                    if (allocation != null) {
+                        allocated.addAndGet(allocation.getQuantity());
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        assertEquals(100 - allocated.get(), warehouses.getTotalStock(1));
+        assertTrue(allocated.get() >= 98);
+        assertEquals(warehouses.getTotalStock(1) > 0, warehouses.getAvailability(1) != 0);
+    }
+}
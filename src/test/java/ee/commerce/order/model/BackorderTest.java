@@ -0,0 +1,172 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for backorders: requests that wait in line for stock.
+ */
+@DisplayName("Backorder Tests")
+class BackorderTest {
+    
+    private static final int PRODUCT = 2;
+    
+    private InventoryManager inventory;
+    
+    @BeforeEach
+    void setUp() {
+        inventory = InventoryManager.getInstance();
+    }
+    
+    @Test
+    @DisplayName("Should reserve at once when stock is available")
+    void testImmediateReservation() {
+        int stock = inventory.getStock(PRODUCT);
+        Backorder backorder = inventory.reserveOrBackorder(PRODUCT, 1);
+        
+        assertTrue(backorder.isFulfilled());
+        assertTrue(backorder.getFulfillment().isDone());
+        assertEquals(stock - 1, inventory.getStock(PRODUCT));
+        assertFalse(backorder.cancel());
+        
+        inventory.releaseStock(PRODUCT, 1);
+    }
+    
+    @Test
+    @DisplayName("Should fulfil waiting backorders in order when stock is released")
+    void testFifoFulfillment() throws Exception {
+        int stock = inventory.getStock(PRODUCT);
+        assertTrue(inventory.reserveStock(PRODUCT, stock));
+        
+        Backorder first = inventory.reserveOrBackorder(PRODUCT, 2);
+        Backorder second = inventory.reserveOrBackorder(PRODUCT, 1);
+        assertEquals(Backorder.State.WAITING, first.getState());
+        assertEquals(2, inventory.getBackorderCount(PRODUCT));
+        
+        // Not enough for the head of the line: the second backorder must not overtake it
+        inventory.releaseStock(PRODUCT, 1);
+        assertFalse(first.getFulfillment().isDone());
+        assertFalse(second.getFulfillment().isDone());
+        
+        inventory.releaseAll(Map.of(PRODUCT, 2));
+        assertSame(first, first.getFulfillment().get(1, TimeUnit.SECONDS));
+        assertTrue(second.isFulfilled());
+        assertEquals(0, inventory.getStock(PRODUCT));
+        assertEquals(0, inventory.getBackorderCount(PRODUCT));
+        
+        inventory.releaseStock(PRODUCT, stock);
+        assertEquals(stock, inventory.getStock(PRODUCT));
+    }
+    
+    @Test
+    @DisplayName("Should not let plain reservations overtake waiting backorders")
+    void testNoOvertaking() {
+        InventoryManager store = new InventoryManager("backorder-overtake", Map.of(7, 1, 8, 5));
+        try {
+            Backorder backorder = store.reserveOrBackorder(7, 3);
+            assertEquals(Backorder.State.WAITING, backorder.getState());
+            
+            // Released units are not enough for the waiting backorder, yet must stay for it
+            assertTrue(store.releaseStock(7, 1));
+            assertEquals(2, store.getStock(7));
+            assertFalse(store.reserveStock(7, 1));
+            InventoryManager.ReservationResult basket = store.reserveAll(Map.of(7, 1, 8, 1));
+            assertFalse(basket.isSuccess());
+            assertTrue(basket.isShort(7));
+            assertEquals(5, store.getStock(8));
+            
+            assertTrue(store.releaseStock(7, 1));
+            assertTrue(backorder.isFulfilled());
+            assertTrue(store.reserveStock(8, 1));
+        } finally {
+            store.shutdown();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should wake a thread waiting for its backorder")
+    void testWaitingThread() throws Exception {
+        int stock = inventory.getStock(PRODUCT);
+        assertTrue(inventory.reserveStock(PRODUCT, stock));
+        Backorder backorder = inventory.reserveOrBackorder(PRODUCT, 1);
+        
+        Thread releaser = new Thread(() -> inventory.releaseStock(PRODUCT, stock + 1));
+        releaser.start();
+        
+        assertTrue(backorder.getFulfillment().get(5, TimeUnit.SECONDS).isFulfilled());
+        releaser.join();
+        assertEquals(stock, inventory.getStock(PRODUCT));
+        inventory.releaseStock(PRODUCT, 1);
+    }
+    
+    @Test
+    @DisplayName("Should skip cancelled backorders")
+    void testCancel() {
+        int stock = inventory.getStock(PRODUCT);
+        assertTrue(inventory.reserveStock(PRODUCT, stock));
+        Backorder cancelled = inventory.reserveOrBackorder(PRODUCT, 1);
+        Backorder waiting = inventory.reserveOrBackorder(PRODUCT, 1);
+        
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(Backorder.State.CANCELLED, cancelled.getState());
+        assertTrue(cancelled.getFulfillment().isCancelled());
+        
+        inventory.releaseStock(PRODUCT, 1);
+        assertTrue(waiting.isFulfilled());
+        assertEquals(0, inventory.getStock(PRODUCT));
+        
+        inventory.releaseStock(PRODUCT, stock + 1);
+    }
+    
+    @Test
+    @DisplayName("Should refuse backorders for unknown products and invalid quantities")
+    void testInvalidBackorders() {
+        assertNull(inventory.reserveOrBackorder(999, 1));
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserveOrBackorder(PRODUCT, 0));
+    }
+    
+    @Test
+    @DisplayName("Should fulfil waiting backorders from restocked units")
+    void testRestock() {
+        InventoryManager store = new InventoryManager("backorder-restock", Map.of(7, 0));
+        try {
+            Backorder backorder = store.reserveOrBackorder(7, 3);
+            assertEquals(Backorder.State.WAITING, backorder.getState());
+            
+            assertTrue(store.restock(7, 5));
+            assertTrue(backorder.isFulfilled());
+            assertEquals(2, store.getStock(7));
+            
+            // A product without stock yet starts with the delivered units
+            assertTrue(store.restock(8, 4));
+            assertEquals(4, store.getStock(8));
+            assertFalse(store.restock(8, 0));
+        } finally {
+            store.shutdown();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should fulfil waiting backorders when the inventory is reset")
+    void testReset() {
+        InventoryManager store = new InventoryManager("backorder-reset", Map.of(7, 2));
+        try {
+            assertTrue(store.reserveStock(7, 2));
+            Backorder backorder = store.reserveOrBackorder(7, 1);
+            
+            store.resetInventory();
+            
+            assertTrue(backorder.isFulfilled());
+            assertEquals(1, store.getStock(7));
+        } finally {
+            store.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ee.commerce.order.model;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Cart.
+ * Verifies incrementally maintained totals and checkout as one order.
+ */
+@DisplayName("Cart Tests")
+class CartTest {
+    
+    private Cart cart;
+    private Product laptop;
+    private Product book;
+    
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        laptop = new Product(1, "Sülearvuti", new BigDecimal("899.99"), null);
+        book = new Product(4, "Raamat", new BigDecimal("24.99"), null);
+    }
+    
+    @Test
+    @DisplayName("Should keep totals up to date on add, change and remove")
+    void testIncrementalTotals() {
+        int laptopLine = cart.addLine(laptop, 1);
+        Order wrappedBook = new GiftWrappingDecorator(new BasicOrder(book.getName(), book.getPrice()));
+        int bookLine = cart.addLine(book.getId(), wrappedBook, 2);
+        
+        assertEquals(89_999L + 2 * 2_999L, cart.calculateTotalCents());
+        assertEquals(new BigDecimal("959.97"), cart.calculateTotal());
+        assertEquals(3, cart.getItemCount());
+        assertEquals(2, cart.getLineCount());
+        
+        cart.setQuantity(bookLine, 5);
+        assertEquals(89_999L + 5 * 2_999L, cart.calculateTotalCents());
+        assertEquals(6, cart.getItemCount());
+        
+        assertTrue(cart.removeLine(laptopLine));
+        assertFalse(cart.removeLine(laptopLine));
+        assertEquals(5 * 2_999L, cart.calculateTotalCents());
+        assertEquals(0, cart.getQuantity(laptop.getId()));
+        
+        cart.setQuantity(bookLine, 0);
+        assertTrue(cart.isEmpty());
+        assertEquals(0L, cart.calculateTotalCents());
+        assertEquals(0, cart.getItemCount());
+    }
+    
+    @Test
+    @DisplayName("Should keep services per line and sum quantities per product")
+    void testLinesPerProduct() {
+        cart.addLine(book, 1);
+        cart.addLine(book.getId(), new GiftWrappingDecorator(new BasicOrder(book.getName(), book.getPrice())), 2);
+        
+        assertEquals(Map.of(book.getId(), 3), cart.getProductQuantities());
+        assertEquals("Raamat, 2 x Raamat + Kingituspakend", cart.getDescription());
+    }
+    
+    @Test
+    @DisplayName("Should check out a cart as one complete order")
+    void testCompleteOrderFromCart() {
+        int line = cart.addLine(laptop, 2);
+        cart.addLine(book, 1);
+        
+        CompleteOrder order = new CompleteOrder(cart);
+        cart.setQuantity(line, 10);
+        
+        assertEquals(2 * 89_999L + 2_499L, order.getTotalCents());
+        assertEquals(2, order.getLines().size());
+        assertEquals(laptop.getId(), order.getProductId());
+        assertEquals(Map.of(laptop.getId(), 2, book.getId(), 1), order.getProductQuantities());
+        assertEquals("2 x Sülearvuti, Raamat", order.getDescription());
+    }
+    
+    @Test
+    @DisplayName("Should reject invalid input")
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> cart.addLine(laptop, 0));
+        assertThrows(IllegalArgumentException.class, () -> cart.addLine(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> cart.setQuantity(42, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CompleteOrder(cart));
+    }
+}
@@ -0,0 +1,181 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogLoader.
+ */
+@DisplayName("Catalog Loader Tests")
+class CatalogLoaderTest {
+    
+    @TempDir
+    Path directory;
+    
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    private static List<Product> read(CatalogLoader loader, Path file, List<CatalogLoader.LoadReport> reports) throws IOException {
+        List<Product> products = new ArrayList<>();
+        reports.add(loader.read(file, CatalogLoader.Format.of(file), products::addAll));
+        return products;
+    }
+    
+    @Test
+    @DisplayName("Should parse CSV with header, quotes, emoji and Estonian letters")
+    void testCsv() throws IOException {
+        Path file = write("catalog.csv",
+            "﻿id,name,price,description\r\n"
+            + "1,\"💻 Sülearvuti, 14\"\"\",899.99,\"Õhuke ja kerge\"\r\n"
+            + "\r\n"
+            + "2, Hiir ,25,\n"
+            + "3,Klaviatuur,45.5\n"
+            + "4,Kaabel,0.005,Liiga täpne hind\n");
+        List<CatalogLoader.LoadReport> reports = new ArrayList<>();
+        
+        List<Product> products = read(new CatalogLoader(2), file, reports);
+        
+        assertEquals(4, products.size());
+        assertEquals("💻 Sülearvuti, 14\"", products.get(0).getName());
+        assertEquals(new BigDecimal("899.99"), products.get(0).getPrice());
+        assertEquals("Õhuke ja kerge", products.get(0).getDescription());
+        assertEquals("Hiir", products.get(1).getName());
+        assertEquals(new BigDecimal("25.00"), products.get(1).getPrice());
+        assertEquals(new BigDecimal("45.50"), products.get(2).getPrice());
+        assertEquals(new BigDecimal("0.005"), products.get(3).getPrice());
+        assertEquals(4, reports.get(0).getRows());
+        assertEquals(0, reports.get(0).getSkipped());
+    }
+    
+    @Test
+    @DisplayName("Should skip and count malformed rows")
+    void testMalformedRows() throws IOException {
+        Path file = write("catalog.csv",
+            "1,Hiir,25.00\n"
+            + "x,Vigane ID,1.00\n"
+            + "2,,1.00\n"
+            + "3,Negatiivne,-1.00\n"
+            + "4,Ilma hinnata\n"
+            + "5,Klaviatuur,45.50\n");
+        List<CatalogLoader.LoadReport> reports = new ArrayList<>();
+        
+        List<Product> products = read(new CatalogLoader(1), file, reports);
+        
+        assertEquals(2, products.size());
+        assertEquals(5, products.get(1).getId());
+        assertEquals(6, reports.get(0).getRows());
+        assertEquals(2, reports.get(0).getLoaded());
+        assertEquals(4, reports.get(0).getSkipped());
+    }
+    
+    @Test
+    @DisplayName("Should skip rows with exponent, overflowing or overlong prices")
+    void testUnboundedPrices() throws IOException {
+        Path file = write("catalog.csv",
+            "1,Hiir,25.00\n"
+            + "2,Eksponent,1e30\n"
+            + "3,Suur eksponent,1E999999999\n"
+            + "4,Ületäitumine,-123456789012345678901\n"
+            + "5,Liiga täpne,1e-20\n"
+            + "6,Klaviatuur,45.50\n"
+            + "7,Liiga pikk,0.000000000000000000000000000000001\n"
+            + "8,Väike eksponent,1.5E2\n"
+            + "9,Ületäitumine sentides,123456789012345678\n");
+        List<CatalogLoader.LoadReport> reports = new ArrayList<>();
+        
+        List<Product> products = read(new CatalogLoader(1), file, reports);
+        
+        assertEquals(3, products.size());
+        assertEquals(6, products.get(1).getId());
+        assertEquals(0, new BigDecimal("150").compareTo(products.get(2).getPrice()));
+        assertEquals(9, reports.get(0).getRows());
+        assertEquals(6, reports.get(0).getSkipped());
+    }
+    
+    @Test
+    @DisplayName("Should parse JSON lines with escapes and unknown keys")
+    void testJsonLines() throws IOException {
+        Path file = write("catalog.jsonl",
+            "{\"id\": 1, \"name\": \"\\ud83d\\udcbb S\\u00fclearvuti \\\"Pro\\\"\", \"price\": 899.99, \"tags\": \"x\"}\n"
+            + "{\"price\": \"12.5\", \"description\": null, \"name\": \"Tõlkija\", \"id\": 2}\n"
+            + "{\"id\": 3, \"name\": \"Katki\"\n"
+            + "{\"id\": 4, \"name\": \"Väike\", \"price\": 1e1, \"description\": \"rida\\nteine\"}\n");
+        List<CatalogLoader.LoadReport> reports = new ArrayList<>();
+        
+        List<Product> products = read(new CatalogLoader(1), file, reports);
+        
+        assertEquals(3, products.size());
+        assertEquals("💻 Sülearvuti \"Pro\"", products.get(0).getName());
+        assertEquals(new BigDecimal("12.50"), products.get(1).getPrice());
+        assertEquals("", products.get(1).getDescription());
+        assertEquals("Tõlkija", products.get(1).getName());
+        assertEquals(0, new BigDecimal("10").compareTo(products.get(2).getPrice()));
+        assertEquals("rida\nteine", products.get(2).getDescription());
+        assertEquals(1, reports.get(0).getSkipped());
+    }
+    
+    @Test
+    @DisplayName("Should parse many chunks in parallel and keep file order")
+    void testParallelChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,price,description\n");
+        int count = 20_000;
+        for (int i = 1; i <= count; i++) {
+            csv.append(i).append(",\"Toode ").append(i).append("\",").append(i % 100).append(".99,Kirjeldus\n");
+        }
+        Path file = write("large.csv", csv.toString());
+        List<CatalogLoader.LoadReport> reports = new ArrayList<>();
+        
+        List<Product> products = read(new CatalogLoader(4, 4096), file, reports);
+        
+        CatalogLoader.LoadReport report = reports.get(0);
+        assertTrue(report.getChunks() > 100);
+        assertEquals(count, report.getRows());
+        assertEquals(count, products.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, products.get(i).getId());
+        }
+        assertEquals(Files.size(file), report.getBytes());
+        assertTrue(report.getRowsPerSecond() > 0);
+    }
+    
+    @Test
+    @DisplayName("Should load products into the catalog")
+    void testLoadIntoCatalog() throws IOException {
+        Path file = write("extra.ndjson",
+            "{\"id\": 900001, \"name\": \"Laadija\", \"price\": 19.99}\n"
+            + "{\"id\": 900002, \"name\": \"Kõrvaklapid\", \"price\": 59.00}\n");
+        int before = ProductCatalog.size();
+        try {
+            CatalogLoader.LoadReport report = new CatalogLoader().load(file);
+            
+            assertEquals(2, report.getLoaded());
+            assertEquals(before + 2, ProductCatalog.size());
+            assertEquals("Kõrvaklapid", ProductCatalog.getProductById(900002).getName());
+        } finally {
+            ProductCatalog.removeProduct(900001);
+            ProductCatalog.removeProduct(900002);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown file extensions")
+    void testUnknownFormat() {
+        assertEquals(CatalogLoader.Format.CSV, CatalogLoader.Format.of(Path.of("Tooted.CSV")));
+        assertThrows(IllegalArgumentException.class, () -> CatalogLoader.Format.of(Path.of("tooted.xml")));
+        assertThrows(IllegalArgumentException.class, () -> new CatalogLoader(0));
+    }
+}
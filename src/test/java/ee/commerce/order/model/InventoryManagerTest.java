@@ -1,13 +1,26 @@
 package ee.commerce.order.model;
 
+import ee.commerce.order.inventory.StockEvent;
+import ee.commerce.order.inventory.StockEventListener;
+import ee.commerce.order.inventory.StockSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,6 +69,97 @@ class InventoryManagerTest {
         assertEquals(0, inventory.getStock(999));
     }
     
+    @Test
+    @DisplayName("Should get stock of many products at once")
+    void testGetStocks() {
+        int[] stocks = inventory.getStocks(new int[] {1, 999, 4});
+        
+        assertArrayEquals(new int[] {inventory.getStock(1), 0, inventory.getStock(4)}, stocks);
+    }
+    
+    @Test
+    @DisplayName("Should publish reservation and low-stock events")
+    void testStockEvents() {
+        int productId = 5;
+        List<StockEvent> received = Collections.synchronizedList(new ArrayList<>());
+        StockEventListener listener = received::addAll;
+        inventory.getEventBus().subscribe(listener);
+        int quantity = inventory.getStock(productId);
+        try {
+            assertTrue(inventory.reserveStock(productId, quantity));
+            assertTrue(inventory.releaseStock(productId, quantity));
+            assertTrue(inventory.getEventBus().awaitDelivery(5, TimeUnit.SECONDS));
+        } finally {
+            inventory.getEventBus().unsubscribe(listener);
+        }
+        
+        List<StockEvent.Type> types = new ArrayList<>();
+        for (StockEvent event : received) {
+            if (event.getProductId() == productId) {
+                types.add(event.getType());
+            }
+        }
+        assertEquals(List.of(StockEvent.Type.RESERVED, StockEvent.Type.LOW_STOCK, StockEvent.Type.RELEASED), types);
+    }
+    
+    @Test
+    @DisplayName("Should return only products changed since a snapshot")
+    void testChangesSince() {
+        StockSnapshot before = inventory.snapshot();
+        assertEquals(inventory.getStock(2), before.get(2));
+        
+        assertTrue(inventory.reserveStock(2, 1));
+        InventoryManager.StockChanges changes = inventory.getChangesSince(before.getVersion());
+        assertTrue(inventory.releaseStock(2, 1));
+        InventoryManager.StockChanges next = inventory.getChangesSince(changes.getVersion());
+        
+        assertEquals(Map.of(2, before.get(2) - 1), changes.getChanges());
+        assertEquals(before.get(2) - 1, changes.getSnapshot().get(2));
+        assertEquals(Map.of(2, before.get(2)), next.getChanges());
+        assertThrows(IllegalArgumentException.class, () -> inventory.getChangesSince(-1));
+    }
+    
+    @Test
+    @DisplayName("Should copy the inventory without using up retained snapshot versions")
+    void testGetAllInventoryKeepsVersions() {
+        StockSnapshot before = inventory.snapshot();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(before.get(1), inventory.getAllInventory().get(1));
+        }
+        
+        assertTrue(inventory.getChangesSince(before.getVersion()).getChanges().isEmpty());
+        assertEquals(before.getVersion() + 2, inventory.snapshot().getVersion());
+    }
+    
+    @Test
+    @DisplayName("Should never show half of a basket in a snapshot")
+    void testConsistentSnapshots() throws InterruptedException {
+        StockSnapshot initial = inventory.snapshot();
+        int difference = initial.get(3) - initial.get(4);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    if (inventory.reserveAll(Map.of(3, 1, 4, 1)).isSuccess()) {
+                        inventory.releaseAll(Map.of(3, 1, 4, 1));
+                    }
+                }
+            });
+        }
+        
+        try {
+            for (int i = 0; i < 200; i++) {
+                StockSnapshot snapshot = inventory.snapshot();
+                assertEquals(difference, snapshot.get(3) - snapshot.get(4));
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+    
     @Test
     @DisplayName("✅ AC5: Should reserve stock when payment succeeds")
     void testReserveStock() {
@@ -184,6 +288,40 @@ class InventoryManagerTest {
         assertTrue(finalStock >= 0, "Stock should never be negative");
     }
     
+    @Test
+    @DisplayName("Should never oversell under contention")
+    void testNoOversellUnderContention() throws InterruptedException {
+        final int productId = 2;
+        final int threads = 8;
+        final int attemptsPerThread = 50;
+        
+        int available = inventory.getStock(productId);
+        AtomicInteger reserved = new AtomicInteger();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < attemptsPerThread; j++) {
+                        if (inventory.reserveStock(productId, 1)) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        latch.await(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        
+        assertEquals(Math.min(available, threads * attemptsPerThread), reserved.get());
+        assertEquals(available - reserved.get(), inventory.getStock(productId));
+        inventory.releaseStock(productId, reserved.get());
+    }
+    
     @Test
     @DisplayName("Should initialize with default stock levels")
     void testDefaultStockLevels() {
@@ -194,4 +332,111 @@ class InventoryManagerTest {
         assertTrue(inventory.isInStock(4)); // Book - 100 units
         assertTrue(inventory.isInStock(5)); // Coffee machine - 10 units
     }
+    
+    @Test
+    @DisplayName("Should reserve a basket all or nothing")
+    void testReserveAll() {
+        int stock1 = inventory.getStock(1);
+        int stock4 = inventory.getStock(4);
+        
+        InventoryManager.ReservationResult failed = inventory.reserveAll(Map.of(1, 1, 4, stock4 + 1, 999, 1));
+        assertFalse(failed.isSuccess());
+        assertEquals(Map.of(4, stock4, 999, 0), failed.getShortages());
+        assertFalse(failed.isShort(1));
+        assertEquals(stock1, inventory.getStock(1));
+        assertEquals(stock4, inventory.getStock(4));
+        
+        InventoryManager.ReservationResult reserved = inventory.reserveAll(Map.of(1, 1, 4, 2));
+        assertTrue(reserved.isSuccess());
+        assertTrue(reserved.getShortages().isEmpty());
+        assertEquals(stock1 - 1, inventory.getStock(1));
+        assertEquals(stock4 - 2, inventory.getStock(4));
+        
+        assertTrue(inventory.releaseAll(Map.of(1, 1, 4, 2)));
+        assertEquals(stock1, inventory.getStock(1));
+        assertEquals(stock4, inventory.getStock(4));
+        
+        assertFalse(inventory.releaseAll(Map.of(1, 1, 999, 1)));
+        assertEquals(stock1, inventory.getStock(1));
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserveAll(Map.of(1, 0)));
+    }
+    
+    @Test
+    @DisplayName("Should refuse to start when the replicated inventory cannot be joined")
+    void testReplicaStartFailure() throws IOException {
+        try (ServerSocket taken = new ServerSocket(0)) {
+            for (String peers : new String[] {"localhost:" + taken.getLocalPort() + ",localhost:1", "no-port"}) {
+                System.setProperty(InventoryManager.REPLICA_PEERS_PROPERTY, peers);
+                try {
+                    assertThrows(IllegalStateException.class, InventoryManager::createStore, peers);
+                } finally {
+                    System.clearProperty(InventoryManager.REPLICA_PEERS_PROPERTY);
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should refuse to start when the shared stock file cannot be opened")
+    void testSharedStockStartFailure() throws IOException {
+        Path directory = Files.createTempDirectory("shared-stock");
+        Path foreign = Files.write(directory.resolve("foreign.dat"), new byte[64]);
+        System.setProperty(InventoryManager.SHARED_STOCK_FILE_PROPERTY, foreign.toString());
+        try {
+            assertThrows(IllegalStateException.class, InventoryManager::createStore);
+        } finally {
+            System.clearProperty(InventoryManager.SHARED_STOCK_FILE_PROPERTY);
+            Files.delete(foreign);
+            Files.delete(directory);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should release nothing from a basket when one product would overflow")
+    void testReleaseAllOverflow() {
+        InventoryManager store = new InventoryManager("release-overflow", Map.of(1, 5, 2, Integer.MAX_VALUE - 1));
+        try {
+            assertFalse(store.releaseAll(Map.of(1, 3, 2, 2)));
+            assertEquals(5, store.getStock(1));
+            assertEquals(Integer.MAX_VALUE - 1, store.getStock(2));
+            
+            assertTrue(store.releaseAll(Map.of(1, 3, 2, 1)));
+            assertEquals(8, store.getStock(1));
+            assertEquals(Integer.MAX_VALUE, store.getStock(2));
+        } finally {
+            store.shutdown();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should not oversell when baskets overlap concurrently")
+    void testConcurrentBaskets() throws InterruptedException {
+        int stock3 = inventory.getStock(3);
+        int stock4 = inventory.getStock(4);
+        AtomicInteger successes = new AtomicInteger();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            // Opposite iteration orders in the maps must not matter
+            Map<Integer, Integer> basket = i % 2 == 0 ? Map.of(3, 1, 4, 1) : Map.of(4, 1, 3, 1);
+            executor.submit(() -> {
+                try {
+                    if (inventory.reserveAll(basket).isSuccess()) {
+                        successes.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        assertEquals(Math.min(100, Math.min(stock3, stock4)), successes.get());
+        assertEquals(stock3 - successes.get(), inventory.getStock(3));
+        assertEquals(stock4 - successes.get(), inventory.getStock(4));
+        inventory.releaseAll(Map.of(3, successes.get(), 4, successes.get()));
+    }
 }
@@ -0,0 +1,177 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-store inventory partitions.
+ * Each test uses its own registry, so no stock is shared with other tests.
+ */
+@DisplayName("Inventory Registry Tests")
+class InventoryRegistryTest {
+    
+    private InventoryRegistry registry;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new InventoryRegistry(2);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should serve the default store from the singleton")
+    void testDefaultStore() {
+        assertSame(InventoryManager.getInstance(), registry.getPartition(InventoryManager.DEFAULT_STORE));
+        assertEquals(InventoryManager.DEFAULT_STORE, InventoryManager.getInstance().getStoreId());
+        assertThrows(IllegalArgumentException.class, () -> registry.removePartition(InventoryManager.DEFAULT_STORE));
+    }
+    
+    @Test
+    @DisplayName("Should keep each store's stock independent")
+    void testIndependentPartitions() {
+        InventoryManager tallinn = registry.getPartition("tallinn");
+        InventoryManager tartu = registry.getPartition("tartu");
+        
+        assertNotSame(tallinn, tartu);
+        assertSame(tallinn, registry.getPartition("tallinn"));
+        assertEquals("tallinn", tallinn.getStoreId());
+        assertEquals(15, tallinn.getStock(1));
+        
+        assertTrue(tallinn.reserveStock(1, 15));
+        assertEquals(0, tallinn.getStock(1));
+        assertEquals(15, tartu.getStock(1));
+        assertEquals(Set.of("default", "tallinn", "tartu"), registry.getStoreIds());
+    }
+    
+    @Test
+    @DisplayName("Should create a store with its own initial stock")
+    void testCreatePartition() {
+        InventoryManager outlet = registry.createPartition("outlet", Map.of(7, 3));
+        
+        assertEquals(3, outlet.getStock(7));
+        assertFalse(outlet.isInStock(1));
+        assertThrows(IllegalArgumentException.class, () -> registry.createPartition("outlet", Map.of(7, 1)));
+        
+        outlet.reserveStock(7, 2);
+        outlet.resetInventory();
+        assertEquals(3, outlet.getStock(7));
+    }
+    
+    @Test
+    @DisplayName("Should run a store's work on the same worker thread")
+    void testThreadAffinity() throws Exception {
+        String first = registry.submit("a", inventory -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        String again = registry.submit("a", inventory -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        String other = registry.submit("b", inventory -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        
+        assertEquals(first, again);
+        assertNotEquals(first, other);
+        assertNotEquals(registry.getWorkerIndex("a"), registry.getWorkerIndex("b"));
+        assertTrue(registry.submit("a", inventory -> inventory.reserveStock(2, 1)).get(5, TimeUnit.SECONDS));
+        assertEquals(24, registry.getPartition("a").getStock(2));
+    }
+    
+    @Test
+    @DisplayName("Should deliver a store's events and expire its holds on its worker")
+    void testBackgroundWorkOnWorker() throws Exception {
+        InventoryManager store = registry.getPartition("a");
+        String worker = registry.submit("a", inventory -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        store.getEventBus().subscribe(batch -> threads.add(Thread.currentThread().getName()));
+        
+        assertTrue(store.reserveStock(2, 1));
+        assertTrue(store.getEventBus().awaitDelivery(5, TimeUnit.SECONDS));
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(worker::equals));
+        
+        assertNotNull(store.hold(2, 1, Duration.ofMillis(1)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.getActiveHoldCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, store.getActiveHoldCount());
+        assertEquals(24, store.getStock(2));
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+            .noneMatch(thread -> thread.getName().endsWith("-a") && thread.getName().startsWith("stock-")));
+    }
+    
+    @Test
+    @DisplayName("Should remove a store's partition")
+    void testRemovePartition() {
+        InventoryManager removed = registry.getPartition("popup");
+        removed.reserveStock(1, 5);
+        
+        assertTrue(registry.removePartition("popup"));
+        assertFalse(registry.removePartition("popup"));
+        assertFalse(registry.hasPartition("popup"));
+        assertEquals(-1, registry.getWorkerIndex("popup"));
+        assertEquals(15, registry.getPartition("popup").getStock(1));
+        assertThrows(IllegalArgumentException.class, () -> registry.getPartition(" "));
+    }
+    
+    @Test
+    @DisplayName("Should fail work that reaches a removed partition")
+    void testSubmitAfterRemoval() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        registry.getPartition("kiosk");
+        // Hold the kiosk's worker so the next operation is queued when the partition goes away
+        CompletableFuture<Boolean> running = registry.submit("kiosk", inventory -> {
+            started.countDown();
+            try {
+                return proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = registry.submit("kiosk", inventory -> inventory.reserveStock(1, 1));
+        
+        // Removal waits for the running operation, then wins over the queued one
+        Thread remover = new Thread(() -> registry.removePartition("kiosk"));
+        remover.start();
+        while (remover.getState() != Thread.State.BLOCKED && remover.isAlive()) {
+            Thread.sleep(1);
+        }
+        proceed.countDown();
+        remover.join(5000);
+        
+        assertFalse(registry.hasPartition("kiosk"));
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+    }
+    
+    @Test
+    @DisplayName("Should refuse new stores and work after shutdown")
+    void testShutdownIsFinal() throws Exception {
+        assertTrue(registry.submit("a", inventory -> inventory.isInStock(1)).get(5, TimeUnit.SECONDS));
+        registry.shutdown();
+        
+        assertFalse(registry.hasPartition("a"));
+        assertThrows(IllegalStateException.class, () -> registry.submit("a", inventory -> true));
+        assertThrows(IllegalStateException.class, () -> registry.getPartition("b"));
+        assertThrows(IllegalStateException.class, () -> registry.submit(InventoryManager.DEFAULT_STORE, inventory -> true));
+        assertSame(InventoryManager.getInstance(), registry.getPartition(InventoryManager.DEFAULT_STORE));
+    }
+}
@@ -0,0 +1,121 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductAutocomplete.
+ */
+@DisplayName("Product Autocomplete Tests")
+class ProductAutocompleteTest {
+    
+    private static Product product(int id, String name) {
+        return new Product(id, name, new BigDecimal("1.00"), null);
+    }
+    
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+    
+    @Test
+    @DisplayName("Should complete any word of a name, ignoring case, diacritics and emoji")
+    void testCompleteWords() {
+        ProductAutocomplete completions = ProductAutocomplete.build(List.of(
+            product(1, "💻 Sülearvuti Lenovo ThinkPad"),
+            product(2, "🎧 Juhtmevabad kõrvaklapid Sony"),
+            product(3, "☕ Kohvimasin DeLonghi")));
+        
+        assertEquals(List.of(1), ids(completions.complete("sül", 5)));
+        assertEquals(List.of(1), ids(completions.complete("SULEARVUTI L", 5)));
+        assertEquals(List.of(2), ids(completions.complete("kõrv", 5)));
+        assertEquals(List.of(2), ids(completions.complete("🎧 korvaklapid so", 5)));
+        assertEquals(List.of(3), ids(completions.complete("delon", 5)));
+        assertTrue(completions.complete("sony korv", 5).isEmpty());
+        assertTrue(completions.complete("x", 5).isEmpty());
+        assertTrue(completions.complete("💻", 5).isEmpty());
+        assertEquals(8, completions.size());
+    }
+    
+    @Test
+    @DisplayName("Should rank name starts, then shorter names, then catalog order")
+    void testRanking() {
+        ProductAutocomplete completions = ProductAutocomplete.build(List.of(
+            product(1, "Punane tass suur"),
+            product(2, "Tassikomplekt"),
+            product(3, "Tass"),
+            product(4, "Sinine tass"),
+            product(5, "Tass ja alustass")));
+        
+        assertEquals(List.of(3, 2, 5, 4, 1), ids(completions.complete("tass", 10)));
+        assertEquals(List.of(3, 2), ids(completions.complete("tass", 2)));
+        // "alustass" does not start with "tass", and product 5 is listed once
+        assertEquals(List.of(5), ids(completions.complete("alu", 10)));
+        assertTrue(completions.complete("tass", 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> completions.complete("tass", -1));
+    }
+    
+    @Test
+    @DisplayName("Should return the same best completions as a full scan")
+    void testLargeRange() {
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 50_000; id++) {
+            products.add(product(id, "Toode mudel " + (50_000 - id)));
+        }
+        products.add(product(99_999, "Toode"));
+        ProductAutocomplete completions = ProductAutocomplete.build(products);
+        
+        assertEquals(List.of(99_999, 49_991, 49_992), ids(completions.complete("t", 3)));
+        for (String prefix : new String[] {"toode mudel 4", "12", "mudel 499", "mudel 7777"}) {
+            List<Integer> expected = new ArrayList<>();
+            String folded = ProductSearchIndex.normalize(prefix);
+            // Full scan in rank order: word position, name length, catalog order
+            products.stream()
+                .filter(product -> (" " + ProductSearchIndex.normalize(product.getName())).contains(" " + folded))
+                .sorted(Comparator.<Product>comparingInt(product -> (" " + ProductSearchIndex.normalize(product.getName())).indexOf(" " + folded))
+                    .thenComparingInt(product -> product.getName().length()))
+                .limit(5)
+                .forEach(product -> expected.add(product.getId()));
+            
+            assertEquals(expected, ids(completions.complete(prefix, 5)), prefix);
+        }
+    }
+    
+    private static ProductAutocomplete awaitCatalog() throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        ProductAutocomplete current = ProductAutocomplete.ofCatalog();
+        while (current.getCatalogVersion() != ProductCatalog.getVersion() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+            current = ProductAutocomplete.ofCatalog();
+        }
+        return current;
+    }
+    
+    @Test
+    @DisplayName("Should rebuild catalog completions in the background after the catalog changes")
+    void testOfCatalog() throws InterruptedException {
+        ProductAutocomplete before = awaitCatalog();
+        assertSame(before, ProductAutocomplete.ofCatalog());
+        assertEquals(List.of(3), ids(before.complete("juhtmevabad", 5)));
+        
+        ProductCatalog.addProduct(product(920001, "Juhtmevaba hiir"));
+        try {
+            // The lookup that notices the change is served from the previous completions
+            assertSame(before, ProductAutocomplete.ofCatalog());
+            ProductAutocomplete after = awaitCatalog();
+            assertNotSame(before, after);
+            assertEquals(ProductCatalog.getVersion(), after.getCatalogVersion());
+            assertEquals(List.of(920001, 3), ids(after.complete("juhtmevaba", 5)));
+        } finally {
+            ProductCatalog.removeProduct(920001);
+        }
+        assertEquals(List.of(3), ids(awaitCatalog().complete("juhtmevaba", 5)));
+    }
+}
@@ -0,0 +1,130 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductIndex and the indexed ProductCatalog.
+ */
+@DisplayName("Product Index Tests")
+class ProductIndexTest {
+    
+    private static Product product(int id) {
+        return new Product(id, "Toode " + id, new BigDecimal("1.00"), null);
+    }
+    
+    @Test
+    @DisplayName("Should find, replace and remove products by ID")
+    void testPutGetRemove() {
+        ProductIndex index = new ProductIndex();
+        Product first = product(7);
+        Product replacement = new Product(7, "Uus toode", new BigDecimal("2.00"), null);
+        
+        assertNull(index.put(first));
+        assertSame(first, index.get(7));
+        assertSame(first, index.put(replacement));
+        assertSame(replacement, index.get(7));
+        assertEquals(1, index.size());
+        
+        assertSame(replacement, index.remove(7));
+        assertNull(index.remove(7));
+        assertNull(index.get(7));
+        assertFalse(index.contains(7));
+        assertEquals(0, index.size());
+    }
+    
+    @Test
+    @DisplayName("Should index sparse, negative and colliding IDs")
+    void testSparseIds() {
+        ProductIndex index = new ProductIndex();
+        int[] ids = {0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1 << 16, 1 << 20, 1 << 24, 123_456_789};
+        for (int id : ids) {
+            index.put(product(id));
+        }
+        for (int id : ids) {
+            assertEquals(id, index.get(id).getId());
+        }
+        assertNull(index.get(42));
+        assertEquals(ids.length, index.size());
+    }
+    
+    @Test
+    @DisplayName("Should keep the table at most half full and reuse removed slots")
+    void testGrowth() {
+        ProductIndex index = new ProductIndex();
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 100_000; id++) {
+            products.add(product(id));
+        }
+        index.putAll(products);
+        
+        assertEquals(100_000, index.size());
+        assertTrue(index.capacity() >= 200_000);
+        for (int id = 1; id <= 100_000; id++) {
+            assertEquals(id, index.get(id).getId());
+        }
+        
+        // Churn must not grow the table: removal markers are dropped on rebuild
+        int capacity = index.capacity();
+        for (int id = 100_001; id <= 400_000; id++) {
+            index.put(product(id));
+            index.remove(id);
+        }
+        assertEquals(capacity, index.capacity());
+        assertEquals(100_000, index.size());
+    }
+    
+    @Test
+    @DisplayName("Should serve lookups while the table grows")
+    void testConcurrentLookups() throws InterruptedException {
+        ProductIndex index = new ProductIndex();
+        index.put(product(1));
+        AtomicBoolean missed = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (index.get(1) == null) {
+                    missed.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (int id = 2; id <= 200_000; id++) {
+            index.put(product(id));
+        }
+        done.set(true);
+        reader.join();
+        
+        assertFalse(missed.get());
+    }
+    
+    @Test
+    @DisplayName("Should add products to the catalog in bulk")
+    void testCatalogBulkAdd() {
+        long version = ProductCatalog.getVersion();
+        int size = ProductCatalog.size();
+        List<Product> added = List.of(product(900_001), product(900_002), product(900_001));
+        try {
+            ProductCatalog.addProducts(added);
+            
+            assertEquals(version + 1, ProductCatalog.getVersion());
+            assertEquals(size + 2, ProductCatalog.size());
+            assertEquals(size + 2, ProductCatalog.getAllProducts().size());
+            assertSame(added.get(2), ProductCatalog.getProductById(900_001));
+            assertTrue(ProductCatalog.getAllProducts().contains(product(900_002)));
+            assertEquals("💻 Sülearvuti Lenovo ThinkPad", ProductCatalog.getProductById(1).getName());
+        } finally {
+            ProductCatalog.removeProduct(900_001);
+            ProductCatalog.removeProduct(900_002);
+        }
+        assertFalse(ProductCatalog.productExists(900_001));
+        assertEquals(size, ProductCatalog.getAllProducts().size());
+    }
+}
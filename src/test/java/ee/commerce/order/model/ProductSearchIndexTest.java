@@ -0,0 +1,127 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductSearchIndex and catalog search.
+ */
+@DisplayName("Product Search Index Tests")
+class ProductSearchIndexTest {
+    
+    private static Product product(int id, String name, String description) {
+        return new Product(id, name, new BigDecimal("1.00"), description);
+    }
+    
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+    
+    @Test
+    @DisplayName("Should fold Estonian letters, case, emoji and punctuation")
+    void testNormalize() {
+        assertEquals("sulearvuti lenovo thinkpad", ProductSearchIndex.normalize("💻 Sülearvuti Lenovo ThinkPad"));
+        assertEquals("korvaklapid oo aa", ProductSearchIndex.normalize("KÕRVAKLAPID, õö ÄÄ!"));
+        assertEquals("sokolaad zurnaal", ProductSearchIndex.normalize("Šokolaad, žurnaal"));
+        assertEquals("raamat clean code", ProductSearchIndex.normalize("📚 Raamat 'Clean Code'"));
+        // Decomposed õ: o followed by a combining tilde
+        assertEquals("korv", ProductSearchIndex.normalize("kõrv"));
+        assertEquals("", ProductSearchIndex.normalize("🎧☕"));
+        assertEquals("", ProductSearchIndex.normalize(null));
+    }
+    
+    @Test
+    @DisplayName("Should find products by any spelling of their words")
+    void testSearchIgnoresDiacritics() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.putAll(List.of(
+            product(1, "💻 Sülearvuti Lenovo", "14\" ekraan"),
+            product(2, "🎧 Juhtmevabad kõrvaklapid Sony", "Mürasummutusega"),
+            product(3, "☕ Kohvimasin", "Integreeritud kohviveski")));
+        
+        assertEquals(List.of(1), ids(index.search("sulearvuti", 5)));
+        assertEquals(List.of(2), ids(index.search("KÕRVAKLAPID", 5)));
+        assertEquals(List.of(2), ids(index.search("murasummutusega", 5)));
+        assertEquals(List.of(3), ids(index.search("kohvimasin kohviveski", 5)));
+        assertTrue(index.search("kohvimasin lenovo", 5).isEmpty());
+        assertTrue(index.search("tundmatu", 5).isEmpty());
+        assertTrue(index.search("💻", 5).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should rank name matches and rare words first and honor the limit")
+    void testRanking() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.putAll(List.of(
+            product(1, "Laadija", "Sobib sülearvutile ja telefonile"),
+            product(2, "Sülearvuti kott", "Kott"),
+            product(3, "Sülearvuti", "Kerge sülearvuti"),
+            product(4, "Telefon", "Sülearvuti")));
+        
+        assertEquals(List.of(3, 2, 4), ids(index.search("sülearvuti", 10)));
+        assertEquals(List.of(3, 2), ids(index.search("sülearvuti", 2)));
+        assertEquals(List.of(2), ids(index.search("kott sülearvuti", 10)));
+        assertTrue(index.search("sülearvuti", 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("sülearvuti", -1));
+    }
+    
+    @Test
+    @DisplayName("Should update and remove products incrementally")
+    void testIncrementalUpdates() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product(1, "Punane tass", null));
+        index.put(product(2, "Sinine tass", null));
+        
+        index.put(product(1, "Roheline tass", null));
+        
+        assertTrue(index.search("punane", 5).isEmpty());
+        assertEquals(List.of(1), ids(index.search("roheline", 5)));
+        assertEquals(2, index.search("tass", 5).size());
+        
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertEquals(List.of(1), ids(index.search("tass", 5)));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    @DisplayName("Should drop retired products when compacting")
+    void testCompaction() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int round = 0; round < 5; round++) {
+            List<Product> batch = new ArrayList<>();
+            for (int id = 1; id <= 1000; id++) {
+                batch.add(product(id, "Toode versioon" + round, "Number " + id));
+            }
+            index.putAll(batch);
+        }
+        
+        assertEquals(1000, index.size());
+        assertTrue(index.search("versioon3", 10).isEmpty());
+        assertEquals(1000, index.search("versioon4", 2000).size());
+        assertEquals(List.of(500), ids(index.search("toode 500", 10)));
+        // "versioon0" ... "versioon3" are gone once their documents are compacted away
+        assertTrue(index.termCount() < 1010);
+    }
+    
+    @Test
+    @DisplayName("Should keep catalog search in step with catalog changes")
+    void testCatalogSearch() {
+        assertEquals(3, ProductCatalog.search("korvaklapid", 5).get(0).getId());
+        ProductCatalog.addProduct(new Product(910001, "🎒 Sülearvuti seljakott", new BigDecimal("39.90"), "Mahub 15\" arvuti"));
+        try {
+            assertEquals(List.of(910001), ids(ProductCatalog.search("seljakott", 5)));
+            assertTrue(ids(ProductCatalog.search("sülearvuti", 5)).containsAll(List.of(1, 910001)));
+        } finally {
+            ProductCatalog.removeProduct(910001);
+        }
+        assertTrue(ProductCatalog.search("seljakott", 5).isEmpty());
+    }
+}
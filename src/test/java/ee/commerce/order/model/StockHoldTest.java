@@ -0,0 +1,72 @@
+package ee.commerce.order.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for time-limited stock holds.
+ */
+@DisplayName("Stock Hold Tests")
+class StockHoldTest {
+    
+    private InventoryManager inventory;
+    
+    @BeforeEach
+    void setUp() {
+        inventory = InventoryManager.getInstance();
+    }
+    
+    @Test
+    @DisplayName("Should take stock on hold and keep it on confirm")
+    void testConfirm() {
+        int stock = inventory.getStock(3);
+        StockHold hold = inventory.hold(3, 2, Duration.ofMinutes(5));
+        
+        assertNotNull(hold);
+        assertEquals(stock - 2, inventory.getStock(3));
+        assertTrue(hold.confirm());
+        assertFalse(hold.release());
+        assertEquals(StockHold.State.CONFIRMED, hold.getState());
+        assertEquals(stock - 2, inventory.getStock(3));
+        
+        inventory.releaseStock(3, 2);
+    }
+    
+    @Test
+    @DisplayName("Should return stock on release")
+    void testRelease() {
+        int stock = inventory.getStock(3);
+        StockHold hold = inventory.holdAll(Map.of(3, 1, 4, 1), Duration.ofMinutes(5));
+        
+        assertTrue(hold.release());
+        assertFalse(hold.confirm());
+        assertEquals(StockHold.State.RELEASED, hold.getState());
+        assertEquals(stock, inventory.getStock(3));
+    }
+    
+    @Test
+    @DisplayName("Should return stock when a hold expires")
+    void testExpiry() {
+        int stock = inventory.getStock(3);
+        StockHold hold = inventory.hold(3, 1, Duration.ofSeconds(1));
+        
+        inventory.expireHolds(hold.getExpiresAt().toEpochMilli() + 1_000);
+        
+        assertEquals(StockHold.State.EXPIRED, hold.getState());
+        assertFalse(hold.confirm());
+        assertEquals(stock, inventory.getStock(3));
+    }
+    
+    @Test
+    @DisplayName("Should refuse holds without enough stock")
+    void testInsufficientStock() {
+        assertNull(inventory.hold(3, inventory.getStock(3) + 1, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> inventory.hold(3, 1, Duration.ZERO));
+    }
+}
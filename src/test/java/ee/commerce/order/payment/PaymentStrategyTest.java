@@ -196,4 +196,18 @@ class PaymentStrategyTest {
         assertTrue(payPalPayment.canProcess(new BigDecimal("14999.99")));
         assertTrue(bankTransferPayment.canProcess(new BigDecimal("49999.99")));
     }
+    
+    @Test
+    @DisplayName("Should validate amounts given in cents")
+    void testAmountValidationInCents() {
+        assertTrue(creditCardPayment.canProcess(1L));
+        assertTrue(creditCardPayment.canProcess(CreditCardPayment.getMaxTransactionCents()));
+        assertFalse(creditCardPayment.canProcess(CreditCardPayment.getMaxTransactionCents() + 1));
+        assertTrue(payPalPayment.canProcess(1_499_999L));
+        assertTrue(bankTransferPayment.canProcess(4_999_999L));
+        
+        assertFalse(creditCardPayment.canProcess(0L));
+        assertFalse(payPalPayment.canProcess(-1_000L));
+        assertFalse(bankTransferPayment.canProcess(10_000_000L));
+    }
 }
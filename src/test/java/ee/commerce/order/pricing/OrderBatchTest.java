@@ -0,0 +1,104 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Money;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.decorator.GreetingCardDecorator;
+import ee.commerce.order.model.Product;
+import ee.commerce.order.model.ProductCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderBatch and ServiceMask.
+ * Verifies that columnar pricing matches the decorator chain.
+ */
+@DisplayName("Order Batch Tests")
+class OrderBatchTest {
+    
+    @Test
+    @DisplayName("Should price every service combination like the decorator chain")
+    void testMatchesDecoratorChain() {
+        OrderBatch batch = new OrderBatch(4);
+        for (Product product : ProductCatalog.getAllProducts()) {
+            for (int mask = 0; mask < ServiceMask.COMBINATIONS; mask++) {
+                batch.add(product, mask);
+            }
+        }
+        
+        long[] totals = batch.priceAll();
+        
+        assertEquals(batch.size(), totals.length);
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = ProductCatalog.getProductById(batch.getProductId(i));
+            Order chain = ServiceMask.apply(
+                new BasicOrder(product.getName(), product.getPrice()), batch.getServiceMask(i));
+            assertEquals(chain.calculateTotalCents(), totals[i]);
+            assertEquals(chain.calculateTotal(), Money.toBigDecimal(totals[i]));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should produce identical results in parallel")
+    void testParallelPricing() {
+        Random random = new Random(42);
+        OrderBatch batch = new OrderBatch();
+        int orders = OrderBatch.PARALLEL_THRESHOLD * 4 + 17;
+        for (int i = 0; i < orders; i++) {
+            batch.add(i % 5 + 1, random.nextInt(ServiceMask.COMBINATIONS), random.nextInt(1_000_000));
+        }
+        
+        long[] sequential = batch.priceAll();
+        long[] parallel = batch.priceAllParallel(ServiceMask.costTable(), new ForkJoinPool(4));
+        
+        assertArrayEquals(sequential, parallel);
+    }
+    
+    @Test
+    @DisplayName("Should reprice with a custom service cost table")
+    void testRepriceWithNewServiceCosts() {
+        OrderBatch batch = new OrderBatch();
+        batch.add(1, ServiceMask.ALL, 10_000L);
+        batch.add(2, ServiceMask.NONE, 5_000L);
+        
+        long[] table = ServiceMask.costTable();
+        table[ServiceMask.ALL] = 1_500L; // bundle price for all three services
+        long[] totals = batch.priceAll(table);
+        
+        assertEquals(11_500L, totals[0]);
+        assertEquals(5_000L, totals[1]);
+        
+        batch.setBasePriceCents(1, 4_000L);
+        assertEquals(4_000L, batch.priceAll()[1]);
+    }
+    
+    @Test
+    @DisplayName("Should extract service mask from decorator chain")
+    void testServiceMaskOf() {
+        Order order = new GreetingCardDecorator(
+            new GiftWrappingDecorator(new BasicOrder("Product", Money.toBigDecimal(100L))));
+        
+        assertEquals(ServiceMask.GIFT_WRAPPING | ServiceMask.GREETING_CARD, ServiceMask.of(order));
+        assertEquals(ServiceMask.NONE, ServiceMask.of(new BasicOrder("Product", Money.toBigDecimal(100L))));
+        assertThrows(IllegalArgumentException.class,
+            () -> ServiceMask.of(new ExpressShippingDecorator(new ExpressShippingDecorator(order))));
+    }
+    
+    @Test
+    @DisplayName("Should reject invalid input")
+    void testInvalidInput() {
+        OrderBatch batch = new OrderBatch();
+        
+        assertThrows(IllegalArgumentException.class, () -> batch.add(1, 8, 100L));
+        assertThrows(IllegalArgumentException.class, () -> batch.add(1, 0, -1L));
+        assertThrows(IllegalArgumentException.class, () -> batch.priceAll(new long[3]));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getBasePriceCents(0));
+    }
+}
@@ -0,0 +1,87 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.decorator.GreetingCardDecorator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderPricingPlan.
+ * Verifies that a compiled plan matches the decorator chain it was built from.
+ */
+@DisplayName("Order Pricing Plan Tests")
+class OrderPricingPlanTest {
+    
+    private Order baseOrder;
+    
+    @BeforeEach
+    void setUp() {
+        baseOrder = new BasicOrder("Test Product", new BigDecimal("100.00"));
+    }
+    
+    @Test
+    @DisplayName("Should match basic order without decorators")
+    void testBasicOrderPlan() {
+        OrderPricingPlan plan = OrderPricingPlan.compile(baseOrder);
+        
+        assertEquals(baseOrder.calculateTotal(), plan.calculateTotal());
+        assertEquals(baseOrder.getDescription(), plan.getDescription());
+        assertEquals(1, plan.getLineItemCount());
+    }
+    
+    @Test
+    @DisplayName("Should match full decorator chain total and description")
+    void testFullChainPlan() {
+        Order order = new GreetingCardDecorator(
+            new ExpressShippingDecorator(
+                new GiftWrappingDecorator(baseOrder)), "Palju õnne!");
+        
+        OrderPricingPlan plan = OrderPricingPlan.compile(order);
+        
+        assertEquals(order.calculateTotal(), plan.calculateTotal());
+        assertEquals(new BigDecimal("117.00"), plan.calculateTotal());
+        assertEquals(order.getDescription(), plan.getDescription());
+        assertSame(order, plan.getSource());
+    }
+    
+    @Test
+    @DisplayName("Should flatten chain into line items from base outwards")
+    void testLineItems() {
+        Order order = new ExpressShippingDecorator(new GiftWrappingDecorator(baseOrder));
+        
+        OrderPricingPlan plan = OrderPricingPlan.compile(order);
+        
+        assertEquals(3, plan.getLineItemCount());
+        assertEquals("Test Product", plan.getLineItem(0).getDescription());
+        assertEquals(new BigDecimal("100.00"), plan.getLineItem(0).getAmount());
+        assertEquals("Kingituspakend", plan.getLineItem(1).getDescription());
+        assertEquals(GiftWrappingDecorator.getServiceCost(), plan.getLineItem(1).getAmount());
+        assertEquals("Kiirtoimetamine", plan.getLineItem(2).getDescription());
+        assertEquals(ExpressShippingDecorator.getServiceCost(), plan.getLineItem(2).getAmount());
+    }
+    
+    @Test
+    @DisplayName("Should return cached values on repeated lookups")
+    void testCachedLookups() {
+        Order order = new GiftWrappingDecorator(baseOrder);
+        OrderPricingPlan plan = OrderPricingPlan.compile(order);
+        
+        assertSame(plan.calculateTotal(), plan.calculateTotal());
+        assertSame(plan.getDescription(), plan.getDescription());
+        assertSame(plan, OrderPricingPlan.compile(plan));
+    }
+    
+    @Test
+    @DisplayName("Should throw exception for null order")
+    void testNullOrder() {
+        assertThrows(IllegalArgumentException.class, () -> OrderPricingPlan.compile(null));
+    }
+}
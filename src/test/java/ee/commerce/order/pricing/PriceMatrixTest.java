@@ -0,0 +1,95 @@
+package ee.commerce.order.pricing;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Order;
+import ee.commerce.order.model.Product;
+import ee.commerce.order.model.ProductCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PriceMatrix.
+ * Verifies precomputed prices against decorator chains and catalog change handling.
+ */
+@DisplayName("Price Matrix Tests")
+class PriceMatrixTest {
+    
+    private final PriceMatrix matrix = PriceMatrix.getInstance();
+    
+    @Test
+    @DisplayName("Should match decorator chain for every product and service combination")
+    void testMatchesDecoratorChain() {
+        for (Product product : ProductCatalog.getAllProducts()) {
+            for (int mask = 0; mask < ServiceMask.COMBINATIONS; mask++) {
+                Order chain = ServiceMask.apply(new BasicOrder(product.getName(), product.getPrice()), mask);
+                
+                assertEquals(chain.calculateTotalCents(), matrix.getTotalCents(product.getId(), mask));
+                assertEquals(chain.calculateTotal(), matrix.getTotal(product.getId(), mask));
+                assertEquals(chain.getDescription(), matrix.getDescription(product.getId(), mask));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should return shared flyweight orders")
+    void testFlyweightOrders() {
+        Order first = matrix.getOrder(1, ServiceMask.ALL);
+        Order second = matrix.getOrder(1, ServiceMask.ALL);
+        
+        assertSame(first, second);
+        assertEquals(matrix.getTotalCents(1, ServiceMask.ALL), first.calculateTotalCents());
+        assertEquals(matrix.getDescription(1, ServiceMask.ALL), first.getDescription());
+    }
+    
+    @Test
+    @DisplayName("Should rebuild when the catalog changes")
+    void testRebuildOnCatalogChange() {
+        int productId = 9_001;
+        assertFalse(matrix.contains(productId));
+        
+        try {
+            ProductCatalog.addProduct(new Product(productId, "Test Product", new BigDecimal("10.00"), null));
+            
+            assertTrue(matrix.contains(productId));
+            assertEquals(ProductCatalog.getVersion(), matrix.getCatalogVersion());
+            assertEquals(2_700L, matrix.getTotalCents(productId, ServiceMask.ALL));
+        } finally {
+            ProductCatalog.removeProduct(productId);
+        }
+        
+        assertFalse(matrix.contains(productId));
+        assertNull(matrix.getOrder(productId, ServiceMask.NONE));
+    }
+    
+    @Test
+    @DisplayName("Should price sparse and very large product IDs")
+    void testSparseIds() {
+        List<Product> added = List.of(
+            new Product(Integer.MAX_VALUE, "Max ID", new BigDecimal("1.00"), null),
+            new Product(1_000_000_007, "Sparse ID", new BigDecimal("2.00"), null));
+        try {
+            ProductCatalog.addProducts(added);
+            
+            assertEquals(100L, matrix.getTotalCents(Integer.MAX_VALUE, ServiceMask.NONE));
+            assertEquals(200L, matrix.getTotalCents(1_000_000_007, ServiceMask.NONE));
+            assertEquals(ServiceMask.describe("Sparse ID", ServiceMask.ALL), matrix.getDescription(1_000_000_007, ServiceMask.ALL));
+            assertFalse(matrix.contains(1_000_000_008));
+            assertTrue(matrix.contains(1));
+        } finally {
+            added.forEach(product -> ProductCatalog.removeProduct(product.getId()));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown products and invalid masks")
+    void testInvalidLookups() {
+        assertThrows(IllegalArgumentException.class, () -> matrix.getTotalCents(999, ServiceMask.NONE));
+        assertThrows(IllegalArgumentException.class, () -> matrix.getTotalCents(1, 8));
+        assertThrows(IllegalArgumentException.class, () -> matrix.getOrder(1, -1));
+    }
+}
@@ -0,0 +1,142 @@
+package ee.commerce.order.promotion;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.pricing.ServiceMask;
+import ee.commerce.order.service.ServiceCatalog;
+import ee.commerce.order.service.ServiceOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the promotion rule engine.
+ * Tests rule evaluation, caching and the promotion decorator.
+ */
+@DisplayName("Promotion Engine Tests")
+class PromotionEngineTest {
+    
+    private final PromotionEngine engine = PromotionEngine.getInstance();
+    
+    @AfterEach
+    void tearDown() {
+        engine.clear();
+    }
+    
+    private static Order product(String price) {
+        return new BasicOrder("Test Product", new BigDecimal(price));
+    }
+    
+    @Test
+    @DisplayName("Should leave orders unchanged when no rules apply")
+    void testNoRules() {
+        Order order = new GiftWrappingDecorator(product("100.00"));
+        
+        assertSame(order, engine.apply(order, 1));
+        
+        PromotionDecorator decorated = new PromotionDecorator(order, 1);
+        assertEquals(order.calculateTotal(), decorated.calculateTotal());
+        assertEquals(order.calculateTotalCents(), decorated.calculateTotalCents());
+        assertEquals(order.getDescription(), decorated.getDescription());
+    }
+    
+    @Test
+    @DisplayName("Should apply discounts before VAT")
+    void testDiscountsAndVat() {
+        engine.publish(List.of(
+            PromotionRule.percentageDiscount("sale", "Talvesoodustus", 1, new BigDecimal("10")),
+            PromotionRule.fixedDiscount("coupon", "Kupong", PromotionRule.ANY_PRODUCT, 500L),
+            PromotionRule.vat("vat", "KM", new BigDecimal("22"))));
+        
+        Order order = engine.apply(new GiftWrappingDecorator(product("95.00")), 1);
+        
+        // list 100.00, discount 10.00 + 5.00, VAT 22% of 85.00 = 18.70
+        assertEquals(10_370L, order.calculateTotalCents());
+        assertEquals(new BigDecimal("103.70"), order.calculateTotal());
+        assertEquals("Test Product + Kingituspakend + Talvesoodustus, Kupong, KM", order.getDescription());
+        
+        // Product 2 gets no percentage discount
+        assertEquals(11_590L, engine.apply(product("100.00"), 2).calculateTotalCents());
+    }
+    
+    @Test
+    @DisplayName("Should replace the promotions of an already promoted order")
+    void testApplyTwice() {
+        engine.publish(List.of(
+            PromotionRule.percentageDiscount("sale", "Talvesoodustus", 1, new BigDecimal("10")),
+            PromotionRule.vat("vat", "KM", new BigDecimal("22"))));
+        
+        Order base = new GiftWrappingDecorator(product("95.00"));
+        Order once = engine.apply(base, 1);
+        Order twice = engine.apply(once, 1);
+        
+        // list 100.00, discount 10.00, VAT 22% of 90.00 = 19.80
+        assertEquals(10_980L, once.calculateTotalCents());
+        assertEquals(once.calculateTotalCents(), twice.calculateTotalCents());
+        assertEquals(once.getDescription(), twice.getDescription());
+        assertSame(base, ((PromotionDecorator) twice).getWrappedOrder());
+        assertEquals(10_980L, new PromotionDecorator(twice, 1).calculateTotalCents());
+        
+        // A promotion layer under a service is not part of the list total
+        Order wrapped = new ExpressShippingDecorator(once);
+        assertEquals(10_000L + new ExpressShippingDecorator(base).getLineItemCostCents(),
+            engine.evaluate(wrapped, 1).getListCents());
+        
+        engine.clear();
+        assertSame(base, engine.apply(once, 1));
+    }
+    
+    @Test
+    @DisplayName("Should apply bundle deals only with all required services")
+    void testBundleDeal() {
+        int bundle = ServiceMask.GIFT_WRAPPING | ServiceMask.EXPRESS_SHIPPING;
+        engine.publish(List.of(
+            PromotionRule.bundleDiscount("bundle", "Pakett", PromotionRule.ANY_PRODUCT, bundle, 300L)));
+        
+        Order giftOnly = new GiftWrappingDecorator(product("10.00"));
+        Order both = new ExpressShippingDecorator(new GiftWrappingDecorator(product("10.00")));
+        ServiceOrder serviceOrder = new ServiceOrder(product("10.00"))
+            .withService(ServiceCatalog.GIFT_WRAPPING)
+            .withService(ServiceCatalog.EXPRESS_SHIPPING);
+        
+        assertTrue(engine.evaluate(giftOnly, 1).isEmpty());
+        assertEquals(2_200L, engine.apply(both, 1).calculateTotalCents());
+        assertEquals(2_200L, engine.apply(serviceOrder, 1).calculateTotalCents());
+    }
+    
+    @Test
+    @DisplayName("Should cache results per product and services for one rule set version")
+    void testCachePerVersion() {
+        RuleSet first = engine.publish(List.of(
+            PromotionRule.fixedDiscount("coupon", "Kupong", 1, 20_000L)));
+        
+        PromotionResult result = engine.evaluate(product("100.00"), 1);
+        assertSame(result, engine.evaluate(product("100.00"), 1));
+        assertEquals(0L, result.getTotalCents()); // discount never goes below zero
+        assertEquals(1, first.getCacheSize());
+        
+        RuleSet second = engine.publish(List.of());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertTrue(engine.evaluate(product("100.00"), 1).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should reject invalid rules")
+    void testInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () ->
+            PromotionRule.percentageDiscount("p", "P", 1, new BigDecimal("101")));
+        assertThrows(IllegalArgumentException.class, () ->
+            PromotionRule.bundleDiscount("b", "B", 1, ServiceMask.NONE, 100L));
+        assertThrows(IllegalArgumentException.class, () ->
+            PromotionRule.fixedDiscount("f", "F", 1, -1L));
+        PromotionRule rule = PromotionRule.fixedDiscount("f", "F", 1, 1L);
+        assertThrows(IllegalArgumentException.class, () -> engine.publish(List.of(rule, rule)));
+    }
+}
@@ -0,0 +1,134 @@
+package ee.commerce.order.replication;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedCounter.
+ * Separate counter instances stand in for the replicas on different nodes.
+ */
+@DisplayName("Bounded Counter Tests")
+class BoundedCounterTest {
+    
+    @Test
+    @DisplayName("Should only reserve against local rights")
+    void testReserveAgainstLocalRights() {
+        BoundedCounter first = new BoundedCounter(0, 2);
+        BoundedCounter second = new BoundedCounter(1, 2);
+        first.increment(10);
+        second.merge(first.state(1));
+        
+        assertEquals(10, second.value());
+        assertEquals(0, second.rights(1));
+        assertFalse(second.tryDecrement(1));
+        assertTrue(first.tryDecrement(10));
+        assertFalse(first.tryDecrement(1));
+        assertEquals(0, first.value());
+    }
+    
+    @Test
+    @DisplayName("Should hand rights to another node")
+    void testTransfer() {
+        BoundedCounter first = new BoundedCounter(0, 2);
+        BoundedCounter second = new BoundedCounter(1, 2);
+        first.increment(10);
+        
+        assertTrue(first.transfer(1, 4));
+        assertFalse(first.transfer(1, 7));
+        second.merge(first.state(1));
+        
+        assertEquals(6, first.rights(0));
+        assertEquals(4, second.rights(1));
+        assertTrue(second.tryDecrement(4));
+        assertFalse(second.tryDecrement(1));
+        assertThrows(IllegalArgumentException.class, () -> first.transfer(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> first.transfer(1, 0));
+    }
+    
+    @Test
+    @DisplayName("Should converge regardless of merge order")
+    void testConvergence() {
+        BoundedCounter[] replicas = {new BoundedCounter(0, 3), new BoundedCounter(1, 3), new BoundedCounter(2, 3)};
+        replicas[0].increment(30);
+        replicas[0].transfer(1, 10);
+        replicas[0].transfer(2, 10);
+        replicas[1].merge(replicas[0].state(1));
+        replicas[2].merge(replicas[0].state(1));
+        assertTrue(replicas[0].tryDecrement(7));
+        assertTrue(replicas[1].tryDecrement(10));
+        assertTrue(replicas[2].tryDecrement(3));
+        replicas[2].increment(5);
+        
+        // Deliver states in different orders, with duplicates
+        for (int i = 2; i >= 0; i--) {
+            replicas[0].merge(replicas[i].state(1));
+        }
+        replicas[2].merge(replicas[1].state(1));
+        replicas[2].merge(replicas[0].state(1));
+        replicas[1].merge(replicas[2].state(1));
+        assertFalse(replicas[1].merge(replicas[1].state(1)));
+        
+        for (BoundedCounter replica : replicas) {
+            assertEquals(15, replica.value());
+        }
+        assertEquals(replicas[0].rights(0), replicas[2].rights(0));
+        assertEquals(0, replicas[1].rights(1));
+    }
+    
+    @Test
+    @DisplayName("Should round-trip states through the wire format")
+    void testWireFormat() throws IOException {
+        BoundedCounter counter = new BoundedCounter(1, 3);
+        counter.increment(12);
+        counter.tryDecrement(2);
+        counter.transfer(2, 4);
+        ReplicaMessage message = new ReplicaMessage(1, 3, List.of(counter.state(42)));
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        message.writeTo(new DataOutputStream(bytes));
+        ReplicaMessage read = ReplicaMessage.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 3);
+        
+        assertEquals(1, read.getSenderId());
+        assertEquals(3, read.getNodeCount());
+        assertEquals(1, read.getStates().size());
+        assertEquals(42, read.getStates().get(0).getProductId());
+        BoundedCounter replica = new BoundedCounter(2, 3);
+        assertTrue(replica.merge(read.getStates().get(0)));
+        assertEquals(10, replica.value());
+        assertEquals(4, replica.rights(2));
+        assertFalse(read.isFull());
+        assertFalse(read.isJoining());
+    }
+    
+    @Test
+    @DisplayName("Should reject malformed messages before allocating their states")
+    void testMalformedMessages() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ReplicaMessage(0, 2, true, true, List.of()).writeTo(new DataOutputStream(bytes));
+        ReplicaMessage read = ReplicaMessage.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 2);
+        assertTrue(read.isFull());
+        assertTrue(read.isJoining());
+        assertThrows(IOException.class,
+            () -> ReplicaMessage.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 3));
+        
+        // A node count of 2^16 would need 2^32 transfer entries per state; a huge count, huge lists
+        for (int[] header : new int[][] {{0, 1 << 16, 0, 1}, {0, 2, 0, Integer.MAX_VALUE}, {5, 2, 0, 1}, {0, 2, 8, 0}}) {
+            ByteArrayOutputStream malformed = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(malformed);
+            for (int value : header) {
+                out.writeInt(value);
+            }
+            assertThrows(IOException.class,
+                () -> ReplicaMessage.readFrom(new DataInputStream(new ByteArrayInputStream(malformed.toByteArray())), 2));
+        }
+    }
+}
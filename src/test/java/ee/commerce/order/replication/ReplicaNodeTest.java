@@ -0,0 +1,209 @@
+package ee.commerce.order.replication;
+
+import ee.commerce.order.inventory.StockStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplicaNode and ReplicatedStockStore.
+ * Nodes run in one process, connected by an in-process network or loopback sockets.
+ */
+@DisplayName("Replica Node Tests")
+class ReplicaNodeTest {
+    
+    private static final int PRODUCT_ID = 7;
+    
+    private final List<ReplicaNode> nodes = new ArrayList<>();
+    private final InProcessNetwork network = new InProcessNetwork();
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ReplicaNode node : nodes) {
+            node.close();
+        }
+        network.close();
+    }
+    
+    @Test
+    @DisplayName("Should spread seeded stock over all nodes")
+    void testRebalance() throws IOException {
+        ReplicatedStockStore[] stores = startCluster(3, 10);
+        assertTrue(stores[0].setIfAbsent(PRODUCT_ID, 90));
+        assertFalse(stores[1].setIfAbsent(PRODUCT_ID + 1, 10));
+        assertFalse(stores[0].setIfAbsent(PRODUCT_ID, 10));
+        
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.getLocalRights(PRODUCT_ID) >= 15));
+        for (ReplicatedStockStore store : stores) {
+            assertEquals(90, store.get(PRODUCT_ID));
+            assertEquals(1, store.size());
+            assertTrue(store.tryReserve(PRODUCT_ID, 15));
+        }
+        
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.getStock(PRODUCT_ID) == 45));
+        assertEquals(StockStore.ABSENT, stores[1].get(PRODUCT_ID + 1));
+        assertThrows(IllegalStateException.class, () -> stores[1].set(PRODUCT_ID, 5));
+        assertThrows(IllegalStateException.class, stores[2]::clear);
+    }
+    
+    @Test
+    @DisplayName("Should never oversell under concurrent reservations on all nodes")
+    void testNoOversell() throws Exception {
+        ReplicatedStockStore[] stores = startCluster(3, 5);
+        stores[0].setIfAbsent(PRODUCT_ID, 300);
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.contains(PRODUCT_ID)));
+        
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        for (int i = 0; i < 6; i++) {
+            ReplicatedStockStore store = stores[i % stores.length];
+            executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+                while (System.nanoTime() < deadline) {
+                    if (store.tryReserve(PRODUCT_ID, 1)) {
+                        reserved.incrementAndGet();
+                    } else {
+                        Thread.sleep(1);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        assertTrue(reserved.get() <= 300);
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.getStock(PRODUCT_ID) == 300 - reserved.get()));
+    }
+    
+    @Test
+    @DisplayName("Should keep reserving during a partition and converge afterwards")
+    void testPartition() throws IOException {
+        ReplicatedStockStore[] stores = startCluster(2, 10);
+        stores[0].setIfAbsent(PRODUCT_ID, 20);
+        awaitUntil(() -> nodes.get(1).getLocalRights(PRODUCT_ID) == 10);
+        
+        network.isolate(1);
+        assertTrue(stores[0].tryReserve(PRODUCT_ID, 10));
+        assertTrue(stores[1].tryReserve(PRODUCT_ID, 4));
+        assertTrue(stores[1].release(PRODUCT_ID, 1));
+        assertFalse(stores[1].tryReserve(PRODUCT_ID, 8));
+        assertEquals(10, stores[0].get(PRODUCT_ID));
+        
+        network.reconnect(1);
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.getStock(PRODUCT_ID) == 7));
+    }
+    
+    @Test
+    @DisplayName("Should not seed or reserve again after the seed node restarts")
+    void testSeedNodeRestart() throws IOException {
+        ReplicatedStockStore[] stores = startCluster(2, 10);
+        assertTrue(stores[0].setIfAbsent(PRODUCT_ID, 20));
+        awaitUntil(() -> nodes.get(1).getLocalRights(PRODUCT_ID) == 10);
+        assertTrue(stores[0].tryReserve(PRODUCT_ID, 10));
+        awaitUntil(() -> nodes.get(1).getStock(PRODUCT_ID) == 10);
+        
+        nodes.get(0).close();
+        network.isolate(1);
+        ReplicaNode restarted = new ReplicaNode(0, 2, network.transport());
+        nodes.set(0, restarted);
+        ReplicatedStockStore store = new ReplicatedStockStore(restarted);
+        restarted.start(10);
+        // Until node 1 is heard from, the restarted node does not know what it did before
+        assertFalse(store.setIfAbsent(PRODUCT_ID, 20));
+        assertFalse(store.setIfAbsent(PRODUCT_ID + 1, 5));
+        assertFalse(store.tryReserve(PRODUCT_ID, 1));
+        assertFalse(store.release(PRODUCT_ID, 1));
+        assertFalse(restarted.isReady());
+        
+        network.reconnect(1);
+        awaitUntil(restarted::isReady);
+        assertEquals(10, store.get(PRODUCT_ID));
+        // Its own 10 units are reserved; at most node 1's spare half can have come back
+        assertTrue(restarted.getLocalRights(PRODUCT_ID) <= 5);
+        assertFalse(store.tryReserve(PRODUCT_ID, 6));
+        assertEquals(5, store.get(PRODUCT_ID + 1));
+        awaitUntil(() -> nodes.get(1).getStock(PRODUCT_ID + 1) == 5);
+        assertEquals(10, nodes.get(1).getStock(PRODUCT_ID));
+    }
+    
+    @Test
+    @DisplayName("Should replicate over loopback sockets")
+    void testSocketTransport() throws IOException {
+        List<InetSocketAddress> addresses = List.of(freeAddress(), freeAddress());
+        ReplicaNode[] cluster = new ReplicaNode[addresses.size()];
+        for (int id = 0; id < cluster.length; id++) {
+            cluster[id] = new ReplicaNode(id, cluster.length, new SocketTransport(addresses));
+            nodes.add(cluster[id]);
+        }
+        for (ReplicaNode node : cluster) {
+            node.start(10);
+        }
+        awaitUntil(() -> cluster[0].isReady() && cluster[1].isReady());
+        cluster[0].add(PRODUCT_ID, 50);
+        
+        awaitUntil(() -> cluster[1].getLocalRights(PRODUCT_ID) >= 25);
+        assertTrue(cluster[1].reserve(PRODUCT_ID, 20));
+        awaitUntil(() -> cluster[0].getStock(PRODUCT_ID) == 30);
+    }
+    
+    @Test
+    @DisplayName("Should parse peer address lists")
+    void testParseAddresses() {
+        List<InetSocketAddress> addresses = SocketTransport.parseAddresses("localhost:7001, 127.0.0.1:7002");
+        
+        assertEquals(2, addresses.size());
+        assertEquals(7002, addresses.get(1).getPort());
+        assertThrows(IllegalArgumentException.class, () -> SocketTransport.parseAddresses("localhost"));
+        assertThrows(IllegalArgumentException.class, () -> SocketTransport.parseAddresses("localhost:http"));
+    }
+    
+    private ReplicatedStockStore[] startCluster(int size, long syncIntervalMillis) throws IOException {
+        ReplicatedStockStore[] stores = new ReplicatedStockStore[size];
+        for (int id = 0; id < size; id++) {
+            ReplicaNode node = new ReplicaNode(id, size, network.transport());
+            node.start(syncIntervalMillis);
+            nodes.add(node);
+            stores[id] = new ReplicatedStockStore(node);
+        }
+        awaitUntil(() -> nodes.stream().allMatch(ReplicaNode::isReady));
+        return stores;
+    }
+    
+    private static InetSocketAddress freeAddress() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+        }
+    }
+    
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Replicas did not converge in time");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
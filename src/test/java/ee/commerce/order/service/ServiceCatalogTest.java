@@ -0,0 +1,80 @@
+package ee.commerce.order.service;
+
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.decorator.GreetingCardDecorator;
+import ee.commerce.order.pricing.ServiceMask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ServiceCatalog.
+ * Tests configuration loading and the built-in service entries.
+ */
+@DisplayName("Service Catalog Tests")
+class ServiceCatalogTest {
+    
+    @Test
+    @DisplayName("Should load the existing decorators as catalog entries")
+    void testDefaultCatalogMatchesDecorators() {
+        ServiceCatalog catalog = ServiceCatalog.getDefault();
+        
+        ServiceDefinition gift = catalog.getService(ServiceCatalog.GIFT_WRAPPING);
+        ServiceDefinition express = catalog.getService(ServiceCatalog.EXPRESS_SHIPPING);
+        ServiceDefinition card = catalog.getService(ServiceCatalog.GREETING_CARD);
+        
+        assertEquals(GiftWrappingDecorator.getServiceCost(), gift.getPrice());
+        assertEquals(GiftWrappingDecorator.getServiceDescription(), gift.getDescription());
+        assertEquals(ServiceMask.GIFT_WRAPPING, gift.getBit());
+        
+        assertEquals(ExpressShippingDecorator.getServiceCost(), express.getPrice());
+        assertEquals(ExpressShippingDecorator.getServiceDescription(), express.getDescription());
+        assertEquals(ServiceMask.EXPRESS_SHIPPING, express.getBit());
+        
+        assertEquals(GreetingCardDecorator.getServiceCost(), card.getPrice());
+        assertEquals(GreetingCardDecorator.getServiceDescription(), card.getDescription());
+        assertEquals(ServiceMask.GREETING_CARD, card.getBit());
+        assertEquals("Palju õnne!", card.getDefaultParameter("message"));
+    }
+    
+    @Test
+    @DisplayName("Should load custom services from configuration")
+    void testLoadCustomConfiguration() throws IOException {
+        String config = "services=insurance, assembly\n"
+            + "service.insurance.description=Kindlustus\n"
+            + "service.insurance.price=12.50\n"
+            + "service.assembly.description=Paigaldus\n"
+            + "service.assembly.price=30\n"
+            + "service.assembly.param.date=ASAP\n"
+            + "service.assembly.prompt.date=Sisesta kuupäev\n";
+        
+        ServiceCatalog catalog = ServiceCatalog.load(new StringReader(config));
+        
+        assertEquals(2, catalog.size());
+        assertEquals(new BigDecimal("12.50"), catalog.getService("insurance").getPrice());
+        assertEquals(1, catalog.getService("assembly").getIndex());
+        assertEquals(3_000L, catalog.getService(1).getPriceCents());
+        assertEquals("ASAP", catalog.getService("assembly").getDefaultParameter("date"));
+        assertEquals("Sisesta kuupäev", catalog.getService("assembly").getParameterPrompt("date"));
+        assertNull(catalog.getService("gift-wrapping"));
+    }
+    
+    @Test
+    @DisplayName("Should reject invalid configuration")
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () ->
+            ServiceCatalog.load(new StringReader("services=a\nservice.a.description=A\n")));
+        assertThrows(IllegalArgumentException.class, () ->
+            ServiceCatalog.load(new StringReader("services=a\nservice.a.description=A\nservice.a.price=x\n")));
+        assertThrows(IllegalArgumentException.class, () ->
+            ServiceCatalog.load(new StringReader("services=a\nservice.a.price=1.00\n")));
+        assertThrows(IllegalArgumentException.class, () ->
+            ServiceCatalog.load(new StringReader("services=a,a\nservice.a.description=A\nservice.a.price=1\n")));
+    }
+}
@@ -0,0 +1,81 @@
+package ee.commerce.order.service;
+
+import ee.commerce.order.BasicOrder;
+import ee.commerce.order.Order;
+import ee.commerce.order.decorator.ExpressShippingDecorator;
+import ee.commerce.order.decorator.GiftWrappingDecorator;
+import ee.commerce.order.decorator.GreetingCardDecorator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ServiceOrder.
+ * Verifies that registry-based services price like the decorator chain.
+ */
+@DisplayName("Service Order Tests")
+class ServiceOrderTest {
+    
+    private Order baseOrder;
+    
+    @BeforeEach
+    void setUp() {
+        baseOrder = new BasicOrder("Test Product", new BigDecimal("100.00"));
+    }
+    
+    @Test
+    @DisplayName("Should price and describe all services like the decorator chain")
+    void testMatchesDecoratorChain() {
+        Order chain = new GreetingCardDecorator(new ExpressShippingDecorator(new GiftWrappingDecorator(baseOrder)));
+        ServiceOrder order = new ServiceOrder(baseOrder)
+            .withService(ServiceCatalog.GIFT_WRAPPING)
+            .withService(ServiceCatalog.EXPRESS_SHIPPING)
+            .withService(ServiceCatalog.GREETING_CARD);
+        
+        assertEquals(chain.calculateTotal(), order.calculateTotal());
+        assertEquals(chain.calculateTotalCents(), order.calculateTotalCents());
+        assertEquals(chain.getDescription(), order.getDescription());
+        assertSame(baseOrder, order.getBaseOrder());
+    }
+    
+    @Test
+    @DisplayName("Should keep each service at most once")
+    void testServiceSetSemantics() {
+        ServiceOrder order = new ServiceOrder(baseOrder)
+            .withService(ServiceCatalog.GIFT_WRAPPING)
+            .withService(ServiceCatalog.GIFT_WRAPPING);
+        
+        assertEquals(new BigDecimal("105.00"), order.calculateTotal());
+        assertEquals(1, order.getServices().size());
+        assertTrue(order.hasService(ServiceCatalog.GIFT_WRAPPING));
+        
+        ServiceOrder removed = order.withoutService(ServiceCatalog.GIFT_WRAPPING);
+        assertFalse(removed.hasService(ServiceCatalog.GIFT_WRAPPING));
+        assertEquals(baseOrder.calculateTotal(), removed.calculateTotal());
+    }
+    
+    @Test
+    @DisplayName("Should store service parameters with defaults")
+    void testServiceParameters() {
+        ServiceOrder withDefault = new ServiceOrder(baseOrder).withService(ServiceCatalog.GREETING_CARD);
+        ServiceOrder withMessage = new ServiceOrder(baseOrder)
+            .withService(ServiceCatalog.GREETING_CARD, Map.of("message", "  Head sünnipäeva!  "));
+        
+        assertEquals("Palju õnne!", withDefault.getParameter(ServiceCatalog.GREETING_CARD, "message"));
+        assertEquals("Head sünnipäeva!", withMessage.getParameter(ServiceCatalog.GREETING_CARD, "message"));
+        assertThrows(IllegalArgumentException.class, () ->
+            new ServiceOrder(baseOrder).withService(ServiceCatalog.GREETING_CARD, Map.of("colour", "red")));
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown services and null orders")
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new ServiceOrder(baseOrder).withService("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> new ServiceOrder(null));
+    }
+}